@@ -0,0 +1,216 @@
+package org.example.api;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import org.example.core.compression.CompressionCodecs;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Picks the request compression per call from the size of the message instead of always using gzip.
+ * <ul>
+ *     <li>below {@code minBytes}: sent uncompressed, since a few dozen bytes of protobuf do not shrink
+ *     and the codec header and CPU cost are pure overhead</li>
+ *     <li>from {@code minBytes}: the cheap {@code codec} (lz4 by default)</li>
+ *     <li>from {@code gzipBytes}: gzip, where the better ratio pays for the CPU</li>
+ * </ul>
+ * The codec is fixed per call by the {@code grpc-encoding} header, which goes out before the first
+ * message. Single-request calls therefore start lazily, once that message and its size are known.
+ * Streaming calls always use {@code codec} and turn compression on or off per message.
+ * A codec set explicitly on the stub's {@code CallOptions} is left alone.
+ */
+public class AdaptiveCompressionInterceptor implements ClientInterceptor {
+
+    private final int minBytes;
+    private final String codec;
+    private final int gzipBytes;
+
+    private final LongAdder uncompressedMessages = new LongAdder();
+    private final LongAdder uncompressedBytes = new LongAdder();
+
+    /**
+     * @param gzipBytes size from which single messages use gzip, or {@code 0} to always use {@code codec}
+     */
+    public AdaptiveCompressionInterceptor(int minBytes, String codec, int gzipBytes, CompressionCodecs codecs) {
+        if (!codecs.supports(codec)) {
+            throw new IllegalArgumentException("Unknown compression codec: " + codec);
+        }
+        this.minBytes = minBytes;
+        this.codec = codec;
+        this.gzipBytes = gzipBytes;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        if (callOptions.getCompressor() != null) {
+            return next.newCall(method, callOptions);
+        }
+        if (method.getType().clientSendsOneMessage()) {
+            return new DeferredCall<>(method, callOptions, next);
+        }
+        return new PerMessageCall<>(next.newCall(method, callOptions.withCompression(codec)));
+    }
+
+    /**
+     * @return the codec for one message, or {@code null} to send it uncompressed
+     */
+    String codecFor(int size) {
+        if (size >= 0 && size < minBytes) {
+            return null;
+        }
+        return gzipBytes > 0 && (size < 0 || size >= gzipBytes) ? "gzip" : codec;
+    }
+
+    public Map<String, Long> toMap() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("uncompressedMessages", uncompressedMessages.sum());
+        stats.put("uncompressedBytes", uncompressedBytes.sum());
+        return stats;
+    }
+
+    private static int serializedSize(Object message) {
+        // Protobuf memoizes the size, so the marshaller does not compute it again
+        return message instanceof MessageLite lite ? lite.getSerializedSize() : -1;
+    }
+
+    private void recordUncompressed(int size) {
+        uncompressedMessages.increment();
+        uncompressedBytes.add(size);
+    }
+
+    private final class PerMessageCall<ReqT, RespT> extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+        private PerMessageCall(ClientCall<ReqT, RespT> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void sendMessage(ReqT message) {
+            int size = serializedSize(message);
+            boolean compress = codecFor(size) != null;
+            if (!compress) {
+                recordUncompressed(size);
+            }
+            delegate().setMessageCompression(compress);
+            super.sendMessage(message);
+        }
+    }
+
+    /**
+     * Holds {@code start} and {@code request} until the single request message arrives, then opens the
+     * real call with the codec its size calls for.
+     */
+    private final class DeferredCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+        private final MethodDescriptor<ReqT, RespT> method;
+        private final CallOptions callOptions;
+        private final Channel next;
+
+        private Listener<RespT> listener;
+        private Metadata headers;
+        private ClientCall<ReqT, RespT> delegate;
+        private int requested;
+        private boolean cancelled;
+
+        private DeferredCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+            this.method = method;
+            this.callOptions = callOptions;
+            this.next = next;
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            this.listener = responseListener;
+            this.headers = headers;
+        }
+
+        @Override
+        public void request(int numMessages) {
+            ClientCall<ReqT, RespT> call;
+            synchronized (this) {
+                if (delegate == null) {
+                    requested += numMessages;
+                    return;
+                }
+                call = delegate;
+            }
+            call.request(numMessages);
+        }
+
+        @Override
+        public void sendMessage(ReqT message) {
+            int size = serializedSize(message);
+            String encoding = codecFor(size);
+            if (encoding == null) {
+                recordUncompressed(size);
+            }
+            ClientCall<ReqT, RespT> call = open(encoding == null ? callOptions : callOptions.withCompression(encoding));
+            if (call != null) {
+                call.sendMessage(message);
+            }
+        }
+
+        @Override
+        public void halfClose() {
+            ClientCall<ReqT, RespT> call = open(callOptions);
+            if (call != null) {
+                call.halfClose();
+            }
+        }
+
+        @Override
+        public void cancel(String message, Throwable cause) {
+            ClientCall<ReqT, RespT> call;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                call = delegate;
+            }
+            if (call != null) {
+                call.cancel(message, cause);
+            } else if (listener != null) {
+                listener.onClose(Status.CANCELLED.withDescription(message).withCause(cause), new Metadata());
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            ClientCall<ReqT, RespT> call;
+            synchronized (this) {
+                call = delegate;
+            }
+            return call == null || call.isReady();
+        }
+
+        @Override
+        public void setMessageCompression(boolean enabled) {
+            // Decided per message by size
+        }
+
+        /**
+         * @return the started call, or {@code null} once cancelled before it was opened
+         */
+        private synchronized ClientCall<ReqT, RespT> open(CallOptions options) {
+            if (delegate == null && !cancelled) {
+                delegate = next.newCall(method, options);
+                delegate.start(listener, headers);
+                if (requested > 0) {
+                    delegate.request(requested);
+                }
+            }
+            return delegate;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps in-flight engine RPCs at a limit that follows the observed latency, in the style of TCP Vegas.
+ * <p>
+ * The limiter keeps the lowest latency seen as the no-load baseline, renewed every {@code RTT_WINDOW}
+ * samples from the lowest of those samples, and estimates the engine-side queue as
+ * {@code limit * (1 - minRtt / rtt)}:
+ * <ul>
+ *     <li>a queue under {@code alpha} while the limit is actually in use grows the limit</li>
+ *     <li>a queue over {@code beta} shrinks it</li>
+ *     <li>a dropped call (deadline, overload) cuts it multiplicatively</li>
+ * </ul>
+ * Callers over the limit are rejected immediately instead of queueing. Calls whose duration does not
+ * reflect engine latency, such as batches streamed by the client, hold a permit but only feed drops back
+ * ({@link #releaseUnsampled}), so they never skew the baseline or read as queueing.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int RTT_WINDOW = 1000;
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private long minRttNanos = Long.MAX_VALUE;
+    private long windowMinRttNanos = Long.MAX_VALUE;
+    private int samples;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Need 1 <= min <= initial <= max limit, got "
+                    + minLimit + " <= " + initialLimit + " <= " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+    }
+
+    /**
+     * @return the number of calls in flight including this one, or {@code -1} when over the limit
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Releases a permit taken by {@link #tryAcquire()} and feeds its outcome into the limit.
+     *
+     * @param inFlightAtStart what {@link #tryAcquire()} returned
+     * @param didDrop         whether the call failed in a way that signals overload
+     */
+    public void release(long rttNanos, int inFlightAtStart, boolean didDrop) {
+        inFlight.decrementAndGet();
+        if (didDrop) {
+            dropped.increment();
+        }
+        update(rttNanos, inFlightAtStart, didDrop);
+    }
+
+    /**
+     * Releases a permit taken by {@link #tryAcquire()} for a call whose duration says nothing about engine
+     * latency; only a drop feeds into the limit.
+     */
+    public void releaseUnsampled(boolean didDrop) {
+        inFlight.decrementAndGet();
+        if (didDrop) {
+            dropped.increment();
+            backOff();
+        }
+    }
+
+    private synchronized void backOff() {
+        estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF);
+        limit = (int) estimatedLimit;
+    }
+
+    private synchronized void update(long rttNanos, int inFlightAtStart, boolean didDrop) {
+        if (rttNanos > 0) {
+            minRttNanos = Math.min(minRttNanos, rttNanos);
+            windowMinRttNanos = Math.min(windowMinRttNanos, rttNanos);
+        }
+        if (++samples >= RTT_WINDOW) {
+            // Forget the old baseline now and then so a permanently slower engine is not seen as congested.
+            // The new one is the best of the window just ended, not its last sample, which may have queued
+            samples = 0;
+            minRttNanos = windowMinRttNanos;
+            windowMinRttNanos = Long.MAX_VALUE;
+        }
+
+        double current = estimatedLimit;
+        double step = Math.max(1, Math.log10(current));
+        if (didDrop) {
+            current *= BACKOFF;
+        } else {
+            double queue = current * (1 - (double) minRttNanos / Math.max(rttNanos, 1));
+            if (queue >= 6 * step) {
+                current -= step;
+            } else if (queue <= 3 * step && inFlightAtStart * 2 >= current) {
+                current += step;
+            }
+        }
+        estimatedLimit = Math.min(maxLimit, Math.max(minLimit, current));
+        limit = (int) estimatedLimit;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public Map<String, Long> toMap() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("limit", (long) limit);
+        stats.put("inFlight", (long) inFlight.get());
+        stats.put("accepted", accepted.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("dropped", dropped.sum());
+        return stats;
+    }
+}
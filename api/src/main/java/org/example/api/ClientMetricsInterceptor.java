@@ -0,0 +1,104 @@
+package org.example.api;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServiceDescriptor;
+import io.grpc.Status;
+import org.example.core.metrics.LatencyRecorder;
+import org.example.core.metrics.Metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-method client metrics, under {@code grpc.client.<Method>}:
+ * <ul>
+ *     <li>round-trip latency from start to close</li>
+ *     <li>calls in flight</li>
+ *     <li>errors, including calls the concurrency limiter rejected when this runs first</li>
+ *     <li>request and response bytes, as serialized protobuf before compression</li>
+ * </ul>
+ * Metrics are resolved up front, so a call costs a map lookup plus allocation-free recordings.
+ */
+public class ClientMetricsInterceptor implements ClientInterceptor {
+
+    private final Map<String, MethodMetrics> methods = new HashMap<>();
+
+    public ClientMetricsInterceptor(Metrics metrics, ServiceDescriptor service) {
+        for (MethodDescriptor<?, ?> method : service.getMethods()) {
+            methods.put(method.getFullMethodName(), new MethodMetrics(metrics, "grpc.client." + method.getBareMethodName()));
+        }
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        MethodMetrics metrics = methods.get(method.getFullMethodName());
+        ClientCall<ReqT, RespT> call = next.newCall(method, callOptions);
+        return metrics == null ? call : new MeteredCall<>(call, metrics);
+    }
+
+    private static int serializedSize(Object message) {
+        return message instanceof MessageLite lite ? lite.getSerializedSize() : 0;
+    }
+
+    private record MethodMetrics(LatencyRecorder latency, LongAdder inFlight, LongAdder errors,
+                                 LongAdder requestBytes, LongAdder responseBytes) {
+
+        MethodMetrics(Metrics metrics, String prefix) {
+            this(metrics.latency(prefix),
+                    metrics.counter(prefix + ".inFlight"),
+                    metrics.counter(prefix + ".errors"),
+                    metrics.counter(prefix + ".requestBytes"),
+                    metrics.counter(prefix + ".responseBytes"));
+        }
+    }
+
+    private static final class MeteredCall<ReqT, RespT> extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+        private final MethodMetrics metrics;
+
+        private MeteredCall(ClientCall<ReqT, RespT> delegate, MethodMetrics metrics) {
+            super(delegate);
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            long startNanos = System.nanoTime();
+            metrics.inFlight.increment();
+            super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                @Override
+                public void onMessage(RespT message) {
+                    metrics.responseBytes.add(serializedSize(message));
+                    super.onMessage(message);
+                }
+
+                @Override
+                public void onClose(Status status, Metadata trailers) {
+                    // gRPC calls onClose exactly once per started call
+                    metrics.latency.recordSince(startNanos);
+                    metrics.inFlight.decrement();
+                    if (!status.isOk()) {
+                        metrics.errors.increment();
+                    }
+                    super.onClose(status, trailers);
+                }
+            }, headers);
+        }
+
+        @Override
+        public void sendMessage(ReqT message) {
+            metrics.requestBytes.add(serializedSize(message));
+            super.sendMessage(message);
+        }
+    }
+}
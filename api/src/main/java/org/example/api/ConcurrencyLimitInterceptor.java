@@ -0,0 +1,119 @@
+package org.example.api;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Puts every engine call through an {@link AdaptiveConcurrencyLimiter} and gives calls without one a
+ * deadline. Calls over the limit fail at once with {@code RESOURCE_EXHAUSTED}, without touching the
+ * network. Long-lived bidirectional streams are exempt: they would hold a permit for their whole life
+ * and their duration says nothing about engine latency. Client-streaming batches take a permit, but last
+ * as long as the batch takes to send and apply, so only their drops are fed back to the limit.
+ */
+public class ConcurrencyLimitInterceptor implements ClientInterceptor {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final long deadlineMillis;
+
+    public ConcurrencyLimitInterceptor(AdaptiveConcurrencyLimiter limiter, long deadlineMillis) {
+        this.limiter = limiter;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        if (method.getType() == MethodDescriptor.MethodType.BIDI_STREAMING) {
+            return next.newCall(method, callOptions);
+        }
+        if (callOptions.getDeadline() == null) {
+            callOptions = callOptions.withDeadlineAfter(deadlineMillis, TimeUnit.MILLISECONDS);
+        }
+        return new LimitedCall<>(next.newCall(method, callOptions),
+                method.getType() != MethodDescriptor.MethodType.CLIENT_STREAMING);
+    }
+
+    private static boolean isDrop(Status.Code code) {
+        return code == Status.Code.DEADLINE_EXCEEDED
+                || code == Status.Code.RESOURCE_EXHAUSTED
+                || code == Status.Code.UNAVAILABLE;
+    }
+
+    private final class LimitedCall<ReqT, RespT> extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+        private final boolean sampled;
+        private boolean rejected;
+
+        private LimitedCall(ClientCall<ReqT, RespT> delegate, boolean sampled) {
+            super(delegate);
+            this.sampled = sampled;
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            int inFlightAtStart = limiter.tryAcquire();
+            if (inFlightAtStart < 0) {
+                rejected = true;
+                responseListener.onClose(Status.RESOURCE_EXHAUSTED
+                        .withDescription("Engine concurrency limit of " + limiter.limit() + " reached"), new Metadata());
+                return;
+            }
+            long startNanos = System.nanoTime();
+            super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                @Override
+                public void onClose(Status status, Metadata trailers) {
+                    if (sampled) {
+                        limiter.release(System.nanoTime() - startNanos, inFlightAtStart, isDrop(status.getCode()));
+                    } else {
+                        limiter.releaseUnsampled(isDrop(status.getCode()));
+                    }
+                    super.onClose(status, trailers);
+                }
+            }, headers);
+        }
+
+        // A rejected call was never started, so everything else is a no-op
+
+        @Override
+        public void request(int numMessages) {
+            if (!rejected) {
+                super.request(numMessages);
+            }
+        }
+
+        @Override
+        public void sendMessage(ReqT message) {
+            if (!rejected) {
+                super.sendMessage(message);
+            }
+        }
+
+        @Override
+        public void halfClose() {
+            if (!rejected) {
+                super.halfClose();
+            }
+        }
+
+        @Override
+        public void cancel(String message, Throwable cause) {
+            if (!rejected) {
+                super.cancel(message, cause);
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return !rejected && super.isReady();
+        }
+    }
+}
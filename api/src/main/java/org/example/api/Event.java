@@ -4,7 +4,9 @@ public record Event(
         String id,
         String name,
         String description,
-        String date
+        String date,
+        // Numeric id of the liking user; likes and unlikes are idempotent per user. Null is anonymous
+        Long userId
 ) {
     // No additional methods or fields are needed for this record class) {
 }
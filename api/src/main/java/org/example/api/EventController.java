@@ -8,6 +8,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.ManagedChannel;
 import io.grpc.stub.StreamObserver;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -19,9 +20,10 @@ import java.util.List;
 import java.util.ArrayList;
 import org.springframework.beans.factory.annotation.Qualifier;
 
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("")
@@ -31,23 +33,43 @@ public class EventController {
     private final LikeServiceGrpc.LikeServiceStub likeServiceStub;
     private final LikeServiceGrpc.LikeServiceBlockingStub likeServiceBlockingStub;
     private final LikeServiceGrpc.LikeServiceFutureStub likeServiceFutureStub;
+    private final LikeStreamClient likeStreamClient;
+    private final LikeCoalescer likeCoalescer;
+    private final ShardedChannel channel;
+    // Batches are split per engine and sent straight to each
+    private final List<LikeServiceGrpc.LikeServiceStub> shardStubs = new ArrayList<>();
 
     @Autowired
     public EventController(
             LikeServiceGrpc.LikeServiceStub likeServiceStub,
             LikeServiceGrpc.LikeServiceBlockingStub likeServiceBlockingStub,
-            LikeServiceGrpc.LikeServiceFutureStub likeServiceFutureStub) {
+            LikeServiceGrpc.LikeServiceFutureStub likeServiceFutureStub,
+            LikeStreamClient likeStreamClient,
+            LikeCoalescer likeCoalescer,
+            ManagedChannel channel) {
+        this.channel = ShardedChannel.of(channel);
+        for (int shard = 0; shard < this.channel.shards(); shard++) {
+            shardStubs.add(LikeServiceGrpc.newStub(this.channel.shard(shard)));
+        }
         this.likeServiceStub = likeServiceStub;
         this.likeServiceBlockingStub = likeServiceBlockingStub;
         this.likeServiceFutureStub = likeServiceFutureStub;
+        this.likeStreamClient = likeStreamClient;
+        this.likeCoalescer = likeCoalescer;
     }
 
     @PostMapping("/like")
     public CompletableFuture<String> like(@RequestBody Event event) {
 //        System.out.println("Received like request: " + event);
 
+        EventOuterClass.Event protoEvent = EventMapper.toProto(event);
+        if (likeCoalescer.enabled()) {
+            // Concurrent likes share one BatchLike call; the reply is unchanged
+            return likeCoalescer.like(protoEvent)
+                    .thenApply(response -> "Like event processed successfully. Response ID: " + response.getId());
+        }
+
         CompletableFuture<String> responseFuture = new CompletableFuture<>();
-        EventOuterClass.Event protoEvent = convertToProto(event);
 
         // Initiate async gRPC server-streaming call
 //        likeServiceStub.withDeadlineAfter(200, TimeUnit.MILLISECONDS)
@@ -73,14 +95,19 @@ public class EventController {
 //                });
 //
 //        return responseFuture;
-        ListenableFuture<EventOuterClass.Event> future = likeServiceFutureStub.likeEvent(protoEvent);
-        future.addListener(() -> {
-            try {
-                responseFuture.complete("Like event processed successfully. Response ID: " + future.get().getId());
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            } catch (ExecutionException e) {
-                throw new RuntimeException(e);
+        ListenableFuture<EventOuterClass.Event> future = likeServiceFutureStub
+                .withOption(ShardedChannel.EVENT_ID, protoEvent.getId())
+                .likeEvent(protoEvent);
+        // Failures must reach the HTTP response (429/503 on overload), not be thrown on the gRPC thread
+        Futures.addCallback(future, new FutureCallback<>() {
+            @Override
+            public void onSuccess(EventOuterClass.Event response) {
+                responseFuture.complete("Like event processed successfully. Response ID: " + response.getId());
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                responseFuture.completeExceptionally(throwable);
             }
         }, MoreExecutors.directExecutor());
         return responseFuture;
@@ -88,82 +115,163 @@ public class EventController {
     
     @PostMapping("/batch-like")
     public CompletableFuture<List<String>> batchLike(@RequestBody List<Event> events) {
+        // One client-streaming call per engine instead of one unary call per event
+        return streamBatch(events, LikeServiceGrpc.LikeServiceStub::batchLike, EventMapper::toProto,
+                "Like event processed successfully. Response ID: ", "Like event processed, but no response received.");
+    }
+
+    /**
+     * Likes a single event over the shared long-lived bidirectional stream.
+     */
+    @PostMapping("/stream/like")
+    public CompletableFuture<String> streamLike(@RequestBody Event event) {
+        return likeStreamClient.like(EventMapper.toProto(event))
+                .thenApply(response -> "Like event processed successfully. Response ID: " + response.getId());
+    }
+
+    /**
+     * Scatters {@code events} over the engines owning them, one client-streaming call per engine, and
+     * gathers the replies back into request order, one result per event. Events whose engine's call fails
+     * get an {@code "Error: ..."} result; the others are unaffected.
+     */
+    private CompletableFuture<List<String>> streamBatch(
+            List<Event> events,
+            BiFunction<LikeServiceGrpc.LikeServiceStub, StreamObserver<EventOuterClass.BatchResponse>, StreamObserver<EventOuterClass.Event>> call,
+            Function<Event, EventOuterClass.Event> converter,
+            String successPrefix,
+            String noResponse) {
         CompletableFuture<List<String>> finalResult = new CompletableFuture<>();
-        
+
         try {
-            List<CompletableFuture<String>> futures = new ArrayList<>(events.size());
-            
-            for (Event event : events) {
-                CompletableFuture<String> future = new CompletableFuture<>();
-                futures.add(future);
-                
-                EventOuterClass.Event protoEvent = convertToProto(event);
-                
-                likeServiceStub.likeEvent(protoEvent, new StreamObserver<EventOuterClass.Event>() {
-                    @Override
-                    public void onNext(EventOuterClass.Event response) {
-                        future.complete("Like event processed successfully. Response ID: " + response.getId());
-                    }
-                    
-                    @Override
-                    public void onError(Throwable throwable) {
-                        future.completeExceptionally(throwable);
-                    }
-                    
-                    @Override
-                    public void onCompleted() {
-                        if (!future.isDone()) {
-                            future.complete("Like event processed, but no response received.");
-                        }
-                    }
-                });
+            List<List<EventOuterClass.Event>> requests = new ArrayList<>(shardStubs.size());
+            List<List<Integer>> positions = new ArrayList<>(shardStubs.size());
+            for (int shard = 0; shard < shardStubs.size(); shard++) {
+                requests.add(new ArrayList<>());
+                positions.add(new ArrayList<>());
             }
-            
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .thenAccept(v -> {
-                    List<String> results = new ArrayList<>(events.size());
-                    for (CompletableFuture<String> future : futures) {
-                        try {
-                            results.add(future.join());
-                        } catch (Exception e) {
-                            results.add("Error: " + e.getMessage());
+            for (int i = 0; i < events.size(); i++) {
+                EventOuterClass.Event request = converter.apply(events.get(i));
+                int shard = channel.shardOf(request.getId());
+                requests.get(shard).add(request);
+                positions.get(shard).add(i);
+            }
+
+            String[] results = new String[events.size()];
+            List<CompletableFuture<Void>> calls = new ArrayList<>();
+            for (int shard = 0; shard < shardStubs.size(); shard++) {
+                if (requests.get(shard).isEmpty()) {
+                    continue;
+                }
+                List<Integer> shardPositions = positions.get(shard);
+                CompletableFuture<EventOuterClass.BatchResponse> reply;
+                try {
+                    reply = sendBatch(shardStubs.get(shard), call, requests.get(shard));
+                } catch (RuntimeException e) {
+                    reply = CompletableFuture.failedFuture(e);
+                }
+                calls.add(reply.handle((response, throwable) -> {
+                    // Each engine fills only its own events' slots, so no two calls write the same index
+                    for (int i = 0; i < shardPositions.size(); i++) {
+                        if (throwable != null) {
+                            // As the per-event calls this replaced reported a failed event
+                            results[shardPositions.get(i)] = "Error: " + throwable;
+                        } else if (i < response.getEventsCount()) {
+                            results[shardPositions.get(i)] = successPrefix + response.getEvents(i).getId();
                         }
                     }
-                    finalResult.complete(results);
-                })
-                .exceptionally(ex -> {
-                    finalResult.completeExceptionally(ex);
                     return null;
-                });
+                }));
+            }
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).thenRun(() -> {
+                List<String> gathered = new ArrayList<>(results.length);
+                for (String result : results) {
+                    gathered.add(result != null ? result : noResponse);
+                }
+                finalResult.complete(gathered);
+            });
         } catch (Exception e) {
             finalResult.completeExceptionally(e);
         }
-        
+
         return finalResult;
     }
 
-    private EventOuterClass.Event convertToProto(Event event) {
-        return EventOuterClass.Event.newBuilder()
-                .setId(event.id() != null ? event.id() : "")
-                .setType(event.name() != null ? event.name() : "")
-                .setData(event.description() != null ? event.description() : "")
-                .setTimestamp(event.date() != null ? event.date() : "")
-                .build();
+    private static CompletableFuture<EventOuterClass.BatchResponse> sendBatch(
+            LikeServiceGrpc.LikeServiceStub stub,
+            BiFunction<LikeServiceGrpc.LikeServiceStub, StreamObserver<EventOuterClass.BatchResponse>, StreamObserver<EventOuterClass.Event>> call,
+            List<EventOuterClass.Event> events) {
+        CompletableFuture<EventOuterClass.BatchResponse> reply = new CompletableFuture<>();
+        StreamObserver<EventOuterClass.Event> requestObserver = call.apply(stub, new StreamObserver<>() {
+            @Override
+            public void onNext(EventOuterClass.BatchResponse response) {
+                reply.complete(response);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                reply.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onCompleted() {
+                if (!reply.isDone()) {
+                    reply.complete(EventOuterClass.BatchResponse.getDefaultInstance());
+                }
+            }
+        });
+
+        try {
+            for (EventOuterClass.Event event : events) {
+                requestObserver.onNext(event);
+            }
+        } catch (RuntimeException e) {
+            requestObserver.onError(e);
+            throw e;
+        }
+        requestObserver.onCompleted();
+        return reply;
+    }
+
+    /**
+     * v2 like: numeric id and epoch-micros timestamp over the compact schema, answered with the new count.
+     */
+    @PostMapping("/v2/like")
+    public CompletableFuture<LikeCount> compactLike(@RequestBody Event event) {
+        return compact(EventMapper.toCompact(event, EventOuterClass.EventType.LIKE));
+    }
+
+    @PostMapping("/v2/unlike")
+    public CompletableFuture<LikeCount> compactUnlike(@RequestBody Event event) {
+        return compact(EventMapper.toCompact(event, EventOuterClass.EventType.UNLIKE));
+    }
+
+    private CompletableFuture<LikeCount> compact(EventOuterClass.CompactEvent request) {
+        CompletableFuture<LikeCount> responseFuture = new CompletableFuture<>();
+        Futures.addCallback(likeServiceFutureStub
+                .withOption(ShardedChannel.EVENT_ID, Long.toUnsignedString(request.getId()))
+                .compactLike(request), new FutureCallback<>() {
+            @Override
+            public void onSuccess(EventOuterClass.LikeCount response) {
+                responseFuture.complete(new LikeCount(Long.toUnsignedString(response.getId()), response.getLikeCount()));
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                responseFuture.completeExceptionally(throwable);
+            }
+        }, MoreExecutors.directExecutor());
+        return responseFuture;
     }
 
     @PostMapping("/unlike")
     public CompletableFuture<String> unlike(@RequestBody Event event) {
-        System.out.println("Received unlike request: " + event);
-
         CompletableFuture<String> responseFuture = new CompletableFuture<>();
         
         try {
-            EventOuterClass.Event protoEvent = EventOuterClass.Event.newBuilder()
-                    .setId(event.id() != null ? event.id() : "")
-                    .setTimestamp(event.date() != null ? event.date() : "")
-                    .build();
-            
-            likeServiceStub.unlikeEvent(protoEvent, new StreamObserver<EventOuterClass.Event>() {
+            EventOuterClass.Event protoEvent = EventMapper.toUnlikeProto(event);
+
+            likeServiceStub.withOption(ShardedChannel.EVENT_ID, protoEvent.getId())
+                    .unlikeEvent(protoEvent, new StreamObserver<EventOuterClass.Event>() {
                 @Override
                 public void onNext(EventOuterClass.Event response) {
                     responseFuture.complete("Unlike event processed successfully. Response ID: " + response.getId());
@@ -191,60 +299,7 @@ public class EventController {
     
     @PostMapping("/batch-unlike")
     public CompletableFuture<List<String>> batchUnlike(@RequestBody List<Event> events) {
-        CompletableFuture<List<String>> finalResult = new CompletableFuture<>();
-        
-        try {
-            List<CompletableFuture<String>> futures = new ArrayList<>(events.size());
-            
-            for (Event event : events) {
-                CompletableFuture<String> future = new CompletableFuture<>();
-                futures.add(future);
-                
-                EventOuterClass.Event protoEvent = EventOuterClass.Event.newBuilder()
-                        .setId(event.id() != null ? event.id() : "")
-                        .setTimestamp(event.date() != null ? event.date() : "")
-                        .build();
-                        
-                likeServiceStub.unlikeEvent(protoEvent, new StreamObserver<EventOuterClass.Event>() {
-                    @Override
-                    public void onNext(EventOuterClass.Event response) {
-                        future.complete("Unlike event processed successfully. Response ID: " + response.getId());
-                    }
-                    
-                    @Override
-                    public void onError(Throwable throwable) {
-                        future.completeExceptionally(throwable);
-                    }
-                    
-                    @Override
-                    public void onCompleted() {
-                        if (!future.isDone()) {
-                            future.complete("Unlike event processed, but no response received.");
-                        }
-                    }
-                });
-            }
-            
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .thenAccept(v -> {
-                    List<String> results = new ArrayList<>(events.size());
-                    for (CompletableFuture<String> future : futures) {
-                        try {
-                            results.add(future.join());
-                        } catch (Exception e) {
-                            results.add("Error: " + e.getMessage());
-                        }
-                    }
-                    finalResult.complete(results);
-                })
-                .exceptionally(ex -> {
-                    finalResult.completeExceptionally(ex);
-                    return null;
-                });
-        } catch (Exception e) {
-            finalResult.completeExceptionally(e);
-        }
-        
-        return finalResult;
+        return streamBatch(events, LikeServiceGrpc.LikeServiceStub::batchUnlike, EventMapper::toUnlikeProto,
+                "Unlike event processed successfully. Response ID: ", "Unlike event processed, but no response received.");
     }
 }
@@ -0,0 +1,126 @@
+package org.example.api;
+
+import com.example.event.EventOuterClass;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the JSON {@link Event} body token by token straight into the protobuf builder, without binding an
+ * {@link Event} record first. Fields map as in {@link EventMapper}: {@code name} to type, {@code description}
+ * to data, {@code date} to timestamp; unknown fields are skipped and nulls left unset.
+ */
+public final class EventJsonReader {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private EventJsonReader() {
+    }
+
+    public static EventOuterClass.Event like(InputStream in) throws IOException {
+        return readOne(in, false);
+    }
+
+    /**
+     * Unlikes only need the id, so type and description are skipped, as in {@link EventMapper#toUnlikeProto}.
+     */
+    public static EventOuterClass.Event unlike(InputStream in) throws IOException {
+        return readOne(in, true);
+    }
+
+    /**
+     * Reads one like from {@code length} bytes of {@code bytes}, such as a line of newline-delimited JSON.
+     */
+    public static EventOuterClass.Event like(byte[] bytes, int offset, int length) throws IOException {
+        return readOne(JSON.createParser(bytes, offset, length), false);
+    }
+
+    private static EventOuterClass.Event readOne(InputStream in, boolean unlike) throws IOException {
+        return readOne(JSON.createParser(in), unlike);
+    }
+
+    private static EventOuterClass.Event readOne(JsonParser input, boolean unlike) throws IOException {
+        try (JsonParser parser = input) {
+            EventOuterClass.Event event = read(parser, unlike);
+            if (event == null) {
+                throw new JsonParseException(parser, "Empty body, expected an event object");
+            }
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Expected a single event object");
+            }
+            return event;
+        }
+    }
+
+    /**
+     * Reads the next event object from {@code parser}.
+     *
+     * @return the event, or null at the end of the input
+     */
+    public static EventOuterClass.Event read(JsonParser parser, boolean unlike) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected an event object but found " + token);
+        }
+        EventOuterClass.Event.Builder event = EventOuterClass.Event.newBuilder();
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "id" -> event.setId(text(parser, value));
+                case "name" -> {
+                    if (!unlike) {
+                        event.setType(text(parser, value));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                case "description" -> {
+                    if (!unlike) {
+                        event.setData(text(parser, value));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                case "date" -> event.setTimestamp(text(parser, value));
+                case "userId" -> event.setUserId(number(parser, value));
+                default -> parser.skipChildren();
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Unterminated event object");
+        }
+        return event.build();
+    }
+
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        if (!value.isScalarValue()) {
+            throw new JsonParseException(parser, "Expected a string for " + parser.currentName());
+        }
+        return parser.getValueAsString();
+    }
+
+    private static long number(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            try {
+                return Long.parseLong(parser.getText());
+            } catch (NumberFormatException e) {
+                // Falls through to the error below
+            }
+        }
+        throw new JsonParseException(parser, "Expected a number for " + parser.currentName());
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.api;
+
+import com.example.event.EventOuterClass;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Maps the REST {@link Event} body onto the protobuf message sent to the engine.
+ */
+public final class EventMapper {
+
+    private EventMapper() {
+    }
+
+    public static EventOuterClass.Event toProto(Event event) {
+        return EventOuterClass.Event.newBuilder()
+                .setId(event.id() != null ? event.id() : "")
+                .setType(event.name() != null ? event.name() : "")
+                .setData(event.description() != null ? event.description() : "")
+                .setTimestamp(event.date() != null ? event.date() : "")
+                .setUserId(userId(event))
+                .build();
+    }
+
+    /**
+     * Unlikes only need the id, so type and description are not sent.
+     */
+    public static EventOuterClass.Event toUnlikeProto(Event event) {
+        return EventOuterClass.Event.newBuilder()
+                .setId(event.id() != null ? event.id() : "")
+                .setTimestamp(event.date() != null ? event.date() : "")
+                .setUserId(userId(event))
+                .build();
+    }
+
+    /**
+     * Maps onto the v2 compact message. Only the id, date and user are sent: the id must be numeric and the
+     * date, when present, an ISO-8601 instant. Name and description are dropped.
+     */
+    public static EventOuterClass.CompactEvent toCompact(Event event, EventOuterClass.EventType type) {
+        return EventOuterClass.CompactEvent.newBuilder()
+                .setId(numericId(event.id()))
+                .setType(type)
+                .setTimestampMicros(epochMicros(event.date()))
+                .setUserId(userId(event))
+                .build();
+    }
+
+    private static long userId(Event event) {
+        return event.userId() != null ? event.userId() : 0L;
+    }
+
+    private static long numericId(String id) {
+        try {
+            return Long.parseUnsignedLong(id);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "v2 event ids must be numeric: " + id);
+        }
+    }
+
+    private static long epochMicros(String date) {
+        if (date == null || date.isEmpty()) {
+            return 0;
+        }
+        try {
+            return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.parse(date));
+        } catch (DateTimeException | ArithmeticException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "v2 event dates must be ISO-8601 instants: " + date);
+        }
+    }
+}
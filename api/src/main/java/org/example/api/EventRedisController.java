@@ -1,27 +1,54 @@
 package org.example.api;
 
-import io.lettuce.core.SetArgs;
-import io.lettuce.core.api.sync.RedisStringCommands;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.example.api.redis.RedisLikeClient;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The Redis side of the redis-vs-gRPC comparison. {@code /redis/like} does what {@code /like} does on the
+ * engine, an increment of the event's counter, through whichever {@link RedisLikeClient} is configured.
+ */
 @RestController
 public class EventRedisController {
 
-    private final RedisStringCommands<String, String> redisStringCommands;
+    private final RedisLikeClient redisLikeClient;
 
-    public EventRedisController(RedisStringCommands<String, String> redisStringCommands) {
-        this.redisStringCommands = redisStringCommands;
+    public EventRedisController(RedisLikeClient redisLikeClient) {
+        this.redisLikeClient = redisLikeClient;
     }
 
     @PostMapping(value = "/redis/like", consumes = "application/json")
-    public String postEventForRedis(@RequestBody Event event) {
+    public CompletableFuture<LikeCount> like(@RequestBody Event event) {
+        return add(event, 1);
+    }
+
+    @PostMapping(value = "/redis/unlike", consumes = "application/json")
+    public CompletableFuture<LikeCount> unlike(@RequestBody Event event) {
+        return add(event, -1);
+    }
 
-        SetArgs setArgs = new SetArgs();
-        setArgs.ex(1000);
-        return redisStringCommands.set("event:" + event.id(), event.date(), setArgs);
+    /**
+     * The original Redis write: stores the event date under {@code event:<id>} for 1000 seconds.
+     */
+    @PostMapping(value = "/redis/event", consumes = "application/json")
+    public CompletableFuture<String> postEventForRedis(@RequestBody Event event) {
+        return redisLikeClient.set("event:" + id(event), event.date() != null ? event.date() : "", 1000);
+    }
+
+    private CompletableFuture<LikeCount> add(Event event, long delta) {
+        String id = id(event);
+        return redisLikeClient.incrBy("likes:" + id, delta).thenApply(count -> new LikeCount(id, count));
+    }
 
+    private static String id(Event event) {
+        if (event.id() == null || event.id().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Event id is required");
+        }
+        return event.id();
     }
 }
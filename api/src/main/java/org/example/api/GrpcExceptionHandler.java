@@ -0,0 +1,56 @@
+package org.example.api;
+
+import io.grpc.Status;
+import io.grpc.StatusException;
+import io.grpc.StatusRuntimeException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Turns failed engine calls into HTTP statuses instead of a blanket 500, so load balancers and clients can
+ * tell overload apart from bugs:
+ * <ul>
+ *     <li>{@code RESOURCE_EXHAUSTED} (api concurrency limit): 429</li>
+ *     <li>{@code UNAVAILABLE} (engine shedding or down): 503</li>
+ *     <li>{@code DEADLINE_EXCEEDED}: 504</li>
+ * </ul>
+ */
+@RestControllerAdvice
+public class GrpcExceptionHandler {
+
+    @ExceptionHandler({StatusRuntimeException.class, StatusException.class})
+    public ResponseEntity<String> handle(Exception e) {
+        Status status = Status.fromThrowable(e);
+        HttpStatus httpStatus = httpStatus(status);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(httpStatus);
+        if (retryable(httpStatus)) {
+            response.header(HttpHeaders.RETRY_AFTER, "1");
+        }
+        return response.body(body(status));
+    }
+
+    static HttpStatus httpStatus(Status status) {
+        return switch (status.getCode()) {
+            case RESOURCE_EXHAUSTED -> HttpStatus.TOO_MANY_REQUESTS;
+            case UNAVAILABLE -> HttpStatus.SERVICE_UNAVAILABLE;
+            case DEADLINE_EXCEEDED -> HttpStatus.GATEWAY_TIMEOUT;
+            case INVALID_ARGUMENT -> HttpStatus.BAD_REQUEST;
+            case NOT_FOUND -> HttpStatus.NOT_FOUND;
+            default -> HttpStatus.INTERNAL_SERVER_ERROR;
+        };
+    }
+
+    /**
+     * @return whether clients should retry after a second ({@code Retry-After: 1})
+     */
+    static boolean retryable(HttpStatus httpStatus) {
+        return httpStatus == HttpStatus.TOO_MANY_REQUESTS || httpStatus == HttpStatus.SERVICE_UNAVAILABLE;
+    }
+
+    static String body(Status status) {
+        return status.getCode() + (status.getDescription() != null ? ": " + status.getDescription() : "");
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.api;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.core.metrics.LatencyRecorder;
+import org.example.core.metrics.Metrics;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records HTTP handling time under {@code http.requests}, from the request entering the filter chain to
+ * the response being complete. For async endpoints that is when the returned future completes. Also
+ * counts requests in flight and responses by status class.
+ */
+@Component
+public class HttpMetricsFilter extends OncePerRequestFilter {
+
+    private final LatencyRecorder latency;
+    private final LongAdder inFlight;
+    private final LongAdder clientErrors;
+    private final LongAdder serverErrors;
+
+    public HttpMetricsFilter(Metrics metrics) {
+        this.latency = metrics.latency("http.requests");
+        this.inFlight = metrics.counter("http.requests.inFlight");
+        this.clientErrors = metrics.counter("http.requests.4xx");
+        this.serverErrors = metrics.counter("http.requests.5xx");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long startNanos = System.nanoTime();
+        inFlight.increment();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                async = true;
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        finish(startNanos, response.getStatus());
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            }
+        } finally {
+            if (!async) {
+                finish(startNanos, response.getStatus());
+            }
+        }
+    }
+
+    private void finish(long startNanos, int status) {
+        latency.recordSince(startNanos);
+        inFlight.decrement();
+        if (status >= 500) {
+            serverErrors.increment();
+        } else if (status >= 400) {
+            clientErrors.increment();
+        }
+    }
+}
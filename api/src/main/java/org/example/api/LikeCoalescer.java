@@ -0,0 +1,167 @@
+package org.example.api;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.stub.StreamObserver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent {@code /like} requests into one {@code BatchLike} call per window.
+ * <p>
+ * The first like of a window schedules a flush {@code window} later. A full batch of {@code maxBatch}
+ * likes flushes at once. The engine answers a batch with one result per event, in request order, so each
+ * caller gets exactly the response a unary {@code LikeEvent} would have given it. With several engines each
+ * one gets its own batches, holding only the events it owns.
+ * <p>
+ * Off by default, since every like then waits up to a window; the {@code stress} profile turns it on.
+ */
+@Component
+public class LikeCoalescer {
+
+    private final ShardedChannel channel;
+    private final LikeServiceGrpc.LikeServiceStub[] likeServiceStubs;
+    private final long windowMicros;
+    private final int maxBatch;
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder likes = new LongAdder();
+
+    private final Batch[] pending;
+
+    // Example: grpc.client.coalesce.window-us=2000 (default 0 sends every like as its own call)
+    public LikeCoalescer(ManagedChannel channel,
+                         @Value("${grpc.client.coalesce.window-us:0}") long windowMicros,
+                         @Value("${grpc.client.coalesce.max-batch:1000}") int maxBatch) {
+        this.channel = ShardedChannel.of(channel);
+        this.likeServiceStubs = new LikeServiceGrpc.LikeServiceStub[this.channel.shards()];
+        for (int shard = 0; shard < likeServiceStubs.length; shard++) {
+            likeServiceStubs[shard] = LikeServiceGrpc.newStub(this.channel.shard(shard));
+        }
+        this.pending = new Batch[likeServiceStubs.length];
+        this.windowMicros = windowMicros;
+        this.maxBatch = maxBatch;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "like-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean enabled() {
+        return windowMicros > 0;
+    }
+
+    public CompletableFuture<EventOuterClass.Event> like(EventOuterClass.Event event) {
+        CompletableFuture<EventOuterClass.Event> future = new CompletableFuture<>();
+        int shard = channel.shardOf(event.getId());
+        Batch full = null;
+        synchronized (this) {
+            if (pending[shard] == null) {
+                Batch batch = new Batch(shard);
+                pending[shard] = batch;
+                scheduler.schedule(() -> flush(batch), windowMicros, TimeUnit.MICROSECONDS);
+            }
+            Batch batch = pending[shard];
+            batch.events.add(event);
+            batch.futures.add(future);
+            if (batch.events.size() >= maxBatch) {
+                full = batch;
+                pending[shard] = null;
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return future;
+    }
+
+    private void flush(Batch batch) {
+        synchronized (this) {
+            if (pending[batch.shard] != batch) {
+                // Already sent when it filled up
+                return;
+            }
+            pending[batch.shard] = null;
+        }
+        send(batch);
+    }
+
+    private void send(Batch batch) {
+        batches.increment();
+        likes.add(batch.events.size());
+        try {
+            StreamObserver<EventOuterClass.Event> requests = likeServiceStubs[batch.shard].batchLike(batch);
+            for (EventOuterClass.Event event : batch.events) {
+                requests.onNext(event);
+            }
+            requests.onCompleted();
+        } catch (RuntimeException e) {
+            batch.onError(e);
+        }
+    }
+
+    public Map<String, Long> toMap() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("batches", batches.sum());
+        stats.put("likes", likes.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdown();
+    }
+
+    private static final class Batch implements StreamObserver<EventOuterClass.BatchResponse> {
+
+        final int shard;
+        final List<EventOuterClass.Event> events = new ArrayList<>();
+        final List<CompletableFuture<EventOuterClass.Event>> futures = new ArrayList<>();
+
+        Batch(int shard) {
+            this.shard = shard;
+        }
+
+        @Override
+        public void onNext(EventOuterClass.BatchResponse response) {
+            for (int i = 0; i < futures.size(); i++) {
+                if (i < response.getEventsCount()) {
+                    futures.get(i).complete(response.getEvents(i));
+                } else {
+                    futures.get(i).completeExceptionally(
+                            new IllegalStateException("Batch answered " + response.getEventsCount() + " of " + futures.size() + " likes"));
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            for (CompletableFuture<EventOuterClass.Event> future : futures) {
+                future.completeExceptionally(t);
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+            for (CompletableFuture<EventOuterClass.Event> future : futures) {
+                if (!future.isDone()) {
+                    future.completeExceptionally(new IllegalStateException("Batch closed without a response"));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.api;
+
+public record LikeCount(
+        String id,
+        long likes
+) {
+}
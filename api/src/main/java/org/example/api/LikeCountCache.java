@@ -0,0 +1,142 @@
+package org.example.api;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.grpc.ManagedChannel;
+import io.grpc.stub.StreamObserver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Near-cache of like counts in front of the engine's {@code GetLikeCount} and {@code BatchGetLikeCounts}.
+ * <p>
+ * A count is served from memory for {@code ttl} after it was loaded, so a count read here may lag the
+ * engine by up to that long. The cache holds at most {@code maxSize} ids and evicts the least useful ones
+ * beyond that. Concurrent misses on one id share a single call, and the misses of a multi-id read are
+ * loaded with one batch call per engine owning some of them. Failed loads are not cached.
+ */
+@Component
+public class LikeCountCache {
+
+    private final ShardedChannel channel;
+    private final LikeServiceGrpc.LikeServiceStub likeServiceStub;
+    private final LikeServiceGrpc.LikeServiceStub[] shardStubs;
+    private final AsyncLoadingCache<String, Long> cache;
+
+    // Example: api.like-cache.ttl-ms=200 (0 reads every count from the engine)
+    // Example: api.like-cache.max-size=100000
+    public LikeCountCache(ManagedChannel channel,
+                          @Value("${api.like-cache.ttl-ms:200}") long ttlMillis,
+                          @Value("${api.like-cache.max-size:100000}") long maxSize) {
+        this.channel = ShardedChannel.of(channel);
+        this.likeServiceStub = LikeServiceGrpc.newStub(this.channel);
+        this.shardStubs = new LikeServiceGrpc.LikeServiceStub[this.channel.shards()];
+        for (int shard = 0; shard < shardStubs.length; shard++) {
+            shardStubs[shard] = LikeServiceGrpc.newStub(this.channel.shard(shard));
+        }
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .maximumSize(maxSize)
+                // Loads only start a non-blocking call, so there is no reason to hop threads for them
+                .executor(Runnable::run)
+                .recordStats()
+                .buildAsync(new Loader());
+    }
+
+    public CompletableFuture<Long> get(String id) {
+        return cache.get(id);
+    }
+
+    /**
+     * @return the count of every distinct id in {@code ids}
+     */
+    public CompletableFuture<Map<String, Long>> getAll(Iterable<String> ids) {
+        return cache.getAll(ids);
+    }
+
+    public Map<String, Long> toMap() {
+        CacheStats stats = cache.synchronous().stats();
+        Map<String, Long> map = new LinkedHashMap<>();
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("loadFailures", stats.loadFailureCount());
+        map.put("evictions", stats.evictionCount());
+        map.put("size", cache.synchronous().estimatedSize());
+        return map;
+    }
+
+    private final class Loader implements AsyncCacheLoader<String, Long> {
+
+        @Override
+        public CompletableFuture<Long> asyncLoad(String id, Executor executor) {
+            Reply<EventOuterClass.EventLikeCount> reply = new Reply<>();
+            likeServiceStub.withOption(ShardedChannel.EVENT_ID, id)
+                    .getLikeCount(EventOuterClass.LikeCountRequest.newBuilder().setId(id).build(), reply);
+            return reply.future.thenApply(EventOuterClass.EventLikeCount::getLikeCount);
+        }
+
+        @Override
+        public CompletableFuture<Map<String, Long>> asyncLoadAll(Set<? extends String> ids, Executor executor) {
+            EventOuterClass.BatchLikeCountRequest.Builder[] requests =
+                    new EventOuterClass.BatchLikeCountRequest.Builder[shardStubs.length];
+            for (String id : ids) {
+                int shard = channel.shardOf(id);
+                if (requests[shard] == null) {
+                    requests[shard] = EventOuterClass.BatchLikeCountRequest.newBuilder();
+                }
+                requests[shard].addIds(id);
+            }
+            Map<String, Long> counts = new ConcurrentHashMap<>(ids.size() * 2);
+            List<CompletableFuture<Void>> replies = new ArrayList<>();
+            for (int shard = 0; shard < requests.length; shard++) {
+                if (requests[shard] == null) {
+                    continue;
+                }
+                Reply<EventOuterClass.BatchLikeCountResponse> reply = new Reply<>();
+                shardStubs[shard].batchGetLikeCounts(requests[shard].build(), reply);
+                replies.add(reply.future.thenAccept(response -> {
+                    for (EventOuterClass.EventLikeCount count : response.getCountsList()) {
+                        counts.put(count.getId(), count.getLikeCount());
+                    }
+                }));
+            }
+            return CompletableFuture.allOf(replies.toArray(CompletableFuture[]::new)).thenApply(done -> counts);
+        }
+    }
+
+    private static final class Reply<T> implements StreamObserver<T> {
+
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        @Override
+        public void onNext(T value) {
+            future.complete(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            future.completeExceptionally(t);
+        }
+
+        @Override
+        public void onCompleted() {
+            if (!future.isDone()) {
+                future.completeExceptionally(new IllegalStateException("Call closed without a response"));
+            }
+        }
+    }
+}
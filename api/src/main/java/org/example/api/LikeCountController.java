@@ -0,0 +1,114 @@
+package org.example.api;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.ManagedChannel;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Read-only like counts, served through the {@link LikeCountCache}, and trending events.
+ */
+@RestController
+public class LikeCountController {
+
+    // Keeps a batch read well inside the engine's 128 KB inbound message limit
+    private static final int MAX_IDS = 1000;
+
+    private final LikeCountCache likeCountCache;
+    // TopK asks every engine: each owns a disjoint set of events
+    private final List<LikeServiceGrpc.LikeServiceFutureStub> shardStubs = new ArrayList<>();
+
+    public LikeCountController(LikeCountCache likeCountCache, ManagedChannel channel) {
+        this.likeCountCache = likeCountCache;
+        ShardedChannel sharded = ShardedChannel.of(channel);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        for (int shard = 0; shard < sharded.shards(); shard++) {
+            shardStubs.add(LikeServiceGrpc.newFutureStub(sharded.shard(shard)).withExecutor(executor));
+        }
+    }
+
+    @GetMapping("/likes/{id}")
+    public CompletableFuture<LikeCount> likes(@PathVariable String id) {
+        return likeCountCache.get(id).thenApply(count -> new LikeCount(id, count));
+    }
+
+    /**
+     * Counts of a comma-separated id list, one entry per requested id in request order.
+     */
+    @GetMapping("/likes")
+    public CompletableFuture<List<LikeCount>> likes(@RequestParam List<String> ids) {
+        if (ids.size() > MAX_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_IDS + " ids per request");
+        }
+        return likeCountCache.getAll(ids).thenApply(counts -> {
+            List<LikeCount> result = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                result.add(new LikeCount(id, counts.getOrDefault(id, 0L)));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * The {@code k} events with the most likes in the last {@code windowSeconds}, most liked first. Not
+     * cached: the engine already answers from its trending windows.
+     */
+    @GetMapping("/trending")
+    public CompletableFuture<List<LikeCount>> trending(@RequestParam(defaultValue = "300") int windowSeconds,
+                                                       @RequestParam(defaultValue = "10") int k) {
+        if (windowSeconds <= 0 || k <= 0 || k > MAX_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "windowSeconds must be positive and k in [1, " + MAX_IDS + "]");
+        }
+        EventOuterClass.TopKRequest request = EventOuterClass.TopKRequest.newBuilder()
+                .setWindowSeconds(windowSeconds)
+                .setK(k)
+                .build();
+        // Every event lives on one engine, so the top k of the merged per-engine top k are the global top k
+        List<CompletableFuture<EventOuterClass.TopKResponse>> replies = new ArrayList<>(shardStubs.size());
+        for (LikeServiceGrpc.LikeServiceFutureStub stub : shardStubs) {
+            replies.add(topK(stub, request));
+        }
+        return CompletableFuture.allOf(replies.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            List<LikeCount> result = new ArrayList<>();
+            for (CompletableFuture<EventOuterClass.TopKResponse> reply : replies) {
+                for (EventOuterClass.EventLikeCount event : reply.join().getEventsList()) {
+                    result.add(new LikeCount(event.getId(), event.getLikeCount()));
+                }
+            }
+            result.sort(Comparator.comparingLong(LikeCount::likes).reversed());
+            return result.size() > k ? new ArrayList<>(result.subList(0, k)) : result;
+        });
+    }
+
+    private static CompletableFuture<EventOuterClass.TopKResponse> topK(LikeServiceGrpc.LikeServiceFutureStub stub,
+                                                                       EventOuterClass.TopKRequest request) {
+        CompletableFuture<EventOuterClass.TopKResponse> responseFuture = new CompletableFuture<>();
+        Futures.addCallback(stub.topK(request), new FutureCallback<>() {
+            @Override
+            public void onSuccess(EventOuterClass.TopKResponse response) {
+                responseFuture.complete(response);
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                responseFuture.completeExceptionally(throwable);
+            }
+        }, MoreExecutors.directExecutor());
+        return responseFuture;
+    }
+}
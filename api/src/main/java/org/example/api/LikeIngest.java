@@ -0,0 +1,349 @@
+package org.example.api;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import org.example.core.metrics.Metrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Likes the events of a newline-delimited JSON upload, one {@link Event} object per line, while it is
+ * being read, and writes a result line back per event as the engine answers:
+ * {@code {"line":1,"id":"e1","result":"Event liked successfully. Current likes: 3"}} or
+ * {@code {"line":2,"error":"..."}}, in completion order, then {@code {"lines":2,"liked":1,"failed":1}}.
+ * Blank lines are skipped.
+ * <p>
+ * Memory does not grow with the upload. Each line is parsed from a buffer of at most {@code maxLineBytes}
+ * (longer lines fail). Events go to their engine over a {@code LikeStream} call of the upload's own. At most
+ * {@code window} events are in flight, and none are sent while the call's transport is not ready. Until
+ * then the upload is not read further and results are written instead.
+ */
+@Component
+public class LikeIngest {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    // Wakes the upload when a stream becomes ready for more events
+    private static final Object READY = new Object();
+
+    private final ShardedChannel channel;
+    private final LikeServiceGrpc.LikeServiceStub[] likeServiceStubs;
+    private final int window;
+    private final int maxLineBytes;
+    private final LongAdder liked;
+    private final LongAdder failed;
+
+    public LikeIngest(ManagedChannel channel,
+                      @Value("${api.likes-stream.window:1024}") int window,
+                      @Value("${api.likes-stream.max-line-bytes:65536}") int maxLineBytes,
+                      Metrics metrics) {
+        this.channel = ShardedChannel.of(channel);
+        this.likeServiceStubs = new LikeServiceGrpc.LikeServiceStub[this.channel.shards()];
+        for (int shard = 0; shard < likeServiceStubs.length; shard++) {
+            // No deadline: the stream lasts as long as the upload
+            likeServiceStubs[shard] = LikeServiceGrpc.newStub(this.channel.shard(shard));
+        }
+        this.window = window;
+        this.maxLineBytes = maxLineBytes;
+        this.liked = metrics.counter("likes.stream.liked");
+        this.failed = metrics.counter("likes.stream.failed");
+    }
+
+    /**
+     * Reads {@code in} to the end and writes the results to {@code out}. If either fails, the upload's
+     * streams are cancelled; events already sent may have been liked.
+     */
+    public void ingest(InputStream in, OutputStream out) throws IOException {
+        new Upload(in, out).run();
+    }
+
+    private record Outcome(long line, EventOuterClass.Event response, Throwable error) {
+    }
+
+    private final class Upload {
+
+        private final LineReader reader;
+        private final JsonGenerator json;
+        private final Stream[] streams = new Stream[likeServiceStubs.length];
+        private final BlockingQueue<Object> outcomes = new LinkedBlockingQueue<>();
+        private int inFlight;
+        private long lines;
+        private long likedLines;
+        private long failedLines;
+
+        private Upload(InputStream in, OutputStream out) throws IOException {
+            this.json = JSON.createGenerator(out);
+            this.reader = new LineReader(in, maxLineBytes, json);
+            json.setRootValueSeparator(null);
+        }
+
+        private void run() throws IOException {
+            try {
+                while (reader.next()) {
+                    lines++;
+                    if (reader.overflow) {
+                        failed(lines, "Line longer than " + maxLineBytes + " bytes");
+                    } else if (!reader.blank()) {
+                        read(lines);
+                    }
+                    drain();
+                }
+                for (Stream stream : streams) {
+                    if (stream != null) {
+                        stream.complete();
+                    }
+                }
+                while (inFlight > 0) {
+                    handle(take());
+                }
+                json.writeStartObject();
+                json.writeNumberField("lines", lines);
+                json.writeNumberField("liked", likedLines);
+                json.writeNumberField("failed", failedLines);
+                json.writeEndObject();
+                json.writeRaw('\n');
+                json.flush();
+            } catch (IOException | RuntimeException e) {
+                for (Stream stream : streams) {
+                    if (stream != null) {
+                        stream.cancel(e);
+                    }
+                }
+                throw e;
+            }
+        }
+
+        private void read(long line) throws IOException {
+            EventOuterClass.Event event;
+            try {
+                event = EventJsonReader.like(reader.line, 0, reader.length);
+            } catch (JsonProcessingException e) {
+                failed(line, "Malformed event: " + e.getOriginalMessage());
+                return;
+            }
+            if (event.getId().isEmpty()) {
+                failed(line, "Missing id");
+                return;
+            }
+            int shard = channel.shardOf(event.getId());
+            // A stream that broke is replaced once; if the new one breaks too, the line fails with it
+            for (int attempt = 0; attempt < 2; attempt++) {
+                Stream stream = streams[shard];
+                if (stream == null || stream.closed) {
+                    stream = new Stream();
+                    streams[shard] = stream;
+                    likeServiceStubs[shard].likeStream(stream);
+                }
+                while (inFlight >= window || !(stream.closed || stream.requests.isReady())) {
+                    handle(take());
+                }
+                if (stream.send(line, event)) {
+                    inFlight++;
+                    return;
+                }
+                if (attempt == 1) {
+                    failed(line, GrpcExceptionHandler.body(Status.fromThrowable(stream.error)));
+                }
+            }
+        }
+
+        private Object take() throws IOException {
+            Object next = outcomes.poll();
+            if (next == null) {
+                // About to wait for the engine: let the client see what is done so far
+                json.flush();
+                try {
+                    next = outcomes.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for the engine");
+                }
+            }
+            return next;
+        }
+
+        private void drain() throws IOException {
+            Object next;
+            while ((next = outcomes.poll()) != null) {
+                handle(next);
+            }
+        }
+
+        private void handle(Object next) throws IOException {
+            if (!(next instanceof Outcome outcome)) {
+                return;
+            }
+            inFlight--;
+            if (outcome.error() != null) {
+                failed(outcome.line(), GrpcExceptionHandler.body(Status.fromThrowable(outcome.error())));
+                return;
+            }
+            likedLines++;
+            liked.increment();
+            json.writeStartObject();
+            json.writeNumberField("line", outcome.line());
+            json.writeStringField("id", outcome.response().getId());
+            json.writeStringField("result", outcome.response().getData());
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        private void failed(long line, String error) throws IOException {
+            failedLines++;
+            failed.increment();
+            json.writeStartObject();
+            json.writeNumberField("line", line);
+            json.writeStringField("error", error);
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        /**
+         * One {@code LikeStream} call. The engine answers in request order, so replies are matched to the
+         * line numbers sent, FIFO.
+         */
+        private final class Stream implements ClientResponseObserver<EventOuterClass.Event, EventOuterClass.Event> {
+
+            private final Queue<Long> sent = new ConcurrentLinkedQueue<>();
+            private ClientCallStreamObserver<EventOuterClass.Event> requests;
+            private volatile boolean closed;
+            private Throwable error;
+
+            @Override
+            public void beforeStart(ClientCallStreamObserver<EventOuterClass.Event> requestStream) {
+                this.requests = requestStream;
+                requestStream.setOnReadyHandler(() -> outcomes.add(READY));
+                // Never more than a window of replies is due, so they are all asked for at once instead of
+                // one at a time
+                requestStream.disableAutoRequestWithInitial(window);
+            }
+
+            private synchronized boolean send(long line, EventOuterClass.Event event) {
+                if (closed) {
+                    return false;
+                }
+                sent.add(line);
+                requests.onNext(event);
+                return true;
+            }
+
+            private synchronized void complete() {
+                if (!closed) {
+                    requests.onCompleted();
+                }
+            }
+
+            private synchronized void cancel(Throwable cause) {
+                if (!closed) {
+                    requests.cancel("Upload failed", cause);
+                }
+            }
+
+            @Override
+            public void onNext(EventOuterClass.Event response) {
+                Long line = sent.poll();
+                if (line != null) {
+                    outcomes.add(new Outcome(line, response, null));
+                }
+                requests.request(1);
+            }
+
+            @Override
+            public synchronized void onError(Throwable throwable) {
+                closed = true;
+                error = throwable;
+                Long line;
+                while ((line = sent.poll()) != null) {
+                    outcomes.add(new Outcome(line, null, throwable));
+                }
+                outcomes.add(READY);
+            }
+
+            @Override
+            public void onCompleted() {
+                onError(Status.UNAVAILABLE.withDescription("Like stream closed by server").asRuntimeException());
+            }
+        }
+    }
+
+    /**
+     * Splits the upload on {@code '\n'} into one reused buffer. The part of a line past the buffer is
+     * dropped and the line marked as overflowing. {@code beforeWaiting} is flushed when nothing more has
+     * arrived yet.
+     */
+    private static final class LineReader {
+
+        private final InputStream in;
+        private final Flushable beforeWaiting;
+        private final byte[] chunk = new byte[8192];
+        private final byte[] line;
+        private int position;
+        private int limit;
+        private int length;
+        private boolean overflow;
+
+        private LineReader(InputStream in, int maxLineBytes, Flushable beforeWaiting) {
+            this.in = in;
+            this.beforeWaiting = beforeWaiting;
+            this.line = new byte[maxLineBytes];
+        }
+
+        /**
+         * @return false at the end of the upload
+         */
+        private boolean next() throws IOException {
+            length = 0;
+            overflow = false;
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    if (in.available() == 0) {
+                        beforeWaiting.flush();
+                    }
+                    limit = in.read(chunk);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return read;
+                    }
+                }
+                read = true;
+                byte b = chunk[position++];
+                if (b == '\n') {
+                    return true;
+                }
+                if (length < line.length) {
+                    line[length++] = b;
+                } else {
+                    overflow = true;
+                }
+            }
+        }
+
+        private boolean blank() {
+            for (int i = 0; i < length; i++) {
+                if (line[i] > ' ') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.api;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Bulk likes from a newline-delimited JSON upload, see {@link LikeIngest}.
+ */
+@RestController
+public class LikeIngestController {
+
+    private final LikeIngest likeIngest;
+
+    public LikeIngestController(LikeIngest likeIngest) {
+        this.likeIngest = likeIngest;
+    }
+
+    /**
+     * Streams one result line back per event while the body is still being uploaded. The request thread
+     * (virtual) blocks on reading the body and on the engine's flow control for the whole upload.
+     */
+    @PostMapping("/likes/stream")
+    public void stream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        likeIngest.ingest(request.getInputStream(), response.getOutputStream());
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.api;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Multiplexes like requests over one long-lived {@code LikeStream} bidirectional call.
+ * <p>
+ * The engine answers a stream in request order, so responses are matched to callers FIFO.
+ * A broken stream fails its outstanding callers and is reopened on the next request. With several engines
+ * there is one stream per engine, each carrying the events that engine owns.
+ */
+@Component
+public class LikeStreamClient {
+
+    private static final Logger log = LoggerFactory.getLogger(LikeStreamClient.class);
+
+    private final ShardedChannel channel;
+    private final LikeServiceGrpc.LikeServiceStub[] likeServiceStubs;
+    private final Session[] sessions;
+
+    public LikeStreamClient(ManagedChannel channel) {
+        this.channel = ShardedChannel.of(channel);
+        this.likeServiceStubs = new LikeServiceGrpc.LikeServiceStub[this.channel.shards()];
+        for (int shard = 0; shard < likeServiceStubs.length; shard++) {
+            // No deadline: the stream is meant to outlive any single request
+            likeServiceStubs[shard] = LikeServiceGrpc.newStub(this.channel.shard(shard));
+        }
+        this.sessions = new Session[likeServiceStubs.length];
+    }
+
+    public CompletableFuture<EventOuterClass.Event> like(EventOuterClass.Event event) {
+        CompletableFuture<EventOuterClass.Event> future = new CompletableFuture<>();
+        int shard = channel.shardOf(event.getId());
+        synchronized (this) {
+            Session session = sessions[shard];
+            if (session == null) {
+                session = new Session(shard);
+                sessions[shard] = session;
+                session.requests = likeServiceStubs[shard].likeStream(session);
+            }
+            // Enqueue before sending so the queue order always matches the wire order
+            session.pending.add(future);
+            try {
+                session.requests.onNext(event);
+            } catch (RuntimeException e) {
+                session.fail(e);
+            }
+        }
+        return future;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        for (int shard = 0; shard < sessions.length; shard++) {
+            if (sessions[shard] != null) {
+                sessions[shard].requests.onCompleted();
+                sessions[shard] = null;
+            }
+        }
+    }
+
+    private synchronized void release(Session broken) {
+        if (sessions[broken.shard] == broken) {
+            sessions[broken.shard] = null;
+        }
+    }
+
+    private final class Session implements StreamObserver<EventOuterClass.Event> {
+
+        private final int shard;
+        private final Queue<CompletableFuture<EventOuterClass.Event>> pending = new ConcurrentLinkedQueue<>();
+        private StreamObserver<EventOuterClass.Event> requests;
+
+        private Session(int shard) {
+            this.shard = shard;
+        }
+
+        @Override
+        public void onNext(EventOuterClass.Event response) {
+            CompletableFuture<EventOuterClass.Event> future = pending.poll();
+            if (future != null) {
+                future.complete(response);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            log.warn("Like stream failed, {} requests outstanding: {}", pending.size(), throwable.getMessage());
+            fail(throwable);
+        }
+
+        @Override
+        public void onCompleted() {
+            fail(new IllegalStateException("Like stream closed by server"));
+        }
+
+        private void fail(Throwable throwable) {
+            release(this);
+            CompletableFuture<EventOuterClass.Event> future;
+            while ((future = pending.poll()) != null) {
+                future.completeExceptionally(throwable);
+            }
+        }
+    }
+}
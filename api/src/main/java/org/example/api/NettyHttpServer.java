@@ -0,0 +1,270 @@
+package org.example.api;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.netty.bootstrap.ServerBootstrap;
+import io.grpc.netty.shaded.io.netty.buffer.ByteBufInputStream;
+import io.grpc.netty.shaded.io.netty.buffer.ByteBufUtil;
+import io.grpc.netty.shaded.io.netty.channel.Channel;
+import io.grpc.netty.shaded.io.netty.channel.ChannelHandlerContext;
+import io.grpc.netty.shaded.io.netty.channel.ChannelInitializer;
+import io.grpc.netty.shaded.io.netty.channel.ChannelOption;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.ServerChannel;
+import io.grpc.netty.shaded.io.netty.channel.SimpleChannelInboundHandler;
+import io.grpc.netty.shaded.io.netty.channel.socket.SocketChannel;
+import io.grpc.netty.shaded.io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.grpc.netty.shaded.io.netty.handler.codec.http.FullHttpRequest;
+import io.grpc.netty.shaded.io.netty.handler.codec.http.FullHttpResponse;
+import io.grpc.netty.shaded.io.netty.handler.codec.http.HttpHeaderNames;
+import io.grpc.netty.shaded.io.netty.handler.codec.http.HttpMethod;
+import io.grpc.netty.shaded.io.netty.handler.codec.http.HttpObjectAggregator;
+import io.grpc.netty.shaded.io.netty.handler.codec.http.HttpResponseStatus;
+import io.grpc.netty.shaded.io.netty.handler.codec.http.HttpServerCodec;
+import io.grpc.netty.shaded.io.netty.handler.codec.http.HttpServerKeepAliveHandler;
+import io.grpc.netty.shaded.io.netty.handler.codec.http.HttpVersion;
+import io.grpc.stub.StreamObserver;
+import org.example.core.metrics.LatencyRecorder;
+import org.example.core.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thin HTTP/1.1 front end for {@code POST /like} and {@code POST /unlike} next to Tomcat, for comparing
+ * the two under the same load. Requests are handled on Netty event loops: the body is read token by token
+ * into the protobuf event ({@link EventJsonReader}) and the engine's reply is written back from the gRPC
+ * callback, so no request or servlet thread is involved. Given the gRPC channels' event loop group the
+ * HTTP connections share its threads. Replies to pipelined requests are held back until those to the
+ * requests before them have been written, since HTTP/1.1 matches them up by order alone.
+ * <p>
+ * Replies and error statuses are those of {@link EventController} and {@link GrpcExceptionHandler}.
+ * Handling time is recorded under {@code http.netty.requests}.
+ */
+public class NettyHttpServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(NettyHttpServer.class);
+
+    private static final String LIKED = "Like event processed successfully. Response ID: ";
+    private static final String UNLIKED = "Unlike event processed successfully. Response ID: ";
+
+    private final LikeServiceGrpc.LikeServiceStub stub;
+    private final LikeCoalescer likeCoalescer;
+    private final LatencyRecorder latency;
+    private final LongAdder clientErrors;
+    private final LongAdder serverErrors;
+    private final Channel serverChannel;
+
+    /**
+     * @param channelType the server channel of {@code group}'s transport
+     * @param maxContentLength larger bodies are refused with 413
+     */
+    public NettyHttpServer(EventLoopGroup group, Class<? extends ServerChannel> channelType, int port,
+                           int maxContentLength, ManagedChannel channel, LikeCoalescer likeCoalescer,
+                           Metrics metrics) throws InterruptedException {
+        // Callbacks run on the gRPC event loop and only write the response, which Netty hands to the
+        // HTTP connection's loop if it is another one
+        this.stub = LikeServiceGrpc.newStub(channel).withExecutor(MoreExecutors.directExecutor());
+        this.likeCoalescer = likeCoalescer;
+        this.latency = metrics.latency("http.netty.requests");
+        this.clientErrors = metrics.counter("http.netty.requests.4xx");
+        this.serverErrors = metrics.counter("http.netty.requests.5xx");
+        this.serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(channelType)
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline()
+                                .addLast(new HttpServerCodec())
+                                .addLast(new HttpServerKeepAliveHandler())
+                                .addLast(new HttpObjectAggregator(maxContentLength))
+                                .addLast(new Handler());
+                    }
+                })
+                .bind(port)
+                .sync()
+                .channel();
+        log.info("Netty HTTP front end listening on port {}", port());
+    }
+
+    public int port() {
+        return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+
+    @Override
+    public void close() {
+        serverChannel.close().syncUninterruptibly();
+    }
+
+    /**
+     * One per connection. Its queue is only touched on the connection's event loop.
+     */
+    private final class Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+        // Requests still owed a reply, oldest first; the engine may answer them in any order
+        private final ArrayDeque<Exchange> exchanges = new ArrayDeque<>();
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+            Exchange exchange = new Exchange(System.nanoTime());
+            exchanges.add(exchange);
+            String uri = request.uri();
+            int query = uri.indexOf('?');
+            String path = query < 0 ? uri : uri.substring(0, query);
+            boolean like = path.equals("/like");
+            if (!like && !path.equals("/unlike")) {
+                respond(ctx, exchange, HttpResponseStatus.NOT_FOUND, "No handler for " + path);
+                return;
+            }
+            if (!HttpMethod.POST.equals(request.method())) {
+                respond(ctx, exchange, HttpResponseStatus.METHOD_NOT_ALLOWED, request.method() + " not supported");
+                return;
+            }
+
+            // The request is released when this method returns, so it is read here and not in the callback
+            EventOuterClass.Event event;
+            try (InputStream in = new ByteBufInputStream(request.content())) {
+                event = like ? EventJsonReader.like(in) : EventJsonReader.unlike(in);
+            } catch (IOException e) {
+                respond(ctx, exchange, HttpResponseStatus.BAD_REQUEST,
+                        "Malformed event: " + (e instanceof JsonProcessingException json ? json.getOriginalMessage() : e.getMessage()));
+                return;
+            }
+
+            if (like && likeCoalescer.enabled()) {
+                likeCoalescer.like(event).whenComplete((response, throwable) -> {
+                    if (throwable != null) {
+                        failed(ctx, exchange, throwable instanceof CompletionException ? throwable.getCause() : throwable);
+                    } else {
+                        respond(ctx, exchange, HttpResponseStatus.OK, LIKED + response.getId());
+                    }
+                });
+                return;
+            }
+            StreamObserver<EventOuterClass.Event> reply = new StreamObserver<>() {
+                private boolean replied;
+
+                @Override
+                public void onNext(EventOuterClass.Event response) {
+                    replied = true;
+                    respond(ctx, exchange, HttpResponseStatus.OK, (like ? LIKED : UNLIKED) + response.getId());
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    failed(ctx, exchange, throwable);
+                }
+
+                @Override
+                public void onCompleted() {
+                    if (!replied) {
+                        respond(ctx, exchange, HttpResponseStatus.OK,
+                                (like ? "Like" : "Unlike") + " event processed successfully, but no response received.");
+                    }
+                }
+            };
+            try {
+                LikeServiceGrpc.LikeServiceStub call = stub.withOption(ShardedChannel.EVENT_ID, event.getId());
+                if (like) {
+                    call.likeEvent(event, reply);
+                } else {
+                    call.unlikeEvent(event, reply);
+                }
+            } catch (RuntimeException e) {
+                failed(ctx, exchange, e);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            for (Exchange exchange : exchanges) {
+                if (exchange.response != null) {
+                    exchange.response.release();
+                }
+            }
+            exchanges.clear();
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+
+        private void failed(ChannelHandlerContext ctx, Exchange exchange, Throwable throwable) {
+            Status status = Status.fromThrowable(throwable);
+            HttpStatus httpStatus = GrpcExceptionHandler.httpStatus(status);
+            FullHttpResponse response = response(ctx, HttpResponseStatus.valueOf(httpStatus.value()), GrpcExceptionHandler.body(status));
+            if (GrpcExceptionHandler.retryable(httpStatus)) {
+                response.headers().set(HttpHeaderNames.RETRY_AFTER, "1");
+            }
+            complete(ctx, exchange, response);
+        }
+
+        private void respond(ChannelHandlerContext ctx, Exchange exchange, HttpResponseStatus status, String body) {
+            complete(ctx, exchange, response(ctx, status, body));
+        }
+
+        private FullHttpResponse response(ChannelHandlerContext ctx, HttpResponseStatus status, String body) {
+            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status,
+                    ByteBufUtil.writeUtf8(ctx.alloc(), body));
+            response.headers()
+                    .set(HttpHeaderNames.CONTENT_TYPE, "text/plain;charset=UTF-8")
+                    .setInt(HttpHeaderNames.CONTENT_LENGTH, response.content().readableBytes());
+            return response;
+        }
+
+        private void complete(ChannelHandlerContext ctx, Exchange exchange, FullHttpResponse response) {
+            if (!ctx.executor().inEventLoop()) {
+                ctx.executor().execute(() -> complete(ctx, exchange, response));
+                return;
+            }
+            int code = response.status().code();
+            if (code >= 500) {
+                serverErrors.increment();
+            } else if (code >= 400) {
+                clientErrors.increment();
+            }
+            latency.recordSince(exchange.startNanos);
+            if (!ctx.channel().isActive()) {
+                response.release();
+                return;
+            }
+            exchange.response = response;
+            boolean wrote = false;
+            Exchange head;
+            while ((head = exchanges.peek()) != null && head.response != null) {
+                exchanges.poll();
+                ctx.write(head.response);
+                wrote = true;
+            }
+            if (wrote) {
+                ctx.flush();
+            }
+        }
+    }
+
+    private static final class Exchange {
+
+        final long startNanos;
+        FullHttpResponse response;
+
+        Exchange(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+}
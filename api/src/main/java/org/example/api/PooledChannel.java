@@ -0,0 +1,166 @@
+package org.example.api;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Spreads calls over several sub-channels, each with its own HTTP/2 connection and Netty event loop, so
+ * one connection's stream limit and head-of-line blocking do not cap the whole API tier. Stubs built on
+ * it work unchanged.
+ * <p>
+ * Calls are placed round-robin or on the sub-channel with the fewest outstanding calls. A call counts as
+ * outstanding from {@code start} until it closes, so long-lived streams keep weighing on their channel.
+ * Sub-channels at {@code maxConcurrentStreams} are skipped while any other has room. Once all are full, the
+ * least-loaded one takes the call and its transport queues the stream until the server grants one.
+ */
+public class PooledChannel extends ManagedChannel {
+
+    public enum Strategy {
+        ROUND_ROBIN,
+        LEAST_LOADED
+    }
+
+    private final List<SubChannel> channels;
+    private final Strategy strategy;
+    private final int maxConcurrentStreams;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param maxConcurrentStreams soft cap of outstanding calls per sub-channel, {@code 0} for none
+     */
+    public PooledChannel(int size, Strategy strategy, int maxConcurrentStreams, Supplier<ManagedChannel> factory) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be positive: " + size);
+        }
+        this.channels = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            channels.add(new SubChannel(factory.get()));
+        }
+        this.strategy = strategy;
+        this.maxConcurrentStreams = maxConcurrentStreams > 0 ? maxConcurrentStreams : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> methodDescriptor,
+                                                         CallOptions callOptions) {
+        SubChannel channel = pick();
+        return new CountedCall<>(channel.channel.newCall(methodDescriptor, callOptions), channel);
+    }
+
+    private SubChannel pick() {
+        int size = channels.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        if (strategy == Strategy.ROUND_ROBIN) {
+            for (int i = 0; i < size; i++) {
+                SubChannel candidate = channels.get((start + i) % size);
+                if (candidate.outstanding.get() < maxConcurrentStreams) {
+                    return candidate;
+                }
+            }
+        }
+        // Scanning from a rotating start spreads ties instead of piling them on the first channel
+        SubChannel best = channels.get(start);
+        for (int i = 1; i < size && best.outstanding.get() > 0; i++) {
+            SubChannel candidate = channels.get((start + i) % size);
+            if (candidate.outstanding.get() < best.outstanding.get()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return outstanding calls per sub-channel, in pool order
+     */
+    public int[] outstanding() {
+        int[] outstanding = new int[channels.size()];
+        for (int i = 0; i < outstanding.length; i++) {
+            outstanding[i] = channels.get(i).outstanding.get();
+        }
+        return outstanding;
+    }
+
+    @Override
+    public String authority() {
+        return channels.get(0).channel.authority();
+    }
+
+    @Override
+    public ManagedChannel shutdown() {
+        channels.forEach(c -> c.channel.shutdown());
+        return this;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return channels.stream().allMatch(c -> c.channel.isShutdown());
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return channels.stream().allMatch(c -> c.channel.isTerminated());
+    }
+
+    @Override
+    public ManagedChannel shutdownNow() {
+        channels.forEach(c -> c.channel.shutdownNow());
+        return this;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (SubChannel c : channels) {
+            if (!c.channel.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record SubChannel(ManagedChannel channel, AtomicInteger outstanding) {
+
+        SubChannel(ManagedChannel channel) {
+            this(channel, new AtomicInteger());
+        }
+    }
+
+    private static final class CountedCall<ReqT, RespT> extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+        private final SubChannel channel;
+
+        private CountedCall(ClientCall<ReqT, RespT> delegate, SubChannel channel) {
+            super(delegate);
+            this.channel = channel;
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            channel.outstanding.incrementAndGet();
+            try {
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        channel.outstanding.decrementAndGet();
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            } catch (RuntimeException e) {
+                channel.outstanding.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.api;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes each call to the engine that owns its event id, so every like, unlike and read of an event
+ * reaches the same counters. Engines sit on a consistent-hash ring with {@code virtualNodes} points each,
+ * placed by the engine's name (its address), so adding or removing an engine only moves the ids next to
+ * its points and the ring does not depend on the order engines are listed in.
+ * <p>
+ * The channel sees a call before its message, so the id is passed in the call options under
+ * {@link #EVENT_ID}. Calls about several events (batches, streams, multi-id reads, TopK) are split by the
+ * caller over {@link #shard}s instead. With a single engine every call goes to it, id or not.
+ */
+public class ShardedChannel extends ManagedChannel {
+
+    public static final CallOptions.Key<String> EVENT_ID = CallOptions.Key.create("event-id");
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final List<String> names;
+    private final List<ManagedChannel> shards;
+    private final long[] points;
+    private final int[] owners;
+
+    /**
+     * @param shards one channel per engine, by engine name
+     */
+    public ShardedChannel(Map<String, ManagedChannel> shards, int virtualNodes) {
+        if (shards.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("Need at least one engine and one virtual node per engine");
+        }
+        this.names = new ArrayList<>(shards.keySet());
+        this.shards = new ArrayList<>(shards.values());
+
+        int size = names.size() * virtualNodes;
+        long[][] ring = new long[size][];
+        for (int shard = 0, i = 0; shard < names.size(); shard++) {
+            for (int node = 0; node < virtualNodes; node++, i++) {
+                ring[i] = new long[]{hash(names.get(shard) + "#" + node), shard};
+            }
+        }
+        Arrays.sort(ring, (a, b) -> Long.compare(a[0], b[0]));
+        this.points = new long[size];
+        this.owners = new int[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = ring[i][0];
+            owners[i] = (int) ring[i][1];
+        }
+    }
+
+    /**
+     * @return {@code channel} itself if it is sharded, otherwise a single-engine view of it
+     */
+    public static ShardedChannel of(ManagedChannel channel) {
+        return channel instanceof ShardedChannel sharded ? sharded : new ShardedChannel(Map.of("engine", channel), 1);
+    }
+
+    public int shards() {
+        return shards.size();
+    }
+
+    public ManagedChannel shard(int shard) {
+        return shards.get(shard);
+    }
+
+    public String name(int shard) {
+        return names.get(shard);
+    }
+
+    /**
+     * @return the shard owning {@code eventId}: the first ring point at or after the id's hash, wrapping
+     * around to the first point
+     */
+    public int shardOf(String eventId) {
+        if (shards.size() == 1) {
+            return 0;
+        }
+        int i = Arrays.binarySearch(points, hash(eventId));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> methodDescriptor,
+                                                         CallOptions callOptions) {
+        String eventId = callOptions.getOption(EVENT_ID);
+        if (eventId == null && shards.size() > 1) {
+            throw new IllegalStateException(methodDescriptor.getFullMethodName()
+                    + " has no event id to pick one of " + shards.size() + " engines");
+        }
+        return shards.get(eventId == null ? 0 : shardOf(eventId)).newCall(methodDescriptor, callOptions);
+    }
+
+    @Override
+    public String authority() {
+        return shards.get(0).authority();
+    }
+
+    @Override
+    public ManagedChannel shutdown() {
+        shards.forEach(ManagedChannel::shutdown);
+        return this;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shards.stream().allMatch(ManagedChannel::isShutdown);
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shards.stream().allMatch(ManagedChannel::isTerminated);
+    }
+
+    @Override
+    public ManagedChannel shutdownNow() {
+        shards.forEach(ManagedChannel::shutdownNow);
+        return this;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ManagedChannel shard : shards) {
+            if (!shard.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(String key) {
+        return HASH.hashString(key, StandardCharsets.UTF_8).asLong();
+    }
+}
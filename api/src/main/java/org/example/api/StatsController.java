@@ -0,0 +1,108 @@
+package org.example.api;
+
+import io.grpc.ManagedChannel;
+import org.example.core.compression.CompressionCodecs;
+import org.example.api.redis.RedisLikeClient;
+import org.example.core.metrics.Metrics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+public class StatsController {
+
+    private final CompressionCodecs compressionCodecs;
+    private final AdaptiveCompressionInterceptor adaptiveCompressionInterceptor;
+    private final ManagedChannel channel;
+    private final LikeCoalescer likeCoalescer;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final LikeCountCache likeCountCache;
+    private final RedisLikeClient redisLikeClient;
+    private final Metrics metrics;
+
+    public StatsController(CompressionCodecs compressionCodecs,
+                           AdaptiveCompressionInterceptor adaptiveCompressionInterceptor,
+                           ManagedChannel channel,
+                           LikeCoalescer likeCoalescer,
+                           AdaptiveConcurrencyLimiter concurrencyLimiter,
+                           LikeCountCache likeCountCache,
+                           RedisLikeClient redisLikeClient,
+                           Metrics metrics) {
+        this.compressionCodecs = compressionCodecs;
+        this.adaptiveCompressionInterceptor = adaptiveCompressionInterceptor;
+        this.channel = channel;
+        this.likeCoalescer = likeCoalescer;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.likeCountCache = likeCountCache;
+        this.redisLikeClient = redisLikeClient;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Request compression as chosen by the channel: messages sent uncompressed, then bytes and CPU per codec.
+     */
+    @GetMapping("/stats/compression")
+    public Map<String, Map<String, Long>> compression() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        stats.put("identity", adaptiveCompressionInterceptor.toMap());
+        stats.putAll(compressionCodecs.stats());
+        return stats;
+    }
+
+    /**
+     * Outstanding calls per pooled connection, by engine.
+     */
+    @GetMapping("/stats/channels")
+    public Map<String, int[]> channels() {
+        ShardedChannel sharded = ShardedChannel.of(channel);
+        Map<String, int[]> stats = new LinkedHashMap<>();
+        for (int shard = 0; shard < sharded.shards(); shard++) {
+            stats.put(sharded.name(shard),
+                    sharded.shard(shard) instanceof PooledChannel pooled ? pooled.outstanding() : new int[0]);
+        }
+        return stats;
+    }
+
+    /**
+     * BatchLike calls sent by the {@code /like} coalescer and the likes they carried.
+     */
+    @GetMapping("/stats/coalescing")
+    public Map<String, Long> coalescing() {
+        return likeCoalescer.toMap();
+    }
+
+    /**
+     * Current engine concurrency limit, calls in flight and how many were rejected or dropped.
+     */
+    @GetMapping("/stats/limiter")
+    public Map<String, Long> limiter() {
+        return concurrencyLimiter.toMap();
+    }
+
+    /**
+     * Like count near-cache hits, misses, failed loads, evictions and current size.
+     */
+    @GetMapping("/stats/like-cache")
+    public Map<String, Long> likeCache() {
+        return likeCountCache.toMap();
+    }
+
+    /**
+     * Counters of the configured Redis client, such as pipeline flushes or pooled connections.
+     */
+    @GetMapping("/stats/redis")
+    public Map<String, Long> redis() {
+        return redisLikeClient.toMap();
+    }
+
+    /**
+     * Latency histograms (HTTP handling, gRPC round trips, executor queueing) and counters (in flight,
+     * errors, bytes).
+     */
+    @GetMapping("/metrics")
+    public Map<String, Object> metrics() {
+        return metrics.toMap();
+    }
+}
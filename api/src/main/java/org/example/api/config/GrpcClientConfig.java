@@ -1,17 +1,30 @@
 package org.example.api.config;
 
 import com.example.event.LikeServiceGrpc;
-import io.grpc.CompressorRegistry;
 import io.grpc.ManagedChannel;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
 import io.grpc.netty.shaded.io.netty.channel.ChannelOption;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import org.example.api.AdaptiveCompressionInterceptor;
+import org.example.api.AdaptiveConcurrencyLimiter;
+import org.example.api.ClientMetricsInterceptor;
+import org.example.api.ConcurrencyLimitInterceptor;
+import org.example.api.PooledChannel;
+import org.example.api.ShardedChannel;
+import org.example.core.compression.CompressionCodecs;
+import org.example.core.grpc.GrpcThreading;
+import org.example.core.metrics.LatencyRecorder;
+import org.example.core.metrics.Metrics;
 import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.VirtualThreadTaskExecutor;
 
 import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.*;
 
 @Configuration
@@ -26,70 +39,170 @@ public class GrpcClientConfig {
 
     @Value("${grpc.server.port:6565}")
     private int grpcServerPort;
+
+    // Example: grpc.server.addresses=engine-1:6565,engine-2:6565,engine-3:6565 (event ids are spread over
+    // these engines by consistent hashing; empty uses grpc.server.address and grpc.server.port alone)
+    @Value("${grpc.server.addresses:}")
+    private String grpcServerAddresses;
+
+    // Points per engine on the hash ring; more points even out the share of ids each engine owns
+    @Value("${grpc.client.cluster.virtual-nodes:160}")
+    private int virtualNodes;
     
-    private final int threadPoolSize = Runtime.getRuntime().availableProcessors() * 2;
+    // Example: grpc.client.executor=fork-join (or fixed, virtual, direct), see GrpcThreading
+    @Value("${grpc.client.executor:fork-join}")
+    private String executor;
+
+    // Example: grpc.client.executor.threads=16 (fixed and fork-join; 0 uses two per core)
+    @Value("${grpc.client.executor.threads:0}")
+    private int executorThreads;
+
+    // Example: grpc.client.transport=epoll (Linux only; default nio), also used by the Netty front end
+    @Value("${grpc.client.transport:nio}")
+    private String transport;
+
+    // Example: grpc.client.event-loop.threads=4 (0 keeps gRPC's default loops, one per core for epoll);
+    // unused while the channels share the Netty front end's loops
+    @Value("${grpc.client.event-loop.threads:0}")
+    private int eventLoopThreads;
 
 //    @Value("${grpc.client.max-inbound-message-size:131072}") // 128K
     private final int maxInboundMessageSize = 131072;
 
-    @Value("${grpc.client.deadline-seconds:200}")
-    private int deadlineSeconds;
+    // Example: grpc.client.deadline-ms=5000, applied per call to every call without a deadline of its own
+    @Value("${grpc.client.deadline-ms:5000}")
+    private long deadlineMillis;
+
+    // Example: grpc.client.limit.initial=100, grpc.client.limit.min=10, grpc.client.limit.max=2000
+    @Value("${grpc.client.limit.initial:100}")
+    private int initialLimit;
+
+    @Value("${grpc.client.limit.min:10}")
+    private int minLimit;
+
+    @Value("${grpc.client.limit.max:2000}")
+    private int maxLimit;
     
-    private ManagedChannel channel;
+    // Example: grpc.client.compression.min-bytes=1024 (smaller requests are sent uncompressed)
+    @Value("${grpc.client.compression.min-bytes:1024}")
+    private int compressionMinBytes;
+
+    // Example: grpc.client.compression.codec=lz4 (or gzip) for requests from min-bytes
+    @Value("${grpc.client.compression.codec:lz4}")
+    private String compressionCodec;
+
+    // Requests from this size use gzip instead; 0 always uses the codec above
+    @Value("${grpc.client.compression.gzip-bytes:65536}")
+    private int compressionGzipBytes;
+
+    // Example: grpc.client.pool.size=8 (connections to the engine; 0 uses one per core)
+    @Value("${grpc.client.pool.size:0}")
+    private int poolSize;
+
+    // Example: grpc.client.pool.strategy=least-loaded (or round-robin)
+    @Value("${grpc.client.pool.strategy:least-loaded}")
+    private String poolStrategy;
+
+    // Outstanding calls per connection before the pool prefers another one (0: no cap)
+    @Value("${grpc.client.pool.max-concurrent-streams:100}")
+    private int poolMaxConcurrentStreams;
+
+    // With api.netty.enabled=true, run the engine connections on the Netty front end's event loops
+    // instead of gRPC's own, so an HTTP request and its engine call can stay on one thread
+    @Value("${api.netty.share-event-loop:true}")
+    private boolean shareEventLoop;
+
+    private ShardedChannel channel;
+
+    @Bean
+    public CompressionCodecs compressionCodecs() {
+        return new CompressionCodecs();
+    }
+
+    @Bean
+    public AdaptiveCompressionInterceptor adaptiveCompressionInterceptor(CompressionCodecs compressionCodecs) {
+        return new AdaptiveCompressionInterceptor(compressionMinBytes, compressionCodec, compressionGzipBytes, compressionCodecs);
+    }
 
     @Bean
-    public ManagedChannel managedChannel() {
-        // Create an optimized thread pool with proper sizing
-
-        // Use VirtualThreadExecutor for better performance with gRPC
-
-//        ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
-//        ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
-
-        int numThreads = Runtime.getRuntime().availableProcessors() * 2; // Adjust based on workload
-        ForkJoinPool pool = new ForkJoinPool(numThreads);
-        // Create a communication channel to the gRPC server with optimized settings
-        channel = NettyChannelBuilder.forAddress(grpcServerAddress, grpcServerPort)
-                // Connection pooling optimization
-                .usePlaintext()
-                .keepAliveTime(30, TimeUnit.SECONDS)
-                .keepAliveTimeout(20, TimeUnit.SECONDS)
-                .keepAliveWithoutCalls(true)
-                // Performance optimizations
-                .maxInboundMessageSize(maxInboundMessageSize)
-                .maxRetryAttempts(0)                   // Disable retries to avoid backpressure
-                .executor(pool)
-                .disableRetry()
-                .compressorRegistry(CompressorRegistry.getDefaultInstance())
-                .withOption(ChannelOption.TCP_NODELAY, true)
-                // Use the optimized thread pool
-                .build();
-                
+    public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter() {
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit);
+    }
+
+    // Closed after the channel: Spring destroys a bean before the beans it depends on
+    @Bean(destroyMethod = "close")
+    public GrpcThreading grpcClientThreading() {
+        return new GrpcThreading(executor, executorThreads, transport, eventLoopThreads);
+    }
+
+    @Bean
+    public ShardedChannel managedChannel(CompressionCodecs compressionCodecs,
+                                         AdaptiveCompressionInterceptor adaptiveCompressionInterceptor,
+                                         AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter,
+                                         Metrics metrics,
+                                         GrpcThreading grpcClientThreading,
+                                         ObjectProvider<EventLoopGroup> nettyEventLoopGroup) {
+        // One limiter for the whole cluster: it limits the engines, not a connection
+        ConcurrencyLimitInterceptor concurrencyLimitInterceptor =
+                new ConcurrencyLimitInterceptor(adaptiveConcurrencyLimiter, deadlineMillis);
+        ClientMetricsInterceptor clientMetricsInterceptor =
+                new ClientMetricsInterceptor(metrics, LikeServiceGrpc.getServiceDescriptor());
+        LatencyRecorder executorQueue = metrics.latency("grpc.client.executor.queue");
+        int size = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        PooledChannel.Strategy strategy = switch (poolStrategy) {
+            case "least-loaded" -> PooledChannel.Strategy.LEAST_LOADED;
+            case "round-robin" -> PooledChannel.Strategy.ROUND_ROBIN;
+            default -> throw new IllegalArgumentException("Unknown grpc.client.pool.strategy: " + poolStrategy);
+        };
+        EventLoopGroup eventLoopGroup = shareEventLoop ? nettyEventLoopGroup.getIfAvailable() : null;
+        String addresses = grpcServerAddresses.isBlank() ? grpcServerAddress + ":" + grpcServerPort : grpcServerAddresses;
+        Map<String, ManagedChannel> shards = new LinkedHashMap<>();
+        for (String entry : addresses.split(",")) {
+            String address = entry.trim();
+            String host = address.substring(0, address.lastIndexOf(':'));
+            int port = Integer.parseInt(address.substring(address.lastIndexOf(':') + 1));
+            // Create a pool of channels to each engine with optimized settings,
+            // one connection (and event loop) per sub-channel, all sharing the threading model's executor
+            shards.put(address, new PooledChannel(size, strategy, poolMaxConcurrentStreams, () -> grpcClientThreading.configure(
+                    NettyChannelBuilder.forAddress(host, port), executorQueue, eventLoopGroup)
+                    // Connection pooling optimization
+                    .usePlaintext()
+                    .keepAliveTime(30, TimeUnit.SECONDS)
+                    .keepAliveTimeout(20, TimeUnit.SECONDS)
+                    .keepAliveWithoutCalls(true)
+                    // Performance optimizations
+                    .maxInboundMessageSize(maxInboundMessageSize)
+                    .maxRetryAttempts(0)                   // Disable retries to avoid backpressure
+                    .disableRetry()
+                    .compressorRegistry(compressionCodecs.compressorRegistry())
+                    .decompressorRegistry(compressionCodecs.decompressorRegistry())
+                    // The last interceptor runs first: metrics see every call, then over-limit calls are rejected
+                    .intercept(adaptiveCompressionInterceptor, concurrencyLimitInterceptor, clientMetricsInterceptor)
+                    .withOption(ChannelOption.TCP_NODELAY, true)
+                    .build()));
+        }
+        channel = new ShardedChannel(shards, virtualNodes);
+
         return channel;
     }
 
     @Bean
     public LikeServiceGrpc.LikeServiceBlockingStub likeServiceBlockingStub(ManagedChannel channel) {
-        // Increased deadline to avoid premature timeouts
-        return LikeServiceGrpc.newBlockingStub(channel)
-                .withDeadlineAfter(deadlineSeconds, TimeUnit.SECONDS);
+        // Deadlines are set per call by the channel; one fixed here would expire for good after startup
+        return LikeServiceGrpc.newBlockingStub(channel);
     }
 
     // Optionally, you can also provide an async stub bean if needed
     // Inject this stub for non-blocking calls
     @Bean
     public LikeServiceGrpc.LikeServiceStub likeServiceStub(ManagedChannel channel) {
-        // Increased deadline to avoid premature timeouts
-        return LikeServiceGrpc.newStub(channel)
-                .withCompression("gzip")
-                .withDeadlineAfter(deadlineSeconds, TimeUnit.SECONDS);
+        return LikeServiceGrpc.newStub(channel);
     }
 
     @Bean
     public LikeServiceGrpc.LikeServiceFutureStub likeServiceFutureStub(ManagedChannel channel) {
         ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
         return LikeServiceGrpc.newFutureStub(channel)
-                .withCompression("gzip")
                 .withExecutor(executorService)
                 .withMaxInboundMessageSize(maxInboundMessageSize)
                 ;
@@ -0,0 +1,14 @@
+package org.example.api.config;
+
+import org.example.core.metrics.Metrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public Metrics metrics() {
+        return new Metrics();
+    }
+}
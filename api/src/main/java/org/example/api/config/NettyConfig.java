@@ -0,0 +1,47 @@
+package org.example.api.config;
+
+import io.grpc.ManagedChannel;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import org.example.api.LikeCoalescer;
+import org.example.api.NettyHttpServer;
+import org.example.core.grpc.GrpcThreading;
+import org.example.core.metrics.Metrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The Netty front end for {@code /like} and {@code /unlike}, served next to Tomcat when
+ * {@code api.netty.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "api.netty.enabled", havingValue = "true")
+public class NettyConfig {
+
+    // Example: api.netty.port=8091
+    @Value("${api.netty.port:8091}")
+    private int port;
+
+    // Example: api.netty.threads=4 (event loops for HTTP and, when shared, the gRPC channels; 0 uses one per core)
+    @Value("${api.netty.threads:0}")
+    private int threads;
+
+    // Larger request bodies are refused with 413
+    @Value("${api.netty.max-content-length:65536}")
+    private int maxContentLength;
+
+    // Of grpc.client.transport, so the gRPC channels can share it
+    @Bean(destroyMethod = "shutdownGracefully")
+    public EventLoopGroup nettyEventLoopGroup(GrpcThreading grpcClientThreading) {
+        return grpcClientThreading.transport().newEventLoopGroup(threads);
+    }
+
+    @Bean(destroyMethod = "close")
+    public NettyHttpServer nettyHttpServer(EventLoopGroup nettyEventLoopGroup, GrpcThreading grpcClientThreading,
+                                           ManagedChannel channel, LikeCoalescer likeCoalescer,
+                                           Metrics metrics) throws InterruptedException {
+        return new NettyHttpServer(nettyEventLoopGroup, grpcClientThreading.transport().serverChannelType(), port,
+                maxContentLength, channel, likeCoalescer, metrics);
+    }
+}
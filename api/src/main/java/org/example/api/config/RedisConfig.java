@@ -1,18 +1,53 @@
 package org.example.api.config;
 
 import io.lettuce.core.RedisClient;
-import io.lettuce.core.api.StatefulRedisConnection;
-import io.lettuce.core.api.sync.RedisStringCommands;
+import org.example.api.redis.LettuceRedisLikeClient;
+import org.example.api.redis.PooledLettuceRedisLikeClient;
+import org.example.api.redis.RedisLikeClient;
+import org.example.api.redis.RedissonRedisLikeClient;
+import org.example.api.redis.TemplateRedisLikeClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class RedisConfig {
 
-    @Bean
-    public RedisStringCommands<String, String> redisStringCommands() {
-        RedisClient client = RedisClient.create("redis://localhost");
-        StatefulRedisConnection<String, String> connection = client.connect();
-        return connection.sync();
+    // Example: redis.uri=redis://localhost:6379
+    @Value("${redis.uri:redis://localhost:6379}")
+    private String uri;
+
+    // Example: redis.client=lettuce (async, one multiplexed connection), lettuce-pipelined, lettuce-pooled,
+    // redisson or template (blocking StringRedisTemplate)
+    @Value("${redis.client:lettuce}")
+    private String clientType;
+
+    // lettuce-pipelined: commands per flush, and the longest a command waits for one
+    @Value("${redis.pipeline.max-batch:64}")
+    private int pipelineBatch;
+
+    @Value("${redis.pipeline.flush-us:200}")
+    private long pipelineFlushMicros;
+
+    // lettuce-pooled and redisson: connections to Redis
+    @Value("${redis.pool.size:8}")
+    private int poolSize;
+
+    @Bean(destroyMethod = "shutdown")
+    public RedisClient redisClient() {
+        // Creating the client does not connect
+        return RedisClient.create(uri);
+    }
+
+    @Bean(destroyMethod = "close")
+    public RedisLikeClient redisLikeClient(RedisClient redisClient) {
+        return switch (clientType) {
+            case "lettuce" -> new LettuceRedisLikeClient(redisClient);
+            case "lettuce-pipelined" -> new LettuceRedisLikeClient(redisClient, pipelineBatch, pipelineFlushMicros);
+            case "lettuce-pooled" -> new PooledLettuceRedisLikeClient(redisClient, poolSize);
+            case "redisson" -> new RedissonRedisLikeClient(uri, poolSize);
+            case "template" -> new TemplateRedisLikeClient(uri);
+            default -> throw new IllegalArgumentException("Unknown redis.client: " + clientType);
+        };
     }
 }
@@ -0,0 +1,130 @@
+package org.example.api.redis;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lettuce async commands over one connection shared by every request; Lettuce multiplexes concurrent
+ * commands on it, so no request thread waits for Redis.
+ * <p>
+ * With {@code pipelineBatch} above 1, auto-flush is disabled: commands collect in the connection's
+ * buffer and are written with a single flush once {@code pipelineBatch} are pending, or at the latest
+ * {@code flushMicros} after they were issued. Under load that turns one write syscall per command into
+ * one per batch, at the cost of up to {@code flushMicros} extra latency when traffic is light.
+ */
+public class LettuceRedisLikeClient implements RedisLikeClient {
+
+    private final RedisClient client;
+    private final int pipelineBatch;
+    private final long flushMicros;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder commands = new LongAdder();
+
+    private volatile StatefulRedisConnection<String, String> connection;
+    private volatile RedisAsyncCommands<String, String> async;
+    private ScheduledExecutorService flusher;
+
+    public LettuceRedisLikeClient(RedisClient client) {
+        this(client, 1, 0);
+    }
+
+    /**
+     * @param pipelineBatch commands written per flush; 1 keeps Lettuce's auto-flush
+     * @param flushMicros   longest time a command waits in the pipeline
+     */
+    public LettuceRedisLikeClient(RedisClient client, int pipelineBatch, long flushMicros) {
+        if (pipelineBatch > 1 && flushMicros <= 0) {
+            throw new IllegalArgumentException("A pipeline needs a positive flush interval: " + flushMicros);
+        }
+        this.client = client;
+        this.pipelineBatch = Math.max(1, pipelineBatch);
+        this.flushMicros = flushMicros;
+    }
+
+    @Override
+    public CompletableFuture<Long> incrBy(String key, long delta) {
+        CompletableFuture<Long> reply = commands().incrby(key, delta).toCompletableFuture();
+        issued();
+        return reply;
+    }
+
+    @Override
+    public CompletableFuture<String> set(String key, String value, long ttlSeconds) {
+        CompletableFuture<String> reply = commands().set(key, value, SetArgs.Builder.ex(ttlSeconds)).toCompletableFuture();
+        issued();
+        return reply;
+    }
+
+    @Override
+    public Map<String, Long> toMap() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("commands", commands.sum());
+        stats.put("flushes", flushes.sum());
+        return stats;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        if (connection != null) {
+            if (pipelineBatch > 1) {
+                flush();
+            }
+            connection.close();
+        }
+    }
+
+    private void issued() {
+        commands.increment();
+        if (pipelineBatch > 1 && pending.incrementAndGet() >= pipelineBatch) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        // Commands issued between the reset and the flush go out with it and only cause a spare flush later
+        pending.set(0);
+        connection.flushCommands();
+        flushes.increment();
+    }
+
+    private RedisAsyncCommands<String, String> commands() {
+        RedisAsyncCommands<String, String> commands = async;
+        return commands != null ? commands : connect();
+    }
+
+    private synchronized RedisAsyncCommands<String, String> connect() {
+        if (async == null) {
+            connection = client.connect();
+            if (pipelineBatch > 1) {
+                connection.setAutoFlushCommands(false);
+                flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "redis-pipeline-flusher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                flusher.scheduleAtFixedRate(() -> {
+                    if (pending.get() > 0) {
+                        flush();
+                    }
+                }, flushMicros, flushMicros, TimeUnit.MICROSECONDS);
+            }
+            async = connection.async();
+        }
+        return async;
+    }
+}
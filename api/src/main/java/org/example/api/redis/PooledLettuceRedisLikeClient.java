@@ -0,0 +1,76 @@
+package org.example.api.redis;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.support.ConnectionPoolSupport;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * Lettuce async commands over a pool of up to {@code size} connections, each borrowed for one command and
+ * returned when its reply arrives. Spreads load over several sockets and Redis client slots, which one
+ * multiplexed connection cannot; a request waits for a connection only when all of them are busy.
+ */
+public class PooledLettuceRedisLikeClient implements RedisLikeClient {
+
+    private final GenericObjectPool<StatefulRedisConnection<String, String>> pool;
+
+    public PooledLettuceRedisLikeClient(RedisClient client, int size) {
+        GenericObjectPoolConfig<StatefulRedisConnection<String, String>> config = new GenericObjectPoolConfig<>();
+        config.setMaxTotal(size);
+        config.setMaxIdle(size);
+        // Connections are opened on demand, so startup does not need Redis
+        config.setMinIdle(0);
+        config.setJmxEnabled(false);
+        this.pool = ConnectionPoolSupport.createGenericObjectPool(client::connect, config);
+    }
+
+    @Override
+    public CompletableFuture<Long> incrBy(String key, long delta) {
+        return withConnection(commands -> commands.incrby(key, delta));
+    }
+
+    @Override
+    public CompletableFuture<String> set(String key, String value, long ttlSeconds) {
+        return withConnection(commands -> commands.set(key, value, SetArgs.Builder.ex(ttlSeconds)));
+    }
+
+    @Override
+    public Map<String, Long> toMap() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("active", (long) pool.getNumActive());
+        stats.put("idle", (long) pool.getNumIdle());
+        stats.put("created", pool.getCreatedCount());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    private <T> CompletableFuture<T> withConnection(Function<RedisAsyncCommands<String, String>, CompletionStage<T>> command) {
+        StatefulRedisConnection<String, String> connection;
+        try {
+            connection = pool.borrowObject();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            return command.apply(connection.async())
+                    .whenComplete((reply, error) -> pool.returnObject(connection))
+                    .toCompletableFuture();
+        } catch (RuntimeException e) {
+            pool.returnObject(connection);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
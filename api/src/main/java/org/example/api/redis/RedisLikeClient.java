@@ -0,0 +1,38 @@
+package org.example.api.redis;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The Redis commands behind the {@code /redis/*} endpoints, so each client library can be compared with
+ * the gRPC path and with each other on the same workload.
+ * <p>
+ * Implementations connect lazily on first use: the api starts, and serves its gRPC endpoints, without a
+ * reachable Redis.
+ */
+public interface RedisLikeClient extends AutoCloseable {
+
+    /**
+     * {@code INCRBY key delta}, the Redis counterpart of a like or unlike on the engine.
+     *
+     * @return the count after the update
+     */
+    CompletableFuture<Long> incrBy(String key, long delta);
+
+    /**
+     * {@code SET key value EX ttlSeconds}.
+     *
+     * @return the Redis status reply, {@code OK}
+     */
+    CompletableFuture<String> set(String key, String value, long ttlSeconds);
+
+    /**
+     * @return client-specific counters, such as pipeline flushes
+     */
+    default Map<String, Long> toMap() {
+        return Map.of();
+    }
+
+    @Override
+    void close();
+}
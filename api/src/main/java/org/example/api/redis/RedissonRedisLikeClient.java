@@ -0,0 +1,62 @@
+package org.example.api.redis;
+
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.config.Config;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Redisson's async API: {@code RAtomicLong} for the like counter and {@code RBucket} for the event key.
+ * Redisson keeps its own pool of connections to the server.
+ */
+public class RedissonRedisLikeClient implements RedisLikeClient {
+
+    private final String uri;
+    private final int poolSize;
+    private volatile RedissonClient redisson;
+
+    public RedissonRedisLikeClient(String uri, int poolSize) {
+        this.uri = uri;
+        this.poolSize = poolSize;
+    }
+
+    @Override
+    public CompletableFuture<Long> incrBy(String key, long delta) {
+        return redisson().getAtomicLong(key).addAndGetAsync(delta).toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<String> set(String key, String value, long ttlSeconds) {
+        return redisson().<String>getBucket(key, StringCodec.INSTANCE)
+                .setAsync(value, Duration.ofSeconds(ttlSeconds))
+                .thenApply(ignored -> "OK")
+                .toCompletableFuture();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (redisson != null) {
+            redisson.shutdown();
+        }
+    }
+
+    private RedissonClient redisson() {
+        RedissonClient client = redisson;
+        return client != null ? client : connect();
+    }
+
+    private synchronized RedissonClient connect() {
+        if (redisson == null) {
+            Config config = new Config();
+            config.useSingleServer()
+                    .setAddress(uri)
+                    .setConnectionPoolSize(poolSize)
+                    .setConnectionMinimumIdleSize(Math.min(poolSize, 1));
+            redisson = Redisson.create(config);
+        }
+        return redisson;
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.api.redis;
+
+import io.lettuce.core.RedisURI;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Spring Data's blocking {@link StringRedisTemplate}, as most Spring applications talk to Redis: the
+ * request thread waits for every reply. Kept as the baseline the async clients are measured against.
+ */
+public class TemplateRedisLikeClient implements RedisLikeClient {
+
+    private final LettuceConnectionFactory connectionFactory;
+    private final StringRedisTemplate template;
+
+    public TemplateRedisLikeClient(String uri) {
+        RedisURI redisUri = RedisURI.create(uri);
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(redisUri.getHost(), redisUri.getPort());
+        configuration.setDatabase(redisUri.getDatabase());
+        this.connectionFactory = new LettuceConnectionFactory(configuration);
+        // Starting the factory creates the client only; the shared connection opens on first use
+        this.connectionFactory.afterPropertiesSet();
+        this.connectionFactory.start();
+        this.template = new StringRedisTemplate(connectionFactory);
+    }
+
+    @Override
+    public CompletableFuture<Long> incrBy(String key, long delta) {
+        try {
+            return CompletableFuture.completedFuture(template.opsForValue().increment(key, delta));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> set(String key, String value, long ttlSeconds) {
+        try {
+            template.opsForValue().set(key, value, Duration.ofSeconds(ttlSeconds));
+            return CompletableFuture.completedFuture("OK");
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        connectionFactory.destroy();
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.api;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.example.core.compression.CompressionCodecs;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveCompressionInterceptorTest {
+
+    private final CompressionCodecs serverCodecs = new CompressionCodecs();
+    private final CompressionCodecs clientCodecs = new CompressionCodecs();
+    private final AdaptiveCompressionInterceptor interceptor =
+            new AdaptiveCompressionInterceptor(256, "lz4", 4096, clientCodecs);
+
+    private Server server;
+    private ManagedChannel channel;
+    private LikeServiceGrpc.LikeServiceBlockingStub stub;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Compression only happens in the framing of a real transport, so use Netty on an ephemeral port
+        server = NettyServerBuilder.forPort(0)
+                .addService(new EchoService())
+                .compressorRegistry(serverCodecs.compressorRegistry())
+                .decompressorRegistry(serverCodecs.decompressorRegistry())
+                .directExecutor()
+                .build()
+                .start();
+        channel = NettyChannelBuilder.forAddress("localhost", server.getPort())
+                .usePlaintext()
+                .compressorRegistry(clientCodecs.compressorRegistry())
+                .decompressorRegistry(clientCodecs.decompressorRegistry())
+                .intercept(interceptor)
+                .directExecutor()
+                .build();
+        stub = LikeServiceGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void smallRequestsAreSentUncompressed() {
+        EventOuterClass.Event event = event(16);
+        assertEquals(event, stub.likeEvent(event));
+
+        assertEquals(1L, interceptor.toMap().get("uncompressedMessages"));
+        assertEquals(0L, serverCodecs.stats().get("lz4").get("decompressedMessages"));
+        assertEquals(0L, serverCodecs.stats().get("gzip").get("decompressedMessages"));
+    }
+
+    @Test
+    void requestsPickTheCodecForTheirSize() {
+        EventOuterClass.Event medium = event(1024);
+        EventOuterClass.Event large = event(8192);
+        assertEquals(medium, stub.likeEvent(medium));
+        assertEquals(large, stub.likeEvent(large));
+
+        assertEquals(1L, clientCodecs.stats().get("lz4").get("compressedMessages"));
+        assertEquals(1L, clientCodecs.stats().get("gzip").get("compressedMessages"));
+        assertEquals(1L, serverCodecs.stats().get("lz4").get("decompressedMessages"));
+        assertEquals(1L, serverCodecs.stats().get("gzip").get("decompressedMessages"));
+        assertTrue(clientCodecs.stats().get("lz4").get("compressOutputBytes")
+                < clientCodecs.stats().get("lz4").get("compressInputBytes"));
+        assertEquals(0L, interceptor.toMap().get("uncompressedMessages"));
+    }
+
+    @Test
+    void streamsCompressOnlyLargeMessages() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        LikeServiceGrpc.LikeServiceStub asyncStub = LikeServiceGrpc.newStub(channel);
+        StreamObserver<EventOuterClass.Event> requests = asyncStub.likeStream(new StreamObserver<>() {
+            @Override
+            public void onNext(EventOuterClass.Event value) {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+                done.countDown();
+            }
+        });
+        requests.onNext(event(16));
+        requests.onNext(event(1024));
+        requests.onCompleted();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1L, interceptor.toMap().get("uncompressedMessages"));
+        assertEquals(1L, serverCodecs.stats().get("lz4").get("decompressedMessages"));
+    }
+
+    private static EventOuterClass.Event event(int dataBytes) {
+        return EventOuterClass.Event.newBuilder()
+                .setId("42")
+                .setData("x".repeat(dataBytes))
+                .build();
+    }
+
+    private static final class EchoService extends LikeServiceGrpc.LikeServiceImplBase {
+
+        @Override
+        public void likeEvent(EventOuterClass.Event request, StreamObserver<EventOuterClass.Event> responseObserver) {
+            responseObserver.onNext(request);
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public StreamObserver<EventOuterClass.Event> likeStream(StreamObserver<EventOuterClass.Event> responseObserver) {
+            return new StreamObserver<>() {
+                @Override
+                public void onNext(EventOuterClass.Event value) {
+                    responseObserver.onNext(value);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+
+                @Override
+                public void onCompleted() {
+                    responseObserver.onCompleted();
+                }
+            };
+        }
+    }
+}
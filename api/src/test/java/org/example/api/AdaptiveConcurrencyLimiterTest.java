@@ -0,0 +1,96 @@
+package org.example.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Test
+    void rejectsCallsOverTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+        assertEquals(1, limiter.tryAcquire());
+        assertEquals(2, limiter.tryAcquire());
+        assertEquals(-1, limiter.tryAcquire());
+
+        limiter.release(FAST, 2, false);
+        assertTrue(limiter.tryAcquire() > 0);
+        assertEquals(1L, limiter.toMap().get("rejected"));
+    }
+
+    @Test
+    void growsWhileLatencyStaysAtTheBaseline() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100);
+        for (int i = 0; i < 50; i++) {
+            int inFlight = limiter.tryAcquire();
+            // Report the limit as fully used, which is when growing it is worthwhile
+            limiter.release(FAST, limiter.limit(), false);
+            assertTrue(inFlight > 0);
+        }
+        assertTrue(limiter.limit() > 10, "limit " + limiter.limit());
+    }
+
+    @Test
+    void shrinksWhenLatencyQueuesUpOrCallsDrop() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 5, 200);
+        limiter.tryAcquire();
+        limiter.release(FAST, 100, false);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.release(SLOW, 100, false);
+        }
+        int afterQueueing = limiter.limit();
+        assertTrue(afterQueueing < 100, "limit " + afterQueueing);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(FAST, 1, true);
+        }
+        assertEquals(5, limiter.limit());
+        assertEquals(100L, limiter.toMap().get("dropped"));
+    }
+
+    @Test
+    void unsampledCallsLeaveTheLimitAloneUnlessTheyDrop() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 5, 200);
+        limiter.tryAcquire();
+        limiter.release(FAST, 100, false);
+        int sampled = limiter.limit();
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire();
+            limiter.releaseUnsampled(false);
+        }
+        assertEquals(sampled, limiter.limit());
+        assertEquals(0L, limiter.toMap().get("inFlight"));
+
+        limiter.tryAcquire();
+        limiter.releaseUnsampled(true);
+        assertEquals((int) (sampled * 0.9), limiter.limit());
+    }
+
+    @Test
+    void aRenewedBaselineIsTheBestOfTheWindowNotItsLastSample() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 5, 200);
+        // A window at the baseline that ends on a congested sample
+        for (int i = 0; i < 999; i++) {
+            limiter.tryAcquire();
+            limiter.release(FAST, 1, false);
+        }
+        limiter.tryAcquire();
+        limiter.release(SLOW, 1, false);
+        int atRenewal = limiter.limit();
+
+        // Still congested against the renewed baseline, so the limit keeps shrinking
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.release(SLOW, 1, false);
+        }
+        assertTrue(limiter.limit() < atRenewal, "limit " + limiter.limit() + " from " + atRenewal);
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.api;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LikeCoalescerTest {
+
+    private final CountingService service = new CountingService();
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = NettyServerBuilder.forPort(0)
+                .addService(service)
+                .build()
+                .start();
+        channel = NettyChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void likesWithinOneWindowShareOneCall() throws Exception {
+        LikeCoalescer coalescer = new LikeCoalescer(channel, 200_000, 1000);
+        List<CompletableFuture<EventOuterClass.Event>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(coalescer.like(event(i % 3)));
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(String.valueOf(i % 3), futures.get(i).get(5, TimeUnit.SECONDS).getId());
+        }
+        assertEquals(1, service.batchCalls.get());
+        assertEquals(1L, coalescer.toMap().get("batches"));
+        coalescer.close();
+    }
+
+    @Test
+    void fullBatchesFlushWithoutWaitingForTheWindow() throws Exception {
+        LikeCoalescer coalescer = new LikeCoalescer(channel, TimeUnit.SECONDS.toMicros(60), 4);
+        List<CompletableFuture<EventOuterClass.Event>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(coalescer.like(event(i)));
+        }
+
+        for (CompletableFuture<EventOuterClass.Event> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(2, service.batchCalls.get());
+        coalescer.close();
+    }
+
+    private static EventOuterClass.Event event(int id) {
+        return EventOuterClass.Event.newBuilder().setId(String.valueOf(id)).build();
+    }
+
+    private static final class CountingService extends LikeServiceGrpc.LikeServiceImplBase {
+
+        final AtomicInteger batchCalls = new AtomicInteger();
+
+        @Override
+        public StreamObserver<EventOuterClass.Event> batchLike(StreamObserver<EventOuterClass.BatchResponse> responseObserver) {
+            batchCalls.incrementAndGet();
+            EventOuterClass.BatchResponse.Builder response = EventOuterClass.BatchResponse.newBuilder();
+            return new StreamObserver<>() {
+                @Override
+                public void onNext(EventOuterClass.Event value) {
+                    response.addEvents(value);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+
+                @Override
+                public void onCompleted() {
+                    responseObserver.onNext(response.build());
+                    responseObserver.onCompleted();
+                }
+            };
+        }
+    }
+}
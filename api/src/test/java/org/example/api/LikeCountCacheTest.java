@@ -0,0 +1,110 @@
+package org.example.api;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LikeCountCacheTest {
+
+    private final CountingService service = new CountingService();
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = NettyServerBuilder.forPort(0)
+                .addService(service)
+                .build()
+                .start();
+        channel = NettyChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void repeatedReadsAreServedFromTheCache() throws Exception {
+        LikeCountCache cache = new LikeCountCache(channel, TimeUnit.MINUTES.toMillis(1), 100);
+
+        assertEquals(3L, cache.get("abc").get(5, TimeUnit.SECONDS));
+        assertEquals(3L, cache.get("abc").get(5, TimeUnit.SECONDS));
+
+        assertEquals(1, service.singleCalls.get());
+        assertEquals(1L, cache.toMap().get("hits"));
+    }
+
+    @Test
+    void multiIdReadsLoadOnlyTheMissesInOneBatch() throws Exception {
+        LikeCountCache cache = new LikeCountCache(channel, TimeUnit.MINUTES.toMillis(1), 100);
+        cache.get("a").get(5, TimeUnit.SECONDS);
+
+        Map<String, Long> counts = cache.getAll(List.of("a", "bb", "ccc", "bb")).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Map.of("a", 1L, "bb", 2L, "ccc", 3L), counts);
+        assertEquals(1, service.batchCalls.get());
+        assertEquals(List.of("bb", "ccc"), service.lastBatch.stream().sorted().toList());
+    }
+
+    @Test
+    void zeroTtlReadsEveryCountFromTheEngine() throws Exception {
+        LikeCountCache cache = new LikeCountCache(channel, 0, 100);
+
+        cache.get("abc").get(5, TimeUnit.SECONDS);
+        cache.get("abc").get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, service.singleCalls.get());
+    }
+
+    /**
+     * Answers every id with its length as the count.
+     */
+    private static final class CountingService extends LikeServiceGrpc.LikeServiceImplBase {
+
+        final AtomicInteger singleCalls = new AtomicInteger();
+        final AtomicInteger batchCalls = new AtomicInteger();
+        volatile List<String> lastBatch = List.of();
+
+        @Override
+        public void getLikeCount(EventOuterClass.LikeCountRequest request,
+                                 StreamObserver<EventOuterClass.EventLikeCount> responseObserver) {
+            singleCalls.incrementAndGet();
+            responseObserver.onNext(count(request.getId()));
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void batchGetLikeCounts(EventOuterClass.BatchLikeCountRequest request,
+                                       StreamObserver<EventOuterClass.BatchLikeCountResponse> responseObserver) {
+            batchCalls.incrementAndGet();
+            lastBatch = List.copyOf(request.getIdsList());
+            EventOuterClass.BatchLikeCountResponse.Builder response = EventOuterClass.BatchLikeCountResponse.newBuilder();
+            for (String id : request.getIdsList()) {
+                response.addCounts(count(id));
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        }
+
+        private static EventOuterClass.EventLikeCount count(String id) {
+            return EventOuterClass.EventLikeCount.newBuilder().setId(id).setLikeCount(id.length()).build();
+        }
+    }
+}
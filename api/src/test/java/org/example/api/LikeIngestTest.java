@@ -0,0 +1,163 @@
+package org.example.api;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.example.core.metrics.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LikeIngestTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ScheduledExecutorService replies = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger maxOutstanding = new AtomicInteger();
+    private final List<Server> servers = new ArrayList<>();
+    private ShardedChannel channel;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Map<String, ManagedChannel> shards = new LinkedHashMap<>();
+        for (int i = 0; i < 2; i++) {
+            Server server = NettyServerBuilder.forPort(0).addService(new SlowEngine()).build().start();
+            servers.add(server);
+            shards.put("localhost:" + server.getPort(),
+                    NettyChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build());
+        }
+        channel = new ShardedChannel(shards, 160);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        for (Server server : servers) {
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+        replies.shutdownNow();
+    }
+
+    @Test
+    void everyLineGetsAResultAndAtMostAWindowIsInFlight() throws IOException {
+        StringBuilder upload = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            upload.append("{\"id\": \"e").append(i % 50).append("\", \"name\": \"like\"}\n");
+        }
+        upload.append("\n")
+                .append("{\"id\": \"broken\"\n")
+                .append("{\"name\": \"no id\"}\n")
+                .append("{\"id\": \"").append("x".repeat(300)).append("\"}\n")
+                .append("{\"id\": \"last\"}");
+        Metrics metrics = new Metrics();
+        List<JsonNode> results = ingest(new LikeIngest(channel, 8, 256, metrics), upload.toString());
+
+        Map<Long, JsonNode> byLine = new HashMap<>();
+        for (JsonNode result : results.subList(0, results.size() - 1)) {
+            assertEquals(null, byLine.put(result.get("line").asLong(), result));
+        }
+        assertEquals(504, byLine.size());
+        for (long line = 1; line <= 500; line++) {
+            assertEquals("e" + ((line - 1) % 50), byLine.get(line).get("id").asText());
+            assertTrue(byLine.get(line).get("result").asText().startsWith("liked "), byLine.get(line).toString());
+        }
+        assertTrue(byLine.get(502L).get("error").asText().startsWith("Malformed event"));
+        assertEquals("Missing id", byLine.get(503L).get("error").asText());
+        assertEquals("Line longer than 256 bytes", byLine.get(504L).get("error").asText());
+        assertEquals("last", byLine.get(505L).get("id").asText());
+        assertEquals(MAPPER.readTree("{\"lines\":505,\"liked\":501,\"failed\":3}"), results.get(results.size() - 1));
+        assertEquals(501, metrics.counter("likes.stream.liked").sum());
+
+        assertTrue(maxOutstanding.get() <= 8, "in flight: " + maxOutstanding.get());
+    }
+
+    @Test
+    void aBrokenStreamFailsItsLinesAndTheRestGoOverANewOne() throws IOException {
+        String upload = "{\"id\": \"a\"}\n{\"id\": \"down\"}\n{\"id\": \"a\"}\n{\"id\": \"down\"}\n{\"id\": \"a\"}\n";
+        List<JsonNode> results = ingest(new LikeIngest(channel, 1, 1024, new Metrics()), upload);
+
+        assertEquals(6, results.size());
+        assertEquals("liked a", results.get(0).get("result").asText());
+        assertEquals("UNAVAILABLE: shedding", results.get(1).get("error").asText());
+        assertEquals("liked a", results.get(2).get("result").asText());
+        assertEquals("UNAVAILABLE: shedding", results.get(3).get("error").asText());
+        assertEquals("liked a", results.get(4).get("result").asText());
+        assertEquals(MAPPER.readTree("{\"lines\":5,\"liked\":3,\"failed\":2}"), results.get(5));
+    }
+
+    private static List<JsonNode> ingest(LikeIngest ingest, String upload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ingest.ingest(new ByteArrayInputStream(upload.getBytes(StandardCharsets.UTF_8)), out);
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(MAPPER.readTree(line));
+        }
+        return results;
+    }
+
+    /**
+     * Answers likes in order a little later, on one reply thread, tracking how many wait across engines;
+     * fails the stream on id {@code down} like a shedding engine.
+     */
+    private final class SlowEngine extends LikeServiceGrpc.LikeServiceImplBase {
+
+        @Override
+        public StreamObserver<EventOuterClass.Event> likeStream(StreamObserver<EventOuterClass.Event> responseObserver) {
+            return new StreamObserver<>() {
+                @Override
+                public void onNext(EventOuterClass.Event value) {
+                    maxOutstanding.accumulateAndGet(outstanding.incrementAndGet(), Math::max);
+                    replies.schedule(() -> {
+                        synchronized (responseObserver) {
+                            outstanding.decrementAndGet();
+                            if (value.getId().equals("down")) {
+                                responseObserver.onError(Status.UNAVAILABLE.withDescription("shedding").asRuntimeException());
+                            } else {
+                                responseObserver.onNext(EventOuterClass.Event.newBuilder()
+                                        .setId(value.getId()).setData("liked " + value.getId()).build());
+                            }
+                        }
+                    }, 100, TimeUnit.MICROSECONDS);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+
+                @Override
+                public void onCompleted() {
+                    replies.schedule(() -> {
+                        synchronized (responseObserver) {
+                            responseObserver.onCompleted();
+                        }
+                    }, 1, TimeUnit.MILLISECONDS);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package org.example.api;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioSocketChannel;
+import io.grpc.stub.StreamObserver;
+import org.example.core.metrics.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NettyHttpServerTest {
+
+    private final List<EventOuterClass.Event> received = new CopyOnWriteArrayList<>();
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final Metrics metrics = new Metrics();
+    private final CountDownLatch fastAnswered = new CountDownLatch(1);
+    private EventLoopGroup group;
+    private Server engine;
+    private ManagedChannel channel;
+    private NettyHttpServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        group = new NioEventLoopGroup(2);
+        engine = NettyServerBuilder.forPort(0).addService(new RecordingEngine()).build().start();
+        channel = NettyChannelBuilder.forAddress("localhost", engine.getPort())
+                .usePlaintext()
+                .eventLoopGroup(group)
+                .channelType(NioSocketChannel.class)
+                .build();
+        server = new NettyHttpServer(group, NioServerSocketChannel.class, 0, 1024, channel, new LikeCoalescer(channel, 0, 1000), metrics);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        server.close();
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        engine.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        group.shutdownGracefully(0, 5, TimeUnit.SECONDS).sync();
+    }
+
+    @Test
+    void likesAndUnlikesAreReadStraightIntoTheEvent() throws Exception {
+        HttpResponse<String> liked = post("/like", """
+                {"id": "e1", "name": "like", "description": "first", "date": "2025-01-01T00:00:00Z",
+                 "userId": 42, "extra": {"nested": [1, 2]}}""");
+        assertEquals(200, liked.statusCode());
+        assertEquals("Like event processed successfully. Response ID: e1", liked.body());
+        assertEquals(EventOuterClass.Event.newBuilder()
+                .setId("e1").setType("like").setData("first").setTimestamp("2025-01-01T00:00:00Z").setUserId(42)
+                .build(), received.get(0));
+
+        HttpResponse<String> unliked = post("/unlike", "{\"id\": \"e1\", \"name\": \"like\", \"description\": null, \"userId\": \"7\"}");
+        assertEquals(200, unliked.statusCode());
+        assertEquals("Unlike event processed successfully. Response ID: e1", unliked.body());
+        assertEquals(EventOuterClass.Event.newBuilder().setId("e1").setUserId(7).build(), received.get(1));
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(200, post("/like", "{\"id\": \"e" + i + "\"}").statusCode());
+        }
+        assertEquals(22, metrics.latency("http.netty.requests").toMap().get("count").longValue());
+    }
+
+    @Test
+    void badRequestsAndEngineFailuresGetHttpStatuses() throws Exception {
+        assertEquals(400, post("/like", "{\"id\": \"e1\"").statusCode());
+        assertEquals(400, post("/like", "[]").statusCode());
+        assertEquals(400, post("/like", "{\"id\": \"e1\", \"userId\": \"someone\"}").statusCode());
+        assertEquals(400, post("/like", "").statusCode());
+        assertEquals(413, post("/like", "{\"id\": \"" + "x".repeat(2048) + "\"}").statusCode());
+        assertEquals(404, post("/batch-like", "[]").statusCode());
+        HttpResponse<String> get = http.send(HttpRequest.newBuilder(uri("/like")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, get.statusCode());
+
+        HttpResponse<String> down = post("/like", "{\"id\": \"down\"}");
+        assertEquals(503, down.statusCode());
+        assertEquals("1", down.headers().firstValue("Retry-After").orElseThrow());
+        assertTrue(down.body().startsWith("UNAVAILABLE"), down.body());
+        assertTrue(received.stream().noneMatch(event -> event.getId().equals("e1")));
+        assertEquals(1, metrics.counter("http.netty.requests.5xx").sum());
+    }
+
+    @Test
+    void pipelinedRequestsAreAnsweredInOrder() throws Exception {
+        try (Socket socket = new Socket("localhost", server.port())) {
+            socket.setSoTimeout(5000);
+            String slow = "{\"id\": \"slow\"}";
+            String fast = "{\"id\": \"fast\"}";
+            String pipelined = rawPost("/like", slow) + rawPost("/batch-like", "[]") + rawPost("/like", fast);
+            socket.getOutputStream().write(pipelined.getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+
+            InputStream in = socket.getInputStream();
+            assertEquals("Like event processed successfully. Response ID: slow", readBody(in));
+            assertEquals("No handler for /batch-like", readBody(in));
+            assertEquals("Like event processed successfully. Response ID: fast", readBody(in));
+        }
+        // The engine did answer out of order
+        assertEquals("fast", received.get(0).getId());
+    }
+
+    private static String rawPost(String path, String body) {
+        return "POST " + path + " HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\n"
+                + "Content-Length: " + body.getBytes(StandardCharsets.UTF_8).length + "\r\n\r\n" + body;
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        int length = -1;
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            if (line.regionMatches(true, 0, "content-length:", 0, 15)) {
+                length = Integer.parseInt(line.substring(15).trim());
+            }
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                throw new EOFException();
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return http.send(HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.port() + path);
+    }
+
+    /**
+     * Echoes the id back and keeps what it was sent; fails events with id {@code down} like a shedding engine
+     * and answers {@code slow} only once {@code fast} has been answered.
+     */
+    private final class RecordingEngine extends LikeServiceGrpc.LikeServiceImplBase {
+
+        @Override
+        public void likeEvent(EventOuterClass.Event request, StreamObserver<EventOuterClass.Event> responseObserver) {
+            reply(request, responseObserver);
+        }
+
+        @Override
+        public void unlikeEvent(EventOuterClass.Event request, StreamObserver<EventOuterClass.Event> responseObserver) {
+            reply(request, responseObserver);
+        }
+
+        private void reply(EventOuterClass.Event request, StreamObserver<EventOuterClass.Event> responseObserver) {
+            if (request.getId().equals("slow")) {
+                try {
+                    assertTrue(fastAnswered.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (request.getId().equals("down")) {
+                responseObserver.onError(Status.UNAVAILABLE.withDescription("shedding").asRuntimeException());
+                return;
+            }
+            received.add(request);
+            responseObserver.onNext(EventOuterClass.Event.newBuilder().setId(request.getId()).build());
+            responseObserver.onCompleted();
+            if (request.getId().equals("fast")) {
+                fastAnswered.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.api;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PooledChannelTest {
+
+    private Server server;
+    private PooledChannel channel;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = NettyServerBuilder.forPort(0)
+                .addService(new OpenStreamService())
+                .build()
+                .start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void leastLoadedFillsTheEmptiestChannel() {
+        channel = pool(3, PooledChannel.Strategy.LEAST_LOADED, 0);
+        List<StreamObserver<EventOuterClass.Event>> streams = openStreams(6);
+        assertArrayEquals(new int[]{2, 2, 2}, channel.outstanding());
+
+        streams.get(0).onCompleted();
+        awaitOutstanding(5);
+        openStreams(1);
+        assertArrayEquals(new int[]{2, 2, 2}, channel.outstanding());
+    }
+
+    @Test
+    void roundRobinSkipsChannelsAtTheStreamCap() {
+        channel = pool(2, PooledChannel.Strategy.ROUND_ROBIN, 1);
+        openStreams(2);
+        assertArrayEquals(new int[]{1, 1}, channel.outstanding());
+
+        // Everything is full: calls still go out, on the least-loaded channel
+        openStreams(2);
+        assertEquals(4, sum(channel.outstanding()));
+        assertArrayEquals(new int[]{2, 2}, channel.outstanding());
+    }
+
+    @Test
+    void unaryCallsReleaseTheirChannel() {
+        channel = pool(2, PooledChannel.Strategy.LEAST_LOADED, 0);
+        LikeServiceGrpc.LikeServiceBlockingStub stub = LikeServiceGrpc.newBlockingStub(channel);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("7", stub.likeEvent(EventOuterClass.Event.newBuilder().setId("7").build()).getId());
+        }
+        assertEquals(0, sum(channel.outstanding()));
+    }
+
+    private PooledChannel pool(int size, PooledChannel.Strategy strategy, int maxConcurrentStreams) {
+        return new PooledChannel(size, strategy, maxConcurrentStreams,
+                () -> NettyChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build());
+    }
+
+    private List<StreamObserver<EventOuterClass.Event>> openStreams(int count) {
+        LikeServiceGrpc.LikeServiceStub stub = LikeServiceGrpc.newStub(channel);
+        List<StreamObserver<EventOuterClass.Event>> streams = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            streams.add(stub.likeStream(new IgnoringObserver()));
+        }
+        return streams;
+    }
+
+    private void awaitOutstanding(int expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sum(channel.outstanding()) != expected) {
+            assertTrue(System.nanoTime() < deadline, "outstanding calls never reached " + expected);
+            Thread.onSpinWait();
+        }
+    }
+
+    private static int sum(int[] values) {
+        int sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static final class IgnoringObserver implements StreamObserver<EventOuterClass.Event> {
+
+        @Override
+        public void onNext(EventOuterClass.Event value) {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+
+    /**
+     * Keeps every like stream open until the client half-closes it.
+     */
+    private static final class OpenStreamService extends LikeServiceGrpc.LikeServiceImplBase {
+
+        @Override
+        public void likeEvent(EventOuterClass.Event request, StreamObserver<EventOuterClass.Event> responseObserver) {
+            responseObserver.onNext(request);
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public StreamObserver<EventOuterClass.Event> likeStream(StreamObserver<EventOuterClass.Event> responseObserver) {
+            return new StreamObserver<>() {
+                @Override
+                public void onNext(EventOuterClass.Event value) {
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+
+                @Override
+                public void onCompleted() {
+                    responseObserver.onCompleted();
+                }
+            };
+        }
+    }
+}
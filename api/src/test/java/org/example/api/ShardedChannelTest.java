@@ -0,0 +1,265 @@
+package org.example.api;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedChannelTest {
+
+    private static final int ENGINES = 3;
+
+    private final List<CountingEngine> engines = new ArrayList<>();
+    private final List<Server> servers = new ArrayList<>();
+    private ShardedChannel channel;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Map<String, ManagedChannel> shards = new LinkedHashMap<>();
+        for (int i = 0; i < ENGINES; i++) {
+            CountingEngine engine = new CountingEngine();
+            Server server = NettyServerBuilder.forPort(0).addService(engine).build().start();
+            engines.add(engine);
+            servers.add(server);
+            shards.put("localhost:" + server.getPort(),
+                    NettyChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build());
+        }
+        channel = new ShardedChannel(shards, 160);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        for (Server server : servers) {
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void idsSpreadEvenlyAndOnlyARemovedEnginesIdsMove() {
+        int ids = 30_000;
+        int[] owned = new int[ENGINES];
+        for (int i = 0; i < ids; i++) {
+            owned[channel.shardOf("event-" + i)]++;
+        }
+        for (int count : owned) {
+            assertTrue(count > ids / ENGINES * 0.8 && count < ids / ENGINES * 1.2, "uneven shares: " + count);
+        }
+
+        Map<String, ManagedChannel> survivors = new LinkedHashMap<>();
+        for (int shard = 1; shard < ENGINES; shard++) {
+            survivors.put(channel.name(shard), channel.shard(shard));
+        }
+        ShardedChannel smaller = new ShardedChannel(survivors, 160);
+        for (int i = 0; i < ids; i++) {
+            int before = channel.shardOf("event-" + i);
+            if (before != 0) {
+                assertEquals(channel.name(before), smaller.name(smaller.shardOf("event-" + i)));
+            }
+        }
+    }
+
+    @Test
+    void eachEventIsCountedOnlyByItsEngine() throws Exception {
+        EventController controller = new EventController(LikeServiceGrpc.newStub(channel),
+                LikeServiceGrpc.newBlockingStub(channel), LikeServiceGrpc.newFutureStub(channel),
+                new LikeStreamClient(channel), new LikeCoalescer(channel, 0, 1000), channel);
+
+        List<Event> batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            controller.like(event("e" + i)).get(5, TimeUnit.SECONDS);
+            batch.add(event("e" + (i % 10)));
+        }
+        List<String> results = controller.batchLike(batch).get(5, TimeUnit.SECONDS);
+        assertEquals(50, results.size());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(results.get(i).endsWith("e" + (i % 10)), results.get(i));
+        }
+        controller.streamLike(event("e0")).get(5, TimeUnit.SECONDS);
+        controller.unlike(event("e1")).get(5, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 50; i++) {
+            String id = "e" + i;
+            long expected = 1 + (i < 10 ? 5 : 0) + (i == 0 ? 1 : 0) - (i == 1 ? 1 : 0);
+            for (int shard = 0; shard < ENGINES; shard++) {
+                long count = engines.get(shard).count(id);
+                assertEquals(shard == channel.shardOf(id) ? expected : 0L, count, id + " on engine " + shard);
+            }
+        }
+
+        LikeCountCache cache = new LikeCountCache(channel, 0, 100);
+        assertEquals(7L, cache.get("e0").get(5, TimeUnit.SECONDS));
+        Map<String, Long> counts = cache.getAll(List.of("e1", "e2", "e30", "missing")).get(5, TimeUnit.SECONDS);
+        assertEquals(Map.of("e1", 5L, "e2", 6L, "e30", 1L, "missing", 0L), counts);
+
+        controller.like(event("e5")).get(5, TimeUnit.SECONDS);
+        controller.like(event("e5")).get(5, TimeUnit.SECONDS);
+        List<LikeCount> trending = new LikeCountController(cache, channel).trending(300, 2).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(new LikeCount("e5", 8), new LikeCount("e0", 7)), trending);
+    }
+
+    @Test
+    void aFailedEngineFailsOnlyItsOwnEventsOfABatch() throws Exception {
+        EventController controller = new EventController(LikeServiceGrpc.newStub(channel),
+                LikeServiceGrpc.newBlockingStub(channel), LikeServiceGrpc.newFutureStub(channel),
+                new LikeStreamClient(channel), new LikeCoalescer(channel, 0, 1000), channel);
+        engines.get(1).unavailable = true;
+
+        List<Event> batch = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            batch.add(event("e" + i));
+        }
+        List<String> results = controller.batchLike(batch).get(5, TimeUnit.SECONDS);
+        assertEquals(30, results.size());
+        for (int i = 0; i < 30; i++) {
+            String id = "e" + i;
+            if (channel.shardOf(id) == 1) {
+                assertEquals("Error: io.grpc.StatusRuntimeException: UNAVAILABLE: down", results.get(i));
+            } else {
+                assertEquals("Like event processed successfully. Response ID: " + id, results.get(i));
+            }
+        }
+    }
+
+    @Test
+    void callsWithoutAnEventIdAreRejected() {
+        LikeServiceGrpc.LikeServiceBlockingStub stub = LikeServiceGrpc.newBlockingStub(channel);
+        assertThrows(IllegalStateException.class,
+                () -> stub.getLikeCount(EventOuterClass.LikeCountRequest.newBuilder().setId("x").build()));
+    }
+
+    private static Event event(String id) {
+        return new Event(id, "like", null, null, null);
+    }
+
+    /**
+     * Counts likes per id like an engine would, for the RPCs the API routes.
+     */
+    private static final class CountingEngine extends LikeServiceGrpc.LikeServiceImplBase {
+
+        private final Map<String, AtomicLong> counts = new ConcurrentHashMap<>();
+        // Fails batches, like an engine that is down
+        private volatile boolean unavailable;
+
+        long count(String id) {
+            AtomicLong count = counts.get(id);
+            return count == null ? 0L : count.get();
+        }
+
+        private EventOuterClass.Event apply(EventOuterClass.Event event, long delta) {
+            long count = counts.computeIfAbsent(event.getId(), id -> new AtomicLong()).addAndGet(delta);
+            return EventOuterClass.Event.newBuilder().setId(event.getId()).setData(Long.toString(count)).build();
+        }
+
+        @Override
+        public void likeEvent(EventOuterClass.Event request, StreamObserver<EventOuterClass.Event> responseObserver) {
+            responseObserver.onNext(apply(request, 1));
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void unlikeEvent(EventOuterClass.Event request, StreamObserver<EventOuterClass.Event> responseObserver) {
+            responseObserver.onNext(apply(request, -1));
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public StreamObserver<EventOuterClass.Event> batchLike(StreamObserver<EventOuterClass.BatchResponse> responseObserver) {
+            EventOuterClass.BatchResponse.Builder response = EventOuterClass.BatchResponse.newBuilder();
+            return new StreamObserver<>() {
+                @Override
+                public void onNext(EventOuterClass.Event value) {
+                    response.addEvents(apply(value, 1));
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+
+                @Override
+                public void onCompleted() {
+                    if (unavailable) {
+                        responseObserver.onError(Status.UNAVAILABLE.withDescription("down").asRuntimeException());
+                        return;
+                    }
+                    responseObserver.onNext(response.build());
+                    responseObserver.onCompleted();
+                }
+            };
+        }
+
+        @Override
+        public StreamObserver<EventOuterClass.Event> likeStream(StreamObserver<EventOuterClass.Event> responseObserver) {
+            return new StreamObserver<>() {
+                @Override
+                public void onNext(EventOuterClass.Event value) {
+                    responseObserver.onNext(apply(value, 1));
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+
+                @Override
+                public void onCompleted() {
+                    responseObserver.onCompleted();
+                }
+            };
+        }
+
+        @Override
+        public void getLikeCount(EventOuterClass.LikeCountRequest request,
+                                 StreamObserver<EventOuterClass.EventLikeCount> responseObserver) {
+            responseObserver.onNext(EventOuterClass.EventLikeCount.newBuilder()
+                    .setId(request.getId())
+                    .setLikeCount(count(request.getId()))
+                    .build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void batchGetLikeCounts(EventOuterClass.BatchLikeCountRequest request,
+                                       StreamObserver<EventOuterClass.BatchLikeCountResponse> responseObserver) {
+            EventOuterClass.BatchLikeCountResponse.Builder response = EventOuterClass.BatchLikeCountResponse.newBuilder();
+            for (String id : request.getIdsList()) {
+                response.addCounts(EventOuterClass.EventLikeCount.newBuilder().setId(id).setLikeCount(count(id)));
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void topK(EventOuterClass.TopKRequest request, StreamObserver<EventOuterClass.TopKResponse> responseObserver) {
+            EventOuterClass.TopKResponse.Builder response = EventOuterClass.TopKResponse.newBuilder();
+            counts.entrySet().stream()
+                    .sorted(Comparator.comparingLong((Map.Entry<String, AtomicLong> e) -> e.getValue().get()).reversed())
+                    .limit(request.getK())
+                    .forEach(e -> response.addEvents(EventOuterClass.EventLikeCount.newBuilder()
+                            .setId(e.getKey())
+                            .setLikeCount(e.getValue().get())));
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        }
+    }
+}
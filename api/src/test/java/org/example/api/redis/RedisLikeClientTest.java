@@ -0,0 +1,75 @@
+package org.example.api.redis;
+
+import io.lettuce.core.RedisClient;
+import org.example.core.redis.RedisStandIn;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisLikeClientTest {
+
+    private RedisStandIn redis;
+    private RedisClient redisClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        redis = new RedisStandIn();
+        redisClient = RedisClient.create(redis.uri());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        redisClient.shutdown();
+        redis.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"lettuce", "lettuce-pipelined", "lettuce-pooled", "redisson", "template"})
+    void everyClientCountsLikesWithIncrBy(String type) throws Exception {
+        try (RedisLikeClient client = create(type)) {
+            assertEquals(1L, client.incrBy("likes:1", 1).get(5, TimeUnit.SECONDS));
+            assertEquals(3L, client.incrBy("likes:1", 2).get(5, TimeUnit.SECONDS));
+            assertEquals(2L, client.incrBy("likes:1", -1).get(5, TimeUnit.SECONDS));
+            assertEquals("OK", client.set("event:1", "2025-04-01T12:00:00Z", 1000).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals("2", redis.get("likes:1"));
+        assertEquals("2025-04-01T12:00:00Z", redis.get("event:1"));
+    }
+
+    @Test
+    void pipelinedClientWritesFullBatchesAndFlushesTheRestOnTime() throws Exception {
+        try (LettuceRedisLikeClient client = new LettuceRedisLikeClient(redisClient, 4, TimeUnit.MILLISECONDS.toMicros(50))) {
+            List<CompletableFuture<Long>> replies = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                replies.add(client.incrBy("likes:p", 1));
+            }
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i + 1, replies.get(i).get(5, TimeUnit.SECONDS));
+            }
+            long flushes = client.toMap().get("flushes");
+            assertTrue(flushes >= 3 && flushes < 10, "flushes: " + flushes);
+        }
+    }
+
+    private RedisLikeClient create(String type) {
+        return switch (type) {
+            case "lettuce" -> new LettuceRedisLikeClient(redisClient);
+            case "lettuce-pipelined" -> new LettuceRedisLikeClient(redisClient, 2, 200);
+            case "lettuce-pooled" -> new PooledLettuceRedisLikeClient(redisClient, 2);
+            case "redisson" -> new RedissonRedisLikeClient(redis.uri(), 2);
+            case "template" -> new TemplateRedisLikeClient(redis.uri());
+            default -> throw new IllegalArgumentException(type);
+        };
+    }
+}
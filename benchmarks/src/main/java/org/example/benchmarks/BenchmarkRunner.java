@@ -0,0 +1,57 @@
+package org.example.benchmarks;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the selected benchmarks once per thread count and prints one summary table, so contention
+ * regressions show up as a drop in scaling rather than only in the single-threaded number.
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar                      # everything, threads 1,2,4,8
+ * java -Dthreads=1,16 -jar benchmarks/target/benchmarks.jar LikeService -p store=offheap
+ * </pre>
+ *
+ * Any other JMH command-line option is passed through; {@code org.openjdk.jmh.Main} remains available
+ * for single runs.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        int[] threads = Arrays.stream(System.getProperty("threads", "1,2,4,8").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        List<RunResult> results = new ArrayList<>();
+        for (int threadCount : threads) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(threadCount);
+            results.addAll(new Runner(options.build()).run());
+        }
+
+        System.out.printf("%n%-60s %-40s %8s %14s %12s  %s%n", "Benchmark", "Params", "Threads", "Score", "Error", "Units");
+        for (RunResult result : results) {
+            var params = result.getParams();
+            StringBuilder paramText = new StringBuilder();
+            for (String key : params.getParamsKeys()) {
+                paramText.append(key).append('=').append(params.getParam(key)).append(' ');
+            }
+            var primary = result.getPrimaryResult();
+            System.out.printf("%-60s %-40s %8d %14.3f %12.3f  %s%n",
+                    params.getBenchmark(), paramText.toString().trim(), params.getThreads(),
+                    primary.getScore(), primary.getScoreError(), primary.getScoreUnit());
+        }
+    }
+}
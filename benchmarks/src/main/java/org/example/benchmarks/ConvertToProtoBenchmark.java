@@ -0,0 +1,40 @@
+package org.example.benchmarks;
+
+import com.example.event.EventOuterClass;
+import org.example.api.Event;
+import org.example.api.EventMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * REST body to protobuf conversion done by {@code EventController} for every like and unlike.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConvertToProtoBenchmark {
+
+    private final Event[] events = new Event[1024];
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < events.length; i++) {
+            events[i] = Keys.restEvent(i);
+        }
+    }
+
+    @Benchmark
+    public EventOuterClass.Event toProto() {
+        return EventMapper.toProto(events[cursor++ & 1023]);
+    }
+
+    @Benchmark
+    public EventOuterClass.Event toUnlikeProto() {
+        return EventMapper.toUnlikeProto(events[cursor++ & 1023]);
+    }
+}
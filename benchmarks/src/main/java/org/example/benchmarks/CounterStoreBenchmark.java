@@ -0,0 +1,133 @@
+package org.example.benchmarks;
+
+import com.google.protobuf.ByteString;
+import org.example.engine.store.OffHeapLikeCounterStore;
+import org.example.engine.store.StripedLikeCounterStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * The counter stores on their own, against the original {@code ConcurrentHashMap<String, Long>}.
+ * {@code increment} samples single-call latency on a store already holding every key; {@code populate}
+ * builds a fresh store from empty, so with {@code -prof gc} its {@code gc.alloc.rate.norm} is the heap
+ * a store allocates for {@link Keys#KEY_COUNT} ids. Direct memory is invisible to that profiler, so the
+ * off-heap store's reservation is reported as the {@code offHeapBytes} counter.
+ *
+ * <pre>
+ * java -Dthreads=1 -jar benchmarks/target/benchmarks.jar CounterStoreBenchmark.populate -prof gc
+ * </pre>
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CounterStoreBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Store {
+
+        @Param({"map", "striped", "offheap"})
+        public String store;
+
+        @Param({"UNIFORM", "ZIPFIAN"})
+        public KeyDistribution distribution;
+
+        ByteString[] ids;
+        ByteString[] samples;
+        ToLongFunction<ByteString> increment;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            ids = new ByteString[Keys.KEY_COUNT];
+            for (int i = 0; i < Keys.KEY_COUNT; i++) {
+                ids[i] = ByteString.copyFromUtf8(Keys.id(i));
+            }
+            int[] order = distribution.sample(Keys.KEY_COUNT, Keys.SAMPLE_COUNT, 42);
+            samples = new ByteString[Keys.SAMPLE_COUNT];
+            for (int i = 0; i < Keys.SAMPLE_COUNT; i++) {
+                samples[i] = ids[order[i]];
+            }
+            increment = create(new Footprint());
+            for (ByteString id : ids) {
+                increment.applyAsLong(id);
+            }
+        }
+
+        ToLongFunction<ByteString> create(Footprint footprint) {
+            return switch (store) {
+                case "map" -> {
+                    ConcurrentHashMap<String, Long> map = new ConcurrentHashMap<>(Keys.KEY_COUNT);
+                    yield id -> {
+                        String key = id.toStringUtf8();
+                        map.putIfAbsent(key, 0L);
+                        return map.computeIfPresent(key, (k, v) -> v + 1);
+                    };
+                }
+                case "striped" -> new StripedLikeCounterStore(Keys.KEY_COUNT)::increment;
+                case "offheap" -> {
+                    var offHeap = new OffHeapLikeCounterStore(Keys.KEY_COUNT);
+                    footprint.store = offHeap;
+                    yield offHeap::increment;
+                }
+                default -> throw new IllegalArgumentException("Unknown store: " + store);
+            };
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            cursor = (int) (Thread.currentThread().threadId() * 7919);
+        }
+    }
+
+    /**
+     * Direct memory reserved by the store the last {@code populate} built; zero for the heap stores.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        public long offHeapBytes;
+        OffHeapLikeCounterStore store;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            offHeapBytes = 0;
+            store = null;
+        }
+
+        @TearDown(Level.Iteration)
+        public void record() {
+            if (store != null) {
+                offHeapBytes = store.offHeapBytes();
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long increment(Store store, Caller caller) {
+        return store.increment.applyAsLong(store.samples[caller.cursor++ & Keys.SAMPLE_MASK]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public ToLongFunction<ByteString> populate(Store store, Footprint footprint) {
+        ToLongFunction<ByteString> increment = store.create(footprint);
+        for (ByteString id : store.ids) {
+            increment.applyAsLong(id);
+        }
+        return increment;
+    }
+}
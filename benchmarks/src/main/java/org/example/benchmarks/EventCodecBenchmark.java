@@ -0,0 +1,86 @@
+package org.example.benchmarks;
+
+import com.example.event.EventOuterClass;
+import com.google.protobuf.MessageLite;
+import io.grpc.Codec;
+import org.example.core.compression.Lz4Codec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wire cost of one {@code Event}: protobuf encode/decode, optionally through the codec gRPC applies for
+ * {@code grpc-encoding: gzip} or {@code lz4}. The {@code *Compact} variants measure
+ * the v2 {@code CompactEvent} carrying the same event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventCodecBenchmark {
+
+    @Param({"identity", "gzip", "lz4"})
+    public String compression;
+
+    private Codec codec;
+    private EventOuterClass.Event event;
+    private byte[] encoded;
+    private EventOuterClass.CompactEvent compactEvent;
+    private byte[] compactEncoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        codec = switch (compression) {
+            case "gzip" -> new Codec.Gzip();
+            case "lz4" -> new Lz4Codec();
+            default -> Codec.Identity.NONE;
+        };
+        event = Keys.protoEvent(12345);
+        encoded = encode();
+        compactEvent = EventOuterClass.CompactEvent.newBuilder()
+                .setId(12345)
+                .setType(EventOuterClass.EventType.LIKE)
+                .setTimestampMicros(1_743_508_800_000_000L)
+                .build();
+        compactEncoded = encodeCompact();
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return write(event);
+    }
+
+    @Benchmark
+    public byte[] encodeCompact() throws IOException {
+        return write(compactEvent);
+    }
+
+    @Benchmark
+    public EventOuterClass.Event decode() throws IOException {
+        try (InputStream in = codec.decompress(new ByteArrayInputStream(encoded))) {
+            return EventOuterClass.Event.parseFrom(in);
+        }
+    }
+
+    @Benchmark
+    public EventOuterClass.CompactEvent decodeCompact() throws IOException {
+        try (InputStream in = codec.decompress(new ByteArrayInputStream(compactEncoded))) {
+            return EventOuterClass.CompactEvent.parseFrom(in);
+        }
+    }
+
+    private byte[] write(MessageLite message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (OutputStream out = codec.compress(bytes)) {
+            message.writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+}
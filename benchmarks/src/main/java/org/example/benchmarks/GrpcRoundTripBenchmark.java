@@ -0,0 +1,73 @@
+package org.example.benchmarks;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.example.engine.service.LikeServiceImpl;
+import org.example.engine.store.StripedLikeCounterStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A unary {@code LikeEvent} through the gRPC stack (stubs, marshalling, executors) over the in-process
+ * transport, so the numbers exclude the network. The in-process transport never frames messages, so
+ * compression is not exercised here; {@link EventCodecBenchmark} covers the codecs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GrpcRoundTripBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Channel {
+
+        @Param({"UNIFORM", "ZIPFIAN"})
+        public KeyDistribution distribution;
+
+        EventOuterClass.Event[] events;
+        Server server;
+        ManagedChannel channel;
+        LikeServiceGrpc.LikeServiceBlockingStub stub;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            events = Keys.protoEvents(distribution, 42);
+            String name = InProcessServerBuilder.generateName();
+            server = InProcessServerBuilder.forName(name)
+                    .addService(new LikeServiceImpl(new StripedLikeCounterStore(Keys.KEY_COUNT)))
+                    .build()
+                    .start();
+            channel = InProcessChannelBuilder.forName(name).build();
+            stub = LikeServiceGrpc.newBlockingStub(channel);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws InterruptedException {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            cursor = (int) (Thread.currentThread().threadId() * 7919);
+        }
+    }
+
+    @Benchmark
+    public EventOuterClass.Event likeEvent(Channel channel, Caller caller) {
+        return channel.stub.likeEvent(channel.events[caller.cursor++ & Keys.SAMPLE_MASK]);
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.benchmarks;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * How benchmark event ids are picked. Real like traffic is heavily skewed towards a few hot events, so
+ * every suite runs both a uniform and a Zipfian mix to show contention on hot keys.
+ */
+public enum KeyDistribution {
+
+    UNIFORM,
+    ZIPFIAN;
+
+    // Classic YCSB skew
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    /**
+     * Precomputes {@code samples} key indexes in {@code [0, keys)} so drawing a key costs nothing
+     * inside the measured loop. The seed keeps runs comparable.
+     */
+    public int[] sample(int keys, int samples, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] indexes = new int[samples];
+        if (this == UNIFORM) {
+            for (int i = 0; i < samples; i++) {
+                indexes[i] = random.nextInt(keys);
+            }
+            return indexes;
+        }
+        double[] cumulative = new double[keys];
+        double sum = 0;
+        for (int rank = 0; rank < keys; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cumulative[rank] = sum;
+        }
+        for (int i = 0; i < samples; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            indexes[i] = Math.min(rank < 0 ? -rank - 1 : rank, keys - 1);
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.benchmarks;
+
+import com.example.event.EventOuterClass;
+import org.example.api.Event;
+
+/**
+ * Shared fixtures: a key space of event ids and a precomputed access sequence that every thread walks
+ * from its own offset.
+ */
+final class Keys {
+
+    static final int KEY_COUNT = 100_000;
+    static final int SAMPLE_COUNT = 1 << 20;
+    static final int SAMPLE_MASK = SAMPLE_COUNT - 1;
+
+    private Keys() {
+    }
+
+    static String id(int index) {
+        return "event-" + index;
+    }
+
+    static Event restEvent(int index) {
+        return new Event(id(index), "LIKE_EVENT", "User liked event " + index, "2025-04-01T12:00:00Z", null);
+    }
+
+    static EventOuterClass.Event protoEvent(int index) {
+        return EventOuterClass.Event.newBuilder()
+                .setId(id(index))
+                .setType("LIKE_EVENT")
+                .setData("User liked event " + index)
+                .setTimestamp("2025-04-01T12:00:00Z")
+                .build();
+    }
+
+    static EventOuterClass.Event[] protoEvents(KeyDistribution distribution, long seed) {
+        EventOuterClass.Event[] byKey = new EventOuterClass.Event[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            byKey[i] = protoEvent(i);
+        }
+        int[] order = distribution.sample(KEY_COUNT, SAMPLE_COUNT, seed);
+        EventOuterClass.Event[] events = new EventOuterClass.Event[SAMPLE_COUNT];
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            events[i] = byKey[order[i]];
+        }
+        return events;
+    }
+}
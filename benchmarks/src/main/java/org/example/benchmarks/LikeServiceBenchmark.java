@@ -0,0 +1,117 @@
+package org.example.benchmarks;
+
+import com.example.event.EventOuterClass;
+import io.grpc.stub.StreamObserver;
+import org.example.engine.processor.DirectLikeProcessor;
+import org.example.engine.processor.LikeProcessor;
+import org.example.engine.processor.PartitionedLikeProcessor;
+import org.example.engine.service.LikeServiceImpl;
+import org.example.engine.store.LikeCounterStore;
+import org.example.engine.store.OffHeapLikeCounterStore;
+import org.example.engine.store.PartitionedLikeCounterStore;
+import org.example.engine.store.StripedLikeCounterStore;
+import org.example.engine.wal.MutationLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LikeServiceImpl#likeEvent} called directly, without gRPC transport, against each counter store
+ * and processor. Each call waits for its response, so with the partitioned processor the score includes
+ * the hand-off to the writer thread and back, as a caller of the service would see it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LikeServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Service {
+
+        @Param({"striped", "offheap", "partitioned"})
+        public String store;
+
+        @Param({"UNIFORM", "ZIPFIAN"})
+        public KeyDistribution distribution;
+
+        EventOuterClass.Event[] events;
+        LikeProcessor processor;
+        LikeServiceImpl service;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            events = Keys.protoEvents(distribution, 42);
+            LikeCounterStore counters = switch (store) {
+                case "striped" -> new StripedLikeCounterStore(Keys.KEY_COUNT);
+                case "offheap" -> new OffHeapLikeCounterStore(Keys.KEY_COUNT);
+                case "partitioned" -> new PartitionedLikeCounterStore(Runtime.getRuntime().availableProcessors(), Keys.KEY_COUNT);
+                default -> throw new IllegalArgumentException("Unknown store: " + store);
+            };
+            processor = counters instanceof PartitionedLikeCounterStore partitioned
+                    ? new PartitionedLikeProcessor(partitioned, MutationLog.NONE, 8192)
+                    : new DirectLikeProcessor(counters, MutationLog.NONE);
+            service = new LikeServiceImpl(counters, processor);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            processor.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+
+        final NoopObserver observer = new NoopObserver();
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            cursor = (int) (Thread.currentThread().threadId() * 7919);
+        }
+    }
+
+    @Benchmark
+    public EventOuterClass.Event likeEvent(Service service, Caller caller) {
+        EventOuterClass.Event event = service.events[caller.cursor++ & Keys.SAMPLE_MASK];
+        NoopObserver observer = caller.observer;
+        observer.done = false;
+        service.service.likeEvent(event, observer);
+        // The partitioned processor answers on its writer thread
+        while (!observer.done) {
+            Thread.onSpinWait();
+        }
+        if (observer.error != null) {
+            throw new IllegalStateException(observer.error);
+        }
+        return observer.last;
+    }
+
+    /**
+     * Keeps only the last response so building it cannot be optimised away, and flags when the call is done.
+     */
+    static final class NoopObserver implements StreamObserver<EventOuterClass.Event> {
+
+        EventOuterClass.Event last;
+        Throwable error;
+        volatile boolean done;
+
+        @Override
+        public void onNext(EventOuterClass.Event value) {
+            last = value;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done = true;
+        }
+
+        @Override
+        public void onCompleted() {
+            done = true;
+        }
+    }
+}
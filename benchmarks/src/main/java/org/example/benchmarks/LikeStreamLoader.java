@@ -0,0 +1,206 @@
+package org.example.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.example.core.metrics.LatencyRecorder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a newline-delimited JSON file to the API's {@code /likes/stream} at a target rate, as one
+ * chunked upload, and reads the result lines while it is still sending. Prints the rate achieved, liked and
+ * failed lines and the latency from sending a line to its result.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar org.example.benchmarks.LikeStreamLoader events.jsonl
+ * java -Drate=5000 -Drepeat=20 -Did-field=request_id -cp benchmarks/target/benchmarks.jar \
+ *     org.example.benchmarks.LikeStreamLoader requests.jsonl
+ * </pre>
+ *
+ * {@code -Drate} is lines per second (0, the default, sends as fast as the API takes them), {@code -Drepeat}
+ * replays the file that many times and {@code -Durl} defaults to {@code http://localhost:8081/likes/stream}.
+ * With {@code -Did-field} each line is sent as {@code {"id": <that field>}}, for files that are not events.
+ */
+public class LikeStreamLoader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("usage: LikeStreamLoader <file.jsonl>");
+            System.exit(2);
+        }
+        Path file = Path.of(args[0]);
+        URI url = URI.create(System.getProperty("url", "http://localhost:8081/likes/stream"));
+        long rate = Long.getLong("rate", 0);
+        int repeat = Integer.getInteger("repeat", 1);
+        String idField = System.getProperty("id-field");
+
+        Map<Long, Long> sentNanos = new ConcurrentHashMap<>();
+        LatencyRecorder latency = new LatencyRecorder();
+        AtomicLong liked = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        String[] summary = new String[1];
+
+        try (Socket socket = new Socket(url.getHost(), url.getPort() < 0 ? 80 : url.getPort())) {
+            socket.setTcpNoDelay(true);
+            Thread reader = Thread.ofPlatform().name("results").start(() -> {
+                try {
+                    BufferedReader results = new BufferedReader(new InputStreamReader(
+                            responseBody(new BufferedInputStream(socket.getInputStream())), StandardCharsets.UTF_8));
+                    String line;
+                    while ((line = results.readLine()) != null) {
+                        JsonNode result = MAPPER.readTree(line);
+                        if (!result.has("line")) {
+                            summary[0] = line;
+                            continue;
+                        }
+                        Long sent = sentNanos.remove(result.get("line").asLong());
+                        if (sent != null) {
+                            latency.recordSince(sent);
+                        }
+                        (result.has("error") ? failed : liked).incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    System.err.println("Reading results failed: " + e.getMessage());
+                }
+            });
+
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+            out.write(("POST " + url.getRawPath() + " HTTP/1.1\r\n"
+                    + "Host: " + url.getAuthority() + "\r\n"
+                    + "Content-Type: application/x-ndjson\r\n"
+                    + "Transfer-Encoding: chunked\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            long startNanos = System.nanoTime();
+            long lines = 0;
+            for (int pass = 0; pass < repeat; pass++) {
+                try (BufferedReader input = Files.newBufferedReader(file)) {
+                    String line;
+                    while ((line = input.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        long dueNanos = rate > 0 ? startNanos + lines * TimeUnit.SECONDS.toNanos(1) / rate : 0;
+                        if (dueNanos - System.nanoTime() > 0) {
+                            // Ahead of the rate: send what is buffered, then wait for the line's slot
+                            out.flush();
+                            LockSupport.parkNanos(dueNanos - System.nanoTime());
+                        }
+                        lines++;
+                        byte[] body = ((idField != null ? asEvent(line, idField) : line) + "\n").getBytes(StandardCharsets.UTF_8);
+                        sentNanos.put(lines, System.nanoTime());
+                        out.write((Integer.toHexString(body.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                        out.write(body);
+                        out.write('\r');
+                        out.write('\n');
+                    }
+                }
+            }
+            out.write("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            long sentMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            reader.join();
+            long totalMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+            System.out.printf("sent %d lines in %d ms, all results after %d ms: %.0f lines/s%n",
+                    lines, sentMillis, totalMillis, lines * 1000.0 / totalMillis);
+            System.out.printf("liked %d, failed %d, no result %d%n", liked.get(), failed.get(), sentNanos.size());
+            System.out.println("latency " + latency.toMap());
+            System.out.println("server " + summary[0]);
+        }
+    }
+
+    private static String asEvent(String line, String idField) throws IOException {
+        JsonNode value = MAPPER.readTree(line).get(idField);
+        ObjectNode event = MAPPER.createObjectNode();
+        event.put("id", value == null ? "" : value.asText());
+        return event.toString();
+    }
+
+    /**
+     * Skips the status line and headers and, if the body is chunked, undoes the chunking.
+     */
+    private static InputStream responseBody(InputStream in) throws IOException {
+        String status = headerLine(in);
+        if (!status.contains(" 200 ")) {
+            throw new IOException("Upload refused: " + status);
+        }
+        boolean chunked = false;
+        String header;
+        while (!(header = headerLine(in)).isEmpty()) {
+            chunked |= header.toLowerCase().startsWith("transfer-encoding:") && header.toLowerCase().contains("chunked");
+        }
+        if (!chunked) {
+            return in;
+        }
+        return new InputStream() {
+            private long remaining;
+            private boolean done;
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (done) {
+                    return -1;
+                }
+                if (remaining == 0) {
+                    String size = headerLine(in);
+                    if (size.isEmpty()) {
+                        // The CRLF closing the previous chunk
+                        size = headerLine(in);
+                    }
+                    int extension = size.indexOf(';');
+                    remaining = Long.parseLong(extension < 0 ? size : size.substring(0, extension), 16);
+                    if (remaining == 0) {
+                        done = true;
+                        return -1;
+                    }
+                }
+                int read = in.read(b, off, (int) Math.min(len, remaining));
+                if (read < 0) {
+                    throw new EOFException("Response ended inside a chunk");
+                }
+                remaining -= read;
+                return read;
+            }
+        };
+    }
+
+    private static String headerLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new EOFException("Response ended in the headers");
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.benchmarks;
+
+import io.lettuce.core.RedisClient;
+import org.example.api.redis.LettuceRedisLikeClient;
+import org.example.api.redis.PooledLettuceRedisLikeClient;
+import org.example.api.redis.RedisLikeClient;
+import org.example.api.redis.RedissonRedisLikeClient;
+import org.example.api.redis.TemplateRedisLikeClient;
+import org.example.core.redis.RedisStandIn;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@code INCRBY} like through each {@link RedisLikeClient}, the Redis counterpart of
+ * {@link GrpcRoundTripBenchmark}. Every call waits for its reply, so pipelining only pays off with several
+ * threads. Runs against {@code -Dredis.uri} when set, otherwise against an in-JVM {@link RedisStandIn},
+ * which measures client overhead rather than a real server.
+ *
+ * <pre>
+ * java -Dredis.uri=redis://localhost:6379 -jar benchmarks/target/benchmarks.jar RedisLike
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisLikeBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Redis {
+
+        @Param({"lettuce", "lettuce-pipelined", "lettuce-pooled", "redisson", "template"})
+        public String client;
+
+        @Param({"UNIFORM", "ZIPFIAN"})
+        public KeyDistribution distribution;
+
+        String[] keys;
+        RedisStandIn standIn;
+        RedisClient redisClient;
+        RedisLikeClient likeClient;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            String[] byKey = new String[Keys.KEY_COUNT];
+            for (int i = 0; i < Keys.KEY_COUNT; i++) {
+                byKey[i] = "likes:" + Keys.id(i);
+            }
+            int[] order = distribution.sample(Keys.KEY_COUNT, Keys.SAMPLE_COUNT, 42);
+            keys = new String[Keys.SAMPLE_COUNT];
+            for (int i = 0; i < Keys.SAMPLE_COUNT; i++) {
+                keys[i] = byKey[order[i]];
+            }
+
+            String uri = System.getProperty("redis.uri");
+            if (uri == null) {
+                standIn = new RedisStandIn();
+                uri = standIn.uri();
+            }
+            redisClient = RedisClient.create(uri);
+            likeClient = switch (client) {
+                case "lettuce" -> new LettuceRedisLikeClient(redisClient);
+                case "lettuce-pipelined" -> new LettuceRedisLikeClient(redisClient, 64, 200);
+                case "lettuce-pooled" -> new PooledLettuceRedisLikeClient(redisClient, 8);
+                case "redisson" -> new RedissonRedisLikeClient(uri, 8);
+                case "template" -> new TemplateRedisLikeClient(uri);
+                default -> throw new IllegalArgumentException("Unknown client: " + client);
+            };
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            likeClient.close();
+            redisClient.shutdown();
+            if (standIn != null) {
+                standIn.close();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            cursor = (int) (Thread.currentThread().threadId() * 7919);
+        }
+    }
+
+    @Benchmark
+    public Long incrBy(Redis redis, Caller caller) {
+        return redis.likeClient.incrBy(redis.keys[caller.cursor++ & Keys.SAMPLE_MASK], 1).join();
+    }
+}
@@ -0,0 +1,202 @@
+package org.example.benchmarks;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import com.sun.management.OperatingSystemMXBean;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.stub.StreamObserver;
+import org.example.core.grpc.GrpcThreading;
+import org.example.core.metrics.LatencyRecorder;
+import org.example.engine.service.LikeServiceImpl;
+import org.example.engine.store.StripedLikeCounterStore;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs unary {@code LikeEvent} calls over localhost TCP for every combination of server executor, client
+ * executor, transport and event-loop count ({@link GrpcThreading}) and prints throughput, p50/p99 latency
+ * and CPU per combination, to choose {@code grpc.server.*} and {@code grpc.client.*} threading by data.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar org.example.benchmarks.ThreadingMatrix
+ * java -Dserver-executors=fork-join,direct -Dclient-executors=direct -Dtransports=epoll -Devent-loops=1,4 \
+ *     -Dconcurrency=512 -cp benchmarks/target/benchmarks.jar org.example.benchmarks.ThreadingMatrix
+ * </pre>
+ *
+ * Defaults: all four executors on both sides, {@code nio} plus {@code epoll} where available, event loops
+ * {@code 0} (gRPC's defaults), {@code -Dthreads=0} pool threads, 256 calls kept in flight, 2 s warm-up and
+ * 5 s measured per combination, after one 10 s {@code -Djvm-warmup-seconds} run for the JIT. Server and
+ * client share the JVM, so the CPU column (percent of all cores, and microseconds per call) covers both
+ * sides; run on an otherwise idle machine.
+ */
+public class ThreadingMatrix {
+
+    public static void main(String[] args) throws Exception {
+        List<String> serverExecutors = list("server-executors", "direct,fixed,fork-join,virtual");
+        List<String> clientExecutors = list("client-executors", "direct,fixed,fork-join,virtual");
+        List<String> transports = list("transports", Epoll.isAvailable() ? "nio,epoll" : "nio");
+        List<String> eventLoops = list("event-loops", "0");
+        int threads = Integer.getInteger("threads", 0);
+        int concurrency = Integer.getInteger("concurrency", 256);
+        long warmupSeconds = Long.getLong("warmup-seconds", 2);
+        long seconds = Long.getLong("seconds", 5);
+        long jvmWarmupSeconds = Long.getLong("jvm-warmup-seconds", 10);
+
+        EventOuterClass.Event[] events = Keys.protoEvents(KeyDistribution.UNIFORM, 42);
+        // Compiles the call path once, so the first row is not measured on a cold JVM
+        run(new GrpcThreading(serverExecutors.get(0), threads, transports.get(0), Integer.parseInt(eventLoops.get(0))),
+                new GrpcThreading(clientExecutors.get(0), threads, transports.get(0), Integer.parseInt(eventLoops.get(0))),
+                events, concurrency, jvmWarmupSeconds, 0);
+        System.out.printf("%-28s %-28s %12s %10s %10s %8s %12s %8s%n", "Server", "Client", "Calls/s",
+                "p50 us", "p99 us", "CPU %", "CPU us/call", "Errors");
+        for (String transport : transports) {
+            for (String loops : eventLoops) {
+                for (String serverExecutor : serverExecutors) {
+                    for (String clientExecutor : clientExecutors) {
+                        GrpcThreading server = new GrpcThreading(serverExecutor, threads, transport, Integer.parseInt(loops));
+                        GrpcThreading client = new GrpcThreading(clientExecutor, threads, transport, Integer.parseInt(loops));
+                        Result result = run(server, client, events, concurrency, warmupSeconds, seconds);
+                        System.out.printf("%-28s %-28s %12.0f %10d %10d %8.1f %12.1f %8d%n",
+                                server, client, result.callsPerSecond(), result.p50Micros(), result.p99Micros(),
+                                result.cpuPercent(), result.cpuMicrosPerCall(), result.errors());
+                    }
+                }
+            }
+        }
+    }
+
+    private record Result(double callsPerSecond, long p50Micros, long p99Micros, double cpuPercent,
+                          double cpuMicrosPerCall, long errors) {
+    }
+
+    private static Result run(GrpcThreading serverThreading, GrpcThreading clientThreading,
+                              EventOuterClass.Event[] events, int concurrency,
+                              long warmupSeconds, long seconds) throws Exception {
+        Server server = serverThreading.configure(NettyServerBuilder.forPort(0), new LatencyRecorder())
+                .addService(new LikeServiceImpl(new StripedLikeCounterStore(Keys.KEY_COUNT)))
+                .build()
+                .start();
+        ManagedChannel channel = clientThreading.configure(
+                        NettyChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext(), new LatencyRecorder())
+                .build();
+        try {
+            Load load = new Load(LikeServiceGrpc.newStub(channel), events, concurrency);
+            load.start();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(warmupSeconds));
+
+            OperatingSystemMXBean os = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+            load.window = new Window();
+            long startNanos = System.nanoTime();
+            long startCpuNanos = os.getProcessCpuTime();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+            Window measured = load.window;
+            load.window = new Window();
+            long cpuNanos = os.getProcessCpuTime() - startCpuNanos;
+            long wallNanos = System.nanoTime() - startNanos;
+            load.stop();
+
+            long calls = measured.calls.sum();
+            Map<String, Number> latency = measured.latency.toMap();
+            return new Result(calls * 1e9 / wallNanos,
+                    latency.get("p50Micros").longValue(),
+                    latency.get("p99Micros").longValue(),
+                    100.0 * cpuNanos / wallNanos / os.getAvailableProcessors(),
+                    calls == 0 ? 0 : cpuNanos / 1_000.0 / calls,
+                    measured.errors.sum());
+        } finally {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            clientThreading.close();
+            serverThreading.close();
+        }
+    }
+
+    private static final class Window {
+        final LatencyRecorder latency = new LatencyRecorder();
+        final LongAdder calls = new LongAdder();
+        final LongAdder errors = new LongAdder();
+    }
+
+    /**
+     * Keeps {@code concurrency} calls in flight: each completion sends the next call until stopped.
+     */
+    private static final class Load {
+
+        private final LikeServiceGrpc.LikeServiceStub stub;
+        private final EventOuterClass.Event[] events;
+        private final int concurrency;
+        private final AtomicInteger cursor = new AtomicInteger();
+        private final CountDownLatch stopped;
+        private volatile boolean running = true;
+        volatile Window window = new Window();
+
+        private Load(LikeServiceGrpc.LikeServiceStub stub, EventOuterClass.Event[] events, int concurrency) {
+            this.stub = stub;
+            this.events = events;
+            this.concurrency = concurrency;
+            this.stopped = new CountDownLatch(concurrency);
+        }
+
+        private void start() {
+            for (int i = 0; i < concurrency; i++) {
+                send();
+            }
+        }
+
+        private void stop() throws InterruptedException {
+            running = false;
+            if (!stopped.await(10, TimeUnit.SECONDS)) {
+                System.err.println("Calls still in flight after 10 s: " + stopped.getCount());
+            }
+        }
+
+        private void send() {
+            long startNanos = System.nanoTime();
+            stub.likeEvent(events[cursor.getAndIncrement() & Keys.SAMPLE_MASK], new StreamObserver<>() {
+                @Override
+                public void onNext(EventOuterClass.Event value) {
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    window.errors.increment();
+                    next();
+                }
+
+                @Override
+                public void onCompleted() {
+                    Window current = window;
+                    current.latency.recordSince(startNanos);
+                    current.calls.increment();
+                    next();
+                }
+            });
+        }
+
+        private void next() {
+            if (running) {
+                send();
+            } else {
+                stopped.countDown();
+            }
+        }
+    }
+
+    private static List<String> list(String property, String defaults) {
+        return Arrays.stream(System.getProperty(property, defaults).split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .toList();
+    }
+}
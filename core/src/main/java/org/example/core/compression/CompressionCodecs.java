@@ -0,0 +1,55 @@
+package org.example.core.compression;
+
+import io.grpc.Codec;
+import io.grpc.CompressorRegistry;
+import io.grpc.DecompressorRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The codecs both sides of the like service understand, each wrapped in a {@link MeteredCodec}:
+ * {@code gzip} for ratio and {@link Lz4Codec lz4} for speed. One instance backs the compressor and
+ * decompressor registries of a channel or server so their stats add up in one place.
+ */
+public final class CompressionCodecs {
+
+    private final Map<String, MeteredCodec> codecs = new LinkedHashMap<>();
+
+    public CompressionCodecs() {
+        register(new Codec.Gzip());
+        register(new Lz4Codec());
+    }
+
+    private void register(Codec codec) {
+        codecs.put(codec.getMessageEncoding(), new MeteredCodec(codec));
+    }
+
+    public boolean supports(String encoding) {
+        return Codec.Identity.NONE.getMessageEncoding().equals(encoding) || codecs.containsKey(encoding);
+    }
+
+    public CompressorRegistry compressorRegistry() {
+        CompressorRegistry registry = CompressorRegistry.newEmptyInstance();
+        registry.register(Codec.Identity.NONE);
+        codecs.values().forEach(registry::register);
+        return registry;
+    }
+
+    public DecompressorRegistry decompressorRegistry() {
+        DecompressorRegistry registry = DecompressorRegistry.emptyInstance().with(Codec.Identity.NONE, false);
+        for (MeteredCodec codec : codecs.values()) {
+            registry = registry.with(codec, true);
+        }
+        return registry;
+    }
+
+    /**
+     * @return per-encoding counters, see {@link MeteredCodec#toMap()}
+     */
+    public Map<String, Map<String, Long>> stats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        codecs.forEach((encoding, codec) -> stats.put(encoding, codec.toMap()));
+        return stats;
+    }
+}
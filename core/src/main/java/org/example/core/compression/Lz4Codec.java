@@ -0,0 +1,44 @@
+package org.example.core.compression;
+
+import io.grpc.Codec;
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * LZ4 block-stream codec registered as {@code grpc-encoding: lz4}. Trades gzip's ratio for a fraction of
+ * its CPU, which suits the mid-sized messages that are worth compressing at all. Both the client and the
+ * server must register it.
+ */
+public final class Lz4Codec implements Codec {
+
+    public static final String ENCODING = "lz4";
+
+    // Small blocks keep the per-message buffers cheap; our messages are far below this anyway
+    private static final int BLOCK_SIZE = 8 * 1024;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4SafeDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().safeDecompressor();
+
+    @Override
+    public String getMessageEncoding() {
+        return ENCODING;
+    }
+
+    @Override
+    public OutputStream compress(OutputStream os) {
+        return new LZ4BlockOutputStream(os, BLOCK_SIZE, COMPRESSOR);
+    }
+
+    @Override
+    public InputStream decompress(InputStream is) {
+        return LZ4BlockInputStream.newBuilder()
+                .withDecompressor(DECOMPRESSOR)
+                .build(is);
+    }
+}
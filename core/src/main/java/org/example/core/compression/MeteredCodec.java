@@ -0,0 +1,212 @@
+package org.example.core.compression;
+
+import io.grpc.Codec;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps a {@link Codec} and counts messages, bytes on both sides of the codec and the time spent inside
+ * it. gRPC compresses and decompresses synchronously on the calling thread into in-memory buffers, so
+ * the time measured around the codec's stream calls is its CPU time.
+ */
+public final class MeteredCodec implements Codec {
+
+    private final Codec delegate;
+
+    private final LongAdder compressedMessages = new LongAdder();
+    private final LongAdder compressInputBytes = new LongAdder();
+    private final LongAdder compressOutputBytes = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+
+    private final LongAdder decompressedMessages = new LongAdder();
+    private final LongAdder decompressInputBytes = new LongAdder();
+    private final LongAdder decompressOutputBytes = new LongAdder();
+    private final LongAdder decompressNanos = new LongAdder();
+
+    public MeteredCodec(Codec delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getMessageEncoding() {
+        return delegate.getMessageEncoding();
+    }
+
+    @Override
+    public OutputStream compress(OutputStream os) throws IOException {
+        CountingOutputStream wire = new CountingOutputStream(os);
+        long start = System.nanoTime();
+        OutputStream compressing = delegate.compress(wire);
+        return new TimedOutputStream(compressing, wire, System.nanoTime() - start);
+    }
+
+    @Override
+    public InputStream decompress(InputStream is) throws IOException {
+        CountingInputStream wire = new CountingInputStream(is);
+        long start = System.nanoTime();
+        InputStream decompressing = delegate.decompress(wire);
+        decompressNanos.add(System.nanoTime() - start);
+        decompressedMessages.increment();
+        return new TimedInputStream(decompressing, wire);
+    }
+
+    public Map<String, Long> toMap() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("compressedMessages", compressedMessages.sum());
+        stats.put("compressInputBytes", compressInputBytes.sum());
+        stats.put("compressOutputBytes", compressOutputBytes.sum());
+        stats.put("compressCpuMicros", compressNanos.sum() / 1_000);
+        stats.put("decompressedMessages", decompressedMessages.sum());
+        stats.put("decompressInputBytes", decompressInputBytes.sum());
+        stats.put("decompressOutputBytes", decompressOutputBytes.sum());
+        stats.put("decompressCpuMicros", decompressNanos.sum() / 1_000);
+        return stats;
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        long bytes;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            bytes += len;
+        }
+    }
+
+    /**
+     * Accumulates per message in plain fields and publishes to the adders once, on close.
+     */
+    private final class TimedOutputStream extends FilterOutputStream {
+
+        private final CountingOutputStream wire;
+        private long nanos;
+        private long bytes;
+        private boolean closed;
+
+        TimedOutputStream(OutputStream out, CountingOutputStream wire, long setupNanos) {
+            super(out);
+            this.wire = wire;
+            this.nanos = setupNanos;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            long start = System.nanoTime();
+            out.write(b);
+            nanos += System.nanoTime() - start;
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            out.write(b, off, len);
+            nanos += System.nanoTime() - start;
+            bytes += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            long start = System.nanoTime();
+            out.flush();
+            nanos += System.nanoTime() - start;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            long start = System.nanoTime();
+            out.close();
+            nanos += System.nanoTime() - start;
+            compressedMessages.increment();
+            compressInputBytes.add(bytes);
+            compressOutputBytes.add(wire.bytes);
+            compressNanos.add(nanos);
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        long bytes;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                bytes += n;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Decompressed streams are not reliably closed by the reader, so counts are published per read.
+     */
+    private final class TimedInputStream extends FilterInputStream {
+
+        private final CountingInputStream wire;
+        private long wireReported;
+
+        TimedInputStream(InputStream in, CountingInputStream wire) {
+            super(in);
+            this.wire = wire;
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int b = in.read();
+            record(System.nanoTime() - start, b >= 0 ? 1 : 0);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            int n = in.read(b, off, len);
+            record(System.nanoTime() - start, Math.max(n, 0));
+            return n;
+        }
+
+        private void record(long nanos, int bytes) {
+            decompressNanos.add(nanos);
+            decompressOutputBytes.add(bytes);
+            decompressInputBytes.add(wire.bytes - wireReported);
+            wireReported = wire.bytes;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.example.core.grpc;
+
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.channel.Channel;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.ServerChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioSocketChannel;
+import org.example.core.metrics.LatencyRecorder;
+import org.example.core.metrics.TimedExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The threading model of a gRPC server or channel: the executor that runs its call callbacks and the
+ * Netty transport and event loops under it, so the models can be swapped, and compared, by configuration.
+ * <ul>
+ *     <li>{@code direct}: callbacks run on the event loop that read the message. No hand-off at all, but a
+ *     callback that blocks stalls every connection on that loop.</li>
+ *     <li>{@code fixed}: a fixed pool of {@code threads}.</li>
+ *     <li>{@code fork-join}: a work-stealing pool of {@code threads}.</li>
+ *     <li>{@code virtual}: a new virtual thread per callback; {@code threads} is unused.</li>
+ * </ul>
+ * {@code threads} 0 uses two per core. The transport is {@code nio} or {@code epoll} (Linux only). Event-loop
+ * threads 0 keep gRPC's shared default loops for {@code nio}, and one per core for {@code epoll}.
+ * <p>
+ * The executor and event loops are created on first use and shared by every builder configured, so the
+ * sub-channels of a pool run on one set of threads. {@link #close()} shuts them down; call it after the
+ * servers and channels using them have terminated.
+ */
+public final class GrpcThreading implements AutoCloseable {
+
+    public enum ExecutorKind {
+        DIRECT, FIXED, FORK_JOIN, VIRTUAL;
+
+        public static ExecutorKind of(String name) {
+            return switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "direct" -> DIRECT;
+                case "fixed" -> FIXED;
+                case "fork-join" -> FORK_JOIN;
+                case "virtual" -> VIRTUAL;
+                default -> throw new IllegalArgumentException("Unknown executor: " + name
+                        + " (expected direct, fixed, fork-join or virtual)");
+            };
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    public enum Transport {
+        NIO, EPOLL;
+
+        public static Transport of(String name) {
+            Transport transport = switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "nio" -> NIO;
+                case "epoll" -> EPOLL;
+                default -> throw new IllegalArgumentException("Unknown transport: " + name + " (expected nio or epoll)");
+            };
+            if (transport == EPOLL && !Epoll.isAvailable()) {
+                throw new IllegalStateException("The epoll transport is not available here", Epoll.unavailabilityCause());
+            }
+            return transport;
+        }
+
+        /**
+         * @param threads 0 for one per core
+         */
+        public EventLoopGroup newEventLoopGroup(int threads) {
+            int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            return this == EPOLL ? new EpollEventLoopGroup(size) : new NioEventLoopGroup(size);
+        }
+
+        public Class<? extends ServerChannel> serverChannelType() {
+            return this == EPOLL ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+        }
+
+        public Class<? extends Channel> channelType() {
+            return this == EPOLL ? EpollSocketChannel.class : NioSocketChannel.class;
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final ExecutorKind executorKind;
+    private final int threads;
+    private final Transport transport;
+    private final int eventLoopThreads;
+
+    private ExecutorService executor;
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private final List<EventLoopGroup> groups = new ArrayList<>();
+
+    public GrpcThreading(ExecutorKind executorKind, int threads, Transport transport, int eventLoopThreads) {
+        this.executorKind = executorKind;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors() * 2;
+        this.transport = transport;
+        this.eventLoopThreads = eventLoopThreads;
+    }
+
+    public GrpcThreading(String executor, int threads, String transport, int eventLoopThreads) {
+        this(ExecutorKind.of(executor), threads, Transport.of(transport), eventLoopThreads);
+    }
+
+    public Transport transport() {
+        return transport;
+    }
+
+    /**
+     * Applies the model to a server, timing the executor's queue into {@code queueTime}.
+     */
+    public synchronized NettyServerBuilder configure(NettyServerBuilder builder, LatencyRecorder queueTime) {
+        if (ownEventLoops()) {
+            if (bossGroup == null) {
+                // Accepting connections is rare; one thread does
+                bossGroup = track(transport.newEventLoopGroup(1));
+                workerGroup = track(transport.newEventLoopGroup(eventLoopThreads));
+            }
+            // gRPC takes all three or none, and does not shut down groups it was given
+            builder.bossEventLoopGroup(bossGroup)
+                    .workerEventLoopGroup(workerGroup)
+                    .channelType(transport.serverChannelType());
+        }
+        return executorKind == ExecutorKind.DIRECT ? builder.directExecutor() : builder.executor(executor(queueTime));
+    }
+
+    /**
+     * Applies the model to a channel, timing the executor's queue into {@code queueTime}.
+     */
+    public NettyChannelBuilder configure(NettyChannelBuilder builder, LatencyRecorder queueTime) {
+        return configure(builder, queueTime, null);
+    }
+
+    /**
+     * Applies the model to a channel that runs on {@code eventLoopGroup}, when not null, instead of the
+     * model's own event loops. The group must be of the model's transport and is not shut down by
+     * {@link #close()}.
+     */
+    public synchronized NettyChannelBuilder configure(NettyChannelBuilder builder, LatencyRecorder queueTime,
+                                                      EventLoopGroup eventLoopGroup) {
+        if (eventLoopGroup == null && ownEventLoops()) {
+            if (workerGroup == null) {
+                workerGroup = track(transport.newEventLoopGroup(eventLoopThreads));
+            }
+            eventLoopGroup = workerGroup;
+        }
+        if (eventLoopGroup != null) {
+            // gRPC does not shut down a group it was given
+            builder.eventLoopGroup(eventLoopGroup).channelType(transport.channelType());
+        }
+        return executorKind == ExecutorKind.DIRECT ? builder.directExecutor() : builder.executor(executor(queueTime));
+    }
+
+    private boolean ownEventLoops() {
+        return transport == Transport.EPOLL || eventLoopThreads > 0;
+    }
+
+    private TimedExecutor executor(LatencyRecorder queueTime) {
+        if (executor == null) {
+            executor = switch (executorKind) {
+                case FIXED -> Executors.newFixedThreadPool(threads);
+                case FORK_JOIN -> new ForkJoinPool(threads);
+                case VIRTUAL -> Executors.newVirtualThreadPerTaskExecutor();
+                case DIRECT -> throw new IllegalStateException("A direct model has no executor");
+            };
+        }
+        return new TimedExecutor(executor, queueTime);
+    }
+
+    private EventLoopGroup track(EventLoopGroup group) {
+        groups.add(group);
+        return group;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        for (EventLoopGroup group : groups) {
+            group.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * For example {@code fork-join(16)/epoll(4)}; event loops shown as {@code default} when gRPC's are used.
+     */
+    @Override
+    public String toString() {
+        String executorName = switch (executorKind) {
+            case FIXED, FORK_JOIN -> executorKind + "(" + threads + ")";
+            default -> executorKind.toString();
+        };
+        String loops = ownEventLoops()
+                ? String.valueOf(eventLoopThreads > 0 ? eventLoopThreads : Runtime.getRuntime().availableProcessors())
+                : "default";
+        return executorName + "/" + transport + "(" + loops + ")";
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.core.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histogram for a hot path. Recording goes into an HdrHistogram {@link Recorder}: wait-free and
+ * allocation-free, so it is safe on every call. Readers swap out the recorder's interval histogram and fold
+ * it into a running total; that work happens only when the metrics are read.
+ * <p>
+ * Values are nanoseconds, kept to two significant digits (1% error) and clamped at one minute.
+ */
+public final class LatencyRecorder {
+
+    private static final long HIGHEST_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final Recorder recorder = new Recorder(HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+    private final Histogram total = new Histogram(HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+    private Histogram interval;
+
+    public void recordNanos(long nanos) {
+        recorder.recordValue(Math.min(Math.max(nanos, 0), HIGHEST_NANOS));
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, a {@link System#nanoTime()} reading.
+     */
+    public void recordSince(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return count and latency percentiles in microseconds since startup
+     */
+    public synchronized Map<String, Number> toMap() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("count", total.getTotalCount());
+        stats.put("meanMicros", total.getMean() / 1_000);
+        stats.put("p50Micros", micros(50));
+        stats.put("p90Micros", micros(90));
+        stats.put("p99Micros", micros(99));
+        stats.put("p999Micros", micros(99.9));
+        stats.put("maxMicros", total.getMaxValue() / 1_000);
+        return stats;
+    }
+
+    private long micros(double percentile) {
+        return total.getValueAtPercentile(percentile) / 1_000;
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.core.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named latency histograms and counters of one process.
+ * <p>
+ * Look a metric up once, when the component using it is built, and keep the reference: the lookup itself
+ * is not meant for the hot path. Counters are {@link LongAdder}s, and gauges such as in-flight calls are
+ * counters that go up and down.
+ */
+public final class Metrics {
+
+    private final Map<String, LatencyRecorder> latencies = new TreeMap<>();
+    private final Map<String, LongAdder> counters = new TreeMap<>();
+
+    public synchronized LatencyRecorder latency(String name) {
+        return latencies.computeIfAbsent(name, n -> new LatencyRecorder());
+    }
+
+    public synchronized LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> latencyStats = new LinkedHashMap<>();
+        latencies.forEach((name, recorder) -> latencyStats.put(name, recorder.toMap()));
+        Map<String, Long> counterStats = new LinkedHashMap<>();
+        counters.forEach((name, counter) -> counterStats.put(name, counter.sum()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("latencies", latencyStats);
+        stats.put("counters", counterStats);
+        return stats;
+    }
+}
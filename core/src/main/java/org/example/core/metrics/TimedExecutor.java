@@ -0,0 +1,27 @@
+package org.example.core.metrics;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Records how long tasks wait in an executor's queue before they start, which is where an overloaded
+ * gRPC executor shows up first.
+ */
+public final class TimedExecutor implements Executor {
+
+    private final Executor delegate;
+    private final LatencyRecorder queueTime;
+
+    public TimedExecutor(Executor delegate, LatencyRecorder queueTime) {
+        this.delegate = delegate;
+        this.queueTime = queueTime;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        long enqueuedNanos = System.nanoTime();
+        delegate.execute(() -> {
+            queueTime.recordSince(enqueuedNanos);
+            command.run();
+        });
+    }
+}
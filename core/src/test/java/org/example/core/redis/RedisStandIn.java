@@ -0,0 +1,179 @@
+package org.example.core.redis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-JVM stand-in for Redis that speaks enough RESP2 for the api's Redis clients and the engine's
+ * write-behind: {@code PING}, {@code GET}, {@code SET}/{@code PSETEX} (expiry ignored), {@code MSET},
+ * {@code INCR}/{@code INCRBY}/{@code DECR}/{@code DECRBY}, and {@code CLIENT}/{@code SELECT} as no-ops.
+ * {@code HELLO} is refused so clients fall back to RESP2. One daemon thread per connection; pipelined
+ * commands are answered with one write per batch.
+ * <p>
+ * Good for tests and for comparing client overheads without a Redis install; it says nothing about the
+ * throughput of a real server.
+ */
+public final class RedisStandIn implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ConcurrentMap<String, String> values = new ConcurrentHashMap<>();
+    private final LongAdder commands = new LongAdder();
+
+    public RedisStandIn() throws IOException {
+        this.serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        start("redis-stand-in", this::accept);
+    }
+
+    public String uri() {
+        return "redis://127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    public long commands() {
+        return commands.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                start("redis-stand-in-connection", () -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             InputStream in = new BufferedInputStream(socket.getInputStream());
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            while (true) {
+                List<String> command = readCommand(in);
+                commands.increment();
+                out.write(execute(command).getBytes(StandardCharsets.UTF_8));
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // Client disconnected or the stand-in was closed
+        }
+    }
+
+    private String execute(List<String> command) {
+        String name = command.isEmpty() ? "" : command.get(0).toUpperCase(Locale.ROOT);
+        return switch (name) {
+            case "PING" -> "+PONG\r\n";
+            case "CLIENT", "SELECT" -> "+OK\r\n";
+            case "GET" -> bulk(values.get(command.get(1)));
+            case "SET" -> {
+                values.put(command.get(1), command.get(2));
+                yield "+OK\r\n";
+            }
+            case "PSETEX", "SETEX" -> {
+                values.put(command.get(1), command.get(3));
+                yield "+OK\r\n";
+            }
+            case "MSET" -> {
+                for (int i = 1; i + 1 < command.size(); i += 2) {
+                    values.put(command.get(i), command.get(i + 1));
+                }
+                yield "+OK\r\n";
+            }
+            case "INCR" -> add(command.get(1), 1);
+            case "DECR" -> add(command.get(1), -1);
+            case "INCRBY" -> add(command.get(1), Long.parseLong(command.get(2)));
+            case "DECRBY" -> add(command.get(1), -Long.parseLong(command.get(2)));
+            default -> "-ERR unknown command '" + name + "'\r\n";
+        };
+    }
+
+    private static void start(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private String add(String key, long delta) {
+        try {
+            String value = values.compute(key, (k, old) -> Long.toString((old == null ? 0 : Long.parseLong(old)) + delta));
+            return ":" + value + "\r\n";
+        } catch (NumberFormatException e) {
+            return "-ERR value is not an integer or out of range\r\n";
+        }
+    }
+
+    private static String bulk(String value) {
+        if (value == null) {
+            return "$-1\r\n";
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return "$" + bytes.length + "\r\n" + value + "\r\n";
+    }
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        expect(in, '*');
+        int count = (int) readNumber(in);
+        List<String> command = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            expect(in, '$');
+            int length = (int) readNumber(in);
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length < length) {
+                throw new EOFException();
+            }
+            command.add(new String(bytes, StandardCharsets.UTF_8));
+            in.skipNBytes(2);
+        }
+        return command;
+    }
+
+    private static void expect(InputStream in, char marker) throws IOException {
+        int read = in.read();
+        if (read != marker) {
+            throw new EOFException("Expected '" + marker + "' but read " + read);
+        }
+    }
+
+    private static long readNumber(InputStream in) throws IOException {
+        long value = 0;
+        boolean negative = false;
+        int read;
+        while ((read = in.read()) != '\r') {
+            if (read < 0) {
+                throw new EOFException();
+            }
+            if (read == '-') {
+                negative = true;
+            } else {
+                value = value * 10 + (read - '0');
+            }
+        }
+        in.read(); // '\n'
+        return negative ? -value : value;
+    }
+}
@@ -1,12 +1,19 @@
 package org.example.engine;
 
-import io.grpc.CompressorRegistry;
-import io.grpc.DecompressorRegistry;
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptors;
 import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
 import io.grpc.netty.shaded.io.netty.channel.ChannelOption;
+import org.example.core.compression.CompressionCodecs;
+import org.example.core.grpc.GrpcThreading;
+import org.example.core.metrics.Metrics;
+import org.example.engine.replication.ReplicationServiceImpl;
 import org.example.engine.service.LikeServiceImpl;
+import org.example.engine.service.LoadSheddingInterceptor;
+import org.example.engine.service.MetricsServerInterceptor;
+import org.example.engine.service.ReplicaWriteGuard;
+import org.example.engine.snapshot.RecoveryStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +23,7 @@ import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.concurrent.*;
 
 @Component
@@ -26,39 +34,86 @@ public class GrpcServer implements ApplicationRunner {
     @Value("${grpc.server.port:6565}")
     private int port;
 
+    // Tests start the server inside the Spring context and must not block the runner
+    @Value("${grpc.server.block-until-shutdown:true}")
+    private boolean blockUntilShutdown;
+
+    // Example: grpc.server.executor=fork-join (or fixed, virtual, direct), see GrpcThreading
+    @Value("${grpc.server.executor:fork-join}")
+    private String executor;
+
+    // Example: grpc.server.executor.threads=16 (fixed and fork-join; 0 uses two per core)
+    @Value("${grpc.server.executor.threads:0}")
+    private int executorThreads;
+
+    // Example: grpc.server.transport=epoll (Linux only; default nio)
+    @Value("${grpc.server.transport:nio}")
+    private String transport;
+
+    // Example: grpc.server.event-loop.threads=4 (0 keeps gRPC's default loops, one per core for epoll)
+    @Value("${grpc.server.event-loop.threads:0}")
+    private int eventLoopThreads;
+
     private Server server;
 
+    private GrpcThreading threading;
+
     @Autowired
     private LikeServiceImpl likeServiceImpl; // Inject the service implementation
 
+    @Autowired
+    private RecoveryStats recoveryStats;
+
+    @Autowired
+    private CompressionCodecs compressionCodecs;
+
+    @Autowired
+    private LoadSheddingInterceptor loadSheddingInterceptor;
+
+    @Autowired
+    private MetricsServerInterceptor metricsServerInterceptor;
+
+    @Autowired
+    private ReplicationServiceImpl replicationService;
+
+    @Autowired
+    private ReplicaWriteGuard replicaWriteGuard;
+
+    @Autowired
+    private Metrics metrics;
+
     @Override
     public void run(ApplicationArguments args) throws Exception {
         start();
-        blockUntilShutdown();
+        if (blockUntilShutdown) {
+            blockUntilShutdown();
+        }
     }
 
     public void start() throws IOException {
-//        ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
-        int numThreads = Runtime.getRuntime().availableProcessors() * 2; // Adjust based on workload
-        ForkJoinPool pool = new ForkJoinPool(numThreads);
-//        ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
-        server = NettyServerBuilder.forPort(port)
-                .addService(likeServiceImpl) // Register our service
+        threading = new GrpcThreading(executor, executorThreads, transport, eventLoopThreads);
+        NettyServerBuilder builder = NettyServerBuilder.forPort(port)
+                // Register our service; metrics run first so shed calls are counted too
+                .addService(ServerInterceptors.intercept(likeServiceImpl, replicaWriteGuard, loadSheddingInterceptor, metricsServerInterceptor))
+                .addService(replicationService)
                 .maxInboundMessageSize(131072)
                 .maxInboundMetadataSize(131072)
-                .compressorRegistry(CompressorRegistry.getDefaultInstance())
-                .decompressorRegistry(DecompressorRegistry.getDefaultInstance())
+                .compressorRegistry(compressionCodecs.compressorRegistry())
+                .decompressorRegistry(compressionCodecs.decompressorRegistry())
                 .keepAliveTime(1, TimeUnit.MINUTES)
                 .keepAliveTimeout(5, TimeUnit.MINUTES)
                 .withOption(ChannelOption.SO_REUSEADDR, true)
                 .withChildOption(ChannelOption.SO_REUSEADDR, true)
                 .withChildOption(ChannelOption.SO_RCVBUF, 256 * 1024)
                 .withChildOption(ChannelOption.SO_SNDBUF, 256 * 1024)
-                .withChildOption(ChannelOption.TCP_NODELAY, true)
-                .executor(pool)
+                .withChildOption(ChannelOption.TCP_NODELAY, true);
+        server = threading.configure(builder, metrics.latency("grpc.server.executor.queue"))
                 .build()
                 .start();
-        log.info("gRPC Server started, listening on port {}", port);
+        long startupMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        recoveryStats.serving(startupMillis);
+        log.info("gRPC Server started, listening on port {} with {} ({} ms after JVM start)",
+                server.getPort(), threading, startupMillis);
 
         // Add a shutdown hook to gracefully stop the server
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -77,6 +132,9 @@ public class GrpcServer implements ApplicationRunner {
         if (server != null) {
             server.shutdown().awaitTermination(30, TimeUnit.SECONDS);
         }
+        if (threading != null) {
+            threading.close();
+        }
     }
 
     /**
@@ -0,0 +1,141 @@
+package org.example.engine;
+
+import org.example.core.compression.CompressionCodecs;
+import org.example.core.metrics.Metrics;
+import org.example.engine.replication.ReplicationClient;
+import org.example.engine.replication.ReplicationRole;
+import org.example.engine.replication.ReplicationSource;
+import org.example.engine.service.LoadSheddingInterceptor;
+import org.example.engine.service.ReplicaWriteGuard;
+import org.example.engine.snapshot.RecoveryStats;
+import org.example.engine.store.LikeMembership;
+import org.example.engine.tiering.RedisWriteBehind;
+import org.example.engine.trending.TrendingAggregator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+public class StatsController {
+
+    private final RecoveryStats recoveryStats;
+    private final CompressionCodecs compressionCodecs;
+    private final LoadSheddingInterceptor loadSheddingInterceptor;
+    private final LikeMembership likeMembership;
+    private final TrendingAggregator trendingAggregator;
+    private final ObjectProvider<RedisWriteBehind> redisWriteBehind;
+    private final ReplicationRole replicationRole;
+    private final ReplicationSource replicationSource;
+    private final ReplicaWriteGuard replicaWriteGuard;
+    private final ObjectProvider<ReplicationClient> replicationClient;
+    private final Metrics metrics;
+
+    public StatsController(RecoveryStats recoveryStats, CompressionCodecs compressionCodecs,
+                           LoadSheddingInterceptor loadSheddingInterceptor, LikeMembership likeMembership,
+                           TrendingAggregator trendingAggregator,
+                           ObjectProvider<RedisWriteBehind> redisWriteBehind, ReplicationRole replicationRole,
+                           ReplicationSource replicationSource, ReplicaWriteGuard replicaWriteGuard,
+                           ObjectProvider<ReplicationClient> replicationClient, Metrics metrics) {
+        this.recoveryStats = recoveryStats;
+        this.compressionCodecs = compressionCodecs;
+        this.loadSheddingInterceptor = loadSheddingInterceptor;
+        this.likeMembership = likeMembership;
+        this.trendingAggregator = trendingAggregator;
+        this.redisWriteBehind = redisWriteBehind;
+        this.replicationRole = replicationRole;
+        this.replicationSource = replicationSource;
+        this.replicaWriteGuard = replicaWriteGuard;
+        this.replicationClient = replicationClient;
+        this.metrics = metrics;
+    }
+
+    @GetMapping("/stats/recovery")
+    public Map<String, Long> recovery() {
+        return recoveryStats.toMap();
+    }
+
+    @GetMapping("/stats/compression")
+    public Map<String, Map<String, Long>> compression() {
+        return compressionCodecs.stats();
+    }
+
+    @GetMapping("/stats/shedding")
+    public Map<String, Long> shedding() {
+        return loadSheddingInterceptor.toMap();
+    }
+
+    /**
+     * Events with per-user likes, how many users like them and the bytes their bitmaps take.
+     */
+    @GetMapping("/stats/membership")
+    public Map<String, Long> membership() {
+        return likeMembership.toMap();
+    }
+
+    /**
+     * Bucket width and count of the trending windows, and how many events currently have a ring.
+     */
+    @GetMapping("/stats/trending")
+    public Map<String, Long> trending() {
+        return trendingAggregator.toMap();
+    }
+
+    /**
+     * Dirty events waiting for the next flush to Redis and what was flushed so far; empty unless
+     * engine.redis.enabled=true.
+     */
+    @GetMapping("/stats/writebehind")
+    public Map<String, Long> writeBehind() {
+        RedisWriteBehind writeBehind = redisWriteBehind.getIfAvailable();
+        return writeBehind == null ? Map.of() : writeBehind.toMap();
+    }
+
+    /**
+     * Role (primary 1, replica 0) and writes refused as a replica; on a primary, connected replicas and
+     * batches shipped; on a replica, the stream to the primary, the last applied batch and its lag.
+     */
+    @GetMapping("/stats/replication")
+    public Map<String, Map<String, Long>> replication() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        stats.put("role", Map.of("primary", replicationRole.isPrimary() ? 1L : 0L, "refusedWrites", replicaWriteGuard.refused()));
+        stats.put("source", replicationSource.toMap());
+        ReplicationClient client = replicationClient.getIfAvailable();
+        if (client != null) {
+            stats.put("client", client.toMap());
+        }
+        return stats;
+    }
+
+    /**
+     * Turns a replica into a primary: stops following the old primary, keeps the counts received so far and
+     * starts taking writes. Clients must be pointed at it separately. Per-user like membership is replicated
+     * too, so likes stay idempotent per user across the failover, short of the changes the old primary had
+     * not shipped yet. Writes are only taken once replication has fully stopped, so no replicated count
+     * lands on top of them.
+     */
+    @PostMapping("/replication/promote")
+    public Map<String, Map<String, Long>> promote() throws InterruptedException {
+        ReplicationClient client = replicationClient.getIfAvailable();
+        if (client != null) {
+            client.close();
+            if (!client.awaitTermination(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Replication did not stop within 5 s; not promoted");
+            }
+        }
+        replicationRole.promote();
+        return replication();
+    }
+
+    /**
+     * Latency histograms (gRPC methods, executor queueing) and counters (in flight, errors, bytes).
+     */
+    @GetMapping("/metrics")
+    public Map<String, Object> metrics() {
+        return metrics.toMap();
+    }
+}
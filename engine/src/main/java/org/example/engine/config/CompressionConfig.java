@@ -0,0 +1,15 @@
+package org.example.engine.config;
+
+import org.example.core.compression.CompressionCodecs;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CompressionConfig {
+
+    // gzip and lz4, matching what the api channel may send
+    @Bean
+    public CompressionCodecs compressionCodecs() {
+        return new CompressionCodecs();
+    }
+}
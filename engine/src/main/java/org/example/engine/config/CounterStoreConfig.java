@@ -0,0 +1,60 @@
+package org.example.engine.config;
+
+import org.example.engine.store.LikeCounterStore;
+import org.example.engine.store.LikeMembership;
+import org.example.engine.store.OffHeapLikeCounterStore;
+import org.example.engine.store.PartitionedLikeCounterStore;
+import org.example.engine.store.StripedLikeCounterStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CounterStoreConfig {
+
+    // Example: engine.store.type=striped (LongAdder per id) or offheap (direct-memory hash table)
+    @Value("${engine.store.type:striped}")
+    private String storeType;
+
+    @Value("${engine.store.initial-capacity:65536}")
+    private int initialCapacity;
+
+    @Value("${engine.store.offheap.shards:64}")
+    private int offHeapShards;
+
+    @Value("${engine.store.offheap.load-factor:0.7}")
+    private float offHeapLoadFactor;
+
+    @Value("${engine.store.offheap.growth-factor:2}")
+    private int offHeapGrowthFactor;
+
+    // The partitioned processor needs counters split the same way as its writers
+    @Value("${engine.processor:direct}")
+    private String processor;
+
+    @Value("${engine.processor.partitions:0}")
+    private int partitions;
+
+    @Bean
+    public LikeCounterStore likeCounterStore() {
+        if ("partitioned".equals(processor)) {
+            // Partitions are single-writer hash maps of their own; another store type would be silently dropped
+            if (!"striped".equals(storeType)) {
+                throw new IllegalStateException("engine.processor=partitioned keeps its own single-writer partitions"
+                        + " and cannot use engine.store.type=" + storeType + "; leave engine.store.type unset");
+            }
+            int count = partitions > 0 ? partitions : Runtime.getRuntime().availableProcessors();
+            return new PartitionedLikeCounterStore(count, initialCapacity);
+        }
+        return switch (storeType) {
+            case "striped" -> new StripedLikeCounterStore(initialCapacity);
+            case "offheap" -> new OffHeapLikeCounterStore(initialCapacity, offHeapShards, offHeapLoadFactor, offHeapGrowthFactor);
+            default -> throw new IllegalArgumentException("Unknown engine.store.type: " + storeType);
+        };
+    }
+
+    @Bean
+    public LikeMembership likeMembership() {
+        return new LikeMembership(initialCapacity);
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.engine.config;
+
+import org.example.engine.service.LoadSheddingInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LoadSheddingConfig {
+
+    // Example: engine.shedding.max-in-flight=10000 (0: never shed on load)
+    @Value("${engine.shedding.max-in-flight:10000}")
+    private int maxInFlight;
+
+    // Calls arriving with less time than this left on their deadline are refused
+    @Value("${engine.shedding.min-deadline-ms:1}")
+    private long minDeadlineMillis;
+
+    @Bean
+    public LoadSheddingInterceptor loadSheddingInterceptor() {
+        return new LoadSheddingInterceptor(maxInFlight, minDeadlineMillis);
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.engine.config;
+
+import com.example.event.LikeServiceGrpc;
+import org.example.core.metrics.Metrics;
+import org.example.engine.service.MetricsServerInterceptor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public Metrics metrics() {
+        return new Metrics();
+    }
+
+    @Bean
+    public MetricsServerInterceptor metricsServerInterceptor(Metrics metrics) {
+        return new MetricsServerInterceptor(metrics, LikeServiceGrpc.getServiceDescriptor());
+    }
+}
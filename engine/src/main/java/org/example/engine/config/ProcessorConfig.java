@@ -0,0 +1,58 @@
+package org.example.engine.config;
+
+import org.example.engine.processor.DirectLikeProcessor;
+import org.example.engine.processor.LikeProcessor;
+import org.example.engine.processor.NotifyingLikeProcessor;
+import org.example.engine.processor.PartitionedLikeProcessor;
+import org.example.engine.replication.ReplicationSource;
+import org.example.engine.store.LikeCounterStore;
+import org.example.engine.store.LikeMembership;
+import org.example.engine.store.PartitionedLikeCounterStore;
+import org.example.engine.tiering.RedisWriteBehind;
+import org.example.engine.wal.MutationLog;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ProcessorConfig {
+
+    // Example: engine.processor=direct (apply on the gRPC thread) or partitioned (single writer per partition)
+    @Value("${engine.processor:direct}")
+    private String processor;
+
+    @Value("${engine.processor.ring-size:8192}")
+    private int ringSize;
+
+    // Writers coalesce mutations of the same event within this window (0: only what is already queued)
+    @Value("${engine.processor.batch-window-us:0}")
+    private long batchWindowMicros;
+
+    @Value("${engine.processor.max-batch:512}")
+    private int maxBatch;
+
+    @Bean(destroyMethod = "close")
+    public LikeProcessor likeProcessor(LikeCounterStore likeCounterStore, LikeMembership likeMembership,
+                                       MutationLog mutationLog, ReplicationSource replicationSource,
+                                       ObjectProvider<RedisWriteBehind> redisWriteBehind) {
+        LikeProcessor likeProcessor = switch (processor) {
+            case "direct" -> new DirectLikeProcessor(likeCounterStore, likeMembership, mutationLog);
+            case "partitioned" -> new PartitionedLikeProcessor((PartitionedLikeCounterStore) likeCounterStore, likeMembership,
+                    mutationLog, ringSize, TimeUnit.MICROSECONDS.toNanos(batchWindowMicros), maxBatch);
+            default -> throw new IllegalArgumentException("Unknown engine.processor: " + processor);
+        };
+        // Replicas, and Redis when engine.redis.enabled=true, learn which events changed once they are applied
+        RedisWriteBehind writeBehind = redisWriteBehind.getIfAvailable();
+        if (writeBehind == null) {
+            return new NotifyingLikeProcessor(likeProcessor,
+                    (eventId, userId) -> replicationSource.markDirty(eventId, userId));
+        }
+        return new NotifyingLikeProcessor(likeProcessor, (eventId, userId) -> {
+            replicationSource.markDirty(eventId, userId);
+            writeBehind.markDirty(eventId);
+        });
+    }
+}
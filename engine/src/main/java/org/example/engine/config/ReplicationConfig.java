@@ -0,0 +1,92 @@
+package org.example.engine.config;
+
+import org.example.core.metrics.Metrics;
+import org.example.engine.replication.ReplicationClient;
+import org.example.engine.replication.ReplicationRole;
+import org.example.engine.replication.ReplicationServiceImpl;
+import org.example.engine.replication.ReplicationSource;
+import org.example.engine.service.ReplicaWriteGuard;
+import org.example.engine.store.LikeCounterStore;
+import org.example.engine.store.LikeMembership;
+import org.example.engine.trending.TrendingAggregator;
+import org.example.engine.wal.MutationLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ReplicationConfig {
+
+    // Example: engine.replication.role=replica with engine.replication.primary=engine-1:6565
+    @Value("${engine.replication.role:primary}")
+    private String role;
+
+    @Value("${engine.replication.primary:localhost:6565}")
+    private String primary;
+
+    // Names this replica in the primary's logs
+    @Value("${engine.replication.replica-id:${spring.application.name}}")
+    private String replicaId;
+
+    @Value("${engine.replication.interval-ms:10}")
+    private long intervalMillis;
+
+    @Value("${engine.replication.batch:1024}")
+    private int batch;
+
+    // Past this many changed events the primary sends replicas a full copy instead
+    @Value("${engine.replication.max-dirty:1000000}")
+    private int maxDirty;
+
+    // Replicas that read nothing for this long are disconnected, and start over when they reconnect
+    @Value("${engine.replication.stall-ms:10000}")
+    private long stallMillis;
+
+    @Value("${engine.replication.retry-ms:1000}")
+    private long retryMillis;
+
+    @Bean
+    public ReplicationRole replicationRole() {
+        return switch (role) {
+            case "primary" -> new ReplicationRole(true);
+            case "replica" -> new ReplicationRole(false);
+            default -> throw new IllegalArgumentException("Unknown engine.replication.role: " + role);
+        };
+    }
+
+    @Bean
+    public ReplicaWriteGuard replicaWriteGuard(ReplicationRole replicationRole) {
+        return new ReplicaWriteGuard(replicationRole);
+    }
+
+    /**
+     * Present on every engine: idle until a replica connects, and ready to serve replicas after promotion.
+     */
+    @Bean(destroyMethod = "close")
+    public ReplicationSource replicationSource(LikeCounterStore likeCounterStore, LikeMembership likeMembership,
+                                               Metrics metrics) {
+        ReplicationSource source = new ReplicationSource(likeCounterStore, likeMembership, maxDirty, batch,
+                intervalMillis, stallMillis, metrics);
+        source.start();
+        return source;
+    }
+
+    @Bean
+    public ReplicationServiceImpl replicationService(ReplicationRole replicationRole, ReplicationSource replicationSource) {
+        return new ReplicationServiceImpl(replicationRole, replicationSource);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "engine.replication.role", havingValue = "replica")
+    public ReplicationClient replicationClient(LikeCounterStore likeCounterStore, LikeMembership likeMembership,
+                                               MutationLog mutationLog, TrendingAggregator trendingAggregator,
+                                               Metrics metrics) {
+        String host = primary.substring(0, primary.lastIndexOf(':'));
+        int port = Integer.parseInt(primary.substring(primary.lastIndexOf(':') + 1));
+        ReplicationClient client = new ReplicationClient(likeCounterStore, likeMembership, mutationLog,
+                trendingAggregator, host, port, replicaId, retryMillis, metrics);
+        client.start();
+        return client;
+    }
+}
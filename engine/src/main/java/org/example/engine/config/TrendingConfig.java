@@ -0,0 +1,30 @@
+package org.example.engine.config;
+
+import org.example.engine.trending.TrendingAggregator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class TrendingConfig {
+
+    // Example: engine.trending.bucket-seconds=60 and engine.trending.buckets=60 keep windows of up to an hour
+    @Value("${engine.trending.bucket-seconds:60}")
+    private long bucketSeconds;
+
+    @Value("${engine.trending.buckets:60}")
+    private int buckets;
+
+    // Events tracked per bucket by the heavy-hitters summary behind TopK
+    @Value("${engine.trending.sketch-capacity:1024}")
+    private int sketchCapacity;
+
+    @Bean(destroyMethod = "close")
+    public TrendingAggregator trendingAggregator() {
+        TrendingAggregator aggregator = new TrendingAggregator(TimeUnit.SECONDS.toMillis(bucketSeconds), buckets, sketchCapacity);
+        aggregator.start();
+        return aggregator;
+    }
+}
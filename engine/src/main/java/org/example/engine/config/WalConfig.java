@@ -0,0 +1,108 @@
+package org.example.engine.config;
+
+import org.example.engine.snapshot.RecoveryStats;
+import org.example.engine.snapshot.SnapshotStore;
+import org.example.engine.snapshot.Snapshotter;
+import org.example.engine.store.LikeCounterStore;
+import org.example.engine.store.LikeMembership;
+import org.example.engine.wal.FsyncPolicy;
+import org.example.engine.wal.MutationConsumer;
+import org.example.engine.wal.MutationLog;
+import org.example.engine.wal.WriteAheadLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class WalConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(WalConfig.class);
+
+    // Example: engine.wal.enabled=true
+    @Value("${engine.wal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${engine.wal.dir:data/wal}")
+    private String directory;
+
+    @Value("${engine.wal.segment-bytes:67108864}") // 64M
+    private int segmentBytes;
+
+    // Example: engine.wal.fsync=batch (group commit), interval or none
+    @Value("${engine.wal.fsync:batch}")
+    private String fsync;
+
+    @Value("${engine.wal.fsync-interval-ms:10}")
+    private long fsyncIntervalMillis;
+
+    // Snapshots fold the log so a restart only replays its tail; they need the log to be enabled
+    @Value("${engine.snapshot.enabled:false}")
+    private boolean snapshotEnabled;
+
+    @Value("${engine.snapshot.dir:data/snapshots}")
+    private String snapshotDirectory;
+
+    @Value("${engine.snapshot.interval-seconds:60}")
+    private long snapshotIntervalSeconds;
+
+    @Value("${engine.snapshot.retain:2}")
+    private int snapshotRetain;
+
+    @Bean
+    public RecoveryStats recoveryStats() {
+        return new RecoveryStats();
+    }
+
+    /**
+     * Opens the log and rebuilds the counter store and like membership from the latest snapshot plus the
+     * log tail before the gRPC server accepts calls.
+     */
+    @Bean(destroyMethod = "close")
+    public MutationLog mutationLog(LikeCounterStore likeCounterStore, LikeMembership likeMembership,
+                                   RecoveryStats recoveryStats) throws IOException {
+        if (!enabled) {
+            return MutationLog.NONE;
+        }
+        WriteAheadLog wal = WriteAheadLog.open(Path.of(directory), segmentBytes,
+                FsyncPolicy.valueOf(fsync.toUpperCase()), fsyncIntervalMillis);
+
+        long replayFrom = 0L;
+        if (snapshotEnabled) {
+            long start = System.nanoTime();
+            SnapshotStore.Loaded snapshot = snapshotStore().loadLatest(likeCounterStore::add, likeMembership::addSerialized);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            recoveryStats.snapshotLoaded(millis, snapshot.entries(), snapshot.position());
+            if (snapshot.path() != null) {
+                log.info("Loaded snapshot {} with {} entries in {} ms", snapshot.path(), snapshot.entries(), millis);
+            }
+            replayFrom = snapshot.position();
+        }
+
+        long start = System.nanoTime();
+        long records = wal.replay(replayFrom, MutationConsumer.into(likeCounterStore, likeMembership));
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        recoveryStats.logReplayed(millis, records);
+        log.info("Replayed {} mutations from log position {} into {} counters in {} ms",
+                records, replayFrom, likeCounterStore.size(), millis);
+        return wal;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = {"engine.wal.enabled", "engine.snapshot.enabled"}, havingValue = "true")
+    public Snapshotter snapshotter(MutationLog mutationLog, RecoveryStats recoveryStats) throws IOException {
+        Snapshotter snapshotter = new Snapshotter((WriteAheadLog) mutationLog, snapshotStore(), recoveryStats);
+        snapshotter.start(snapshotIntervalSeconds);
+        return snapshotter;
+    }
+
+    private SnapshotStore snapshotStore() throws IOException {
+        return new SnapshotStore(Path.of(snapshotDirectory), snapshotRetain);
+    }
+}
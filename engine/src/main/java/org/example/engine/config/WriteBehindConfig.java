@@ -0,0 +1,46 @@
+package org.example.engine.config;
+
+import io.lettuce.core.RedisClient;
+import org.example.core.metrics.Metrics;
+import org.example.engine.store.LikeCounterStore;
+import org.example.engine.tiering.RedisWriteBehind;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "engine.redis.enabled", havingValue = "true")
+public class WriteBehindConfig {
+
+    // Example: engine.redis.uri=redis://cache:6379
+    @Value("${engine.redis.uri:redis://localhost:6379}")
+    private String uri;
+
+    // Counters are mirrored as <key-prefix><event id>
+    @Value("${engine.redis.key-prefix:engine:likes:}")
+    private String keyPrefix;
+
+    // Past this many dirty events the next flush copies every counter instead
+    @Value("${engine.redis.max-dirty:100000}")
+    private int maxDirty;
+
+    @Value("${engine.redis.batch:512}")
+    private int batch;
+
+    @Value("${engine.redis.flush-interval-ms:100}")
+    private long flushIntervalMillis;
+
+    @Bean(destroyMethod = "shutdown")
+    public RedisClient engineRedisClient() {
+        return RedisClient.create(uri);
+    }
+
+    @Bean(destroyMethod = "close")
+    public RedisWriteBehind redisWriteBehind(LikeCounterStore likeCounterStore, RedisClient engineRedisClient, Metrics metrics) {
+        RedisWriteBehind writeBehind = new RedisWriteBehind(likeCounterStore, engineRedisClient, keyPrefix, maxDirty, batch,
+                flushIntervalMillis, metrics);
+        writeBehind.start();
+        return writeBehind;
+    }
+}
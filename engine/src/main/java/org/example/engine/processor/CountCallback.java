@@ -0,0 +1,22 @@
+package org.example.engine.processor;
+
+/**
+ * Completion of one submitted mutation. Exactly one method is called, possibly on another thread.
+ */
+public interface CountCallback {
+
+    /**
+     * @param count the event's like count right after the mutation was applied
+     */
+    void onCount(long count);
+
+    /**
+     * What processors call: {@link #onCount(long)} plus the delta that actually reached the counter, which
+     * is 0 for a mutation that changed nothing, as a repeated like by the same user or an unlike at zero.
+     */
+    default void onCount(long count, long applied) {
+        onCount(count);
+    }
+
+    void onError(Throwable error);
+}
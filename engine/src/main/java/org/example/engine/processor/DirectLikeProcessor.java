@@ -0,0 +1,115 @@
+package org.example.engine.processor;
+
+import com.google.protobuf.ByteString;
+import org.example.engine.store.LikeCounterStore;
+import org.example.engine.store.LikeMembership;
+import org.example.engine.wal.MutationLog;
+
+/**
+ * Applies each mutation on the calling thread; concurrency is left to the counter store.
+ * <p>
+ * Anonymous likes take no lock. Unlikes and mutations of known users take one of a few striped locks by
+ * event id, so the zero floor is checked and membership changed in the same order as they are logged; a
+ * like can only raise a count, so letting those through unlocked cannot break the floor.
+ * <p>
+ * The counter is updated before the mutation is logged and taken back if the log refuses it, so the log
+ * never holds a mutation the caller was told had failed.
+ */
+public class DirectLikeProcessor implements LikeProcessor {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final LikeCounterStore store;
+    private final LikeMembership membership;
+    private final MutationLog mutationLog;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public DirectLikeProcessor(LikeCounterStore store, MutationLog mutationLog) {
+        this(store, new LikeMembership(), mutationLog);
+    }
+
+    public DirectLikeProcessor(LikeCounterStore store, LikeMembership membership, MutationLog mutationLog) {
+        this.store = store;
+        this.membership = membership;
+        this.mutationLog = mutationLog;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public void submit(ByteString eventId, long userId, long delta, CountCallback callback) {
+        if (userId == 0 && delta >= 0) {
+            long count;
+            long position;
+            try {
+                count = store.add(eventId, delta);
+            } catch (RuntimeException e) {
+                callback.onError(e);
+                return;
+            }
+            try {
+                position = mutationLog.append(eventId, delta);
+            } catch (RuntimeException e) {
+                store.add(eventId, -delta);
+                callback.onError(e);
+                return;
+            }
+            mutationLog.whenDurable(position, () -> callback.onCount(count, delta));
+            return;
+        }
+
+        long count = 0L;
+        long applied = 0L;
+        long position = -1L;
+        RuntimeException failure = null;
+        synchronized (locks[(eventId.hashCode() & 0x7FFFFFFF) % LOCK_STRIPES]) {
+            boolean changed = userId == 0 || (delta > 0 ? membership.add(eventId, userId) : membership.remove(eventId, userId));
+            boolean counted = false;
+            try {
+                count = store.get(eventId);
+                if (changed) {
+                    applied = delta < 0 ? Math.max(delta, -Math.max(count, 0L)) : delta;
+                    if (applied != 0) {
+                        count = store.add(eventId, applied);
+                        counted = true;
+                    }
+                    // A member's unlike at zero changes no count but is logged all the same, for membership
+                    if (userId != 0) {
+                        position = mutationLog.append(eventId, applied, userId, delta > 0);
+                    } else if (applied != 0) {
+                        position = mutationLog.append(eventId, applied);
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (counted) {
+                    store.add(eventId, -applied);
+                }
+                if (changed && userId != 0) {
+                    undo(eventId, userId, delta);
+                }
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            callback.onError(failure);
+            return;
+        }
+        long result = count;
+        long change = applied;
+        if (position < 0) {
+            // Nothing was logged, so there is nothing to wait for
+            callback.onCount(result, 0L);
+        } else {
+            mutationLog.whenDurable(position, () -> callback.onCount(result, change));
+        }
+    }
+
+    private void undo(ByteString eventId, long userId, long delta) {
+        if (delta > 0) {
+            membership.remove(eventId, userId);
+        } else {
+            membership.add(eventId, userId);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.engine.processor;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Applies like/unlike mutations to the counter store and logs them.
+ * <p>
+ * This is the execution model of the engine: {@link DirectLikeProcessor} applies a mutation on the calling
+ * gRPC thread, {@link PartitionedLikeProcessor} hands it to the single writer that owns the event id.
+ * <p>
+ * Mutations of a known user go through the processor's {@code LikeMembership}: only a change of membership
+ * reaches the counter, exactly one delta per change, and a repeat is answered with the current count. No
+ * unlike takes a count below zero. Membership is changed in the same order the mutations are logged, and
+ * a mutation that fails leaves it as it was.
+ */
+public interface LikeProcessor extends AutoCloseable {
+
+    /**
+     * Applies {@code delta} to {@code eventId} on behalf of {@code userId}, 0 for an anonymous caller. The
+     * callback fires once the mutation is applied and satisfies the write-ahead log's durability policy.
+     */
+    void submit(ByteString eventId, long userId, long delta, CountCallback callback);
+
+    /**
+     * An anonymous mutation.
+     */
+    default void submit(ByteString eventId, long delta, CountCallback callback) {
+        submit(eventId, 0L, delta, callback);
+    }
+
+    @Override
+    default void close() {
+    }
+}
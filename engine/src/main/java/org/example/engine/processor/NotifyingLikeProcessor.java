@@ -0,0 +1,58 @@
+package org.example.engine.processor;
+
+import com.google.protobuf.ByteString;
+
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Tells {@code onApplied} about each event once its mutation is applied and durable, before the caller
+ * hears back. Stages that copy counters elsewhere (write-behind, replication) use it to learn which events
+ * changed: a count read after the notification always includes the mutation. Listeners that also copy
+ * membership get the user, 0 for an anonymous caller; a known user's mutation is always notified, since
+ * it may change membership without changing the count.
+ */
+public class NotifyingLikeProcessor implements LikeProcessor {
+
+    private final LikeProcessor delegate;
+    private final ObjLongConsumer<ByteString> onApplied;
+
+    public NotifyingLikeProcessor(LikeProcessor delegate, Consumer<ByteString> onApplied) {
+        this(delegate, (ObjLongConsumer<ByteString>) (eventId, userId) -> onApplied.accept(eventId));
+    }
+
+    public NotifyingLikeProcessor(LikeProcessor delegate, ObjLongConsumer<ByteString> onApplied) {
+        this.delegate = delegate;
+        this.onApplied = onApplied;
+    }
+
+    @Override
+    public void submit(ByteString eventId, long userId, long delta, CountCallback callback) {
+        delegate.submit(eventId, userId, delta, new CountCallback() {
+            @Override
+            public void onCount(long count) {
+                onApplied.accept(eventId, userId);
+                callback.onCount(count);
+            }
+
+            @Override
+            public void onCount(long count, long applied) {
+                // An anonymous unlike at zero changed nothing worth copying
+                if (applied != 0 || userId != 0) {
+                    onApplied.accept(eventId, userId);
+                }
+                callback.onCount(count, applied);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
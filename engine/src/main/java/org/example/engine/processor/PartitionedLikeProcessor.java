@@ -0,0 +1,371 @@
+package org.example.engine.processor;
+
+import com.google.protobuf.ByteString;
+import org.example.engine.store.LikeCounterStore;
+import org.example.engine.store.LikeMembership;
+import org.example.engine.store.PartitionedLikeCounterStore;
+import org.example.engine.wal.MutationLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Routes each mutation by event id to one of N partitions, each drained by its own writer thread.
+ * <p>
+ * A writer is the only thread that ever mutates its partition of {@link PartitionedLikeCounterStore}, so
+ * counters are updated without locks or CAS and a hot event never bounces a cache line between cores. The
+ * gRPC thread only claims a ring slot; the writer applies the mutation, appends it to the log and
+ * completes the caller's callback. Writers are dedicated platform threads; Java cannot pin them to a core
+ * portably, so use {@code taskset} or similar if isolation is needed.
+ * <p>
+ * Writers micro-batch: mutations taken from the ring are collected for up to {@code batchWindowNanos}
+ * after the first one, or until {@code maxBatch} are pending, and mutations of the same event are then
+ * applied as one aggregated delta with one log record; mutations of known users keep a record each, in
+ * ring order, since the log also restores membership. Every waiting caller still gets its own count, as
+ * if the mutations had been applied one by one in ring order. With a zero window a batch is whatever had
+ * queued up while the writer was busy, so coalescing only kicks in under load.
+ * <p>
+ * Membership and the zero floor are decided by the writer too, in ring order, so they need no lock: the
+ * writer owns every event of its partition. Counters are updated before anything is logged, and a mutation
+ * whose record the log refuses is taken back out of the counters and membership and answered with the
+ * error, so the log never holds a mutation a caller was told had failed.
+ */
+public class PartitionedLikeProcessor implements LikeProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionedLikeProcessor.class);
+
+    private static final int SPINS_BEFORE_PARK = 1_000;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final PartitionedLikeCounterStore store;
+    private final LikeMembership membership;
+    private final MutationLog mutationLog;
+    private final long batchWindowNanos;
+    private final int maxBatch;
+    private final RingBuffer[] rings;
+    private final Thread[] writers;
+    private volatile boolean running = true;
+
+    public PartitionedLikeProcessor(PartitionedLikeCounterStore store, MutationLog mutationLog, int ringSize) {
+        this(store, mutationLog, ringSize, 0L, 512);
+    }
+
+    /**
+     * @param batchWindowNanos how long a writer waits for more mutations after the first of a batch
+     * @param maxBatch         pending mutations that flush a batch before its window ends
+     */
+    public PartitionedLikeProcessor(PartitionedLikeCounterStore store, MutationLog mutationLog, int ringSize,
+                                    long batchWindowNanos, int maxBatch) {
+        this(store, new LikeMembership(), mutationLog, ringSize, batchWindowNanos, maxBatch);
+    }
+
+    public PartitionedLikeProcessor(PartitionedLikeCounterStore store, LikeMembership membership, MutationLog mutationLog,
+                                    int ringSize, long batchWindowNanos, int maxBatch) {
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("maxBatch must be positive: " + maxBatch);
+        }
+        this.store = store;
+        this.membership = membership;
+        this.mutationLog = mutationLog;
+        this.batchWindowNanos = batchWindowNanos;
+        this.maxBatch = maxBatch;
+        int partitions = store.partitionCount();
+        this.rings = new RingBuffer[partitions];
+        this.writers = new Thread[partitions];
+        for (int i = 0; i < partitions; i++) {
+            rings[i] = new RingBuffer(ringSize);
+            writers[i] = new Thread(new Writer(rings[i], store.partition(i)), "like-writer-" + i);
+            writers[i].setDaemon(true);
+        }
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        log.info("Partitioned like processor started with {} writers, ring size {}, batch window {} us, max batch {}",
+                partitions, ringSize, TimeUnit.NANOSECONDS.toMicros(batchWindowNanos), maxBatch);
+    }
+
+    @Override
+    public void submit(ByteString eventId, long userId, long delta, CountCallback callback) {
+        if (!rings[store.partitionOf(eventId)].publish(eventId, userId, delta, callback)) {
+            callback.onError(new IllegalStateException("Like processor is shut down"));
+        }
+    }
+
+    /**
+     * Stops taking mutations and waits for the writers. Every mutation accepted before that is still applied
+     * and answered, including one published while the writers were stopping.
+     */
+    @Override
+    public void close() {
+        // Rings first: a writer that sees running false then only waits for publishes already under way
+        for (RingBuffer ring : rings) {
+            ring.close();
+        }
+        running = false;
+        for (Thread writer : writers) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private final class Writer implements Runnable, RingBuffer.SlotHandler {
+
+        private final RingBuffer ring;
+        private final LikeCounterStore counters;
+        private final Map<ByteString, Aggregate> aggregates = new HashMap<>();
+        private Batch batch = new Batch();
+        private long batchStarted;
+
+        private Writer(RingBuffer ring, LikeCounterStore counters) {
+            this.ring = ring;
+            this.counters = counters;
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (running) {
+                try {
+                    if (ring.drain(this) > 0) {
+                        idle = 0;
+                    }
+                    if (batch.size > 0) {
+                        if (System.nanoTime() - batchStarted >= batchWindowNanos) {
+                            flush();
+                        } else {
+                            Thread.onSpinWait();
+                        }
+                    } else if (++idle < SPINS_BEFORE_PARK) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                } catch (RuntimeException e) {
+                    // The partition's producers wait on this thread, so it must outlive any failure
+                    log.error("Like writer failed, carrying on", e);
+                }
+            }
+            // Whatever was published before shutdown still gets an answer. A publish that passed the ring's
+            // closed check may land after this loop's last drain only while it is counted, so drain until no
+            // publish is counted any more; that also frees the slot a producer on a full ring waits for
+            boolean quiet;
+            do {
+                quiet = !ring.publishing();
+                if (ring.drain(this) == 0 && !quiet) {
+                    Thread.onSpinWait();
+                }
+            } while (!quiet);
+            if (batch.size > 0) {
+                flush();
+            }
+        }
+
+        @Override
+        public void handle(ByteString eventId, long userId, long delta, CountCallback callback) {
+            if (batch.size == 0) {
+                batchStarted = System.nanoTime();
+            }
+            batch.add(eventId, userId, delta, callback);
+            if (batch.size >= maxBatch) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            Batch done = batch;
+            batch = new Batch();
+
+            long lastPosition;
+            try {
+                lastPosition = apply(done);
+            } catch (RuntimeException e) {
+                // Not a log or counter refusal, those fail single mutations: the batch may be partly
+                // applied, but every caller hears back and the writer lives on
+                log.error("Like batch failed", e);
+                aggregates.clear();
+                done.fail(e);
+                return;
+            }
+            try {
+                mutationLog.whenDurable(lastPosition, done::complete);
+            } catch (RuntimeException e) {
+                log.warn("Like callback failed", e);
+            }
+        }
+
+        /**
+         * @return the log position to wait for before answering the batch
+         */
+        private long apply(Batch done) {
+            long lastPosition = 0L;
+            // Decide the individual mutations in ring order on top of the pre-batch count, so each caller
+            // sees its own count: membership first, then the zero floor
+            for (int i = 0; i < done.size; i++) {
+                Aggregate aggregate = aggregates.get(done.eventIds[i]);
+                if (aggregate == null) {
+                    aggregate = new Aggregate(done.eventIds[i]);
+                    aggregate.running = counters.get(aggregate.eventId);
+                    aggregates.put(aggregate.eventId, aggregate);
+                }
+                done.aggregates[i] = aggregate;
+                long userId = done.userIds[i];
+                long delta = done.deltas[i];
+                boolean changed = userId == 0
+                        || (delta > 0 ? membership.add(aggregate.eventId, userId) : membership.remove(aggregate.eventId, userId));
+                done.memberChanged[i] = changed && userId != 0;
+                long applied = !changed ? 0L : delta < 0 ? Math.max(delta, -Math.max(aggregate.running, 0L)) : delta;
+                aggregate.running += applied;
+                aggregate.total += applied;
+                done.applied[i] = applied;
+                done.counts[i] = aggregate.running;
+                if (userId == 0) {
+                    aggregate.anonymous += applied;
+                }
+            }
+
+            // Counters first, so a record is only logged for a mutation the store took, then one record
+            // for the anonymous mutations of each event
+            for (Aggregate aggregate : aggregates.values()) {
+                if (aggregate.total != 0) {
+                    try {
+                        counters.add(aggregate.eventId, aggregate.total);
+                    } catch (RuntimeException e) {
+                        aggregate.error = e;
+                        continue;
+                    }
+                }
+                if (aggregate.anonymous != 0) {
+                    try {
+                        lastPosition = Math.max(lastPosition, mutationLog.append(aggregate.eventId, aggregate.anonymous));
+                    } catch (RuntimeException e) {
+                        counters.add(aggregate.eventId, -aggregate.total);
+                        aggregate.error = e;
+                    }
+                }
+            }
+            // Then the records of known users in ring order. Once one fails the event's later ones are not
+            // appended, so the log holds exactly the mutations that are answered as applied
+            for (int i = 0; i < done.size; i++) {
+                Aggregate aggregate = done.aggregates[i];
+                if (!done.memberChanged[i] || aggregate.error != null) {
+                    continue;
+                }
+                if (aggregate.failure == null) {
+                    try {
+                        lastPosition = Math.max(lastPosition,
+                                mutationLog.append(aggregate.eventId, done.applied[i], done.userIds[i], done.deltas[i] > 0));
+                        continue;
+                    } catch (RuntimeException e) {
+                        aggregate.failure = e;
+                    }
+                }
+                done.failed[i] = true;
+                aggregate.unlogged += done.applied[i];
+            }
+            for (Aggregate aggregate : aggregates.values()) {
+                if (aggregate.unlogged != 0) {
+                    counters.add(aggregate.eventId, -aggregate.unlogged);
+                }
+            }
+            // Newest first, so a user's like and unlike that both failed leave membership as it was
+            for (int i = done.size - 1; i >= 0; i--) {
+                if (done.memberChanged[i] && (done.failed[i] || done.aggregates[i].error != null)) {
+                    if (done.deltas[i] > 0) {
+                        membership.remove(done.eventIds[i], done.userIds[i]);
+                    } else {
+                        membership.add(done.eventIds[i], done.userIds[i]);
+                    }
+                }
+            }
+            aggregates.clear();
+            return lastPosition;
+        }
+    }
+
+    /**
+     * Mutations taken from the ring by one writer and answered together.
+     */
+    private static final class Batch {
+
+        private ByteString[] eventIds = new ByteString[16];
+        private long[] userIds = new long[16];
+        private long[] deltas = new long[16];
+        private CountCallback[] callbacks = new CountCallback[16];
+        private Aggregate[] aggregates = new Aggregate[16];
+        private boolean[] memberChanged = new boolean[16];
+        private boolean[] failed = new boolean[16];
+        private long[] applied = new long[16];
+        private long[] counts = new long[16];
+        private int size;
+
+        void add(ByteString eventId, long userId, long delta, CountCallback callback) {
+            if (size == eventIds.length) {
+                int capacity = size * 2;
+                eventIds = Arrays.copyOf(eventIds, capacity);
+                userIds = Arrays.copyOf(userIds, capacity);
+                deltas = Arrays.copyOf(deltas, capacity);
+                callbacks = Arrays.copyOf(callbacks, capacity);
+                aggregates = Arrays.copyOf(aggregates, capacity);
+                memberChanged = Arrays.copyOf(memberChanged, capacity);
+                failed = Arrays.copyOf(failed, capacity);
+                applied = Arrays.copyOf(applied, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+            }
+            eventIds[size] = eventId;
+            userIds[size] = userId;
+            deltas[size] = delta;
+            callbacks[size] = callback;
+            size++;
+        }
+
+        void complete() {
+            for (int i = 0; i < size; i++) {
+                try {
+                    Throwable error = failed[i] ? aggregates[i].failure : aggregates[i].error;
+                    if (error == null) {
+                        callbacks[i].onCount(counts[i], applied[i]);
+                    } else {
+                        callbacks[i].onError(error);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Like callback failed", e);
+                }
+            }
+        }
+
+        void fail(Throwable error) {
+            for (int i = 0; i < size; i++) {
+                try {
+                    callbacks[i].onError(error);
+                } catch (RuntimeException e) {
+                    log.warn("Like callback failed", e);
+                }
+            }
+        }
+    }
+
+    private static final class Aggregate {
+        private final ByteString eventId;
+        private long total;
+        private long anonymous;
+        private long running;
+        // Fails every mutation of the event
+        private Throwable error;
+        // Fails the user records from the first one the log refused on
+        private Throwable failure;
+        private long unlogged;
+
+        private Aggregate(ByteString eventId) {
+            this.eventId = eventId;
+        }
+    }
+}
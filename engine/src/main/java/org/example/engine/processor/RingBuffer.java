@@ -0,0 +1,142 @@
+package org.example.engine.processor;
+
+import com.google.protobuf.ByteString;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Multi-producer, single-consumer ring of pre-allocated mutation slots, in the style of the LMAX
+ * Disruptor.
+ * <p>
+ * Producers claim a sequence with one atomic increment, fill the slot in place and publish it by storing
+ * the sequence into the slot. The consumer reads slots in sequence order and releases them by advancing
+ * its own sequence, so nothing is allocated per mutation and no lock is taken. A producer that laps the
+ * consumer waits for it to free a slot.
+ * <p>
+ * {@link #close()} stops new publishes. Publishes already under way still complete: {@link #publishing()}
+ * tells the consumer whether any are left, so it can drain until none are and no slot is left unanswered.
+ */
+final class RingBuffer {
+
+    private static final VarHandle PUBLISHED;
+
+    static {
+        try {
+            PUBLISHED = MethodHandles.lookup().findVarHandle(Slot.class, "published", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    // Producers between their closed check and publishing their slot
+    private final AtomicInteger publishers = new AtomicInteger();
+    private volatile boolean closed;
+    // Written only by the consumer
+    private volatile long consumed = -1;
+
+    RingBuffer(int size) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of two: " + size);
+        }
+        this.slots = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * @return {@code false}, without publishing, once the ring is closed
+     */
+    boolean publish(ByteString eventId, long userId, long delta, CountCallback callback) {
+        // Counted before the closed check: a consumer that sees no publishers after close() has seen them all
+        publishers.incrementAndGet();
+        try {
+            if (closed) {
+                return false;
+            }
+            long sequence = claimed.incrementAndGet();
+            long wrapPoint = sequence - slots.length;
+            while (wrapPoint > consumed) {
+                // Full: the writer is behind, wait for it rather than drop the mutation. It keeps draining
+                // after close() for as long as this publish is counted, so the wait ends
+                LockSupport.parkNanos(1_000L);
+            }
+            Slot slot = slots[(int) sequence & mask];
+            slot.eventId = eventId;
+            slot.userId = userId;
+            slot.delta = delta;
+            slot.callback = callback;
+            PUBLISHED.setRelease(slot, sequence);
+            return true;
+        } finally {
+            publishers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Refuses further publishes.
+     */
+    void close() {
+        closed = true;
+    }
+
+    /**
+     * @return whether a publish that may still reach the ring is under way
+     */
+    boolean publishing() {
+        return publishers.get() > 0;
+    }
+
+    /**
+     * Hands every published slot after the consumer's position to {@code handler} in order.
+     *
+     * @return the number of slots consumed
+     */
+    int drain(SlotHandler handler) {
+        long next = consumed + 1;
+        int drained = 0;
+        Slot slot = slots[(int) next & mask];
+        while ((long) PUBLISHED.getAcquire(slot) == next) {
+            handler.handle(slot.eventId, slot.userId, slot.delta, slot.callback);
+            slot.eventId = null;
+            slot.callback = null;
+            drained++;
+            next++;
+            // Release slots in batches so producers see a free slot without a volatile write per event
+            if ((drained & 63) == 0) {
+                consumed = next - 1;
+            }
+            slot = slots[(int) next & mask];
+        }
+        if (drained > 0) {
+            consumed = next - 1;
+        }
+        return drained;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    @FunctionalInterface
+    interface SlotHandler {
+        void handle(ByteString eventId, long userId, long delta, CountCallback callback);
+    }
+
+    private static final class Slot {
+        ByteString eventId;
+        long userId;
+        long delta;
+        CountCallback callback;
+        @SuppressWarnings("unused") // accessed through PUBLISHED
+        long published = -1;
+    }
+}
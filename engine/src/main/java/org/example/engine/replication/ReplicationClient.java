@@ -0,0 +1,215 @@
+package org.example.engine.replication;
+
+import com.example.event.EventOuterClass;
+import com.example.event.ReplicationServiceGrpc;
+import com.google.protobuf.ByteString;
+import io.grpc.ManagedChannel;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.StreamObserver;
+import org.example.core.metrics.LatencyRecorder;
+import org.example.core.metrics.Metrics;
+import org.example.engine.store.LikeCounterStore;
+import org.example.engine.store.LikeMembership;
+import org.example.engine.trending.TrendingAggregator;
+import org.example.engine.wal.MutationLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A replica's end of replication: keeps a {@code Replicate} stream open to the primary and applies every
+ * batch to the local counter store and like membership, which nothing else writes while the engine is a
+ * replica.
+ * <p>
+ * Each received count replaces the local one, and so does each event's set of users in the full copy and
+ * each user's like in a change batch. The difference is appended to the mutation log like a local
+ * mutation, so a replica that is promoted and later restarts recovers the counts and membership it had;
+ * it is not waited on, since a replica that restarts as a replica just gets a full copy again. Increases
+ * outside the full copy are also fed to the trending windows, so TopK on a replica follows the primary's.
+ * Replication lag, from the primary's oldest change in a batch to the batch being applied, is recorded as
+ * {@code replication.lag}; it relies on the two clocks agreeing. A broken stream is reopened after
+ * {@code retryMillis}, starting over with a full copy.
+ */
+public class ReplicationClient implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationClient.class);
+
+    private static final int MAX_BATCH_BYTES = 64 * 1024 * 1024;
+
+    private final LikeCounterStore store;
+    private final LikeMembership membership;
+    private final MutationLog mutationLog;
+    private final TrendingAggregator trendingAggregator;
+    private final String replicaId;
+    private final long retryMillis;
+    private final ManagedChannel channel;
+    private final ReplicationServiceGrpc.ReplicationServiceStub stub;
+    private final ScheduledExecutorService reconnects;
+    // Held while a batch is applied, so close() returns only once none is being applied
+    private final Object applying = new Object();
+
+    private final LatencyRecorder lag;
+    private final LongAdder batches;
+    private final LongAdder counts;
+    private final LongAdder reconnected;
+
+    private volatile boolean closed;
+    private volatile boolean connected;
+    private volatile long sequence;
+    private volatile long lastLagMicros;
+
+    public ReplicationClient(LikeCounterStore store, LikeMembership membership, MutationLog mutationLog,
+                             TrendingAggregator trendingAggregator, String host, int port, String replicaId,
+                             long retryMillis, Metrics metrics) {
+        this.store = store;
+        this.membership = membership;
+        this.mutationLog = mutationLog;
+        this.trendingAggregator = trendingAggregator;
+        this.replicaId = replicaId;
+        this.retryMillis = retryMillis;
+        // A chunk of the full copy may carry large membership bitmaps
+        this.channel = NettyChannelBuilder.forAddress(host, port)
+                .usePlaintext()
+                .maxInboundMessageSize(MAX_BATCH_BYTES)
+                .build();
+        // No deadline: the stream is meant to stay open for the life of the replica
+        this.stub = ReplicationServiceGrpc.newStub(channel);
+        this.reconnects = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replication-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.lag = metrics.latency("replication.lag");
+        this.batches = metrics.counter("replication.applied-batches");
+        this.counts = metrics.counter("replication.applied-counts");
+        this.reconnected = metrics.counter("replication.reconnects");
+    }
+
+    public void start() {
+        stub.replicate(EventOuterClass.ReplicationRequest.newBuilder().setReplicaId(replicaId).build(), new Stream());
+    }
+
+    public boolean connected() {
+        return connected;
+    }
+
+    public long sequence() {
+        return sequence;
+    }
+
+    public Map<String, Long> toMap() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("connected", connected ? 1L : 0L);
+        stats.put("sequence", sequence);
+        stats.put("lagMicros", lastLagMicros);
+        stats.put("batches", batches.sum());
+        stats.put("counts", counts.sum());
+        stats.put("reconnects", reconnected.sum());
+        return stats;
+    }
+
+    /**
+     * Stops replicating; the store keeps what was applied so far. Waits for a batch being applied, and no
+     * batch is applied once this returns.
+     */
+    @Override
+    public void close() {
+        synchronized (applying) {
+            closed = true;
+        }
+        connected = false;
+        reconnects.shutdownNow();
+        channel.shutdownNow();
+    }
+
+    /**
+     * Waits for the stream and the reconnect timer to wind down after {@link #close()}.
+     *
+     * @return false if they are still running after {@code timeout}
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        return channel.awaitTermination(timeout, unit)
+                && reconnects.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private void apply(EventOuterClass.ReplicationBatch batch) {
+        for (EventOuterClass.ReplicatedCount count : batch.getCountsList()) {
+            ByteString eventId = count.getEventId();
+            long delta = count.getLikeCount() - store.get(eventId);
+            if (delta != 0) {
+                mutationLog.append(eventId, delta);
+                store.add(eventId, delta);
+                if (delta > 0 && !batch.getSnapshot()) {
+                    trendingAggregator.record(eventId, delta);
+                }
+            }
+            if (batch.getSnapshot()) {
+                membership.replaceSerialized(eventId, count.getMembers().asReadOnlyByteBuffer(),
+                        userId -> mutationLog.append(eventId, 0L, userId, true),
+                        userId -> mutationLog.append(eventId, 0L, userId, false));
+            }
+        }
+        for (EventOuterClass.ReplicatedMembership member : batch.getMembershipsList()) {
+            ByteString eventId = member.getEventId();
+            long userId = member.getUserId();
+            if (member.getLiked() ? membership.add(eventId, userId) : membership.remove(eventId, userId)) {
+                mutationLog.append(eventId, 0L, userId, member.getLiked());
+            }
+        }
+        sequence = batch.getSequence();
+        batches.increment();
+        counts.add(batch.getCountsCount());
+        if (batch.getChangedAtMicros() > 0) {
+            long lagMicros = Math.max(0L, TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()) - batch.getChangedAtMicros());
+            lastLagMicros = lagMicros;
+            lag.recordNanos(TimeUnit.MICROSECONDS.toNanos(lagMicros));
+        }
+    }
+
+    private void retry(String reason) {
+        connected = false;
+        if (closed) {
+            return;
+        }
+        log.warn("Replication stream ended ({}), reconnecting in {} ms", reason, retryMillis);
+        try {
+            reconnects.schedule(() -> {
+                reconnected.increment();
+                start();
+            }, retryMillis, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // Closed meanwhile
+        }
+    }
+
+    private final class Stream implements StreamObserver<EventOuterClass.ReplicationBatch> {
+
+        @Override
+        public void onNext(EventOuterClass.ReplicationBatch batch) {
+            synchronized (applying) {
+                if (closed) {
+                    return;
+                }
+                connected = true;
+                apply(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            retry(t.getMessage());
+        }
+
+        @Override
+        public void onCompleted() {
+            retry("closed by primary");
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.engine.replication;
+
+/**
+ * Whether this engine takes writes. A replica serves reads from what it receives from its primary until
+ * it is promoted; promotion is one-way.
+ */
+public class ReplicationRole {
+
+    private volatile boolean primary;
+
+    public ReplicationRole(boolean primary) {
+        this.primary = primary;
+    }
+
+    public boolean isPrimary() {
+        return primary;
+    }
+
+    /**
+     * @return {@code true} if this call made the engine primary
+     */
+    public synchronized boolean promote() {
+        if (primary) {
+            return false;
+        }
+        primary = true;
+        return true;
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.engine.replication;
+
+import com.example.event.EventOuterClass;
+import com.example.event.ReplicationServiceGrpc;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+public class ReplicationServiceImpl extends ReplicationServiceGrpc.ReplicationServiceImplBase {
+
+    private final ReplicationRole role;
+    private final ReplicationSource source;
+
+    public ReplicationServiceImpl(ReplicationRole role, ReplicationSource source) {
+        this.role = role;
+        this.source = source;
+    }
+
+    /**
+     * Only a primary ships counters: a replica's own store changes only through its primary, so its
+     * replicas would never hear of a change.
+     */
+    @Override
+    public void replicate(EventOuterClass.ReplicationRequest request,
+                          StreamObserver<EventOuterClass.ReplicationBatch> responseObserver) {
+        if (!role.isPrimary()) {
+            responseObserver.onError(Status.FAILED_PRECONDITION
+                    .withDescription("Not a primary; replicate from the primary instead")
+                    .asRuntimeException());
+            return;
+        }
+        source.subscribe(request.getReplicaId(), (ServerCallStreamObserver<EventOuterClass.ReplicationBatch>) responseObserver);
+    }
+}
@@ -0,0 +1,500 @@
+package org.example.engine.replication;
+
+import com.example.event.EventOuterClass;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import org.example.core.metrics.Metrics;
+import org.example.engine.store.LikeCounterStore;
+import org.example.engine.store.LikeMembership;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * The primary's end of replication: ships the counters to every connected replica over its
+ * {@code Replicate} stream.
+ * <p>
+ * A replica first gets a full copy of the store, then, every {@code intervalMillis}, one batch per
+ * {@code batchSize} events that changed since the previous batch. Entries carry the event's current count
+ * rather than the deltas that led to it, so likes of a hot event within an interval collapse into one
+ * entry, the full copy needs no exact cut of the live store, and a replica that reconnects just starts
+ * over. Replicas converge on the primary's counts after every batch; in between they lag by up to one
+ * interval plus the network.
+ * <p>
+ * Per-user like membership follows the same way: the full copy carries each event's bitmap next to its
+ * count, and the change batches carry one entry per (event, user) whose like changed, with whether the
+ * user likes the event at the time the batch is cut. A promoted replica therefore keeps likes idempotent
+ * per user.
+ * <p>
+ * The full copy snapshots the store's ids, not their counts, and is sent {@code batchSize} ids at a time
+ * only while the replica's stream is ready, driven by its {@code onReady} and the shipper's ticks, so a
+ * large store is never buffered in full on a slow stream. Counts and bitmaps are read as each chunk goes
+ * out; the ids and users that change meanwhile are sent once more when the copy ends, after which the
+ * replica gets the regular batches.
+ * <p>
+ * Changed events and users are tracked only while a replica is connected, in sets of at most
+ * {@code maxDirty} entries. Past that every replica gets a new full copy instead, as does a copying
+ * replica whose own set of changes during the copy outgrows {@code maxDirty}. A replica that stops reading for
+ * {@code stallMillis} is disconnected rather than buffered for without bound; it reconnects and starts
+ * over. Everything is sent from one thread, so every replica sees batches in the order they were cut.
+ */
+public class ReplicationSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationSource.class);
+
+    // A chunk of the full copy is cut early past this many bytes of ids and bitmaps
+    private static final int MAX_COPY_BATCH_BYTES = 1024 * 1024;
+
+    private final LikeCounterStore store;
+    private final LikeMembership membership;
+    private final int maxDirty;
+    private final int batchSize;
+    private final long intervalMillis;
+    private final long stallNanos;
+
+    private final Set<ByteString> dirty = ConcurrentHashMap.newKeySet();
+    private final Set<Member> dirtyMembers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong firstDirtyMicros = new AtomicLong();
+    private final Queue<Replica> joining = new ConcurrentLinkedQueue<>();
+    private final List<Replica> copying = new CopyOnWriteArrayList<>();
+    private final List<Replica> replicas = new CopyOnWriteArrayList<>();
+    private volatile boolean tracking;
+    private volatile boolean overflowed;
+    private volatile long sequence;
+
+    private final LongAdder batches;
+    private final LongAdder counts;
+    private final LongAdder fullCopies;
+    private final LongAdder overflows;
+    private final LongAdder stalled;
+
+    private volatile ScheduledExecutorService shipper;
+
+    public ReplicationSource(LikeCounterStore store, LikeMembership membership, int maxDirty, int batchSize,
+                             long intervalMillis, long stallMillis, Metrics metrics) {
+        if (maxDirty <= 0 || batchSize <= 0 || intervalMillis <= 0) {
+            throw new IllegalArgumentException("maxDirty, batchSize and intervalMillis must be positive");
+        }
+        this.store = store;
+        this.membership = membership;
+        this.maxDirty = maxDirty;
+        this.batchSize = batchSize;
+        this.intervalMillis = intervalMillis;
+        this.stallNanos = TimeUnit.MILLISECONDS.toNanos(stallMillis);
+        this.batches = metrics.counter("replication.batches");
+        this.counts = metrics.counter("replication.counts");
+        this.fullCopies = metrics.counter("replication.full-copies");
+        this.overflows = metrics.counter("replication.overflows");
+        this.stalled = metrics.counter("replication.stalled");
+    }
+
+    public synchronized void start() {
+        if (shipper != null) {
+            return;
+        }
+        shipper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replication-shipper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        shipper.scheduleWithFixedDelay(() -> {
+            try {
+                ship();
+            } catch (RuntimeException e) {
+                log.error("Replication batch failed", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called once a mutation of {@code eventId} is applied. Does nothing while no replica is connected.
+     */
+    public void markDirty(ByteString eventId) {
+        if (!tracking || overflowed || dirty.contains(eventId)) {
+            return;
+        }
+        if (dirty.size() >= maxDirty) {
+            overflows.increment();
+            overflowed = true;
+            return;
+        }
+        firstDirtyMicros.compareAndSet(0L, nowMicros());
+        dirty.add(eventId);
+    }
+
+    /**
+     * Called once a mutation of {@code eventId} by {@code userId}, 0 for an anonymous caller, is applied.
+     */
+    public void markDirty(ByteString eventId, long userId) {
+        markDirty(eventId);
+        if (userId == 0 || !tracking || overflowed) {
+            return;
+        }
+        Member member = new Member(eventId, userId);
+        if (dirtyMembers.contains(member)) {
+            return;
+        }
+        if (dirtyMembers.size() >= maxDirty) {
+            overflows.increment();
+            overflowed = true;
+            return;
+        }
+        firstDirtyMicros.compareAndSet(0L, nowMicros());
+        dirtyMembers.add(member);
+    }
+
+    /**
+     * Streams to {@code observer} until the replica goes away or this source is closed. The full copy
+     * starts with the next batch.
+     */
+    public void subscribe(String replicaId, ServerCallStreamObserver<EventOuterClass.ReplicationBatch> observer) {
+        Replica replica = new Replica(replicaId, observer);
+        observer.setOnCancelHandler(() -> replica.gone = true);
+        observer.setOnReadyHandler(() -> {
+            ScheduledExecutorService executor = shipper;
+            if (replica.copy != null && executor != null) {
+                try {
+                    executor.execute(this::pumpCopies);
+                } catch (RejectedExecutionException ignored) {
+                    // Closed meanwhile
+                }
+            }
+        });
+        tracking = true;
+        joining.add(replica);
+        log.info("Replica {} connected", replicaId);
+    }
+
+    /**
+     * Starts the full copy for replicas that joined since the last call, sends the counts of the events
+     * that changed to every caught-up replica, then as much of the running copies as the replicas take.
+     */
+    synchronized void ship() {
+        replicas.removeIf(replica -> replica.gone);
+        copying.removeIf(replica -> replica.gone);
+        if (!joining.isEmpty()) {
+            // Changes made from here on are tracked, so the copy below cannot miss any of them
+            tracking = true;
+            Replica replica;
+            while ((replica = joining.poll()) != null) {
+                startCopy(replica);
+                copying.add(replica);
+            }
+        }
+        if (overflowed) {
+            // Cleared first: ids marked from here on are sent again next time, which is harmless
+            overflowed = false;
+            dirty.clear();
+            dirtyMembers.clear();
+            firstDirtyMicros.set(0L);
+            for (Replica replica : copying) {
+                startCopy(replica);
+            }
+            for (Replica replica : replicas) {
+                startCopy(replica);
+                copying.add(replica);
+            }
+            replicas.clear();
+        } else if (!dirty.isEmpty() || !dirtyMembers.isEmpty()) {
+            shipChanges();
+        }
+        pumpCopies();
+        if (replicas.isEmpty() && joining.isEmpty() && copying.isEmpty()) {
+            tracking = false;
+            dirty.clear();
+            dirtyMembers.clear();
+            firstDirtyMicros.set(0L);
+        }
+    }
+
+    private void shipChanges() {
+        long changedAt = firstDirtyMicros.getAndSet(0L);
+        Set<ByteString> eventIds = drain(dirty);
+        Set<Member> members = drain(dirtyMembers);
+        for (Replica replica : copying) {
+            Copy copy = replica.copy;
+            copy.changed.addAll(eventIds);
+            copy.changedMembers.addAll(members);
+            if (copy.changed.size() + copy.changedMembers.size() > maxDirty) {
+                overflows.increment();
+                startCopy(replica);
+            }
+        }
+        cut(eventIds, members, () -> changeBatch(++sequence, changedAt), batch -> {
+            send(batch);
+            return true;
+        });
+    }
+
+    /**
+     * Cuts the current counts of {@code eventIds} and the current membership of {@code members} into batches
+     * of up to {@code batchSize} entries for {@code sink}.
+     *
+     * @return {@code false} as soon as {@code sink} refuses a batch
+     */
+    private boolean cut(Set<ByteString> eventIds, Set<Member> members,
+                        Supplier<EventOuterClass.ReplicationBatch.Builder> newBatch,
+                        Predicate<EventOuterClass.ReplicationBatch> sink) {
+        EventOuterClass.ReplicationBatch.Builder batch = null;
+        for (ByteString eventId : eventIds) {
+            if (batch == null) {
+                batch = newBatch.get();
+            }
+            batch.addCounts(EventOuterClass.ReplicatedCount.newBuilder()
+                    .setEventId(eventId)
+                    .setLikeCount(store.get(eventId)));
+            if (batch.getCountsCount() >= batchSize) {
+                if (!sink.test(batch.build())) {
+                    return false;
+                }
+                batch = null;
+            }
+        }
+        for (Member member : members) {
+            if (batch == null) {
+                batch = newBatch.get();
+            }
+            batch.addMemberships(EventOuterClass.ReplicatedMembership.newBuilder()
+                    .setEventId(member.eventId())
+                    .setUserId(member.userId())
+                    .setLiked(membership.contains(member.eventId(), member.userId())));
+            if (batch.getCountsCount() + batch.getMembershipsCount() >= batchSize) {
+                if (!sink.test(batch.build())) {
+                    return false;
+                }
+                batch = null;
+            }
+        }
+        return batch == null || sink.test(batch.build());
+    }
+
+    private static <T> Set<T> drain(Set<T> from) {
+        Set<T> drained = new HashSet<>();
+        for (Iterator<T> it = from.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+
+    private void send(EventOuterClass.ReplicationBatch batch) {
+        batches.increment();
+        counts.add(batch.getCountsCount());
+        for (Replica replica : replicas) {
+            if (!replica.send(batch)) {
+                replicas.remove(replica);
+            }
+        }
+    }
+
+    private void startCopy(Replica replica) {
+        fullCopies.increment();
+        Copy copy = new Copy(nowMicros());
+        store.forEach((eventId, count) -> copy.eventIds.add(eventId));
+        replica.copy = copy;
+    }
+
+    synchronized void pumpCopies() {
+        for (Replica replica : copying) {
+            pump(replica);
+            if (replica.gone) {
+                copying.remove(replica);
+            } else if (replica.copy == null) {
+                copying.remove(replica);
+                replicas.add(replica);
+            }
+        }
+    }
+
+    /**
+     * Sends the next chunks of the replica's full copy for as long as its stream is ready, and once all are
+     * sent, the counts and membership that changed during the copy.
+     */
+    private void pump(Replica replica) {
+        Copy copy = replica.copy;
+        // At least one chunk, possibly empty, so even an empty store tells the replica it is caught up
+        while (!copy.started || copy.next < copy.eventIds.size()) {
+            if (!replica.ready()) {
+                return;
+            }
+            EventOuterClass.ReplicationBatch.Builder batch = changeBatch(sequence, copy.changedAt).setSnapshot(true);
+            int end = Math.min(copy.next + batchSize, copy.eventIds.size());
+            int bytes = 0;
+            for (; copy.next < end && bytes < MAX_COPY_BATCH_BYTES; copy.next++) {
+                ByteString eventId = copy.eventIds.get(copy.next);
+                EventOuterClass.ReplicatedCount.Builder count = EventOuterClass.ReplicatedCount.newBuilder()
+                        .setEventId(eventId)
+                        .setLikeCount(store.get(eventId));
+                byte[] members = membership.serialized(eventId);
+                if (members != null) {
+                    count.setMembers(UnsafeByteOperations.unsafeWrap(members));
+                    bytes += members.length;
+                }
+                batch.addCounts(count);
+                bytes += eventId.size();
+            }
+            copy.started = true;
+            if (!replica.send(batch.build())) {
+                return;
+            }
+        }
+        // Their chunk may have gone out before the change. At most maxDirty of them, so no need to wait
+        if (cut(copy.changed, copy.changedMembers, () -> changeBatch(sequence, copy.changedAt), replica::send)) {
+            replica.copy = null;
+        }
+    }
+
+    private static EventOuterClass.ReplicationBatch.Builder changeBatch(long sequence, long changedAt) {
+        return EventOuterClass.ReplicationBatch.newBuilder()
+                .setSequence(sequence)
+                .setChangedAtMicros(changedAt);
+    }
+
+    public Map<String, Long> toMap() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("replicas", (long) replicas.size());
+        stats.put("copying", (long) copying.size());
+        stats.put("dirty", (long) dirty.size());
+        stats.put("dirtyMembers", (long) dirtyMembers.size());
+        stats.put("sequence", sequence);
+        stats.put("batches", batches.sum());
+        stats.put("counts", counts.sum());
+        stats.put("fullCopies", fullCopies.sum());
+        stats.put("stalled", stalled.sum());
+        return stats;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (shipper != null) {
+            shipper.shutdownNow();
+        }
+        for (Replica replica : copying) {
+            replica.close();
+        }
+        for (Replica replica : replicas) {
+            replica.close();
+        }
+        copying.clear();
+        replicas.clear();
+    }
+
+    private static long nowMicros() {
+        return TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    }
+
+    private final class Replica {
+
+        private final String id;
+        private final ServerCallStreamObserver<EventOuterClass.ReplicationBatch> observer;
+        private volatile boolean gone;
+        // The full copy under way, null once the replica is caught up
+        private volatile Copy copy;
+        private long notReadySince;
+
+        private Replica(String id, ServerCallStreamObserver<EventOuterClass.ReplicationBatch> observer) {
+            this.id = id;
+            this.observer = observer;
+        }
+
+        /**
+         * Whether the stream takes a batch without buffering it. A replica that has not been ready for
+         * {@code stallMillis} is disconnected.
+         */
+        boolean ready() {
+            if (gone) {
+                return false;
+            }
+            if (observer.isReady()) {
+                notReadySince = 0L;
+                return true;
+            }
+            if (notReadySince == 0L) {
+                notReadySince = System.nanoTime();
+            } else if (System.nanoTime() - notReadySince > stallNanos) {
+                stalled.increment();
+                log.warn("Replica {} stopped reading, disconnecting it", id);
+                gone = true;
+                try {
+                    observer.onError(Status.UNAVAILABLE.withDescription("Replica too slow, reconnect").asRuntimeException());
+                } catch (RuntimeException ignored) {
+                    // Already cancelled
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Sends even if the stream is not ready, which is fine for the small change batches.
+         *
+         * @return {@code false} if the replica is gone or was just dropped for not reading
+         */
+        boolean send(EventOuterClass.ReplicationBatch batch) {
+            if (!ready() && gone) {
+                return false;
+            }
+            try {
+                observer.onNext(batch);
+                return true;
+            } catch (RuntimeException e) {
+                gone = true;
+                return false;
+            }
+        }
+
+        void close() {
+            if (!gone) {
+                gone = true;
+                try {
+                    observer.onCompleted();
+                } catch (RuntimeException ignored) {
+                    // Already cancelled
+                }
+            }
+        }
+    }
+
+    /**
+     * A user's like of an event, whose current state is yet to be shipped.
+     */
+    private record Member(ByteString eventId, long userId) {
+    }
+
+    /**
+     * A full copy in progress: the ids to send, how far it got and what changed since it started.
+     */
+    private static final class Copy {
+
+        private final List<ByteString> eventIds = new ArrayList<>();
+        private final Set<ByteString> changed = new HashSet<>();
+        private final Set<Member> changedMembers = new HashSet<>();
+        private final long changedAt;
+        private int next;
+        private boolean started;
+
+        private Copy(long changedAt) {
+            this.changedAt = changedAt;
+        }
+    }
+}
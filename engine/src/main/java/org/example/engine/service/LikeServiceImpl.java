@@ -2,65 +2,459 @@ package org.example.engine.service;
 
 import com.example.event.EventOuterClass;
 import com.example.event.LikeServiceGrpc;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
+import org.example.engine.processor.CountCallback;
+import org.example.engine.processor.DirectLikeProcessor;
+import org.example.engine.processor.LikeProcessor;
+import org.example.engine.store.LikeCounterStore;
+import org.example.engine.trending.TrendingAggregator;
+import org.example.engine.wal.MutationLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Service // Annotate as a Spring service
 public class LikeServiceImpl extends LikeServiceGrpc.LikeServiceImplBase {
 
     private static final Logger log = LoggerFactory.getLogger(LikeServiceImpl.class);
 
-    private Map<String, Long> eventStore = new ConcurrentHashMap<>();
+    private static final int MAX_TOP_K = 1000;
 
+    // Unanswered events a LikeStream reads ahead; beyond that the client is held back by flow control
+    private static final int LIKE_STREAM_WINDOW = 1024;
+
+    // Reply texts are assembled from these bytes, so building a reply encodes nothing
+    private static final ByteString LIKED_TYPE = ByteString.copyFromUtf8("LIKED_EVENT");
+    private static final ByteString UNLIKED_TYPE = ByteString.copyFromUtf8("UNLIKED_EVENT");
+    private static final byte[] LIKED_TEXT = "Event liked successfully. Current likes: ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] UNLIKED_PREFIX = "Event ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] UNLIKED_TEXT = " unliked successfully. Current likes: ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private final LikeCounterStore eventStore;
+    private final LikeProcessor likeProcessor;
+    private final TrendingAggregator trendingAggregator;
+
+    public LikeServiceImpl(LikeCounterStore eventStore) {
+        this(eventStore, new DirectLikeProcessor(eventStore, MutationLog.NONE));
+    }
+
+    public LikeServiceImpl(LikeCounterStore eventStore, LikeProcessor likeProcessor) {
+        this(eventStore, likeProcessor, new TrendingAggregator(TimeUnit.MINUTES.toMillis(1), 60, 1024));
+    }
+
+    @Autowired
+    public LikeServiceImpl(LikeCounterStore eventStore, LikeProcessor likeProcessor, TrendingAggregator trendingAggregator) {
+        this.eventStore = eventStore;
+        this.likeProcessor = likeProcessor;
+        this.trendingAggregator = trendingAggregator;
+    }
+
+    /**
+     * The id is taken as bytes once per request; its {@link ByteString} caches its hash, so membership,
+     * trending and the counter store all look it up without hashing or copying it again.
+     */
     @Override
     public void likeEvent(EventOuterClass.Event request, StreamObserver<EventOuterClass.Event> responseObserver) {
+        // The processor answers once the like is applied and durable, possibly on another thread
+        mutate(request.getIdBytes(), request.getUserId(), 1, new UnaryReply(request, responseObserver, true));
+    }
 
-        request.getTypeBytes().asReadOnlyByteBuffer();
-        try {
-            // Validate request
-            eventStore.putIfAbsent(request.getId(), 0L);
-            Long newCount = eventStore.computeIfPresent(request.getId(), (k, v) -> v + 1);
-
-            // Build response
-            EventOuterClass.Event response = request.toBuilder()
-                    .setType("LIKED_EVENT")
-                    .setData("Event liked successfully. Current likes: " + newCount)
-                    .build();
-
-            // Send response and complete the stream
-            responseObserver.onNext(response);
-            responseObserver.onCompleted();
-        } catch (Exception e) {
-            responseObserver.onError(Status.INTERNAL
-                    .withDescription("Failed to process like: " + e.getMessage())
-                    .withCause(e)
-                    .asRuntimeException());
+    @Override
+    public void unlikeEvent(EventOuterClass.Event request, StreamObserver<EventOuterClass.Event> responseObserver) {
+        mutate(request.getIdBytes(), request.getUserId(), -1, new UnaryReply(request, responseObserver, false));
+    }
+
+    @Override
+    public StreamObserver<EventOuterClass.Event> batchLike(StreamObserver<EventOuterClass.BatchResponse> responseObserver) {
+        return new BatchObserver(responseObserver, true);
+    }
+
+    @Override
+    public StreamObserver<EventOuterClass.Event> batchUnlike(StreamObserver<EventOuterClass.BatchResponse> responseObserver) {
+        return new BatchObserver(responseObserver, false);
+    }
+
+    @Override
+    public StreamObserver<EventOuterClass.Event> likeStream(StreamObserver<EventOuterClass.Event> responseObserver) {
+        return new OrderedStreamObserver(responseObserver);
+    }
+
+    @Override
+    public void compactLike(EventOuterClass.CompactEvent request, StreamObserver<EventOuterClass.LikeCount> responseObserver) {
+        long delta;
+        switch (request.getType()) {
+            case LIKE -> delta = 1;
+            case UNLIKE -> delta = -1;
+            default -> {
+                responseObserver.onError(Status.INVALID_ARGUMENT
+                        .withDescription("Unsupported event type: " + request.getType())
+                        .asRuntimeException());
+                return;
+            }
         }
+        mutate(LikeCounterStore.key(request.getId()), request.getUserId(), delta, new CompactReply(request.getId(), responseObserver));
     }
 
+    /**
+     * Reads bypass the like processor: they are answered on the calling thread from the store, which reads
+     * without locking, so they neither queue behind writes nor hold writers up.
+     */
     @Override
-    public void unlikeEvent(EventOuterClass.Event request, StreamObserver<EventOuterClass.Event> responseObserver) {
+    public void getLikeCount(EventOuterClass.LikeCountRequest request,
+                             StreamObserver<EventOuterClass.EventLikeCount> responseObserver) {
+        responseObserver.onNext(EventOuterClass.EventLikeCount.newBuilder()
+                .setIdBytes(request.getIdBytes())
+                .setLikeCount(eventStore.get(request.getIdBytes()))
+                .build());
+        responseObserver.onCompleted();
+    }
 
-        // TODO: Implement actual unlike logic here
-        // For now, just echoing the request back with a modified type
+    @Override
+    public void batchGetLikeCounts(EventOuterClass.BatchLikeCountRequest request,
+                                   StreamObserver<EventOuterClass.BatchLikeCountResponse> responseObserver) {
+        EventOuterClass.BatchLikeCountResponse.Builder response = EventOuterClass.BatchLikeCountResponse.newBuilder();
+        for (int i = 0; i < request.getIdsCount(); i++) {
+            ByteString id = request.getIdsBytes(i);
+            response.addCounts(EventOuterClass.EventLikeCount.newBuilder()
+                    .setIdBytes(id)
+                    .setLikeCount(eventStore.get(id)));
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
 
-        System.out.println("Received unlikeEvent request for event ID: " + request.getId());
+    @Override
+    public void topK(EventOuterClass.TopKRequest request, StreamObserver<EventOuterClass.TopKResponse> responseObserver) {
+        // Both are uint32 on the wire, so a k past 2^31 arrives negative
+        if (request.getWindowSeconds() == 0 || request.getK() == 0
+                || Integer.compareUnsigned(request.getK(), MAX_TOP_K) > 0) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("window_seconds must be positive and k in [1, " + MAX_TOP_K + "]")
+                    .asRuntimeException());
+            return;
+        }
+        EventOuterClass.TopKResponse.Builder response = EventOuterClass.TopKResponse.newBuilder();
+        for (TrendingAggregator.Trend trend : trendingAggregator.topK(
+                TimeUnit.SECONDS.toMillis(Integer.toUnsignedLong(request.getWindowSeconds())), request.getK())) {
+            response.addEvents(EventOuterClass.EventLikeCount.newBuilder()
+                    .setIdBytes(trend.eventId())
+                    .setLikeCount(trend.likes()));
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
 
-        EventOuterClass.Event response = request.toBuilder()
-                .setType("UNLIKED_EVENT") // Indicate the event was unliked
-                .setData("Event " + request.getId() + " unliked successfully.")
+    /**
+     * Applies a like ({@code delta} 1) or unlike (-1). The processor keeps likes and unlikes idempotent per
+     * known user and never takes a count below zero; anonymous ({@code userId} 0) likes always count. A
+     * mutation reaches trending only once the processor has applied it, and only if it changed the count.
+     */
+    private void mutate(ByteString eventId, long userId, long delta, CountCallback callback) {
+        likeProcessor.submit(eventId, userId, delta, new Applied(trendingAggregator, eventId, delta, callback));
+    }
+
+    /**
+     * Records an applied mutation in trending before answering; a failed one is passed on untouched.
+     */
+    private record Applied(TrendingAggregator trendingAggregator, ByteString eventId, long delta,
+                           CountCallback callback) implements CountCallback {
+
+        @Override
+        public void onCount(long count) {
+            onCount(count, delta);
+        }
+
+        @Override
+        public void onCount(long count, long applied) {
+            if (applied != 0) {
+                trendingAggregator.record(eventId, applied);
+            }
+            callback.onCount(count, applied);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            callback.onError(error);
+        }
+    }
+
+    /**
+     * Replies carry the id, type, text and user of the mutation; the request's own data and timestamp are
+     * not copied back.
+     */
+    private static EventOuterClass.Event liked(EventOuterClass.Event request, long newCount) {
+        return EventOuterClass.Event.newBuilder()
+                .setIdBytes(request.getIdBytes())
+                .setTypeBytes(LIKED_TYPE)
+                .setDataBytes(text(NO_BYTES, ByteString.EMPTY, LIKED_TEXT, newCount))
+                .setUserId(request.getUserId())
                 .build();
+    }
 
-        responseObserver.onNext(response);
-        responseObserver.onCompleted();
+    private static EventOuterClass.Event unliked(EventOuterClass.Event request, long newCount) {
+        return EventOuterClass.Event.newBuilder()
+                .setIdBytes(request.getIdBytes())
+                .setTypeBytes(UNLIKED_TYPE)
+                .setDataBytes(text(UNLIKED_PREFIX, request.getIdBytes(), UNLIKED_TEXT, newCount))
+                .setUserId(request.getUserId())
+                .build();
+    }
+
+    /**
+     * {@code prefix + id + suffix + count} as UTF-8 in one array, wrapped without a copy.
+     */
+    static ByteString text(byte[] prefix, ByteString id, byte[] suffix, long count) {
+        int digits = digits(count);
+        byte[] text = new byte[prefix.length + id.size() + suffix.length + digits];
+        System.arraycopy(prefix, 0, text, 0, prefix.length);
+        id.copyTo(text, prefix.length);
+        System.arraycopy(suffix, 0, text, prefix.length + id.size(), suffix.length);
+        int end = text.length;
+        long rest = count;
+        do {
+            text[--end] = (byte) ('0' + Math.abs(rest % 10));
+            rest /= 10;
+        } while (rest != 0);
+        if (count < 0) {
+            text[--end] = '-';
+        }
+        return UnsafeByteOperations.unsafeWrap(text);
+    }
+
+    private static int digits(long count) {
+        int digits = count < 0 ? 2 : 1;
+        for (long rest = count / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private static RuntimeException internal(String operation, Throwable e) {
+        return Status.INTERNAL
+                .withDescription("Failed to process " + operation + ": " + e.getMessage())
+                .withCause(e)
+                .asRuntimeException();
+    }
+
+    private record UnaryReply(EventOuterClass.Event request,
+                              StreamObserver<EventOuterClass.Event> responseObserver,
+                              boolean like) implements CountCallback {
+
+        @Override
+        public void onCount(long count) {
+            try {
+                // Send response and complete the stream
+                responseObserver.onNext(like ? liked(request, count) : unliked(request, count));
+                responseObserver.onCompleted();
+            } catch (RuntimeException e) {
+                log.debug("Could not answer {} for event {}: {}", like ? "like" : "unlike", request.getId(), e.getMessage());
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            responseObserver.onError(internal(like ? "like" : "unlike", error));
+        }
+    }
+
+    private record CompactReply(long eventId, StreamObserver<EventOuterClass.LikeCount> responseObserver)
+            implements CountCallback {
+
+        @Override
+        public void onCount(long count) {
+            try {
+                responseObserver.onNext(EventOuterClass.LikeCount.newBuilder()
+                        .setId(eventId)
+                        .setLikeCount(count)
+                        .build());
+                responseObserver.onCompleted();
+            } catch (RuntimeException e) {
+                log.debug("Could not answer compact like for event {}: {}", eventId, e.getMessage());
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            responseObserver.onError(internal("compact like", error));
+        }
+    }
+
+    /**
+     * Collects the per-event results of a client-streaming batch and replies once the client has half-closed
+     * and every event has been applied. Results keep request order even when partitions finish out of order.
+     */
+    private final class BatchObserver implements StreamObserver<EventOuterClass.Event> {
+
+        private final StreamObserver<EventOuterClass.BatchResponse> responseObserver;
+        private final boolean like;
+        private final List<EventOuterClass.Event> results = new ArrayList<>();
+        private int pending;
+        private boolean halfClosed;
+        private boolean failed;
+
+        private BatchObserver(StreamObserver<EventOuterClass.BatchResponse> responseObserver, boolean like) {
+            this.responseObserver = responseObserver;
+            this.like = like;
+        }
+
+        @Override
+        public void onNext(EventOuterClass.Event request) {
+            int index;
+            synchronized (this) {
+                if (failed) {
+                    return;
+                }
+                index = results.size();
+                results.add(null);
+                pending++;
+            }
+            mutate(request.getIdBytes(), request.getUserId(), like ? 1 : -1, new CountCallback() {
+                @Override
+                public void onCount(long count) {
+                    EventOuterClass.Event result = like ? liked(request, count) : unliked(request, count);
+                    synchronized (BatchObserver.this) {
+                        results.set(index, result);
+                        pending--;
+                        finishIfDone();
+                    }
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    synchronized (BatchObserver.this) {
+                        if (!failed) {
+                            failed = true;
+                            responseObserver.onError(internal("batch " + (like ? "like" : "unlike"), error));
+                        }
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            log.warn("Batch {} cancelled by client after {} events: {}", like ? "like" : "unlike", results.size(), t.getMessage());
+        }
+
+        @Override
+        public synchronized void onCompleted() {
+            halfClosed = true;
+            finishIfDone();
+        }
+
+        private void finishIfDone() {
+            if (halfClosed && pending == 0 && !failed) {
+                responseObserver.onNext(EventOuterClass.BatchResponse.newBuilder().addAllEvents(results).build());
+                responseObserver.onCompleted();
+            }
+        }
+    }
+
+    /**
+     * Answers a {@code LikeStream} in request order. Likes may complete out of order when they land on
+     * different partitions, so finished responses wait until every earlier one has been sent.
+     * <p>
+     * Up to {@link #LIKE_STREAM_WINDOW} events are read ahead of the responses sent, and one more is asked
+     * for per response. That bounds the responses held here, and reading ahead saves a round trip through
+     * the transport per event compared with gRPC's default of asking for the next message after each one.
+     */
+    private final class OrderedStreamObserver implements StreamObserver<EventOuterClass.Event> {
+
+        private final StreamObserver<EventOuterClass.Event> responseObserver;
+        // Null when called in-process without a gRPC call, which has no flow control
+        private final ServerCallStreamObserver<EventOuterClass.Event> call;
+        private final List<EventOuterClass.Event> ready = new ArrayList<>();
+        private long received;
+        private long sent;
+        private boolean halfClosed;
+        private boolean closed;
+
+        private OrderedStreamObserver(StreamObserver<EventOuterClass.Event> responseObserver) {
+            this.responseObserver = responseObserver;
+            this.call = responseObserver instanceof ServerCallStreamObserver<EventOuterClass.Event> serverCall ? serverCall : null;
+            if (call != null) {
+                call.disableAutoRequest();
+                call.request(LIKE_STREAM_WINDOW);
+            }
+        }
+
+        @Override
+        public void onNext(EventOuterClass.Event request) {
+            long sequence;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                sequence = received++;
+                ready.add(null);
+            }
+            mutate(request.getIdBytes(), request.getUserId(), 1, new CountCallback() {
+                @Override
+                public void onCount(long count) {
+                    EventOuterClass.Event response = liked(request, count);
+                    synchronized (OrderedStreamObserver.this) {
+                        ready.set((int) (sequence - sent), response);
+                        flush();
+                    }
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    synchronized (OrderedStreamObserver.this) {
+                        if (!closed) {
+                            closed = true;
+                            responseObserver.onError(internal("like", error));
+                        }
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            log.warn("Like stream cancelled by client: {}", t.getMessage());
+            synchronized (this) {
+                closed = true;
+            }
+        }
+
+        @Override
+        public synchronized void onCompleted() {
+            halfClosed = true;
+            flush();
+        }
+
+        private void flush() {
+            if (closed) {
+                return;
+            }
+            int flushed = 0;
+            while (flushed < ready.size() && ready.get(flushed) != null) {
+                responseObserver.onNext(ready.get(flushed));
+                flushed++;
+            }
+            if (flushed > 0) {
+                ready.subList(0, flushed).clear();
+                sent += flushed;
+                if (call != null) {
+                    call.request(flushed);
+                }
+            }
+            if (halfClosed && sent == received) {
+                responseObserver.onCompleted();
+                closed = true;
+            }
+        }
     }
-} 
\ No newline at end of file
+}
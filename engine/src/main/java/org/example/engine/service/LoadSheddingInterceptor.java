@@ -0,0 +1,104 @@
+package org.example.engine.service;
+
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sheds calls before they reach the service once the engine is saturated, so the calls already admitted
+ * keep a bounded latency:
+ * <ul>
+ *     <li>more than {@code maxInFlight} calls in progress: {@code UNAVAILABLE}, which the api turns into 503
+ *     and backs off on</li>
+ *     <li>less than {@code minDeadlineMillis} left on the caller's deadline: {@code DEADLINE_EXCEEDED},
+ *     since the answer would arrive after the caller gave up</li>
+ * </ul>
+ * Bidirectional streams are admitted without counting, as they stay open for the life of a client.
+ */
+public class LoadSheddingInterceptor implements ServerInterceptor {
+
+    private final int maxInFlight;
+    private final long minDeadlineMillis;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder shedOverload = new LongAdder();
+    private final LongAdder shedDeadline = new LongAdder();
+
+    /**
+     * @param maxInFlight {@code 0} disables the in-flight cap
+     */
+    public LoadSheddingInterceptor(int maxInFlight, long minDeadlineMillis) {
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : Integer.MAX_VALUE;
+        this.minDeadlineMillis = minDeadlineMillis;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        if (call.getMethodDescriptor().getType() == MethodDescriptor.MethodType.BIDI_STREAMING) {
+            return next.startCall(call, headers);
+        }
+        Deadline deadline = Context.current().getDeadline();
+        if (deadline != null && deadline.timeRemaining(TimeUnit.MILLISECONDS) < minDeadlineMillis) {
+            shedDeadline.increment();
+            call.close(Status.DEADLINE_EXCEEDED.withDescription("Not enough time left to answer"), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            shedOverload.increment();
+            call.close(Status.UNAVAILABLE.withDescription("Engine overloaded, " + maxInFlight + " calls in flight"), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+        try {
+            return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(call, headers)) {
+                private boolean done;
+
+                @Override
+                public void onComplete() {
+                    finish();
+                    super.onComplete();
+                }
+
+                @Override
+                public void onCancel() {
+                    finish();
+                    super.onCancel();
+                }
+
+                private void finish() {
+                    if (!done) {
+                        done = true;
+                        inFlight.decrementAndGet();
+                    }
+                }
+            };
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    public Map<String, Long> toMap() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("inFlight", (long) inFlight.get());
+        stats.put("maxInFlight", maxInFlight == Integer.MAX_VALUE ? 0L : maxInFlight);
+        stats.put("shedOverload", shedOverload.sum());
+        stats.put("shedDeadline", shedDeadline.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.engine.service;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServiceDescriptor;
+import io.grpc.Status;
+import org.example.core.metrics.LatencyRecorder;
+import org.example.core.metrics.Metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-method server metrics, under {@code grpc.server.<Method>}:
+ * <ul>
+ *     <li>latency from call start to close</li>
+ *     <li>calls in flight</li>
+ *     <li>errors: calls closed with a non-OK status, shed ones included when this runs first</li>
+ *     <li>request and response bytes, as serialized protobuf before compression</li>
+ * </ul>
+ * Every metric is resolved when the interceptor is built, so a call costs a map lookup and a few
+ * allocation-free recordings.
+ */
+public class MetricsServerInterceptor implements ServerInterceptor {
+
+    private final Map<String, MethodMetrics> methods = new HashMap<>();
+
+    public MetricsServerInterceptor(Metrics metrics, ServiceDescriptor service) {
+        for (MethodDescriptor<?, ?> method : service.getMethods()) {
+            methods.put(method.getFullMethodName(), new MethodMetrics(metrics, "grpc.server." + method.getBareMethodName()));
+        }
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        MethodMetrics method = methods.get(call.getMethodDescriptor().getFullMethodName());
+        if (method == null) {
+            return next.startCall(call, headers);
+        }
+        MeteredCall<ReqT, RespT> metered = new MeteredCall<>(call, method);
+        try {
+            return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(metered, headers)) {
+                @Override
+                public void onMessage(ReqT message) {
+                    method.requestBytes.add(serializedSize(message));
+                    super.onMessage(message);
+                }
+
+                @Override
+                public void onCancel() {
+                    metered.finish(false);
+                    super.onCancel();
+                }
+            };
+        } catch (RuntimeException e) {
+            metered.finish(false);
+            throw e;
+        }
+    }
+
+    private static int serializedSize(Object message) {
+        return message instanceof MessageLite lite ? lite.getSerializedSize() : 0;
+    }
+
+    private record MethodMetrics(LatencyRecorder latency, LongAdder inFlight, LongAdder errors,
+                                 LongAdder requestBytes, LongAdder responseBytes) {
+
+        MethodMetrics(Metrics metrics, String prefix) {
+            this(metrics.latency(prefix),
+                    metrics.counter(prefix + ".inFlight"),
+                    metrics.counter(prefix + ".errors"),
+                    metrics.counter(prefix + ".requestBytes"),
+                    metrics.counter(prefix + ".responseBytes"));
+        }
+    }
+
+    private static final class MeteredCall<ReqT, RespT> extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+
+        private static final AtomicIntegerFieldUpdater<MeteredCall> FINISHED =
+                AtomicIntegerFieldUpdater.newUpdater(MeteredCall.class, "finished");
+
+        private final MethodMetrics method;
+        private final long startNanos = System.nanoTime();
+        // close() may come from a processor thread while onCancel() arrives on the executor
+        private volatile int finished;
+
+        private MeteredCall(ServerCall<ReqT, RespT> delegate, MethodMetrics method) {
+            super(delegate);
+            this.method = method;
+            method.inFlight.increment();
+        }
+
+        @Override
+        public void sendMessage(RespT message) {
+            method.responseBytes.add(serializedSize(message));
+            super.sendMessage(message);
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            finish(status.isOk());
+            super.close(status, trailers);
+        }
+
+        void finish(boolean ok) {
+            if (FINISHED.compareAndSet(this, 0, 1)) {
+                method.latency.recordSince(startNanos);
+                method.inFlight.decrement();
+                if (!ok) {
+                    method.errors.increment();
+                }
+            }
+        }
+    }
+}
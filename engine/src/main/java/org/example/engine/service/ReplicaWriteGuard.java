@@ -0,0 +1,50 @@
+package org.example.engine.service;
+
+import com.example.event.LikeServiceGrpc;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import org.example.engine.replication.ReplicationRole;
+
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Refuses likes and unlikes with {@code FAILED_PRECONDITION} while the engine is a replica: its counters
+ * belong to the primary, and a local write would be overwritten by the next batch from it. Reads pass.
+ */
+public class ReplicaWriteGuard implements ServerInterceptor {
+
+    private static final Set<String> WRITES = Set.of(
+            LikeServiceGrpc.getLikeEventMethod().getFullMethodName(),
+            LikeServiceGrpc.getUnlikeEventMethod().getFullMethodName(),
+            LikeServiceGrpc.getBatchLikeMethod().getFullMethodName(),
+            LikeServiceGrpc.getBatchUnlikeMethod().getFullMethodName(),
+            LikeServiceGrpc.getLikeStreamMethod().getFullMethodName(),
+            LikeServiceGrpc.getCompactLikeMethod().getFullMethodName());
+
+    private final ReplicationRole role;
+    private final LongAdder refused = new LongAdder();
+
+    public ReplicaWriteGuard(ReplicationRole role) {
+        this.role = role;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        if (!role.isPrimary() && WRITES.contains(call.getMethodDescriptor().getFullMethodName())) {
+            refused.increment();
+            call.close(Status.FAILED_PRECONDITION.withDescription("Read-only replica; send writes to the primary"), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+        return next.startCall(call, headers);
+    }
+
+    public long refused() {
+        return refused.sum();
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.engine.snapshot;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Startup and snapshot timings, exposed over HTTP so restart time can be checked against the key count.
+ */
+public class RecoveryStats {
+
+    private volatile long snapshotLoadMillis;
+    private volatile long snapshotLoadedEntries;
+    private volatile long snapshotLoadedPosition;
+    private volatile long replayMillis;
+    private volatile long replayedRecords;
+    private volatile long startupMillis;
+
+    private volatile long snapshotsWritten;
+    private volatile long lastSnapshotMillis;
+    private volatile long lastSnapshotEntries;
+    private volatile long lastSnapshotBytes;
+    private volatile long lastSnapshotPosition;
+
+    public void snapshotLoaded(long millis, long entries, long position) {
+        this.snapshotLoadMillis = millis;
+        this.snapshotLoadedEntries = entries;
+        this.snapshotLoadedPosition = position;
+    }
+
+    public void logReplayed(long millis, long records) {
+        this.replayMillis = millis;
+        this.replayedRecords = records;
+    }
+
+    /**
+     * Records the time from JVM start until the gRPC server accepted connections.
+     */
+    public void serving(long millisSinceJvmStart) {
+        this.startupMillis = millisSinceJvmStart;
+    }
+
+    public void snapshotWritten(long millis, long entries, long bytes, long position) {
+        this.lastSnapshotMillis = millis;
+        this.lastSnapshotEntries = entries;
+        this.lastSnapshotBytes = bytes;
+        this.lastSnapshotPosition = position;
+        this.snapshotsWritten++;
+    }
+
+    public Map<String, Long> toMap() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("startupMillis", startupMillis);
+        stats.put("snapshotLoadMillis", snapshotLoadMillis);
+        stats.put("snapshotLoadedEntries", snapshotLoadedEntries);
+        stats.put("snapshotLoadedPosition", snapshotLoadedPosition);
+        stats.put("replayMillis", replayMillis);
+        stats.put("replayedRecords", replayedRecords);
+        stats.put("snapshotsWritten", snapshotsWritten);
+        stats.put("lastSnapshotMillis", lastSnapshotMillis);
+        stats.put("lastSnapshotEntries", lastSnapshotEntries);
+        stats.put("lastSnapshotBytes", lastSnapshotBytes);
+        stats.put("lastSnapshotPosition", lastSnapshotPosition);
+        return stats;
+    }
+}
@@ -0,0 +1,249 @@
+package org.example.engine.snapshot;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Directory of compact binary snapshots of the like counters and of who likes what.
+ * <p>
+ * A snapshot file is {@code [fixed32 magic][fixed64 logPosition]} followed by one
+ * {@code [varint keyLength][key bytes][zigzag varint count]} entry per counter, one
+ * {@code [varint keyLength][key bytes][varint length][serialized bitmap]} entry per event with members,
+ * and a {@code [fixed64 entryCount][fixed64 memberEntryCount][fixed32 crc32c]} trailer. Files from before
+ * membership was kept ({@code EFS1}) have no member entries and no member count, and still load. The log
+ * position says which write-ahead log records are already folded in. Files are written under a temporary
+ * name and renamed once complete, and are loaded through a read-only memory mapping after the checksum
+ * has been verified.
+ */
+public class SnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+    private static final int MAGIC_COUNTS_ONLY = 0x45465331; // "EFS1"
+    private static final int MAGIC = 0x45465332; // "EFS2"
+    private static final int HEADER_BYTES = 4 + 8;
+    private static final int TRAILER_BYTES = 8 + 8 + 4;
+
+    private final Path directory;
+    private final int retain;
+
+    /**
+     * @param retain number of most recent snapshots kept on disk, at least 1
+     */
+    public SnapshotStore(Path directory, int retain) throws IOException {
+        if (retain < 1) {
+            throw new IllegalArgumentException("retain must be at least 1: " + retain);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.retain = retain;
+    }
+
+    /**
+     * Feeds the newest readable snapshot to {@code consumer}. Snapshots failing their checksum are skipped
+     * in favour of older ones.
+     *
+     * @return what was loaded, or {@link Loaded#NONE} if there is no usable snapshot
+     */
+    public Loaded loadLatest(ObjLongConsumer<ByteString> consumer) throws IOException {
+        return loadLatest(consumer, (eventId, members) -> {
+        });
+    }
+
+    /**
+     * Like {@link #loadLatest(ObjLongConsumer)}, also feeding each event's serialized members to
+     * {@code members}.
+     */
+    public Loaded loadLatest(ObjLongConsumer<ByteString> consumer, BiConsumer<ByteString, ByteBuffer> members)
+            throws IOException {
+        List<Path> snapshots = snapshotPaths();
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path path = snapshots.get(i);
+            Loaded loaded = load(path, consumer, members);
+            if (loaded != null) {
+                return loaded;
+            }
+            log.warn("Snapshot {} is corrupt, falling back to an older one", path);
+        }
+        return Loaded.NONE;
+    }
+
+    /**
+     * @return the log position of the newest snapshot on disk, or {@code 0} if there is none
+     */
+    public long latestPosition() throws IOException {
+        List<Path> snapshots = snapshotPaths();
+        return snapshots.isEmpty() ? 0L : positionOf(snapshots.get(snapshots.size() - 1));
+    }
+
+    /**
+     * @return the log position of the oldest retained snapshot; log records before it are no longer needed
+     */
+    public long oldestRetainedPosition() throws IOException {
+        List<Path> snapshots = snapshotPaths();
+        return snapshots.isEmpty() ? 0L : positionOf(snapshots.get(0));
+    }
+
+    /**
+     * Writes a snapshot covering the log up to {@code position}. {@code source} is handed a visitor that it
+     * must call once per counter. Older snapshots beyond the retention count are deleted afterwards.
+     *
+     * @return the number of entries and bytes written
+     */
+    public Written write(long position, Consumer<ObjLongConsumer<ByteString>> source) throws IOException {
+        return write(position, source, visitor -> {
+        });
+    }
+
+    /**
+     * Like {@link #write(long, Consumer)}, with {@code members} handed a visitor to call once per event that
+     * has members, with the event's serialized bitmap.
+     */
+    public Written write(long position, Consumer<ObjLongConsumer<ByteString>> source,
+                         Consumer<BiConsumer<ByteString, byte[]>> members) throws IOException {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, position, SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+
+        CRC32C crc = new CRC32C();
+        long entries;
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc);
+            CodedOutputStream out = CodedOutputStream.newInstance(checked, 1 << 16);
+            out.writeFixed32NoTag(MAGIC);
+            out.writeFixed64NoTag(position);
+
+            long[] count = new long[1];
+            source.accept((eventId, value) -> {
+                try {
+                    out.writeBytesNoTag(eventId);
+                    out.writeSInt64NoTag(value);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            });
+            entries = count[0];
+
+            long[] memberEntries = new long[1];
+            members.accept((eventId, serialized) -> {
+                try {
+                    out.writeBytesNoTag(eventId);
+                    out.writeByteArrayNoTag(serialized);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                memberEntries[0]++;
+            });
+            out.writeFixed64NoTag(entries);
+            out.writeFixed64NoTag(memberEntries[0]);
+            out.flush();
+            checked.flush();
+
+            // The checksum covers everything before it, so it is written around the checked stream
+            CodedOutputStream trailer = CodedOutputStream.newInstance(file, 4);
+            trailer.writeFixed32NoTag((int) crc.getValue());
+            trailer.flush();
+            file.getChannel().force(true);
+        }
+        long bytes = Files.size(temporary);
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        List<Path> snapshots = snapshotPaths();
+        for (int i = 0; i < snapshots.size() - retain; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+        return new Written(position, entries, bytes);
+    }
+
+    private Loaded load(Path path, ObjLongConsumer<ByteString> consumer, BiConsumer<ByteString, ByteBuffer> members)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + 8 + 4 || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int crcOffset = (int) size - 4;
+
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(0, crcOffset));
+            ByteBuffer littleEndian = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            int magic = littleEndian.getInt(0);
+            if ((int) crc.getValue() != littleEndian.getInt(crcOffset)
+                    || (magic != MAGIC && magic != MAGIC_COUNTS_ONLY)
+                    || (magic == MAGIC && size < HEADER_BYTES + TRAILER_BYTES)) {
+                return null;
+            }
+            int countsOffset = magic == MAGIC ? crcOffset - 16 : crcOffset - 8;
+            long position = littleEndian.getLong(4);
+            long entries = littleEndian.getLong(countsOffset);
+            long memberEntries = magic == MAGIC ? littleEndian.getLong(crcOffset - 8) : 0L;
+
+            CodedInputStream in = CodedInputStream.newInstance(buffer.slice(HEADER_BYTES, countsOffset - HEADER_BYTES));
+            in.setSizeLimit(Integer.MAX_VALUE);
+            for (long i = 0; i < entries; i++) {
+                ByteString eventId = in.readBytes();
+                consumer.accept(eventId, in.readSInt64());
+            }
+            for (long i = 0; i < memberEntries; i++) {
+                ByteString eventId = in.readBytes();
+                members.accept(eventId, ByteBuffer.wrap(in.readByteArray()));
+            }
+            return new Loaded(path, position, entries, size);
+        }
+    }
+
+    private List<Path> snapshotPaths() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted(Comparator.comparingLong(SnapshotStore::positionOf))
+                    .toList();
+        }
+    }
+
+    private static long positionOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * A snapshot read back at startup.
+     */
+    public record Loaded(Path path, long position, long entries, long bytes) {
+        public static final Loaded NONE = new Loaded(null, 0L, 0L, 0L);
+    }
+
+    /**
+     * A snapshot just written.
+     */
+    public record Written(long position, long entries, long bytes) {
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.engine.store;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Like counters keyed by event id.
+ * <p>
+ * Ids are taken as the raw UTF-8 {@link ByteString} from the protobuf request so the hot path never
+ * decodes them into a {@code String}. Implementations must be safe for concurrent use from the gRPC
+ * executor and must not box counts on the hot path.
+ */
+public interface LikeCounterStore {
+
+    /**
+     * Adds {@code delta} to the counter of {@code eventId}, creating it at zero if absent.
+     *
+     * @return the count observed right after the update, which always includes this update
+     */
+    long add(ByteString eventId, long delta);
+
+    /**
+     * Reads a counter without taking a lock that writers wait on; the read path serves far more traffic
+     * than the write path and must not slow it down.
+     *
+     * @return the current count, or {@code 0} for an unknown event
+     */
+    long get(ByteString eventId);
+
+    /**
+     * @return the number of distinct event ids held by the store
+     */
+    int size();
+
+    /**
+     * Visits every counter without blocking writers. Counters updated during the walk may be seen either
+     * before or after the update.
+     */
+    void forEach(ObjLongConsumer<ByteString> visitor);
+
+    default long increment(ByteString eventId) {
+        return add(eventId, 1);
+    }
+
+    default long decrement(ByteString eventId) {
+        return add(eventId, -1);
+    }
+
+    default long add(String eventId, long delta) {
+        return add(ByteString.copyFromUtf8(eventId), delta);
+    }
+
+    default long get(String eventId) {
+        return get(ByteString.copyFromUtf8(eventId));
+    }
+
+    default long increment(String eventId) {
+        return add(eventId, 1);
+    }
+
+    default long decrement(String eventId) {
+        return add(eventId, -1);
+    }
+
+    /**
+     * Key of a numeric (v2) event id: the unsigned decimal digits of {@code eventId}, the same bytes a
+     * string id would carry, so {@code 42} and {@code "42"} share one counter. Builds a single array and
+     * no intermediate {@code String}.
+     */
+    static ByteString key(long eventId) {
+        if (eventId < 0) {
+            return ByteString.copyFromUtf8(Long.toUnsignedString(eventId));
+        }
+        int length = 1;
+        for (long rest = eventId / 10; rest != 0; rest /= 10) {
+            length++;
+        }
+        byte[] digits = new byte[length];
+        long rest = eventId;
+        for (int i = length - 1; i >= 0; i--) {
+            digits[i] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        }
+        return UnsafeByteOperations.unsafeWrap(digits);
+    }
+}
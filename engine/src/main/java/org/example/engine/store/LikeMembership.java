@@ -0,0 +1,189 @@
+package org.example.engine.store;
+
+import com.google.protobuf.ByteString;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Which users like which event, kept next to the {@link LikeCounterStore} so likes and unlikes are
+ * idempotent per (user, event). The like processor consults and changes it as it applies each mutation.
+ * <p>
+ * Each event holds a compressed {@link Roaring64Bitmap} of numeric user ids: dense id ranges cost a few
+ * bits per member and sparse ones about a long, against tens of bytes per entry in a hash set. Checks and
+ * updates are O(1) in practice and only lock the one event's bitmap, so different events never contend.
+ * <p>
+ * The write-ahead log records each change with the user, and snapshots carry the bitmaps in their
+ * serialized form ({@link #forEachSerialized}, {@link #addSerialized}), so recovery restores members along
+ * with counts. Replication ships the bitmaps the same way ({@link #serialized}, {@link #replaceSerialized}).
+ */
+public class LikeMembership {
+
+    private final ConcurrentMap<ByteString, Roaring64Bitmap> members;
+
+    public LikeMembership() {
+        this(1024);
+    }
+
+    public LikeMembership(int initialCapacity) {
+        this.members = new ConcurrentHashMap<>(initialCapacity);
+    }
+
+    /**
+     * @return {@code true} if {@code userId} did not like {@code eventId} yet and now does
+     */
+    public boolean add(ByteString eventId, long userId) {
+        Roaring64Bitmap users = members.computeIfAbsent(eventId, id -> new Roaring64Bitmap());
+        synchronized (users) {
+            if (users.contains(userId)) {
+                return false;
+            }
+            users.addLong(userId);
+            return true;
+        }
+    }
+
+    /**
+     * @return {@code true} if {@code userId} liked {@code eventId} and no longer does
+     */
+    public boolean remove(ByteString eventId, long userId) {
+        Roaring64Bitmap users = members.get(eventId);
+        if (users == null) {
+            return false;
+        }
+        synchronized (users) {
+            if (!users.contains(userId)) {
+                return false;
+            }
+            users.removeLong(userId);
+            return true;
+        }
+    }
+
+    public boolean contains(ByteString eventId, long userId) {
+        Roaring64Bitmap users = members.get(eventId);
+        if (users == null) {
+            return false;
+        }
+        synchronized (users) {
+            return users.contains(userId);
+        }
+    }
+
+    /**
+     * Hands every event that has members to {@code visitor} with its bitmap serialized. Each bitmap is copied
+     * under its own lock, so a walk during updates is consistent per event, not across events.
+     */
+    public void forEachSerialized(BiConsumer<ByteString, byte[]> visitor) {
+        members.forEach((eventId, users) -> {
+            byte[] serialized = serialize(users);
+            if (serialized != null) {
+                visitor.accept(eventId, serialized);
+            }
+        });
+    }
+
+    /**
+     * @return the users of {@code eventId} as {@link #forEachSerialized} hands them out, {@code null} for none
+     */
+    public byte[] serialized(ByteString eventId) {
+        Roaring64Bitmap users = members.get(eventId);
+        return users == null ? null : serialize(users);
+    }
+
+    private static byte[] serialize(Roaring64Bitmap users) {
+        synchronized (users) {
+            if (users.isEmpty()) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) users.serializedSizeInBytes());
+            try {
+                users.serialize(buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return buffer.array();
+        }
+    }
+
+    /**
+     * Adds the users of a bitmap serialized by {@link #forEachSerialized} to {@code eventId}.
+     */
+    public void addSerialized(ByteString eventId, ByteBuffer serialized) {
+        Roaring64Bitmap loaded = new Roaring64Bitmap();
+        try {
+            loaded.deserialize(serialized);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Roaring64Bitmap users = members.computeIfAbsent(eventId, id -> new Roaring64Bitmap());
+        synchronized (users) {
+            users.or(loaded);
+        }
+    }
+
+    /**
+     * Makes the users of {@code eventId} exactly those of a serialized bitmap, none if it is empty, and
+     * hands each user that joined to {@code added} and each that left to {@code removed}.
+     */
+    public void replaceSerialized(ByteString eventId, ByteBuffer serialized, LongConsumer added, LongConsumer removed) {
+        Roaring64Bitmap loaded = new Roaring64Bitmap();
+        if (serialized.hasRemaining()) {
+            try {
+                loaded.deserialize(serialized);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        Roaring64Bitmap users = loaded.isEmpty()
+                ? members.get(eventId)
+                : members.computeIfAbsent(eventId, id -> new Roaring64Bitmap());
+        if (users == null) {
+            return;
+        }
+        Roaring64Bitmap joined = new Roaring64Bitmap();
+        Roaring64Bitmap left = new Roaring64Bitmap();
+        synchronized (users) {
+            joined.or(loaded);
+            joined.andNot(users);
+            left.or(users);
+            left.andNot(loaded);
+            users.or(joined);
+            users.andNot(left);
+        }
+        for (LongIterator it = joined.getLongIterator(); it.hasNext(); ) {
+            added.accept(it.next());
+        }
+        for (LongIterator it = left.getLongIterator(); it.hasNext(); ) {
+            removed.accept(it.next());
+        }
+    }
+
+    /**
+     * Walks every bitmap, so meant for monitoring rather than the request path.
+     */
+    public Map<String, Long> toMap() {
+        long likes = 0;
+        long bytes = 0;
+        for (Roaring64Bitmap users : members.values()) {
+            synchronized (users) {
+                likes += users.getLongCardinality();
+                bytes += users.getLongSizeInBytes();
+            }
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("events", (long) members.size());
+        stats.put("likes", likes);
+        stats.put("bytes", bytes);
+        return stats;
+    }
+}
@@ -0,0 +1,333 @@
+package org.example.engine.store;
+
+import com.google.protobuf.ByteString;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * {@link LikeCounterStore} that keeps keys and counters outside the Java heap.
+ * <p>
+ * The store is split into shards, each an open-addressing (linear probing) table in a direct
+ * {@link ByteBuffer}. A slot is 16 bytes: the key's 32-bit hash and its offset in the shard's key arena,
+ * followed by the 64-bit counter. Key bytes are copied once from the request's id {@link ByteString} into
+ * an append-only direct arena, so an entry costs about {@code 16 / loadFactor + 4 + idLength} bytes and
+ * nothing per entry is visible to the garbage collector.
+ * <p>
+ * Updates to existing keys take the shard's read lock and bump the counter with an atomic add, so they
+ * run in parallel. Inserting a new key, and growing the table once it exceeds {@code loadFactor}, take the
+ * write lock. Each growth multiplies the shard's slot count by {@code growthFactor}. Reads are optimistic
+ * and only fall back to the read lock when they overlap an insert.
+ */
+public class OffHeapLikeCounterStore implements LikeCounterStore {
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private static final int SLOT_BYTES = 16;
+    private static final int COUNT_OFFSET = 8;
+    private static final int MIN_SLOTS = 16;
+    private static final int MAX_SLOTS = 1 << 26;
+
+    private final Shard[] shards;
+    private final int shardBits;
+    private final float loadFactor;
+    private final int growthFactor;
+
+    public OffHeapLikeCounterStore(int initialCapacity) {
+        this(initialCapacity, 64, 0.7f, 2);
+    }
+
+    /**
+     * @param initialCapacity expected number of distinct event ids
+     * @param shardCount      number of independently locked tables, a power of two
+     * @param loadFactor      fill ratio at which a shard grows, in {@code (0, 1)}
+     * @param growthFactor    slot count multiplier applied on growth, a power of two of at least 2
+     */
+    public OffHeapLikeCounterStore(int initialCapacity, int shardCount, float loadFactor, int growthFactor) {
+        if (shardCount <= 0 || Integer.bitCount(shardCount) != 1) {
+            throw new IllegalArgumentException("shardCount must be a power of two: " + shardCount);
+        }
+        if (!(loadFactor > 0f && loadFactor < 1f)) {
+            throw new IllegalArgumentException("loadFactor must be in (0, 1): " + loadFactor);
+        }
+        if (growthFactor < 2 || Integer.bitCount(growthFactor) != 1) {
+            throw new IllegalArgumentException("growthFactor must be a power of two >= 2: " + growthFactor);
+        }
+        this.shardBits = Integer.numberOfTrailingZeros(shardCount);
+        this.loadFactor = loadFactor;
+        this.growthFactor = growthFactor;
+
+        long perShard = (long) Math.ceil(Math.max(initialCapacity, 1) / (double) shardCount / loadFactor);
+        int slots = slotsFor(perShard);
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(slots);
+        }
+    }
+
+    @Override
+    public long add(ByteString eventId, long delta) {
+        int hash = hash(eventId);
+        return shards[hash & (shards.length - 1)].add(eventId, hash, delta);
+    }
+
+    @Override
+    public long get(ByteString eventId) {
+        int hash = hash(eventId);
+        return shards[hash & (shards.length - 1)].get(eventId, hash);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            long stamp = shard.lock.readLock();
+            try {
+                size += shard.size;
+            } finally {
+                shard.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Visits one shard at a time under its read lock, so only inserts into that shard wait for the walk.
+     */
+    @Override
+    public void forEach(ObjLongConsumer<ByteString> visitor) {
+        for (Shard shard : shards) {
+            long stamp = shard.lock.readLock();
+            try {
+                shard.forEach(visitor);
+            } finally {
+                shard.lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * @return bytes of direct memory currently reserved by slot tables and key arenas
+     */
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (Shard shard : shards) {
+            long stamp = shard.lock.readLock();
+            try {
+                bytes += shard.table.capacity() + shard.arena.capacity();
+            } finally {
+                shard.lock.unlockRead(stamp);
+            }
+        }
+        return bytes;
+    }
+
+    private static int hash(ByteString eventId) {
+        // ByteString caches its hash code; finalize it so shard and slot bits are well mixed
+        int h = eventId.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static int slotsFor(long wanted) {
+        if (wanted > MAX_SLOTS) {
+            return MAX_SLOTS;
+        }
+        int slots = MIN_SLOTS;
+        while (slots < wanted) {
+            slots <<= 1;
+        }
+        return slots;
+    }
+
+    private static ByteBuffer allocate(long bytes) {
+        if (bytes > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Off-heap buffer too large: " + bytes + " bytes");
+        }
+        // Slice at an 8-byte boundary so the counters support atomic access
+        int rounded = (int) ((bytes + 7) & ~7L);
+        return ByteBuffer.allocateDirect(rounded + 8).alignedSlice(8).order(ByteOrder.nativeOrder());
+    }
+
+    private final class Shard {
+
+        private final StampedLock lock = new StampedLock();
+
+        private ByteBuffer table;
+        private int mask;
+        private int size;
+        private int resizeAt;
+
+        private ByteBuffer arena;
+        private int arenaUsed;
+
+        private Shard(int slots) {
+            this.table = allocate((long) slots * SLOT_BYTES);
+            this.mask = slots - 1;
+            this.resizeAt = (int) (slots * loadFactor);
+            this.arena = allocate(Math.max(256, slots * 8L));
+        }
+
+        long add(ByteString key, int hash, long delta) {
+            long stamp = lock.readLock();
+            try {
+                int slot = find(key, hash);
+                if (slot >= 0) {
+                    return (long) LONGS.getAndAdd(table, slot * SLOT_BYTES + COUNT_OFFSET, delta) + delta;
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+
+            stamp = lock.writeLock();
+            try {
+                int slot = find(key, hash);
+                if (slot < 0) {
+                    slot = insert(key, hash);
+                }
+                return (long) LONGS.getAndAdd(table, slot * SLOT_BYTES + COUNT_OFFSET, delta) + delta;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Reads under an optimistic stamp first, so reads take no lock and never wait for writers. A read
+         * that overlaps an insert or a resize may see a torn table; it is discarded and retried under the read
+         * lock.
+         */
+        long get(ByteString key, int hash) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    int slot = find(key, hash);
+                    long count = slot < 0 ? 0L : (long) LONGS.getVolatile(table, slot * SLOT_BYTES + COUNT_OFFSET);
+                    if (lock.validate(stamp)) {
+                        return count;
+                    }
+                } catch (IndexOutOfBoundsException torn) {
+                    // table and mask, or a key offset and the arena, came from different resizes
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                int slot = find(key, hash);
+                return slot < 0 ? 0L : (long) LONGS.getVolatile(table, slot * SLOT_BYTES + COUNT_OFFSET);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void forEach(ObjLongConsumer<ByteString> visitor) {
+            for (int slot = 0; slot <= mask; slot++) {
+                long ref = table.getLong(slot * SLOT_BYTES);
+                if (ref != 0) {
+                    int offset = (int) ref - 1;
+                    ByteString key = ByteString.copyFrom(arena.slice(offset + 4, arena.getInt(offset)));
+                    visitor.accept(key, (long) LONGS.getVolatile(table, slot * SLOT_BYTES + COUNT_OFFSET));
+                }
+            }
+        }
+
+        private int find(ByteString key, int hash) {
+            int probeMask = mask;
+            int slot = start(hash, probeMask);
+            // Bounded so an optimistic read of a table being resized cannot spin forever
+            for (int probes = 0; probes <= probeMask; probes++) {
+                long ref = table.getLong(slot * SLOT_BYTES);
+                if (ref == 0) {
+                    return -1;
+                }
+                if ((int) (ref >>> 32) == hash && keyEquals((int) ref - 1, key)) {
+                    return slot;
+                }
+                slot = (slot + 1) & probeMask;
+            }
+            return -1;
+        }
+
+        private int insert(ByteString key, int hash) {
+            if (size >= resizeAt) {
+                grow();
+            }
+            int offset = appendKey(key);
+            int slot = start(hash, mask);
+            while (table.getLong(slot * SLOT_BYTES) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table.putLong(slot * SLOT_BYTES, ((long) hash << 32) | ((offset + 1) & 0xFFFFFFFFL));
+            size++;
+            return slot;
+        }
+
+        private void grow() {
+            int slots = mask + 1;
+            if ((long) slots * growthFactor > MAX_SLOTS) {
+                if (size >= slots - 1) {
+                    throw new IllegalStateException("Off-heap counter shard is full at " + size + " keys");
+                }
+                return;
+            }
+            int newSlots = slots * growthFactor;
+            int newMask = newSlots - 1;
+            ByteBuffer newTable = allocate((long) newSlots * SLOT_BYTES);
+            for (int slot = 0; slot < slots; slot++) {
+                long ref = table.getLong(slot * SLOT_BYTES);
+                if (ref == 0) {
+                    continue;
+                }
+                int target = start((int) (ref >>> 32), newMask);
+                while (newTable.getLong(target * SLOT_BYTES) != 0) {
+                    target = (target + 1) & newMask;
+                }
+                newTable.putLong(target * SLOT_BYTES, ref);
+                newTable.putLong(target * SLOT_BYTES + COUNT_OFFSET, table.getLong(slot * SLOT_BYTES + COUNT_OFFSET));
+            }
+            table = newTable;
+            mask = newMask;
+            resizeAt = (int) (newSlots * loadFactor);
+        }
+
+        private int appendKey(ByteString key) {
+            int needed = 4 + key.size();
+            if (arenaUsed + (long) needed > arena.capacity()) {
+                long newCapacity = Math.max(arena.capacity() * 2L, arenaUsed + (long) needed);
+                ByteBuffer newArena = allocate(newCapacity);
+                newArena.put(0, arena, 0, arenaUsed);
+                arena = newArena;
+            }
+            int offset = arenaUsed;
+            arena.putInt(offset, key.size());
+            key.copyTo(arena.slice(offset + 4, key.size()));
+            arenaUsed += needed;
+            return offset;
+        }
+
+        private boolean keyEquals(int offset, ByteString key) {
+            int length = arena.getInt(offset);
+            if (length != key.size()) {
+                return false;
+            }
+            int base = offset + 4;
+            for (int i = 0; i < length; i++) {
+                if (arena.get(base + i) != key.byteAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int start(int hash, int mask) {
+            // The low bits already picked the shard, so probe from the remaining ones
+            return Integer.rotateRight(hash, shardBits) & mask;
+        }
+    }
+}
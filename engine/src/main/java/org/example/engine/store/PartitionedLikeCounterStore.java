@@ -0,0 +1,66 @@
+package org.example.engine.store;
+
+import com.google.protobuf.ByteString;
+
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Counters split into single-writer partitions by event id hash.
+ * <p>
+ * Reads may come from any thread. Writes for a partition must come from the thread that owns it (see
+ * {@code PartitionedLikeProcessor}), or from a single thread before the owners start, as during recovery.
+ */
+public class PartitionedLikeCounterStore implements LikeCounterStore {
+
+    private final SingleWriterLikeCounterStore[] partitions;
+
+    public PartitionedLikeCounterStore(int partitionCount, int initialCapacity) {
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("partitionCount must be positive: " + partitionCount);
+        }
+        this.partitions = new SingleWriterLikeCounterStore[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new SingleWriterLikeCounterStore(Math.max(16, initialCapacity / partitionCount));
+        }
+    }
+
+    public int partitionCount() {
+        return partitions.length;
+    }
+
+    public int partitionOf(ByteString eventId) {
+        int h = eventId.hashCode();
+        h ^= h >>> 16;
+        return (h & 0x7FFFFFFF) % partitions.length;
+    }
+
+    public LikeCounterStore partition(int index) {
+        return partitions[index];
+    }
+
+    @Override
+    public long add(ByteString eventId, long delta) {
+        return partitions[partitionOf(eventId)].add(eventId, delta);
+    }
+
+    @Override
+    public long get(ByteString eventId) {
+        return partitions[partitionOf(eventId)].get(eventId);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (SingleWriterLikeCounterStore partition : partitions) {
+            size += partition.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<ByteString> visitor) {
+        for (SingleWriterLikeCounterStore partition : partitions) {
+            partition.forEach(visitor);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.engine.store;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Counters updated by exactly one owner thread and read by any thread.
+ * <p>
+ * Because there is a single writer, an update is a plain read followed by a release store: no CAS, no
+ * lock and no contended cache line with other writers. Readers see every update with acquire semantics.
+ * Calling {@link #add} from more than one thread at a time loses updates.
+ */
+public class SingleWriterLikeCounterStore implements LikeCounterStore {
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Counter.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final ConcurrentMap<ByteString, Counter> counters;
+
+    public SingleWriterLikeCounterStore(int initialCapacity) {
+        this.counters = new ConcurrentHashMap<>(initialCapacity);
+    }
+
+    @Override
+    public long add(ByteString eventId, long delta) {
+        Counter counter = counters.get(eventId);
+        if (counter == null) {
+            counter = new Counter();
+            // Detach the key from the request buffer it may alias before retaining it
+            counters.put(UnsafeByteOperations.unsafeWrap(eventId.toByteArray()), counter);
+        }
+        long value = counter.value + delta;
+        VALUE.setRelease(counter, value);
+        return value;
+    }
+
+    @Override
+    public long get(ByteString eventId) {
+        Counter counter = counters.get(eventId);
+        return counter == null ? 0L : (long) VALUE.getAcquire(counter);
+    }
+
+    @Override
+    public int size() {
+        return counters.size();
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<ByteString> visitor) {
+        counters.forEach((eventId, counter) -> visitor.accept(eventId, (long) VALUE.getAcquire(counter)));
+    }
+
+    private static final class Counter {
+        long value;
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.engine.store;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Default {@link LikeCounterStore}: one {@link LongAdder} per event id.
+ * <p>
+ * Keys are the request's id {@link ByteString}, whose hash code is computed once and cached by protobuf.
+ * An existing counter is found with a single lock-free {@code get}; the map is only written when an id is
+ * seen for the first time. Concurrent likes on the same hot event land on different adder cells instead of
+ * contending on one hash bin, and no {@code Long} is allocated per update.
+ * <p>
+ * The count returned by {@link #add} is the adder sum taken right after the update. It includes the
+ * caller's own update and any that completed before it, which is as consistent as a like count in a
+ * response needs to be; it is not a linearizable snapshot under concurrent writers.
+ */
+public class StripedLikeCounterStore implements LikeCounterStore {
+
+    private final ConcurrentMap<ByteString, LongAdder> counters;
+
+    public StripedLikeCounterStore() {
+        this(1 << 16);
+    }
+
+    public StripedLikeCounterStore(int initialCapacity) {
+        this.counters = new ConcurrentHashMap<>(initialCapacity);
+    }
+
+    @Override
+    public long add(ByteString eventId, long delta) {
+        LongAdder counter = counters.get(eventId);
+        if (counter == null) {
+            // Detach the key from the request buffer it may alias before retaining it
+            LongAdder created = new LongAdder();
+            counter = counters.putIfAbsent(UnsafeByteOperations.unsafeWrap(eventId.toByteArray()), created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        counter.add(delta);
+        return counter.sum();
+    }
+
+    @Override
+    public long get(ByteString eventId) {
+        LongAdder counter = counters.get(eventId);
+        return counter == null ? 0L : counter.sum();
+    }
+
+    @Override
+    public int size() {
+        return counters.size();
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<ByteString> visitor) {
+        counters.forEach((eventId, counter) -> visitor.accept(eventId, counter.sum()));
+    }
+}
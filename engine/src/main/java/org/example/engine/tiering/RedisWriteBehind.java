@@ -0,0 +1,240 @@
+package org.example.engine.tiering;
+
+import com.google.protobuf.ByteString;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import org.example.core.metrics.LatencyRecorder;
+import org.example.core.metrics.Metrics;
+import org.example.engine.store.LikeCounterStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mirrors the engine's counters into Redis behind the like path, as {@code <keyPrefix><eventId>} string
+ * keys other consumers can read.
+ * <p>
+ * A like only marks its event dirty in a set of at most {@code maxDirty} ids; the network is never on the
+ * request path. Every {@code intervalMillis} a flusher takes the dirty ids, reads their current counts
+ * from the store and writes them with {@code MSET}s of up to {@code batchSize} keys, pipelined on one
+ * connection with auto-flush off and awaited together. Writing absolute counts rather than {@code INCRBY}
+ * deltas makes a flush idempotent: a failed flush is simply redone, and a like racing a flush at worst
+ * makes its event dirty again.
+ * <p>
+ * Past {@code maxDirty} ids no more are tracked; the next flush instead copies every counter of the store,
+ * as it also does after a failed flush and on the first one. Flush lag, from the first mark after a flush
+ * until the flush that covers it is acknowledged, is recorded as {@code redis.writebehind.lag}.
+ */
+public class RedisWriteBehind implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisWriteBehind.class);
+
+    private final LikeCounterStore store;
+    private final RedisClient client;
+    private final String keyPrefix;
+    private final int maxDirty;
+    private final int batchSize;
+    private final long intervalMillis;
+    private final Set<ByteString> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicLong firstDirtyNanos = new AtomicLong();
+    private volatile boolean resync = true;
+
+    private final LatencyRecorder lag;
+    private final LongAdder flushes;
+    private final LongAdder keysWritten;
+    private final LongAdder failures;
+    private final LongAdder resyncs;
+    private final LongAdder overflows;
+
+    private StatefulRedisConnection<String, String> connection;
+    private ScheduledExecutorService flusher;
+
+    public RedisWriteBehind(LikeCounterStore store, RedisClient client, String keyPrefix, int maxDirty, int batchSize,
+                            long intervalMillis, Metrics metrics) {
+        if (maxDirty <= 0 || batchSize <= 0 || intervalMillis <= 0) {
+            throw new IllegalArgumentException("maxDirty, batchSize and intervalMillis must be positive");
+        }
+        this.store = store;
+        this.client = client;
+        this.keyPrefix = keyPrefix;
+        this.maxDirty = maxDirty;
+        this.batchSize = batchSize;
+        this.intervalMillis = intervalMillis;
+        this.lag = metrics.latency("redis.writebehind.lag");
+        this.flushes = metrics.counter("redis.writebehind.flushes");
+        this.keysWritten = metrics.counter("redis.writebehind.keys");
+        this.failures = metrics.counter("redis.writebehind.failures");
+        this.resyncs = metrics.counter("redis.writebehind.resyncs");
+        this.overflows = metrics.counter("redis.writebehind.overflows");
+    }
+
+    public synchronized void start() {
+        if (flusher != null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "redis-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called once a mutation of {@code eventId} is applied. Allocates nothing for an event that is already
+     * dirty.
+     */
+    public void markDirty(ByteString eventId) {
+        if (resync || dirty.contains(eventId)) {
+            return;
+        }
+        if (dirty.size() >= maxDirty) {
+            overflows.increment();
+            resync = true;
+            return;
+        }
+        firstDirtyNanos.compareAndSet(0L, System.nanoTime());
+        dirty.add(eventId);
+    }
+
+    public Map<String, Long> toMap() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("dirty", (long) dirty.size());
+        stats.put("resyncPending", resync ? 1L : 0L);
+        stats.put("flushes", flushes.sum());
+        stats.put("keys", keysWritten.sum());
+        stats.put("failures", failures.sum());
+        return stats;
+    }
+
+    /**
+     * Writes every dirty counter, or all of them when a resync is pending, and waits for Redis to
+     * acknowledge. Failures leave a resync pending.
+     */
+    synchronized void flush() throws Exception {
+        long since = firstDirtyNanos.getAndSet(0L);
+        Pipeline pipeline;
+        try {
+            pipeline = new Pipeline(connection(), batchSize);
+            if (resync) {
+                // Cleared first: ids marked from here on are flushed again next time, which is harmless
+                resync = false;
+                dirty.clear();
+                resyncs.increment();
+                store.forEach((eventId, count) -> pipeline.put(keyPrefix + eventId.toStringUtf8(), count));
+            } else {
+                for (Iterator<ByteString> it = dirty.iterator(); it.hasNext(); ) {
+                    ByteString eventId = it.next();
+                    it.remove();
+                    pipeline.put(keyPrefix + eventId.toStringUtf8(), store.get(eventId));
+                }
+            }
+            pipeline.send();
+            if (pipeline.replies.isEmpty()) {
+                return;
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            for (RedisFuture<String> reply : pipeline.replies) {
+                reply.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (Exception e) {
+            resync = true;
+            if (since != 0L) {
+                firstDirtyNanos.compareAndSet(0L, since);
+            }
+            failures.increment();
+            throw e;
+        }
+        flushes.increment();
+        keysWritten.add(pipeline.written);
+        if (since != 0L) {
+            lag.recordSince(since);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Hand over whatever changed since the last flush
+        flushQuietly();
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Write-behind flush to Redis failed, retrying with a full resync: {}", e.toString());
+        }
+    }
+
+    /**
+     * Collects counters into MSET batches of at most {@code batchSize} keys and writes each one to the socket
+     * as soon as it fills, so a resync never holds more than one batch of the store.
+     */
+    private static final class Pipeline {
+
+        final StatefulRedisConnection<String, String> connection;
+        final RedisAsyncCommands<String, String> commands;
+        final int batchSize;
+        final List<RedisFuture<String>> replies = new ArrayList<>();
+        Map<String, String> batch;
+        long written;
+
+        Pipeline(StatefulRedisConnection<String, String> connection, int batchSize) {
+            this.connection = connection;
+            this.commands = connection.async();
+            this.batchSize = batchSize;
+            this.batch = new HashMap<>(batchSize * 2);
+        }
+
+        void put(String key, long count) {
+            batch.put(key, Long.toString(count));
+            if (batch.size() >= batchSize) {
+                send();
+            }
+        }
+
+        void send() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            replies.add(commands.mset(batch));
+            connection.flushCommands();
+            written += batch.size();
+            batch = new HashMap<>(batchSize * 2);
+        }
+    }
+
+    private StatefulRedisConnection<String, String> connection() {
+        if (connection == null || !connection.isOpen()) {
+            connection = client.connect();
+            connection.setAutoFlushCommands(false);
+        }
+        return connection;
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.engine.trending;
+
+import com.google.protobuf.ByteString;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Space-Saving heavy-hitters summary over at most {@code capacity} keys.
+ * <p>
+ * A tracked key counts exactly from the moment it entered. An untracked key replaces the key with the
+ * smallest count and inherits that count, so counts overestimate by at most the smallest tracked count,
+ * and every key whose true count exceeds {@code total / capacity} is guaranteed to be tracked. The
+ * smallest count is found through an indexed min-heap, so an update costs O(log capacity) and only
+ * allocates when a new key enters.
+ * <p>
+ * Not thread-safe.
+ */
+final class SpaceSaving {
+
+    private final Map<ByteString, Slot> slots;
+    private final Slot[] heap;
+    private int size;
+
+    SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.slots = new HashMap<>(capacity * 2);
+        this.heap = new Slot[capacity];
+    }
+
+    void add(ByteString key, long delta) {
+        Slot slot = slots.get(key);
+        if (slot == null) {
+            if (size < heap.length) {
+                slot = new Slot(size);
+                heap[size++] = slot;
+                slot.key = key;
+                slot.count = delta;
+                slots.put(key, slot);
+                siftUp(slot.index);
+                return;
+            }
+            // Evict the minimum; the newcomer inherits its count as its error bound
+            slot = heap[0];
+            slots.remove(slot.key);
+            slot.key = key;
+            slots.put(key, slot);
+        }
+        slot.count += delta;
+        siftDown(slot.index);
+    }
+
+    void forEach(ObjLongConsumer<ByteString> visitor) {
+        for (int i = 0; i < size; i++) {
+            visitor.accept(heap[i].key, heap[i].count);
+        }
+    }
+
+    void clear() {
+        slots.clear();
+        Arrays.fill(heap, 0, size, null);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].count <= heap[i].count) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    /**
+     * Counts only grow, so an updated slot can only move away from the root.
+     */
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && heap[left].count < heap[smallest].count) {
+                smallest = left;
+            }
+            if (right < size && heap[right].count < heap[smallest].count) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        Slot slot = heap[a];
+        heap[a] = heap[b];
+        heap[a].index = a;
+        heap[b] = slot;
+        slot.index = b;
+    }
+
+    private static final class Slot {
+        private ByteString key;
+        private long count;
+        private int index;
+
+        private Slot(int index) {
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package org.example.engine.trending;
+
+import com.google.protobuf.ByteString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Likes per event over sliding windows of up to {@code buckets * bucketMillis}, for trending.
+ * <p>
+ * Time is split into buckets and the current bucket number is advanced by a single ticker thread, so
+ * recording a like reads one volatile field instead of a clock, and request timestamps are never parsed.
+ * Every event liked within the longest window has a ring of per-bucket counters; a bucket slot is cleared
+ * lazily by the first like that lands in it after the ring wrapped, and events idle for a whole ring are
+ * dropped by the ticker. A window count is the sum of the ring's last buckets.
+ * <p>
+ * {@link #topK} needs candidates without scanning every event, so each bucket also feeds a constant-size
+ * Space-Saving summary, split into {@code STRIPES} stripes that writers pick without waiting on each
+ * other. The summaries of a window's buckets nominate candidates, which are then ranked by their exact
+ * ring counts. Each stripe tracks {@code sketchCapacity / STRIPES} events, so it always keeps an event
+ * with more than {@code STRIPES / sketchCapacity} of the stripe's likes; an event with more than that
+ * share of a bucket's likes has it in at least one stripe and is always nominated.
+ * <p>
+ * Only likes count; unlikes do not take likes back out of a window.
+ */
+public class TrendingAggregator implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingAggregator.class);
+
+    private static final int STRIPES = 8;
+
+    private final long bucketMillis;
+    private final int buckets;
+    private final ConcurrentMap<ByteString, EventWindow> windows = new ConcurrentHashMap<>();
+    private final Sketch[] sketches;
+    private volatile long current;
+    private ScheduledExecutorService ticker;
+
+    /**
+     * @param bucketMillis   width of one bucket, the resolution of every window
+     * @param buckets        buckets per ring; the longest window is {@code buckets * bucketMillis}
+     * @param sketchCapacity events tracked by the heavy-hitters summary of one bucket, across its stripes
+     */
+    public TrendingAggregator(long bucketMillis, int buckets, int sketchCapacity) {
+        this(bucketMillis, buckets, sketchCapacity, System.currentTimeMillis());
+    }
+
+    TrendingAggregator(long bucketMillis, int buckets, int sketchCapacity, long nowMillis) {
+        if (bucketMillis <= 0 || buckets <= 0) {
+            throw new IllegalArgumentException("bucketMillis and buckets must be positive: " + bucketMillis + ", " + buckets);
+        }
+        this.bucketMillis = bucketMillis;
+        this.buckets = buckets;
+        this.sketches = new Sketch[buckets];
+        int perStripe = Math.max(1, sketchCapacity / STRIPES);
+        for (int i = 0; i < buckets; i++) {
+            sketches[i] = new Sketch(perStripe);
+        }
+        this.current = nowMillis / bucketMillis;
+    }
+
+    /**
+     * Starts the ticker. Until then every like lands in the bucket that was current at construction.
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "trending-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.min(bucketMillis, 1000);
+        ticker.scheduleAtFixedRate(() -> {
+            try {
+                tick(System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                log.warn("Trending tick failed", e);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public void record(ByteString eventId, long delta) {
+        if (delta <= 0) {
+            return;
+        }
+        long bucket = current;
+        EventWindow window = windows.get(eventId);
+        while (window == null || !window.add(bucket, delta)) {
+            if (window != null) {
+                // Retired by the ticker after a full idle ring; replace it rather than wait for the ticker
+                windows.remove(eventId, window);
+            }
+            window = windows.computeIfAbsent(eventId, id -> new EventWindow(buckets, bucket));
+        }
+        sketches[index(bucket)].add(eventId, delta);
+    }
+
+    /**
+     * Likes of {@code eventId} within the last {@code windowMillis}.
+     */
+    public long count(ByteString eventId, long windowMillis) {
+        EventWindow window = windows.get(eventId);
+        return window == null ? 0L : window.sum(current, bucketsFor(windowMillis));
+    }
+
+    /**
+     * @return up to {@code k} events with the most likes within the last {@code windowMillis}, most liked
+     * first; the window is rounded up to whole buckets and capped at the ring length
+     */
+    public List<Trend> topK(long windowMillis, int k) {
+        long bucket = current;
+        int span = bucketsFor(windowMillis);
+        Set<ByteString> candidates = new HashSet<>();
+        for (int i = 0; i < span; i++) {
+            sketches[index(bucket - i)].collect(candidates);
+        }
+
+        PriorityQueue<Trend> top = new PriorityQueue<>(k + 1, Comparator.comparingLong(Trend::likes));
+        for (ByteString eventId : candidates) {
+            EventWindow window = windows.get(eventId);
+            long likes = window == null ? 0L : window.sum(bucket, span);
+            if (likes > 0 && (top.size() < k || likes > top.peek().likes())) {
+                top.add(new Trend(eventId, likes));
+                if (top.size() > k) {
+                    top.poll();
+                }
+            }
+        }
+        List<Trend> result = new ArrayList<>(top);
+        result.sort(Comparator.comparingLong(Trend::likes).reversed());
+        return result;
+    }
+
+    public long maxWindowMillis() {
+        return buckets * bucketMillis;
+    }
+
+    public Map<String, Long> toMap() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("bucketMillis", bucketMillis);
+        stats.put("buckets", (long) buckets);
+        stats.put("trackedEvents", (long) windows.size());
+        return stats;
+    }
+
+    /**
+     * Moves to the bucket of {@code nowMillis}: clears the summaries of the buckets being entered before
+     * publishing the new bucket, then drops the rings of events idle for a whole ring.
+     */
+    void tick(long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        long previous = current;
+        if (bucket <= previous) {
+            return;
+        }
+        for (long b = Math.max(previous + 1, bucket - buckets + 1); b <= bucket; b++) {
+            sketches[index(b)].clear();
+        }
+        current = bucket;
+
+        windows.forEach((eventId, window) -> {
+            if (window.retireIfIdleSince(bucket - buckets)) {
+                windows.remove(eventId, window);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    private int bucketsFor(long windowMillis) {
+        long span = (windowMillis + bucketMillis - 1) / bucketMillis;
+        return (int) Math.max(1, Math.min(buckets, span));
+    }
+
+    private int index(long bucket) {
+        return (int) Math.floorMod(bucket, (long) buckets);
+    }
+
+    public record Trend(ByteString eventId, long likes) {
+    }
+
+    /**
+     * Per-bucket like counters of one event.
+     */
+    private static final class EventWindow {
+
+        private final AtomicIntegerArray counts;
+        private volatile long lastBucket;
+        private boolean retired; // guarded by this
+
+        private EventWindow(int buckets, long bucket) {
+            this.counts = new AtomicIntegerArray(buckets);
+            this.lastBucket = bucket;
+        }
+
+        /**
+         * @return {@code false} if the window was retired and must be replaced
+         */
+        boolean add(long bucket, long delta) {
+            if (lastBucket != bucket && !advance(bucket)) {
+                return false;
+            }
+            counts.getAndAdd(index(bucket), (int) delta);
+            return true;
+        }
+
+        long sum(long bucket, int span) {
+            long last = lastBucket;
+            long from = Math.max(bucket - span + 1, last - counts.length() + 1);
+            long to = Math.min(bucket, last);
+            long sum = 0;
+            for (long b = from; b <= to; b++) {
+                sum += counts.get(index(b));
+            }
+            return sum;
+        }
+
+        /**
+         * Clears the slots being entered before publishing the new bucket, so a writer that sees it can
+         * add right away. Writers still on an older bucket add to that bucket's slot.
+         */
+        private synchronized boolean advance(long bucket) {
+            if (retired) {
+                return false;
+            }
+            long last = lastBucket;
+            if (bucket > last) {
+                for (long b = Math.max(last + 1, bucket - counts.length() + 1); b <= bucket; b++) {
+                    counts.set(index(b), 0);
+                }
+                lastBucket = bucket;
+            }
+            return true;
+        }
+
+        synchronized boolean retireIfIdleSince(long bucket) {
+            if (lastBucket > bucket) {
+                return false;
+            }
+            retired = true;
+            return true;
+        }
+
+        private int index(long bucket) {
+            return (int) Math.floorMod(bucket, (long) counts.length());
+        }
+    }
+
+    /**
+     * The heavy-hitters summary of one bucket. A writer takes the first stripe it can lock without
+     * waiting, so each stripe summarises a share of the bucket's likes.
+     */
+    private static final class Sketch {
+
+        private final SpaceSaving[] stripes = new SpaceSaving[STRIPES];
+        private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+        private Sketch(int capacity) {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new SpaceSaving(capacity);
+                locks[i] = new ReentrantLock();
+            }
+        }
+
+        void add(ByteString eventId, long delta) {
+            int first = (int) Thread.currentThread().threadId() & (STRIPES - 1);
+            for (int i = 0; i < STRIPES; i++) {
+                int stripe = (first + i) & (STRIPES - 1);
+                if (locks[stripe].tryLock()) {
+                    try {
+                        stripes[stripe].add(eventId, delta);
+                    } finally {
+                        locks[stripe].unlock();
+                    }
+                    return;
+                }
+            }
+            locks[first].lock();
+            try {
+                stripes[first].add(eventId, delta);
+            } finally {
+                locks[first].unlock();
+            }
+        }
+
+        void collect(Set<ByteString> candidates) {
+            for (int i = 0; i < STRIPES; i++) {
+                locks[i].lock();
+                try {
+                    stripes[i].forEach((eventId, count) -> candidates.add(eventId));
+                } finally {
+                    locks[i].unlock();
+                }
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < STRIPES; i++) {
+                locks[i].lock();
+                try {
+                    stripes[i].clear();
+                } finally {
+                    locks[i].unlock();
+                }
+            }
+        }
+    }
+}
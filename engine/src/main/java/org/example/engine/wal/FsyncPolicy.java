@@ -0,0 +1,23 @@
+package org.example.engine.wal;
+
+/**
+ * When the {@link WriteAheadLog} forces mapped segments to disk.
+ */
+public enum FsyncPolicy {
+
+    /**
+     * Group commit: a flusher thread forces everything appended so far in one call and only then releases
+     * the replies waiting on those records. Nothing is acknowledged before it is on disk.
+     */
+    BATCH,
+
+    /**
+     * Force on a fixed interval and acknowledge immediately; a crash loses at most one interval.
+     */
+    INTERVAL,
+
+    /**
+     * Never force explicitly; the OS writes mapped pages back on its own schedule.
+     */
+    NONE
+}
@@ -0,0 +1,45 @@
+package org.example.engine.wal;
+
+import com.google.protobuf.ByteString;
+import org.example.engine.store.LikeCounterStore;
+import org.example.engine.store.LikeMembership;
+
+/**
+ * Receives mutations read back from a {@link WriteAheadLog}.
+ */
+@FunctionalInterface
+public interface MutationConsumer {
+
+    void accept(ByteString eventId, long delta);
+
+    /**
+     * A like ({@code liked}) or unlike by a known user; consumers that keep no membership take the delta only.
+     */
+    default void accept(ByteString eventId, long delta, long userId, boolean liked) {
+        accept(eventId, delta);
+    }
+
+    /**
+     * Applies every mutation to {@code counters}, and those of known users to {@code membership} too.
+     */
+    static MutationConsumer into(LikeCounterStore counters, LikeMembership membership) {
+        return new MutationConsumer() {
+            @Override
+            public void accept(ByteString eventId, long delta) {
+                counters.add(eventId, delta);
+            }
+
+            @Override
+            public void accept(ByteString eventId, long delta, long userId, boolean liked) {
+                if (delta != 0) {
+                    counters.add(eventId, delta);
+                }
+                if (liked) {
+                    membership.add(eventId, userId);
+                } else {
+                    membership.remove(eventId, userId);
+                }
+            }
+        };
+    }
+}
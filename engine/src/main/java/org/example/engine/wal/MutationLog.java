@@ -0,0 +1,56 @@
+package org.example.engine.wal;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Append-only record of counter mutations.
+ * <p>
+ * {@link #append} is called on the RPC hot path and must not block on I/O. Callers that need the mutation
+ * to be durable before acknowledging it pass their reply to {@link #whenDurable}.
+ */
+public interface MutationLog extends AutoCloseable {
+
+    /**
+     * A log that records nothing; every mutation is immediately "durable".
+     */
+    MutationLog NONE = new MutationLog() {
+        @Override
+        public long append(ByteString eventId, long delta) {
+            return 0L;
+        }
+
+        @Override
+        public void whenDurable(long position, Runnable action) {
+            action.run();
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * @return the log position just past the appended record
+     */
+    long append(ByteString eventId, long delta);
+
+    /**
+     * Appends a like ({@code liked}) or unlike of {@code eventId} by {@code userId} with the delta it brought
+     * the counter, possibly 0, so membership can be recovered along with the counts. A log that keeps no
+     * membership records just the delta.
+     *
+     * @return the log position just past the appended record
+     */
+    default long append(ByteString eventId, long delta, long userId, boolean liked) {
+        return append(eventId, delta);
+    }
+
+    /**
+     * Runs {@code action} once everything up to {@code position} satisfies the configured durability
+     * policy. Actions registered for increasing positions run in that order.
+     */
+    void whenDurable(long position, Runnable action);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,415 @@
+package org.example.engine.wal;
+
+import com.google.protobuf.ByteString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * {@link MutationLog} backed by memory-mapped segment files.
+ * <p>
+ * Each record is {@code [int keyLength][long delta][key bytes][int crc32c]}. A mutation by a known user
+ * also carries the user and whether they liked or unliked: one of two flag bits is set in the key length
+ * and {@code [long userId]} follows the delta, so membership is recovered along with the counts and older
+ * records read as before. Appending is a copy into the mapped segment under a short lock, so the RPC
+ * thread never waits for the disk. The key length is written last and a zero length marks the end of a
+ * segment; a torn record fails its checksum and ends recovery there. Segments are named after the log
+ * position of their first record and a record never spans two segments.
+ * <p>
+ * Forcing pages to disk is left to a flusher thread according to the {@link FsyncPolicy}. With
+ * {@link FsyncPolicy#BATCH} all records appended while a force is in progress are committed by the next
+ * one, so concurrent callers share a single fsync.
+ */
+public class WriteAheadLog implements MutationLog {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    static final String SUFFIX = ".wal";
+    static final int MAX_KEY_BYTES = 64 * 1024;
+
+    // Flag bits above any valid key length
+    private static final int LIKED_BY_USER = 0x4000_0000;
+    private static final int UNLIKED_BY_USER = 0x2000_0000;
+    private static final int USER_BYTES = 8;
+
+    private static final int HEADER_BYTES = 4 + 8;
+    private static final int TRAILER_BYTES = 4;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final FsyncPolicy policy;
+    private final long intervalNanos;
+
+    // Guards current, unforced and crc; held only for the copy into the mapped buffer
+    private final Object appendLock = new Object();
+    private final CRC32C crc = new CRC32C();
+    private final List<Segment> unforced = new ArrayList<>();
+    private Segment current;
+
+    private volatile long appended;
+    private volatile long flushed;
+    private volatile boolean closed;
+
+    private final PriorityBlockingQueue<Waiter> waiters =
+            new PriorityBlockingQueue<>(1024, Comparator.comparingLong(Waiter::position));
+    private final Thread flusher;
+
+    private WriteAheadLog(Path directory, int segmentBytes, FsyncPolicy policy, long fsyncIntervalMillis) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.policy = policy;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+        this.flusher = policy == FsyncPolicy.NONE ? null : new Thread(this::flushLoop, "wal-flusher");
+    }
+
+    /**
+     * Opens the log in {@code directory}, recovering the end of the last segment, and starts the flusher.
+     * Existing records are not applied anywhere; use {@link #replay} for that.
+     */
+    public static WriteAheadLog open(Path directory, int segmentBytes, FsyncPolicy policy, long fsyncIntervalMillis)
+            throws IOException {
+        if (segmentBytes < 1024) {
+            throw new IllegalArgumentException("segmentBytes too small: " + segmentBytes);
+        }
+        Files.createDirectories(directory);
+        WriteAheadLog wal = new WriteAheadLog(directory, segmentBytes, policy, fsyncIntervalMillis);
+
+        List<Path> segments = wal.segmentPaths();
+        if (segments.isEmpty()) {
+            wal.current = wal.createSegment(0L);
+        } else {
+            Path last = segments.get(segments.size() - 1);
+            Segment segment = wal.mapSegment(last, baseOf(last));
+            segment.buffer.position(scan(segment.buffer, segment.base, Long.MAX_VALUE, Long.MAX_VALUE, null));
+            wal.current = segment;
+        }
+        wal.appended = wal.current.base + wal.current.buffer.position();
+        wal.flushed = wal.appended;
+
+        if (wal.flusher != null) {
+            wal.flusher.setDaemon(true);
+            wal.flusher.start();
+        }
+        log.info("Write-ahead log opened in {} at position {} with fsync policy {}", directory, wal.appended, policy);
+        return wal;
+    }
+
+    @Override
+    public long append(ByteString eventId, long delta) {
+        return append(eventId, delta, 0, 0L);
+    }
+
+    @Override
+    public long append(ByteString eventId, long delta, long userId, boolean liked) {
+        return append(eventId, delta, liked ? LIKED_BY_USER : UNLIKED_BY_USER, userId);
+    }
+
+    private long append(ByteString eventId, long delta, int flags, long userId) {
+        int keyLength = eventId.size();
+        if (keyLength == 0 || keyLength > MAX_KEY_BYTES) {
+            throw new IllegalArgumentException("Event id must be 1.." + MAX_KEY_BYTES + " bytes, got " + keyLength);
+        }
+        int userBytes = flags == 0 ? 0 : USER_BYTES;
+        int recordBytes = HEADER_BYTES + userBytes + keyLength + TRAILER_BYTES;
+
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IllegalStateException("Write-ahead log is closed");
+            }
+            MappedByteBuffer buffer = current.buffer;
+            if (buffer.remaining() < recordBytes) {
+                roll();
+                buffer = current.buffer;
+            }
+            int start = buffer.position();
+            buffer.position(start + 4);
+            buffer.putLong(delta);
+            if (flags != 0) {
+                buffer.putLong(userId);
+            }
+            eventId.copyTo(buffer);
+            crc.reset();
+            crc.update(buffer.slice(start + 4, 8 + userBytes + keyLength));
+            buffer.putInt((int) crc.getValue());
+            // Publishing the length last means a reader never sees a half-written record as valid
+            buffer.putInt(start, keyLength | flags);
+
+            long position = current.base + buffer.position();
+            appended = position;
+            return position;
+        }
+    }
+
+    @Override
+    public void whenDurable(long position, Runnable action) {
+        if (policy != FsyncPolicy.BATCH) {
+            action.run();
+            return;
+        }
+        // close() forces everything appended before it returns and the flusher is gone, so run in place
+        if (closed) {
+            action.run();
+            return;
+        }
+        // Always hand off so that actions run in position order on one thread
+        Waiter waiter = new Waiter(position, action);
+        waiters.add(waiter);
+        LockSupport.unpark(flusher);
+        // close() may have released the queue between the check above and the add; whoever removes it runs it
+        if (closed && waiters.remove(waiter)) {
+            action.run();
+        }
+    }
+
+    /**
+     * @return the log position just past the last appended record
+     */
+    public long position() {
+        return appended;
+    }
+
+    /**
+     * Feeds every valid record starting at or after {@code fromPosition} to {@code consumer}, oldest first.
+     *
+     * @return the number of records replayed
+     */
+    public long replay(long fromPosition, MutationConsumer consumer) throws IOException {
+        return replay(fromPosition, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Like {@link #replay(long, MutationConsumer)} but stops before the record at {@code toPosition}. Safe
+     * to call while appends continue, as long as {@code toPosition} is at most {@link #position()}.
+     */
+    public long replay(long fromPosition, long toPosition, MutationConsumer consumer) throws IOException {
+        long[] records = new long[1];
+        MutationConsumer counting = new MutationConsumer() {
+            @Override
+            public void accept(ByteString eventId, long delta) {
+                consumer.accept(eventId, delta);
+                records[0]++;
+            }
+
+            @Override
+            public void accept(ByteString eventId, long delta, long userId, boolean liked) {
+                consumer.accept(eventId, delta, userId, liked);
+                records[0]++;
+            }
+        };
+        for (Path path : segmentPaths()) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                scan(buffer, baseOf(path), fromPosition, toPosition, counting);
+            }
+        }
+        return records[0];
+    }
+
+    /**
+     * Deletes segments that only hold records before {@code position}; the active segment is always kept.
+     */
+    public void truncateBefore(long position) throws IOException {
+        List<Path> segments = segmentPaths();
+        long activeBase;
+        synchronized (appendLock) {
+            activeBase = current.base;
+        }
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            long nextBase = baseOf(segments.get(i + 1));
+            if (nextBase <= position && nextBase <= activeBase) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        releaseWaiters();
+        synchronized (appendLock) {
+            closeQuietly(current);
+            unforced.forEach(WriteAheadLog::closeQuietly);
+            unforced.clear();
+        }
+        log.info("Write-ahead log closed at position {}", appended);
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            try {
+                if (policy == FsyncPolicy.BATCH) {
+                    if (appended == flushed && waiters.isEmpty()) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                        continue;
+                    }
+                    flush();
+                    releaseWaiters();
+                } else {
+                    LockSupport.parkNanos(this, intervalNanos);
+                    flush();
+                }
+            } catch (RuntimeException e) {
+                log.error("Write-ahead log flush failed, retrying", e);
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void flush() {
+        long target;
+        Segment head;
+        List<Segment> rolled;
+        synchronized (appendLock) {
+            target = appended;
+            head = current;
+            rolled = new ArrayList<>(unforced);
+            unforced.clear();
+        }
+        if (target == flushed && rolled.isEmpty()) {
+            return;
+        }
+        for (Segment segment : rolled) {
+            segment.buffer.force();
+            closeQuietly(segment);
+        }
+        head.buffer.force();
+        flushed = target;
+    }
+
+    private void releaseWaiters() {
+        long durable = flushed;
+        Waiter waiter;
+        while ((waiter = waiters.peek()) != null && waiter.position() <= durable) {
+            waiters.poll();
+            try {
+                waiter.action().run();
+            } catch (RuntimeException e) {
+                log.warn("Durability callback failed", e);
+            }
+        }
+    }
+
+    private void roll() {
+        Segment previous = current;
+        try {
+            current = createSegment(previous.base + previous.buffer.position());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll write-ahead log segment", e);
+        }
+        if (policy == FsyncPolicy.NONE) {
+            closeQuietly(previous);
+        } else {
+            unforced.add(previous);
+        }
+    }
+
+    private Segment createSegment(long base) throws IOException {
+        return mapSegment(directory.resolve(String.format("%020d%s", base, SUFFIX)), base);
+    }
+
+    private Segment mapSegment(Path path, long base) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), segmentBytes);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        return new Segment(base, channel, buffer);
+    }
+
+    private List<Path> segmentPaths() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparingLong(WriteAheadLog::baseOf))
+                    .toList();
+        }
+    }
+
+    private static long baseOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Walks the records of one segment, feeding those in {@code [fromPosition, toPosition)} to
+     * {@code consumer} (which may be {@code null}).
+     *
+     * @return the offset just past the last valid record visited
+     */
+    private static int scan(ByteBuffer buffer, long base, long fromPosition, long toPosition, MutationConsumer consumer) {
+        CRC32C checksum = new CRC32C();
+        int offset = 0;
+        int limit = buffer.limit();
+        while (offset + HEADER_BYTES + TRAILER_BYTES <= limit && base + offset < toPosition) {
+            int header = buffer.getInt(offset);
+            int flags = header & (LIKED_BY_USER | UNLIKED_BY_USER);
+            int keyLength = header & ~flags;
+            int userBytes = flags == 0 ? 0 : USER_BYTES;
+            int recordBytes = HEADER_BYTES + userBytes + keyLength + TRAILER_BYTES;
+            if (flags == (LIKED_BY_USER | UNLIKED_BY_USER) || keyLength <= 0 || keyLength > MAX_KEY_BYTES
+                    || offset + recordBytes > limit) {
+                break;
+            }
+            checksum.reset();
+            checksum.update(buffer.slice(offset + 4, 8 + userBytes + keyLength));
+            if ((int) checksum.getValue() != buffer.getInt(offset + HEADER_BYTES + userBytes + keyLength)) {
+                log.warn("Write-ahead log record at position {} is torn, ignoring the rest of the segment", base + offset);
+                break;
+            }
+            if (consumer != null && base + offset >= fromPosition) {
+                ByteString eventId = ByteString.copyFrom(buffer.slice(offset + HEADER_BYTES + userBytes, keyLength));
+                long delta = buffer.getLong(offset + 4);
+                if (flags == 0) {
+                    consumer.accept(eventId, delta);
+                } else {
+                    consumer.accept(eventId, delta, buffer.getLong(offset + HEADER_BYTES), flags == LIKED_BY_USER);
+                }
+            }
+            offset += recordBytes;
+        }
+        return offset;
+    }
+
+    private static void closeQuietly(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close write-ahead log segment {}", segment.base, e);
+        }
+    }
+
+    private record Segment(long base, FileChannel channel, MappedByteBuffer buffer) {
+    }
+
+    private record Waiter(long position, Runnable action) {
+    }
+}
@@ -3,7 +3,7 @@ package org.example.engine;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {"grpc.server.port=0", "grpc.server.block-until-shutdown=false"})
 class EngineApplicationTests {
 
     @Test
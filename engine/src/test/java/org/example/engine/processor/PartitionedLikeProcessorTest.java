@@ -0,0 +1,364 @@
+package org.example.engine.processor;
+
+import com.example.event.EventOuterClass;
+import com.google.protobuf.ByteString;
+import io.grpc.stub.StreamObserver;
+import org.example.engine.service.LikeServiceImpl;
+import org.example.engine.store.LikeMembership;
+import org.example.engine.store.PartitionedLikeCounterStore;
+import org.example.engine.wal.MutationLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartitionedLikeProcessorTest {
+
+    private final PartitionedLikeCounterStore store = new PartitionedLikeCounterStore(4, 1024);
+    // A tiny ring so producers regularly lap the writers
+    private final PartitionedLikeProcessor processor = new PartitionedLikeProcessor(store, MutationLog.NONE, 16);
+
+    @AfterEach
+    void close() {
+        processor.close();
+    }
+
+    @Test
+    void concurrentHotKeyMutationsAreAppliedOnce() throws InterruptedException {
+        int threads = 8;
+        int perThread = 20_000;
+        CountDownLatch done = new CountDownLatch(threads * perThread);
+        AtomicLong maxSeen = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    // 90% of traffic on one viral event
+                    String id = i % 10 == 0 ? "event-" + (i % 100) : "viral";
+                    processor.submit(ByteString.copyFromUtf8(id), 1, new CountCallback() {
+                        @Override
+                        public void onCount(long count) {
+                            maxSeen.accumulateAndGet(count, Math::max);
+                            done.countDown();
+                        }
+
+                        @Override
+                        public void onError(Throwable error) {
+                        }
+                    });
+                }
+            });
+        }
+        executor.shutdown();
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals((long) threads * perThread * 9 / 10, store.get("viral"));
+        assertEquals(store.get("viral"), maxSeen.get());
+        assertEquals(11, store.size());
+    }
+
+    @Test
+    void everySubmitRacingCloseIsAnswered() throws InterruptedException {
+        int threads = 8;
+        int perThread = 5_000;
+        CountDownLatch answered = new CountDownLatch(threads * perThread);
+        AtomicLong applied = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    processor.submit(ByteString.copyFromUtf8("viral"), 1, new CountCallback() {
+                        @Override
+                        public void onCount(long count) {
+                            applied.incrementAndGet();
+                            answered.countDown();
+                        }
+
+                        @Override
+                        public void onError(Throwable error) {
+                            answered.countDown();
+                        }
+                    });
+                }
+            });
+        }
+        // Close in mid-stream, with producers lapping the tiny ring
+        while (applied.get() < 2_000) {
+            Thread.sleep(1);
+        }
+        processor.close();
+        executor.shutdown();
+
+        // Producers blocked on the full ring or publishing while the writers stopped must not hang
+        assertTrue(answered.await(30, TimeUnit.SECONDS), "unanswered: " + answered.getCount());
+        assertEquals(applied.get(), store.get("viral"));
+    }
+
+    @Test
+    void aClosedRingRefusesNewPublishesButCountsThoseUnderWay() throws Exception {
+        RingBuffer ring = new RingBuffer(2);
+        CountCallback ignored = new CountCallback() {
+            @Override
+            public void onCount(long count) {
+            }
+
+            @Override
+            public void onError(Throwable error) {
+            }
+        };
+        ByteString id = ByteString.copyFromUtf8("e");
+        assertTrue(ring.publish(id, 0L, 1, ignored));
+        assertTrue(ring.publish(id, 0L, 1, ignored));
+        boolean[] third = new boolean[1];
+        Thread producer = new Thread(() -> third[0] = ring.publish(id, 0L, 1, ignored));
+        producer.start();
+        while (producer.getState() != Thread.State.TIMED_WAITING) {
+            Thread.onSpinWait();
+        }
+
+        ring.close();
+        assertFalse(ring.publish(id, 0L, 1, ignored));
+        // The producer waiting on the full ring is still counted, so the writer keeps draining for it
+        assertTrue(ring.publishing());
+        AtomicLong drained = new AtomicLong();
+        while (ring.publishing()) {
+            drained.addAndGet(ring.drain((eventId, userId, delta, callback) -> { }));
+        }
+        drained.addAndGet(ring.drain((eventId, userId, delta, callback) -> { }));
+        producer.join(5_000);
+        assertTrue(third[0]);
+        assertEquals(3, drained.get());
+    }
+
+    @Test
+    void batchWindowCoalescesHotKeyIntoFewLogRecords() throws InterruptedException {
+        AtomicLong records = new AtomicLong();
+        MutationLog countingLog = new MutationLog() {
+            @Override
+            public long append(ByteString eventId, long delta) {
+                return records.incrementAndGet();
+            }
+
+            @Override
+            public void whenDurable(long position, Runnable action) {
+                action.run();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        PartitionedLikeCounterStore counters = new PartitionedLikeCounterStore(1, 16);
+        PartitionedLikeProcessor coalescing = new PartitionedLikeProcessor(counters, countingLog, 1024,
+                TimeUnit.MILLISECONDS.toNanos(5), 512);
+        int likes = 2_000;
+        List<Long> counts = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(likes);
+        try {
+            for (int i = 0; i < likes; i++) {
+                coalescing.submit(ByteString.copyFromUtf8("viral"), 1, new CountCallback() {
+                    @Override
+                    public void onCount(long count) {
+                        counts.add(count);
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                    }
+                });
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            coalescing.close();
+        }
+
+        assertEquals(likes, counters.get("viral"));
+        assertTrue(records.get() < likes / 10, "expected coalesced log records, got " + records.get());
+        // Every caller still sees its own count, in submission order
+        for (int i = 0; i < likes; i++) {
+            assertEquals(i + 1, counts.get(i));
+        }
+    }
+
+    @Test
+    void writersKeepLikesIdempotentPerUserAndCountsAboveZero() throws InterruptedException {
+        ByteString id = ByteString.copyFromUtf8("members");
+        long[][] mutations = {{0, -1}, {7, 1}, {7, 1}, {0, -1}, {0, -1}, {7, -1}, {7, -1}, {8, 1}};
+        List<Long> counts = new CopyOnWriteArrayList<>();
+        List<Long> applied = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(mutations.length);
+        for (long[] mutation : mutations) {
+            processor.submit(id, mutation[0], mutation[1], new CountCallback() {
+                @Override
+                public void onCount(long count) {
+                }
+
+                @Override
+                public void onCount(long count, long change) {
+                    counts.add(count);
+                    applied.add(change);
+                    done.countDown();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        assertEquals(List.of(0L, 1L, 1L, 0L, 0L, 0L, 0L, 1L), counts);
+        assertEquals(List.of(0L, 1L, 0L, -1L, 0L, 0L, 0L, 1L), applied);
+        assertEquals(1, store.get(id));
+    }
+
+    @Test
+    void theLogHoldsExactlyTheMutationsAnsweredAsApplied() throws InterruptedException {
+        ByteString id = ByteString.copyFromUtf8("refused");
+        List<String> logged = new CopyOnWriteArrayList<>();
+        MutationLog refusingSecondUser = new MutationLog() {
+            @Override
+            public long append(ByteString eventId, long delta) {
+                logged.add("anonymous " + delta);
+                return 0L;
+            }
+
+            @Override
+            public long append(ByteString eventId, long delta, long userId, boolean liked) {
+                if (logged.stream().anyMatch(record -> record.startsWith("user"))) {
+                    throw new IllegalStateException("disk full");
+                }
+                logged.add("user " + userId);
+                return 0L;
+            }
+
+            @Override
+            public void whenDurable(long position, Runnable action) {
+                action.run();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        LikeMembership membership = new LikeMembership();
+        // One batch of all four: flushed by maxBatch long before the window ends
+        PartitionedLikeProcessor batching = new PartitionedLikeProcessor(store, membership, refusingSecondUser, 16,
+                TimeUnit.SECONDS.toNanos(10), 4);
+        List<String> answers = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        try {
+            for (long userId : new long[]{1, 2, 0, 3}) {
+                batching.submit(id, userId, 1, new CountCallback() {
+                    @Override
+                    public void onCount(long count) {
+                        answers.add(userId + " liked");
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        answers.add(userId + " failed");
+                        done.countDown();
+                    }
+                });
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            batching.close();
+        }
+
+        assertEquals(List.of("1 liked", "2 failed", "0 liked", "3 failed"), answers);
+        assertEquals(List.of("anonymous 1", "user 1"), logged);
+        assertEquals(2, store.get(id));
+        assertTrue(membership.contains(id, 1));
+        assertFalse(membership.contains(id, 2));
+        assertFalse(membership.contains(id, 3));
+    }
+
+    @Test
+    void aWriterOutlivesAFailedBatch() throws InterruptedException {
+        LikeMembership broken = new LikeMembership() {
+            @Override
+            public boolean add(ByteString eventId, long userId) {
+                if (userId == 13) {
+                    throw new IllegalStateException("broken membership");
+                }
+                return super.add(eventId, userId);
+            }
+        };
+        PartitionedLikeCounterStore single = new PartitionedLikeCounterStore(1, 1024);
+        PartitionedLikeProcessor failing = new PartitionedLikeProcessor(single, broken, MutationLog.NONE, 16, 0L, 512);
+        ByteString id = ByteString.copyFromUtf8("outlives");
+        List<String> answers = new CopyOnWriteArrayList<>();
+        try {
+            for (long userId : new long[]{13, 14}) {
+                CountDownLatch done = new CountDownLatch(1);
+                failing.submit(id, userId, 1, new CountCallback() {
+                    @Override
+                    public void onCount(long count) {
+                        answers.add(userId + " liked " + count);
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        answers.add(userId + " failed");
+                        done.countDown();
+                    }
+                });
+                assertTrue(done.await(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            failing.close();
+        }
+
+        assertEquals(List.of("13 failed", "14 liked 1"), answers);
+    }
+
+    @Test
+    void likeStreamAnswersInRequestOrderAcrossPartitions() throws InterruptedException {
+        LikeServiceImpl service = new LikeServiceImpl(store, processor);
+        List<String> ids = new CopyOnWriteArrayList<>();
+        CountDownLatch completed = new CountDownLatch(1);
+
+        StreamObserver<EventOuterClass.Event> requests = service.likeStream(new StreamObserver<>() {
+            @Override
+            public void onNext(EventOuterClass.Event value) {
+                ids.add(value.getId());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+                completed.countDown();
+            }
+        });
+        for (int i = 0; i < 1_000; i++) {
+            requests.onNext(EventOuterClass.Event.newBuilder().setId("e" + i).build());
+        }
+        requests.onCompleted();
+
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        assertEquals(1_000, ids.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals("e" + i, ids.get(i));
+        }
+    }
+}
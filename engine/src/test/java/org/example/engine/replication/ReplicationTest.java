@@ -0,0 +1,344 @@
+package org.example.engine.replication;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import com.example.event.ReplicationServiceGrpc;
+import com.google.protobuf.ByteString;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import org.example.core.metrics.Metrics;
+import org.example.engine.processor.DirectLikeProcessor;
+import org.example.engine.processor.NotifyingLikeProcessor;
+import org.example.engine.service.LikeServiceImpl;
+import org.example.engine.service.ReplicaWriteGuard;
+import org.example.engine.store.LikeCounterStore;
+import org.example.engine.store.LikeMembership;
+import org.example.engine.store.StripedLikeCounterStore;
+import org.example.engine.trending.TrendingAggregator;
+import org.example.engine.wal.FsyncPolicy;
+import org.example.engine.wal.MutationLog;
+import org.example.engine.wal.WriteAheadLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplicationTest {
+
+    private final List<Server> servers = new ArrayList<>();
+    private final List<ManagedChannel> channels = new ArrayList<>();
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+
+    @TempDir
+    Path directory;
+
+    private final Metrics metrics = new Metrics();
+    private final LikeCounterStore primaryStore = new StripedLikeCounterStore();
+    private final LikeCounterStore replicaStore = new StripedLikeCounterStore();
+    private final LikeMembership primaryMembership = new LikeMembership();
+    private final LikeMembership replicaMembership = new LikeMembership();
+    private final ReplicationRole replicaRole = new ReplicationRole(false);
+    private LikeServiceGrpc.LikeServiceBlockingStub primary;
+    private LikeServiceGrpc.LikeServiceBlockingStub replica;
+    private int primaryPort;
+    private int replicaPort;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReplicationSource source = new ReplicationSource(primaryStore, primaryMembership, 1000, 16, 5, 10_000, metrics);
+        source.start();
+        closeables.add(source);
+        primaryPort = start(primaryStore, primaryMembership, new ReplicationRole(true), source);
+        replicaPort = start(replicaStore, replicaMembership, replicaRole,
+                new ReplicationSource(replicaStore, replicaMembership, 1000, 16, 5, 10_000, metrics));
+        primary = LikeServiceGrpc.newBlockingStub(channel(primaryPort));
+        replica = LikeServiceGrpc.newBlockingStub(channel(replicaPort));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable closeable : closeables) {
+            closeable.close();
+        }
+        for (ManagedChannel channel : channels) {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+        for (Server server : servers) {
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void replicaCatchesUpAndServesReadsButNotWrites() throws Exception {
+        for (int i = 0; i < 40; i++) {
+            primary.likeEvent(event("before-" + (i % 20)));
+        }
+        ReplicationClient client = follow();
+        awaitTrue(() -> count(replica, "before-19") == 2);
+
+        for (int i = 0; i < 100; i++) {
+            primary.likeEvent(event("after-" + (i % 10)));
+        }
+        primary.unlikeEvent(event("before-0"));
+        awaitTrue(() -> count(replica, "after-9") == 10 && count(replica, "before-0") == 1);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(count(primary, "before-" + i), count(replica, "before-" + i));
+        }
+
+        StatusRuntimeException refused = assertThrows(StatusRuntimeException.class, () -> replica.likeEvent(event("after-0")));
+        assertEquals(Status.Code.FAILED_PRECONDITION, refused.getStatus().getCode());
+        assertEquals(10, count(replica, "after-0"));
+
+        assertTrue(client.connected());
+        assertTrue(client.sequence() > 0);
+        assertTrue(client.toMap().get("batches") > 1);
+        assertTrue(metrics.counter("replication.full-copies").sum() >= 1);
+    }
+
+    @Test
+    void promotedReplicaTakesWritesFromWhereReplicationStopped() throws Exception {
+        primary.likeEvent(event("p"));
+        primary.likeEvent(event("p"));
+        ReplicationClient client = follow();
+        awaitTrue(() -> count(replica, "p") == 2);
+
+        client.close();
+        assertTrue(client.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(replicaRole.promote());
+        assertEquals("Event liked successfully. Current likes: 3", replica.likeEvent(event("p")).getData());
+
+        // The old primary's later likes no longer reach it
+        primary.likeEvent(event("p"));
+        primary.likeEvent(event("p"));
+        Thread.sleep(50);
+        assertEquals(3, count(replica, "p"));
+    }
+
+    @Test
+    void promotedReplicaKeepsLikesIdempotentPerUser() throws Exception {
+        // Users 7 and 8 reach the replica with the full copy, user 9 and the unlike of 8 with change batches
+        primary.likeEvent(event("m", 7));
+        primary.likeEvent(event("m", 8));
+        ReplicationClient client = follow();
+        awaitTrue(() -> count(replica, "m") == 2);
+        primary.likeEvent(event("m", 9));
+        primary.unlikeEvent(event("m", 8));
+        awaitTrue(() -> count(replica, "m") == 2 && replicaMembership.contains(ByteString.copyFromUtf8("m"), 9)
+                && !replicaMembership.contains(ByteString.copyFromUtf8("m"), 8));
+
+        client.close();
+        assertTrue(client.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(replicaRole.promote());
+        assertEquals("Event liked successfully. Current likes: 2", replica.likeEvent(event("m", 7)).getData());
+        assertEquals("Event liked successfully. Current likes: 2", replica.likeEvent(event("m", 9)).getData());
+        assertEquals(2, count(replica, "m"));
+        replica.unlikeEvent(event("m", 7));
+        replica.likeEvent(event("m", 8));
+        assertEquals(2, count(replica, "m"));
+    }
+
+    @Test
+    void replicaLogsWhatItReceivesSoAPromotedReplicaSurvivesARestart() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            primary.likeEvent(event("logged-" + (i % 3)));
+        }
+        primary.unlikeEvent(event("logged-0"));
+        try (WriteAheadLog wal = WriteAheadLog.open(directory, 1024, FsyncPolicy.NONE, 0)) {
+            ReplicationClient client = follow(wal);
+            awaitTrue(() -> count(replica, "logged-0") == 9 && count(replica, "logged-2") == 10);
+            primary.likeEvent(event("logged-1"));
+            awaitTrue(() -> count(replica, "logged-1") == 11);
+            client.close();
+        }
+
+        LikeCounterStore restarted = new StripedLikeCounterStore();
+        try (WriteAheadLog wal = WriteAheadLog.open(directory, 1024, FsyncPolicy.NONE, 0)) {
+            wal.replay(0L, restarted::add);
+        }
+        assertEquals(9, restarted.get("logged-0"));
+        assertEquals(11, restarted.get("logged-1"));
+        assertEquals(10, restarted.get("logged-2"));
+    }
+
+    @Test
+    void fullCopyIsSentOnlyAsFastAsTheReplicaReads() {
+        LikeCounterStore store = new StripedLikeCounterStore();
+        for (int i = 0; i < 100; i++) {
+            store.add("copied-" + i, i);
+        }
+        // Not started: the test drives the ticks and the onReady passes itself
+        ReplicationSource source = new ReplicationSource(store, new LikeMembership(), 1000, 16, 5, 10_000, metrics);
+        ReadingReplica replica = new ReadingReplica();
+        source.subscribe("slow", replica);
+
+        source.ship();
+        assertEquals(0, replica.received.size());
+
+        replica.credit = 1;
+        source.ship();
+        assertEquals(1, replica.received.size());
+        replica.credit = 1;
+        source.pumpCopies();
+        assertEquals(2, replica.received.size());
+
+        // Already copied, so the change has to follow the copy
+        store.add("copied-0", 1000);
+        source.markDirty(ByteString.copyFromUtf8("copied-0"));
+        source.ship();
+        assertEquals(2, replica.received.size());
+
+        replica.credit = Integer.MAX_VALUE;
+        source.pumpCopies();
+        assertEquals(8, replica.received.size());
+        Map<String, Long> copied = new HashMap<>();
+        for (EventOuterClass.ReplicationBatch batch : replica.received) {
+            for (EventOuterClass.ReplicatedCount count : batch.getCountsList()) {
+                copied.put(count.getEventId().toStringUtf8(), count.getLikeCount());
+            }
+        }
+        assertEquals(100, copied.size());
+        assertEquals(1000L, copied.get("copied-0"));
+        assertEquals(99L, copied.get("copied-99"));
+        assertTrue(replica.received.get(6).getSnapshot());
+        assertFalse(replica.received.get(7).getSnapshot());
+        assertEquals(0L, source.toMap().get("copying"));
+        assertEquals(1L, source.toMap().get("replicas"));
+    }
+
+    @Test
+    void replicasCannotBeReplicatedFrom() {
+        ReplicationServiceGrpc.ReplicationServiceBlockingStub stub = ReplicationServiceGrpc.newBlockingStub(channel(replicaPort));
+        StatusRuntimeException refused = assertThrows(StatusRuntimeException.class,
+                () -> stub.replicate(EventOuterClass.ReplicationRequest.getDefaultInstance()).hasNext());
+        assertEquals(Status.Code.FAILED_PRECONDITION, refused.getStatus().getCode());
+    }
+
+    private ReplicationClient follow() {
+        return follow(MutationLog.NONE);
+    }
+
+    private ReplicationClient follow(MutationLog mutationLog) {
+        ReplicationClient client = new ReplicationClient(replicaStore, replicaMembership, mutationLog,
+                new TrendingAggregator(60_000, 60, 64), "localhost", primaryPort, "replica-1", 100, metrics);
+        client.start();
+        closeables.add(0, client);
+        return client;
+    }
+
+    private int start(LikeCounterStore store, LikeMembership membership, ReplicationRole role, ReplicationSource source)
+            throws IOException {
+        LikeServiceImpl likeService = new LikeServiceImpl(store,
+                new NotifyingLikeProcessor(new DirectLikeProcessor(store, membership, MutationLog.NONE),
+                        (eventId, userId) -> source.markDirty(eventId, userId)));
+        Server server = NettyServerBuilder.forPort(0)
+                .addService(ServerInterceptors.intercept(likeService, new ReplicaWriteGuard(role)))
+                .addService(new ReplicationServiceImpl(role, source))
+                .build()
+                .start();
+        servers.add(server);
+        return server.getPort();
+    }
+
+    private ManagedChannel channel(int port) {
+        ManagedChannel channel = NettyChannelBuilder.forAddress("localhost", port).usePlaintext().build();
+        channels.add(channel);
+        return channel;
+    }
+
+    /**
+     * A replica stream that is ready for {@code credit} more batches.
+     */
+    private static final class ReadingReplica extends ServerCallStreamObserver<EventOuterClass.ReplicationBatch> {
+
+        private final List<EventOuterClass.ReplicationBatch> received = new ArrayList<>();
+        private int credit;
+
+        @Override
+        public boolean isReady() {
+            return credit > 0;
+        }
+
+        @Override
+        public void onNext(EventOuterClass.ReplicationBatch batch) {
+            received.add(batch);
+            credit--;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+        }
+
+        @Override
+        public void setCompression(String compression) {
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void request(int count) {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+
+    private static long count(LikeServiceGrpc.LikeServiceBlockingStub stub, String id) {
+        return stub.getLikeCount(EventOuterClass.LikeCountRequest.newBuilder().setId(id).build()).getLikeCount();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "replica did not catch up");
+            Thread.sleep(5);
+        }
+    }
+
+    private static EventOuterClass.Event event(String id) {
+        return event(id, 0L);
+    }
+
+    private static EventOuterClass.Event event(String id, long userId) {
+        return EventOuterClass.Event.newBuilder().setId(id).setType("like").setUserId(userId).build();
+    }
+}
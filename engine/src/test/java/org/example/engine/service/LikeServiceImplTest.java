@@ -0,0 +1,312 @@
+package org.example.engine.service;
+
+import com.example.event.EventOuterClass;
+import io.grpc.Status;
+import com.google.protobuf.ByteString;
+import io.grpc.stub.StreamObserver;
+import org.example.engine.processor.DirectLikeProcessor;
+import org.example.engine.store.LikeMembership;
+import org.example.engine.store.StripedLikeCounterStore;
+import org.example.engine.wal.MutationLog;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LikeServiceImplTest {
+
+    private final LikeServiceImpl likeService = new LikeServiceImpl(new StripedLikeCounterStore());
+
+    @Test
+    void batchLikeRepliesOnceWithOneResultPerEvent() {
+        RecordingObserver<EventOuterClass.BatchResponse> responses = new RecordingObserver<>();
+        StreamObserver<EventOuterClass.Event> requests = likeService.batchLike(responses);
+
+        requests.onNext(event("a"));
+        requests.onNext(event("b"));
+        requests.onNext(event("a"));
+        assertTrue(responses.values.isEmpty());
+        requests.onCompleted();
+
+        assertTrue(responses.completed);
+        assertEquals(1, responses.values.size());
+        List<EventOuterClass.Event> events = responses.values.get(0).getEventsList();
+        assertEquals(3, events.size());
+        assertEquals("b", events.get(1).getId());
+        assertEquals("Event liked successfully. Current likes: 2", events.get(2).getData());
+    }
+
+    @Test
+    void likeStreamAnswersEachEventInOrder() {
+        RecordingObserver<EventOuterClass.Event> responses = new RecordingObserver<>();
+        StreamObserver<EventOuterClass.Event> requests = likeService.likeStream(responses);
+
+        requests.onNext(event("x"));
+        requests.onNext(event("x"));
+        assertEquals(2, responses.values.size());
+        assertEquals("Event liked successfully. Current likes: 2", responses.values.get(1).getData());
+
+        requests.onCompleted();
+        assertTrue(responses.completed);
+    }
+
+    @Test
+    void unlikeDecrementsTheCount() {
+        likeService.likeEvent(event("u"), new RecordingObserver<>());
+        likeService.likeEvent(event("u"), new RecordingObserver<>());
+
+        RecordingObserver<EventOuterClass.Event> response = new RecordingObserver<>();
+        likeService.unlikeEvent(event("u"), response);
+
+        assertEquals("Event u unliked successfully. Current likes: 1", response.values.get(0).getData());
+    }
+
+    @Test
+    void compactLikeSharesCountersWithStringIds() {
+        likeService.likeEvent(event("42"), new RecordingObserver<>());
+
+        RecordingObserver<EventOuterClass.LikeCount> liked = new RecordingObserver<>();
+        likeService.compactLike(compact(42, EventOuterClass.EventType.LIKE), liked);
+        assertEquals(42, liked.values.get(0).getId());
+        assertEquals(2, liked.values.get(0).getLikeCount());
+        assertTrue(liked.completed);
+
+        RecordingObserver<EventOuterClass.LikeCount> unliked = new RecordingObserver<>();
+        likeService.compactLike(compact(42, EventOuterClass.EventType.UNLIKE), unliked);
+        assertEquals(1, unliked.values.get(0).getLikeCount());
+    }
+
+    @Test
+    void likeCountsAreReadWithoutChangingThem() {
+        likeService.likeEvent(event("r"), new RecordingObserver<>());
+        likeService.compactLike(compact(9, EventOuterClass.EventType.LIKE), new RecordingObserver<>());
+
+        RecordingObserver<EventOuterClass.EventLikeCount> single = new RecordingObserver<>();
+        likeService.getLikeCount(EventOuterClass.LikeCountRequest.newBuilder().setId("r").build(), single);
+        likeService.getLikeCount(EventOuterClass.LikeCountRequest.newBuilder().setId("r").build(), single);
+        assertEquals(1, single.values.get(1).getLikeCount());
+        assertTrue(single.completed);
+
+        RecordingObserver<EventOuterClass.BatchLikeCountResponse> batch = new RecordingObserver<>();
+        likeService.batchGetLikeCounts(EventOuterClass.BatchLikeCountRequest.newBuilder()
+                .addIds("9").addIds("missing").addIds("r").build(), batch);
+        List<EventOuterClass.EventLikeCount> counts = batch.values.get(0).getCountsList();
+        assertEquals(List.of("9", "missing", "r"), counts.stream().map(EventOuterClass.EventLikeCount::getId).toList());
+        assertEquals(List.of(1L, 0L, 1L), counts.stream().map(EventOuterClass.EventLikeCount::getLikeCount).toList());
+    }
+
+    @Test
+    void likesAndUnlikesAreIdempotentPerUser() {
+        RecordingObserver<EventOuterClass.Event> responses = new RecordingObserver<>();
+        likeService.likeEvent(event("p", 1), responses);
+        likeService.likeEvent(event("p", 1), responses);
+        likeService.likeEvent(event("p", 2), responses);
+        assertEquals(List.of(1L, 1L, 2L), counts(responses));
+
+        RecordingObserver<EventOuterClass.Event> unliked = new RecordingObserver<>();
+        likeService.unlikeEvent(event("p", 3), unliked);
+        likeService.unlikeEvent(event("p", 1), unliked);
+        likeService.unlikeEvent(event("p", 1), unliked);
+        assertEquals(List.of(2L, 1L, 1L), counts(unliked));
+
+        // A user who unliked may like again, also through the compact and streaming RPCs
+        RecordingObserver<EventOuterClass.LikeCount> compact = new RecordingObserver<>();
+        likeService.compactLike(compact(7, EventOuterClass.EventType.LIKE).toBuilder().setUserId(1).build(), compact);
+        likeService.compactLike(compact(7, EventOuterClass.EventType.LIKE).toBuilder().setUserId(1).build(), compact);
+        assertEquals(1, compact.values.get(1).getLikeCount());
+
+        RecordingObserver<EventOuterClass.BatchResponse> batch = new RecordingObserver<>();
+        StreamObserver<EventOuterClass.Event> requests = likeService.batchLike(batch);
+        requests.onNext(event("p", 1));
+        requests.onNext(event("p", 2));
+        requests.onCompleted();
+        assertEquals("Event liked successfully. Current likes: 2", batch.values.get(0).getEvents(1).getData());
+    }
+
+    @Test
+    void unlikesNeverTakeACountBelowZero() {
+        RecordingObserver<EventOuterClass.Event> responses = new RecordingObserver<>();
+        likeService.unlikeEvent(event("z"), responses);
+        likeService.likeEvent(event("z"), responses);
+        likeService.likeEvent(event("z", 4), responses);
+        likeService.unlikeEvent(event("z"), responses);
+        likeService.unlikeEvent(event("z"), responses);
+        likeService.unlikeEvent(event("z"), responses);
+        // The member's unlike still takes them out, though the count is already at zero
+        likeService.unlikeEvent(event("z", 4), responses);
+        likeService.likeEvent(event("z", 4), responses);
+        assertEquals(List.of(0L, 1L, 2L, 1L, 0L, 0L, 0L, 1L), counts(responses));
+    }
+
+    @Test
+    void aFailedMutationLeavesMembershipAsItWas() {
+        StripedLikeCounterStore store = new StripedLikeCounterStore();
+        LikeMembership membership = new LikeMembership();
+        AtomicBoolean failing = new AtomicBoolean(true);
+        MutationLog flakyLog = new MutationLog() {
+            @Override
+            public long append(ByteString eventId, long delta) {
+                if (failing.get()) {
+                    throw new IllegalStateException("disk full");
+                }
+                return 0L;
+            }
+
+            @Override
+            public void whenDurable(long position, Runnable action) {
+                action.run();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        LikeServiceImpl service = new LikeServiceImpl(store, new DirectLikeProcessor(store, membership, flakyLog));
+
+        RecordingObserver<EventOuterClass.Event> failed = new RecordingObserver<>();
+        service.likeEvent(event("r", 9), failed);
+        assertEquals(Status.Code.INTERNAL, Status.fromThrowable(failed.error).getCode());
+        assertFalse(membership.contains(ByteString.copyFromUtf8("r"), 9));
+        assertEquals(0, store.get("r"));
+
+        failing.set(false);
+        RecordingObserver<EventOuterClass.Event> retried = new RecordingObserver<>();
+        service.likeEvent(event("r", 9), retried);
+        assertEquals(List.of(1L), counts(retried));
+        assertTrue(membership.contains(ByteString.copyFromUtf8("r"), 9));
+    }
+
+    @Test
+    void topKReturnsTheMostLikedEventsOfTheWindow() {
+        likeService.likeEvent(event("t1"), new RecordingObserver<>());
+        likeService.likeEvent(event("t2"), new RecordingObserver<>());
+        likeService.likeEvent(event("t2"), new RecordingObserver<>());
+
+        RecordingObserver<EventOuterClass.TopKResponse> top = new RecordingObserver<>();
+        likeService.topK(EventOuterClass.TopKRequest.newBuilder().setWindowSeconds(300).setK(1).build(), top);
+        assertEquals("t2", top.values.get(0).getEvents(0).getId());
+        assertEquals(2, top.values.get(0).getEvents(0).getLikeCount());
+
+        RecordingObserver<EventOuterClass.TopKResponse> invalid = new RecordingObserver<>();
+        likeService.topK(EventOuterClass.TopKRequest.newBuilder().setWindowSeconds(300).build(), invalid);
+        assertEquals(Status.Code.INVALID_ARGUMENT, Status.fromThrowable(invalid.error).getCode());
+
+        // k is uint32: 2^31 must not slip under the limit as a negative int
+        RecordingObserver<EventOuterClass.TopKResponse> huge = new RecordingObserver<>();
+        likeService.topK(EventOuterClass.TopKRequest.newBuilder().setWindowSeconds(300).setK(Integer.MIN_VALUE).build(), huge);
+        assertEquals(Status.Code.INVALID_ARGUMENT, Status.fromThrowable(huge.error).getCode());
+    }
+
+    @Test
+    void failedMutationsStayOutOfTrending() {
+        LikeServiceImpl failing = new LikeServiceImpl(new StripedLikeCounterStore(),
+                (eventId, userId, delta, callback) -> callback.onError(new IllegalStateException("down")));
+        RecordingObserver<EventOuterClass.Event> response = new RecordingObserver<>();
+        failing.likeEvent(event("f"), response);
+        assertEquals(Status.Code.INTERNAL, Status.fromThrowable(response.error).getCode());
+
+        RecordingObserver<EventOuterClass.TopKResponse> top = new RecordingObserver<>();
+        failing.topK(EventOuterClass.TopKRequest.newBuilder().setWindowSeconds(300).setK(10).build(), top);
+        assertEquals(0, top.values.get(0).getEventsCount());
+    }
+
+    /**
+     * Requests are parsed from the wire as they would be by gRPC, so every call sees a fresh message. About
+     * 350 bytes per call on JDK 21; copying the request into each reply and formatting its text through a
+     * String took close to 600.
+     */
+    @Test
+    void likeEventAllocatesLittlePerCall() throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        byte[] wire = EventOuterClass.Event.newBuilder()
+                .setId("allocation-test-event-id")
+                .setType("like")
+                .setData("{\"source\":\"feed\",\"position\":3}")
+                .setTimestamp("2024-01-01T00:00:00Z")
+                .build()
+                .toByteArray();
+        int calls = 20_000;
+        EventOuterClass.Event[] requests = new EventOuterClass.Event[calls];
+        StreamObserver<EventOuterClass.Event> discard = new StreamObserver<>() {
+            @Override
+            public void onNext(EventOuterClass.Event value) {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        };
+
+        long perCall = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < calls; i++) {
+                requests[i] = EventOuterClass.Event.parseFrom(wire);
+            }
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (EventOuterClass.Event request : requests) {
+                likeService.likeEvent(request, discard);
+            }
+            perCall = Math.min(perCall, (threads.getCurrentThreadAllocatedBytes() - before) / calls);
+        }
+        assertTrue(perCall <= 400, "likeEvent allocated " + perCall + " bytes per call");
+    }
+
+    @Test
+    void compactLikeRejectsMissingType() {
+        RecordingObserver<EventOuterClass.LikeCount> response = new RecordingObserver<>();
+        likeService.compactLike(compact(7, EventOuterClass.EventType.EVENT_TYPE_UNSPECIFIED), response);
+
+        assertEquals(Status.Code.INVALID_ARGUMENT, Status.fromThrowable(response.error).getCode());
+        assertTrue(response.values.isEmpty());
+    }
+
+    static EventOuterClass.CompactEvent compact(long id, EventOuterClass.EventType type) {
+        return EventOuterClass.CompactEvent.newBuilder().setId(id).setType(type).build();
+    }
+
+    private static EventOuterClass.Event event(String id, long userId) {
+        return event(id).toBuilder().setUserId(userId).build();
+    }
+
+    private static List<Long> counts(RecordingObserver<EventOuterClass.Event> responses) {
+        return responses.values.stream()
+                .map(event -> Long.parseLong(event.getData().substring(event.getData().lastIndexOf(' ') + 1)))
+                .toList();
+    }
+
+    static EventOuterClass.Event event(String id) {
+        return EventOuterClass.Event.newBuilder().setId(id).setType("like").build();
+    }
+
+    static final class RecordingObserver<T> implements StreamObserver<T> {
+        final List<T> values = new ArrayList<>();
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onNext(T value) {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+    }
+}
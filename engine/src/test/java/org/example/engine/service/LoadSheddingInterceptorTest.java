@@ -0,0 +1,140 @@
+package org.example.engine.service;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadSheddingInterceptorTest {
+
+    private final HoldingService service = new HoldingService();
+    private Server server;
+    private ManagedChannel channel;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shedsCallsBeyondTheInFlightCap() throws Exception {
+        LoadSheddingInterceptor shedding = start(1, 0);
+        LikeServiceGrpc.LikeServiceStub asyncStub = LikeServiceGrpc.newStub(channel);
+        asyncStub.likeEvent(event(), new NoopObserver());
+        awaitHeld(1);
+
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+                () -> LikeServiceGrpc.newBlockingStub(channel).likeEvent(event()));
+        assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+        assertEquals(1L, shedding.toMap().get("shedOverload"));
+
+        // Once the held call completes there is room again
+        service.releaseAll();
+        awaitInFlight(shedding, 0);
+        service.answerImmediately = true;
+        assertEquals("1", LikeServiceGrpc.newBlockingStub(channel).likeEvent(event()).getId());
+    }
+
+    @Test
+    void shedsCallsThatCannotMeetTheirDeadline() throws Exception {
+        LoadSheddingInterceptor shedding = start(0, 10_000);
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+                () -> LikeServiceGrpc.newBlockingStub(channel)
+                        .withDeadlineAfter(1, TimeUnit.SECONDS)
+                        .likeEvent(event()));
+
+        assertEquals(Status.Code.DEADLINE_EXCEEDED, e.getStatus().getCode());
+        assertEquals(1L, shedding.toMap().get("shedDeadline"));
+        assertTrue(service.held.isEmpty());
+    }
+
+    private LoadSheddingInterceptor start(int maxInFlight, long minDeadlineMillis) throws IOException {
+        LoadSheddingInterceptor shedding = new LoadSheddingInterceptor(maxInFlight, minDeadlineMillis);
+        server = NettyServerBuilder.forPort(0)
+                .addService(ServerInterceptors.intercept(service, shedding))
+                .build()
+                .start();
+        channel = NettyChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build();
+        return shedding;
+    }
+
+    private void awaitHeld(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.held.size() < count) {
+            assertTrue(System.nanoTime() < deadline, "call never reached the service");
+            Thread.sleep(1);
+        }
+    }
+
+    private static void awaitInFlight(LoadSheddingInterceptor shedding, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (shedding.toMap().get("inFlight") != expected) {
+            assertTrue(System.nanoTime() < deadline, "in-flight calls never drained");
+            Thread.sleep(1);
+        }
+    }
+
+    private static EventOuterClass.Event event() {
+        return EventOuterClass.Event.newBuilder().setId("1").build();
+    }
+
+    /**
+     * Holds unary calls open until released, standing in for a slow engine.
+     */
+    private static final class HoldingService extends LikeServiceGrpc.LikeServiceImplBase {
+
+        final List<StreamObserver<EventOuterClass.Event>> held = new CopyOnWriteArrayList<>();
+        volatile boolean answerImmediately;
+
+        @Override
+        public void likeEvent(EventOuterClass.Event request, StreamObserver<EventOuterClass.Event> responseObserver) {
+            if (answerImmediately) {
+                responseObserver.onNext(request);
+                responseObserver.onCompleted();
+            } else {
+                held.add(responseObserver);
+            }
+        }
+
+        void releaseAll() {
+            for (StreamObserver<EventOuterClass.Event> observer : held) {
+                observer.onNext(event());
+                observer.onCompleted();
+            }
+            held.clear();
+        }
+    }
+
+    private static final class NoopObserver implements StreamObserver<EventOuterClass.Event> {
+
+        @Override
+        public void onNext(EventOuterClass.Event value) {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.engine.service;
+
+import com.example.event.EventOuterClass;
+import com.example.event.LikeServiceGrpc;
+import com.sun.management.ThreadMXBean;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.StatusRuntimeException;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import org.example.core.metrics.LatencyRecorder;
+import org.example.core.metrics.Metrics;
+import org.example.engine.store.StripedLikeCounterStore;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsServerInterceptorTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordsLatencyErrorsAndBytesPerMethod() throws Exception {
+        Metrics metrics = new Metrics();
+        MetricsServerInterceptor interceptor = new MetricsServerInterceptor(metrics, LikeServiceGrpc.getServiceDescriptor());
+        Server server = NettyServerBuilder.forPort(0)
+                .addService(ServerInterceptors.intercept(new LikeServiceImpl(new StripedLikeCounterStore()),
+                        new LoadSheddingInterceptor(0, 10_000), interceptor))
+                .build()
+                .start();
+        ManagedChannel channel = NettyChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build();
+        try {
+            LikeServiceGrpc.LikeServiceBlockingStub stub = LikeServiceGrpc.newBlockingStub(channel);
+            EventOuterClass.Event event = EventOuterClass.Event.newBuilder().setId("m").build();
+            stub.likeEvent(event);
+            stub.likeEvent(event);
+            // Shed for its short deadline, which must still count as an error
+            assertThrows(StatusRuntimeException.class, () -> stub.withDeadlineAfter(1, TimeUnit.SECONDS).likeEvent(event));
+        } finally {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        Map<String, Object> stats = metrics.toMap();
+        Map<String, Number> latency = (Map<String, Number>) ((Map<String, Object>) stats.get("latencies")).get("grpc.server.LikeEvent");
+        Map<String, Long> counters = (Map<String, Long>) stats.get("counters");
+        assertEquals(3L, latency.get("count"));
+        assertEquals(1L, counters.get("grpc.server.LikeEvent.errors"));
+        assertEquals(0L, counters.get("grpc.server.LikeEvent.inFlight"));
+        // The shed call is closed before its request is read
+        assertEquals(2L * event().getSerializedSize(), counters.get("grpc.server.LikeEvent.requestBytes"));
+        assertTrue(counters.get("grpc.server.LikeEvent.responseBytes") > 0);
+    }
+
+    @Test
+    void recordingDoesNotAllocate() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < 100_000; i++) {
+            recorder.recordNanos(i);
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1_000_000; i++) {
+            recorder.recordSince(System.nanoTime() - i);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // A little slack for the allocation counter itself
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+
+    private static EventOuterClass.Event event() {
+        return EventOuterClass.Event.newBuilder().setId("m").build();
+    }
+}
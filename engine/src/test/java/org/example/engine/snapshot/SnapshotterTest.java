@@ -0,0 +1,123 @@
+package org.example.engine.snapshot;
+
+import com.google.protobuf.ByteString;
+import org.example.engine.store.LikeCounterStore;
+import org.example.engine.store.LikeMembership;
+import org.example.engine.store.StripedLikeCounterStore;
+import org.example.engine.wal.FsyncPolicy;
+import org.example.engine.wal.MutationConsumer;
+import org.example.engine.wal.WriteAheadLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoveryLoadsSnapshotAndReplaysOnlyTheTail() throws IOException {
+        Path walDirectory = directory.resolve("wal");
+        SnapshotStore snapshots = new SnapshotStore(directory.resolve("snapshots"), 1);
+        RecoveryStats stats = new RecoveryStats();
+
+        try (WriteAheadLog wal = WriteAheadLog.open(walDirectory, 1024, FsyncPolicy.NONE, 0)) {
+            Snapshotter snapshotter = new Snapshotter(wal, snapshots, stats);
+            appendLikes(wal, 300);
+            assertTrue(snapshotter.snapshot());
+            assertFalse(snapshotter.snapshot());
+
+            appendLikes(wal, 200);
+            assertTrue(snapshotter.snapshot());
+            // Snapshot covers 500 records; a tail of 7 is left for replay
+            appendLikes(wal, 7);
+            snapshotter.close();
+        }
+        assertEquals(2L, stats.toMap().get("snapshotsWritten"));
+        assertTrue(walSegments(walDirectory) <= 2, "log segments before the snapshot are deleted");
+
+        LikeCounterStore store = new StripedLikeCounterStore();
+        SnapshotStore.Loaded loaded = snapshots.loadLatest(store::add);
+        assertEquals(10, loaded.entries());
+        try (WriteAheadLog wal = WriteAheadLog.open(walDirectory, 1024, FsyncPolicy.NONE, 0)) {
+            assertEquals(7, wal.replay(loaded.position(), store::add));
+        }
+
+        assertEquals(51, store.get("event-0"));
+        assertEquals(51, store.get("event-6"));
+        assertEquals(50, store.get("event-7"));
+        assertEquals(50, store.get("event-9"));
+    }
+
+    @Test
+    void snapshotsCarryMembershipForRecovery() throws IOException {
+        Path walDirectory = directory.resolve("wal");
+        SnapshotStore snapshots = new SnapshotStore(directory.resolve("snapshots"), 1);
+        ByteString id = ByteString.copyFromUtf8("liked");
+
+        try (WriteAheadLog wal = WriteAheadLog.open(walDirectory, 1024, FsyncPolicy.NONE, 0)) {
+            Snapshotter snapshotter = new Snapshotter(wal, snapshots, new RecoveryStats());
+            for (long user = 1; user <= 100; user++) {
+                wal.append(id, 1, user, true);
+            }
+            wal.append(id, -1, 50, false);
+            assertTrue(snapshotter.snapshot());
+            wal.append(id, -1, 1, false);
+            wal.append(id, 1, 1_000_000_000_000L, true);
+            assertTrue(snapshotter.snapshot());
+            wal.append(id, -1, 2, false);
+            snapshotter.close();
+        }
+
+        LikeCounterStore store = new StripedLikeCounterStore();
+        LikeMembership membership = new LikeMembership();
+        SnapshotStore.Loaded loaded = snapshots.loadLatest(store::add, membership::addSerialized);
+        try (WriteAheadLog wal = WriteAheadLog.open(walDirectory, 1024, FsyncPolicy.NONE, 0)) {
+            assertEquals(1, wal.replay(loaded.position(), MutationConsumer.into(store, membership)));
+        }
+
+        assertEquals(98, store.get(id));
+        assertEquals(98L, membership.toMap().get("likes"));
+        assertFalse(membership.contains(id, 1));
+        assertFalse(membership.contains(id, 2));
+        assertFalse(membership.contains(id, 50));
+        assertTrue(membership.contains(id, 3));
+        assertTrue(membership.contains(id, 1_000_000_000_000L));
+    }
+
+    @Test
+    void corruptSnapshotFallsBackToAnOlderOne() throws IOException {
+        SnapshotStore snapshots = new SnapshotStore(directory, 2);
+        snapshots.write(10, visitor -> visitor.accept(ByteString.copyFromUtf8("a"), 1));
+        snapshots.write(20, visitor -> visitor.accept(ByteString.copyFromUtf8("a"), -2));
+        Path newest = directory.resolve(String.format("snapshot-%020d.snap", 20));
+        byte[] bytes = Files.readAllBytes(newest);
+        bytes[bytes.length / 2] ^= 0x7F;
+        Files.write(newest, bytes);
+
+        LikeCounterStore store = new StripedLikeCounterStore();
+        assertEquals(10, snapshots.loadLatest(store::add).position());
+        assertEquals(1, store.get("a"));
+    }
+
+    private static void appendLikes(WriteAheadLog wal, int count) {
+        for (int i = 0; i < count; i++) {
+            wal.append(ByteString.copyFromUtf8("event-" + (i % 10)), 1);
+        }
+    }
+
+    private static long walSegments(Path walDirectory) throws IOException {
+        try (Stream<Path> files = Files.list(walDirectory)) {
+            return files.count();
+        }
+    }
+}
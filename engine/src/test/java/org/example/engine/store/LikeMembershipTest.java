@@ -0,0 +1,93 @@
+package org.example.engine.store;
+
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LikeMembershipTest {
+
+    private static final ByteString EVENT = ByteString.copyFromUtf8("event");
+
+    @Test
+    void membershipChangesOnlyOnce() {
+        LikeMembership membership = new LikeMembership();
+
+        assertTrue(membership.add(EVENT, 42));
+        assertFalse(membership.add(EVENT, 42));
+        assertTrue(membership.contains(EVENT, 42));
+        assertFalse(membership.contains(ByteString.copyFromUtf8("other"), 42));
+
+        assertTrue(membership.remove(EVENT, 42));
+        assertFalse(membership.remove(EVENT, 42));
+        assertFalse(membership.remove(ByteString.copyFromUtf8("other"), 42));
+    }
+
+    @Test
+    void concurrentLikesOfOneUserAreAppliedOnce() throws InterruptedException {
+        LikeMembership membership = new LikeMembership();
+        AtomicInteger applied = new AtomicInteger();
+        int threads = 8;
+        int users = 10_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (long user = 1; user <= users; user++) {
+                    if (membership.add(EVENT, user)) {
+                        applied.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(users, applied.get());
+        assertEquals(users, membership.toMap().get("likes"));
+    }
+
+    @Test
+    void replacingWithASerializedBitmapReportsWhoJoinedAndLeft() {
+        LikeMembership source = new LikeMembership();
+        source.add(EVENT, 1);
+        source.add(EVENT, 2);
+        LikeMembership target = new LikeMembership();
+        target.add(EVENT, 2);
+        target.add(EVENT, 3);
+        List<Long> added = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+
+        target.replaceSerialized(EVENT, ByteBuffer.wrap(source.serialized(EVENT)), added::add, removed::add);
+        assertEquals(List.of(1L), added);
+        assertEquals(List.of(3L), removed);
+        assertTrue(target.contains(EVENT, 1) && target.contains(EVENT, 2) && !target.contains(EVENT, 3));
+
+        target.replaceSerialized(EVENT, ByteBuffer.allocate(0), added::add, removed::add);
+        assertEquals(List.of(3L, 1L, 2L), removed);
+        assertNull(target.serialized(EVENT));
+        assertNull(source.serialized(ByteString.copyFromUtf8("other")));
+    }
+
+    @Test
+    void denseUserIdsTakeFarLessThanALongEach() {
+        LikeMembership membership = new LikeMembership();
+        int users = 1_000_000;
+        for (long user = 1; user <= users; user++) {
+            membership.add(EVENT, user);
+        }
+
+        assertTrue(membership.toMap().get("bytes") < users / 4, "bitmap took " + membership.toMap().get("bytes") + " bytes");
+    }
+}
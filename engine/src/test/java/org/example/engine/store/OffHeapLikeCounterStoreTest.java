@@ -0,0 +1,89 @@
+package org.example.engine.store;
+
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapLikeCounterStoreTest {
+
+    @Test
+    void countsSurviveGrowthFromATinyTable() {
+        OffHeapLikeCounterStore store = new OffHeapLikeCounterStore(1, 4, 0.5f, 2);
+        int keys = 20_000;
+        for (int i = 0; i < keys; i++) {
+            store.add("event-" + i, i);
+        }
+        for (int i = 0; i < keys; i++) {
+            assertEquals(i + 1, store.increment(ByteString.copyFromUtf8("event-" + i)));
+        }
+
+        assertEquals(keys, store.size());
+        assertEquals(0, store.get("missing"));
+        assertEquals(42, store.decrement("event-42"));
+    }
+
+    @Test
+    void concurrentInsertsAndIncrementsAreNotLost() throws InterruptedException {
+        OffHeapLikeCounterStore store = new OffHeapLikeCounterStore(16);
+        int threads = 8;
+        int keys = 5_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < keys; i++) {
+                    store.increment("k" + i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(keys, store.size());
+        for (int i = 0; i < keys; i++) {
+            assertEquals(threads, store.get("k" + i));
+        }
+    }
+
+    @Test
+    void optimisticReadsStayCorrectWhileShardsGrow() throws InterruptedException {
+        OffHeapLikeCounterStore store = new OffHeapLikeCounterStore(16, 1, 0.7f, 2);
+        store.add("stable", 7);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicLong wrongReads = new AtomicLong();
+
+        Thread reader = new Thread(() -> {
+            while (writing.get()) {
+                if (store.get("stable") != 7) {
+                    wrongReads.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        // One shard, so every insert races the reader and the table resizes many times
+        for (int i = 0; i < 50_000; i++) {
+            store.increment("k" + i);
+        }
+        writing.set(false);
+        reader.join();
+
+        assertEquals(0, wrongReads.get());
+        assertEquals(1, store.get("k49999"));
+    }
+
+    @Test
+    void rejectsInvalidResizePolicy() {
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapLikeCounterStore(16, 3, 0.7f, 2));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapLikeCounterStore(16, 4, 1.0f, 2));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapLikeCounterStore(16, 4, 0.7f, 3));
+    }
+}
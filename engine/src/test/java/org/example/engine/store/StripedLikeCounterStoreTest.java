@@ -0,0 +1,54 @@
+package org.example.engine.store;
+
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedLikeCounterStoreTest {
+
+    @Test
+    void incrementAndDecrementReturnTheUpdatedCount() {
+        LikeCounterStore store = new StripedLikeCounterStore();
+
+        assertEquals(0, store.get("e1"));
+        assertEquals(1, store.increment("e1"));
+        assertEquals(2, store.increment("e1"));
+        assertEquals(1, store.decrement("e1"));
+        assertEquals(1, store.get("e1"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void concurrentHotKeyIncrementsAreNotLost() throws InterruptedException {
+        LikeCounterStore store = new StripedLikeCounterStore();
+        int threads = 8;
+        int perThread = 50_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    long count = store.increment("viral");
+                    assertTrue(count > 0);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals((long) threads * perThread, store.get("viral"));
+    }
+
+    @Test
+    void numericKeysMatchTheirDecimalStringIds() {
+        assertEquals(ByteString.copyFromUtf8("0"), LikeCounterStore.key(0));
+        assertEquals(ByteString.copyFromUtf8("9007199254740993"), LikeCounterStore.key(9007199254740993L));
+        assertEquals(ByteString.copyFromUtf8("18446744073709551615"), LikeCounterStore.key(-1));
+    }
+}
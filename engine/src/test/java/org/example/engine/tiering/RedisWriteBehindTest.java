@@ -0,0 +1,125 @@
+package org.example.engine.tiering;
+
+import com.google.protobuf.ByteString;
+import io.lettuce.core.RedisClient;
+import org.example.core.metrics.Metrics;
+import org.example.core.redis.RedisStandIn;
+import org.example.engine.processor.CountCallback;
+import org.example.engine.processor.DirectLikeProcessor;
+import org.example.engine.processor.LikeProcessor;
+import org.example.engine.processor.NotifyingLikeProcessor;
+import org.example.engine.store.LikeCounterStore;
+import org.example.engine.store.StripedLikeCounterStore;
+import org.example.engine.wal.MutationLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RedisWriteBehindTest {
+
+    private static final CountCallback IGNORE = new CountCallback() {
+        @Override
+        public void onCount(long count) {
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            throw new AssertionError(error);
+        }
+    };
+
+    private RedisStandIn redis;
+    private RedisClient client;
+    private LikeCounterStore store;
+    private Metrics metrics;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        redis = new RedisStandIn();
+        client = RedisClient.create(redis.uri());
+        store = new StripedLikeCounterStore(16);
+        metrics = new Metrics();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.shutdown();
+        redis.close();
+    }
+
+    @Test
+    void firstFlushCopiesTheStoreThenOnlyDirtyEvents() throws Exception {
+        store.add("a", 3);
+        store.add("b", 5);
+        try (RedisWriteBehind writeBehind = new RedisWriteBehind(store, client, "likes:", 100, 2, 60_000, metrics)) {
+            LikeProcessor processor = new NotifyingLikeProcessor(new DirectLikeProcessor(store, MutationLog.NONE), writeBehind::markDirty);
+
+            writeBehind.flush();
+            assertEquals("3", redis.get("likes:a"));
+            assertEquals("5", redis.get("likes:b"));
+
+            for (int i = 0; i < 4; i++) {
+                processor.submit(ByteString.copyFromUtf8("c"), 1, IGNORE);
+            }
+            processor.submit(ByteString.copyFromUtf8("a"), -1, IGNORE);
+            assertEquals(2L, writeBehind.toMap().get("dirty"));
+
+            writeBehind.flush();
+            assertEquals("2", redis.get("likes:a"));
+            assertEquals("4", redis.get("likes:c"));
+            assertEquals(0L, writeBehind.toMap().get("dirty"));
+            assertEquals(4L, writeBehind.toMap().get("keys"));
+            assertEquals(1L, metrics.counter("redis.writebehind.resyncs").sum());
+        }
+    }
+
+    @Test
+    void overflowingTheDirtySetFallsBackToAFullResync() throws Exception {
+        try (RedisWriteBehind writeBehind = new RedisWriteBehind(store, client, "likes:", 2, 16, 60_000, metrics)) {
+            writeBehind.flush();
+            for (String id : new String[]{"a", "b", "c"}) {
+                store.increment(id);
+                writeBehind.markDirty(ByteString.copyFromUtf8(id));
+            }
+            assertEquals(1L, writeBehind.toMap().get("resyncPending"));
+
+            writeBehind.flush();
+            assertEquals("1", redis.get("likes:a"));
+            assertEquals("1", redis.get("likes:b"));
+            assertEquals("1", redis.get("likes:c"));
+            assertEquals(1L, metrics.counter("redis.writebehind.overflows").sum());
+            assertEquals(0L, writeBehind.toMap().get("resyncPending"));
+        }
+    }
+
+    @Test
+    void failedFlushIsRetriedAsAResync() throws Exception {
+        store.increment("a");
+        redis.close();
+        RedisWriteBehind writeBehind = new RedisWriteBehind(store, client, "likes:", 100, 16, 60_000, metrics);
+
+        assertThrows(Exception.class, writeBehind::flush);
+        assertEquals(1L, writeBehind.toMap().get("resyncPending"));
+        assertEquals(1L, writeBehind.toMap().get("failures"));
+        assertNull(redis.get("likes:a"));
+    }
+
+    @Test
+    void backgroundFlushesRecordTheLag() throws Exception {
+        try (RedisWriteBehind writeBehind = new RedisWriteBehind(store, client, "likes:", 100, 16, 10, metrics)) {
+            writeBehind.start();
+            store.increment("a");
+            writeBehind.markDirty(ByteString.copyFromUtf8("a"));
+
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (!"1".equals(redis.get("likes:a")) && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals("1", redis.get("likes:a"));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.engine.trending;
+
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+
+    @Test
+    void heavyHittersSurviveALongTailOfRareKeys() {
+        SpaceSaving summary = new SpaceSaving(16);
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            // Three hot keys get 30% of the stream, the rest is spread over 50k rare ones
+            int roll = random.nextInt(10);
+            String key = roll < 3 ? "hot" + roll : "cold" + random.nextInt(50_000);
+            summary.add(ByteString.copyFromUtf8(key), 1);
+        }
+
+        Map<String, Long> tracked = new HashMap<>();
+        summary.forEach((key, count) -> tracked.put(key.toStringUtf8(), count));
+        assertEquals(16, summary.size());
+        for (int hot = 0; hot < 3; hot++) {
+            Long count = tracked.get("hot" + hot);
+            assertTrue(count != null && count >= 10_000 * 0.9, "hot" + hot + " counted " + count);
+        }
+    }
+
+    @Test
+    void clearForgetsEveryKey() {
+        SpaceSaving summary = new SpaceSaving(4);
+        summary.add(ByteString.copyFromUtf8("a"), 3);
+        summary.clear();
+        summary.add(ByteString.copyFromUtf8("b"), 1);
+
+        Map<String, Long> tracked = new HashMap<>();
+        summary.forEach((key, count) -> tracked.put(key.toStringUtf8(), count));
+        assertEquals(Map.of("b", 1L), tracked);
+    }
+}
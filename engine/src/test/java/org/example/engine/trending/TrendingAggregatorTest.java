@@ -0,0 +1,74 @@
+package org.example.engine.trending;
+
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrendingAggregatorTest {
+
+    private static final long BUCKET = 1000;
+
+    @Test
+    void windowsOnlyCountTheirOwnBuckets() {
+        TrendingAggregator aggregator = at(0);
+        like(aggregator, "a", 5);
+        aggregator.tick(BUCKET);
+        like(aggregator, "a", 2);
+        aggregator.tick(2 * BUCKET);
+        like(aggregator, "a", 1);
+
+        assertEquals(1, aggregator.count(id("a"), BUCKET));
+        assertEquals(3, aggregator.count(id("a"), 2 * BUCKET));
+        assertEquals(8, aggregator.count(id("a"), 3 * BUCKET));
+        // The ring holds 4 buckets, so once bucket 0 falls out its 5 likes are gone
+        aggregator.tick(4 * BUCKET);
+        assertEquals(3, aggregator.count(id("a"), 10 * BUCKET));
+    }
+
+    @Test
+    void topKRanksEventsByLikesInTheWindow() {
+        TrendingAggregator aggregator = at(0);
+        like(aggregator, "old", 50);
+        aggregator.tick(2 * BUCKET);
+        like(aggregator, "x", 3);
+        like(aggregator, "y", 7);
+        like(aggregator, "z", 1);
+        aggregator.record(id("y"), -1); // unlikes do not take likes out of a window
+
+        assertEquals(List.of(new TrendingAggregator.Trend(id("y"), 7), new TrendingAggregator.Trend(id("x"), 3)),
+                aggregator.topK(BUCKET, 2));
+        assertEquals(id("old"), aggregator.topK(3 * BUCKET, 1).get(0).eventId());
+    }
+
+    @Test
+    void eventsIdleForAWholeRingAreDropped() {
+        TrendingAggregator aggregator = at(0);
+        like(aggregator, "idle", 1);
+        aggregator.tick(BUCKET);
+        like(aggregator, "busy", 1);
+
+        aggregator.tick(4 * BUCKET);
+        assertEquals(1L, aggregator.toMap().get("trackedEvents"));
+
+        // A like after the drop starts a fresh ring
+        like(aggregator, "idle", 2);
+        assertEquals(2, aggregator.count(id("idle"), 4 * BUCKET));
+    }
+
+    private static TrendingAggregator at(long nowMillis) {
+        return new TrendingAggregator(BUCKET, 4, 64, nowMillis);
+    }
+
+    private static void like(TrendingAggregator aggregator, String eventId, int times) {
+        for (int i = 0; i < times; i++) {
+            aggregator.record(id(eventId), 1);
+        }
+    }
+
+    private static ByteString id(String eventId) {
+        return ByteString.copyFromUtf8(eventId);
+    }
+}
@@ -0,0 +1,140 @@
+package org.example.engine.wal;
+
+import com.google.protobuf.ByteString;
+import org.example.engine.store.LikeCounterStore;
+import org.example.engine.store.LikeMembership;
+import org.example.engine.store.StripedLikeCounterStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayRebuildsCountsAcrossSegmentsAfterReopen() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(directory, 1024, FsyncPolicy.NONE, 0)) {
+            for (int i = 0; i < 500; i++) {
+                wal.append(ByteString.copyFromUtf8("event-" + (i % 10)), 1);
+            }
+            wal.append(ByteString.copyFromUtf8("event-0"), -1);
+        }
+        assertTrue(segmentCount() > 1);
+
+        long position;
+        try (WriteAheadLog wal = WriteAheadLog.open(directory, 1024, FsyncPolicy.NONE, 0)) {
+            wal.append(ByteString.copyFromUtf8("event-1"), 1);
+            position = wal.position();
+        }
+
+        LikeCounterStore store = new StripedLikeCounterStore();
+        try (WriteAheadLog wal = WriteAheadLog.open(directory, 1024, FsyncPolicy.NONE, 0)) {
+            assertEquals(position, wal.position());
+            assertEquals(502, wal.replay(0L, store::add));
+        }
+        assertEquals(49, store.get("event-0"));
+        assertEquals(51, store.get("event-1"));
+        assertEquals(50, store.get("event-9"));
+    }
+
+    @Test
+    void userRecordsRestoreMembershipNextToCounts() throws IOException {
+        ByteString id = ByteString.copyFromUtf8("liked");
+        try (WriteAheadLog wal = WriteAheadLog.open(directory, 1024, FsyncPolicy.NONE, 0)) {
+            wal.append(id, 1);
+            wal.append(id, 1, 5, true);
+            wal.append(id, 1, -6L, true);
+            wal.append(id, -1, 5, false);
+            // An unlike at zero changes no count, but the user is no member any more
+            wal.append(id, 0, -6L, false);
+            wal.append(id, 1, 7, true);
+        }
+
+        LikeCounterStore store = new StripedLikeCounterStore();
+        LikeMembership membership = new LikeMembership();
+        LikeCounterStore countsOnly = new StripedLikeCounterStore();
+        try (WriteAheadLog wal = WriteAheadLog.open(directory, 1024, FsyncPolicy.NONE, 0)) {
+            assertEquals(6, wal.replay(0L, MutationConsumer.into(store, membership)));
+            assertEquals(6, wal.replay(0L, countsOnly::add));
+        }
+        assertEquals(3, store.get(id));
+        assertEquals(3, countsOnly.get(id));
+        assertFalse(membership.contains(id, 5));
+        assertFalse(membership.contains(id, -6L));
+        assertTrue(membership.contains(id, 7));
+    }
+
+    @Test
+    void tornRecordEndsRecovery() throws IOException {
+        long firstEnd;
+        try (WriteAheadLog wal = WriteAheadLog.open(directory, 4096, FsyncPolicy.NONE, 0)) {
+            firstEnd = wal.append(ByteString.copyFromUtf8("a"), 1);
+            wal.append(ByteString.copyFromUtf8("b"), 1);
+        }
+        Path segment = directory.resolve(String.format("%020d%s", 0, WriteAheadLog.SUFFIX));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // Corrupt the delta of the second record
+            channel.write(ByteBuffer.wrap(new byte[]{42}), firstEnd + 6);
+        }
+
+        LikeCounterStore store = new StripedLikeCounterStore();
+        try (WriteAheadLog wal = WriteAheadLog.open(directory, 4096, FsyncPolicy.NONE, 0)) {
+            assertEquals(firstEnd, wal.position());
+            assertEquals(1, wal.replay(0L, store::add));
+        }
+        assertEquals(1, store.get("a"));
+        assertEquals(0, store.get("b"));
+    }
+
+    @Test
+    void batchPolicyReleasesRepliesInPositionOrder() throws Exception {
+        List<Long> released = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(100);
+        try (WriteAheadLog wal = WriteAheadLog.open(directory, 1 << 20, FsyncPolicy.BATCH, 0)) {
+            for (int i = 0; i < 100; i++) {
+                long position = wal.append(ByteString.copyFromUtf8("e" + i), 1);
+                wal.whenDurable(position, () -> {
+                    released.add(position);
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        }
+        for (int i = 1; i < released.size(); i++) {
+            assertTrue(released.get(i - 1) < released.get(i));
+        }
+    }
+
+    @Test
+    void batchPolicyRunsActionsRegisteredAfterCloseInPlace() throws IOException {
+        WriteAheadLog wal = WriteAheadLog.open(directory, 1 << 20, FsyncPolicy.BATCH, 0);
+        long position = wal.append(ByteString.copyFromUtf8("e"), 1);
+        wal.close();
+        boolean[] ran = new boolean[1];
+        wal.whenDurable(position, () -> ran[0] = true);
+        assertTrue(ran[0]);
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1 @@
+wrk -t4 -c50 -d15s -s ./request.lua http://localhost:8091/like
\ No newline at end of file